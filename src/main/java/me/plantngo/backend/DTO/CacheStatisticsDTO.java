@@ -0,0 +1,26 @@
+package me.plantngo.backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheStatisticsDTO {
+
+    private String region;
+
+    private Long hitCount;
+
+    private Long missCount;
+
+    private Long putCount;
+
+    private Long elementCountInMemory;
+
+    /*
+     * hits / (hits + misses), 0.0 when the region has not been read yet
+     */
+    private Double hitRatio;
+}
@@ -0,0 +1,35 @@
+package me.plantngo.backend.DTO;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.plantngo.backend.models.EmissionFetchStatus;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmissionFetchDTO {
+
+    /*
+     * handle to poll the fetch with
+     */
+    private String id;
+
+    private EmissionFetchStatus status;
+
+    /*
+     * counts of the finished run, null until it completes
+     */
+    private EmissionFetchSummaryDTO summary;
+
+    private LocalDateTime startedDateTime;
+
+    private LocalDateTime finishedDateTime;
+
+    /*
+     * why the fetch failed, foods saved before the failure are checkpointed and skipped by the next run
+     */
+    private String error;
+}
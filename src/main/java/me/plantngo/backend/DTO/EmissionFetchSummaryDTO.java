@@ -0,0 +1,25 @@
+package me.plantngo.backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmissionFetchSummaryDTO {
+
+    private Integer total;
+
+    /*
+     * foods already fetched and saved by an earlier, interrupted run
+     */
+    private Integer skipped;
+
+    private Integer fetched;
+
+    /*
+     * foods that still failed after every retry, they are picked up again on the next run
+     */
+    private Integer failed;
+}
@@ -0,0 +1,20 @@
+package me.plantngo.backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardEntryDTO {
+
+    private Integer rank;
+
+    private String username;
+
+    /*
+     * green points held for ALL_TIME, green points earned this week for WEEKLY
+     */
+    private Long greenPoints;
+}
@@ -0,0 +1,17 @@
+package me.plantngo.backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MenuImportSummaryDTO {
+
+    private Integer categoriesCreated;
+
+    private Integer productsCreated;
+
+    private Integer ingredientsAdded;
+}
@@ -0,0 +1,32 @@
+package me.plantngo.backend.DTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MenuProductDTO {
+
+    /*
+     * created for the merchant if it does not exist yet
+     */
+    private String category;
+
+    private String name;
+
+    private Double price;
+
+    private String description;
+
+    private String flavourType;
+
+    /*
+     * carbonEmission is computed from these
+     */
+    private List<ProductIngredientDTO> ingredients = new ArrayList<>();
+}
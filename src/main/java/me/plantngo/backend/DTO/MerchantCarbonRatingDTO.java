@@ -0,0 +1,22 @@
+package me.plantngo.backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MerchantCarbonRatingDTO {
+
+    private String username;
+
+    private String company;
+
+    /*
+     * average carbonEmission of the merchant's products, lower is greener
+     */
+    private Double carbonRating;
+
+    private Long productCount;
+}
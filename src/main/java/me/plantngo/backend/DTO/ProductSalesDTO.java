@@ -0,0 +1,30 @@
+package me.plantngo.backend.DTO;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.plantngo.backend.models.DecimalJsonSerializer;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSalesDTO {
+
+    private Integer productId;
+
+    /*
+     * null if the product has been deleted since
+     */
+    private String name;
+
+    private Long orders;
+
+    private Long quantity;
+
+    @JsonSerialize(using = DecimalJsonSerializer.class)
+    private Double revenue;
+
+    private Double emissionSaved;
+}
@@ -1,8 +1,12 @@
 package me.plantngo.backend.DTO;
 
 import java.net.URL;
+import java.time.LocalDate;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
 
 import lombok.*;
 
@@ -16,10 +20,12 @@ public class PromotionDTO {
     // @NotBlank
     private URL bannerUrl;
 
-    @NotBlank
-    private String startDate;
+    @NotNull
+    @JsonFormat(pattern = "dd/MM/yyyy")
+    private LocalDate startDate;
 
-    @NotBlank
-    private String endDate;
+    @NotNull
+    @JsonFormat(pattern = "dd/MM/yyyy")
+    private LocalDate endDate;
 
 }
@@ -0,0 +1,47 @@
+package me.plantngo.backend.DTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.plantngo.backend.models.QuestEvaluationStatus;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QuestEvaluationDTO {
+
+    /*
+     * handle to poll the evaluation with
+     */
+    private String id;
+
+    private QuestEvaluationStatus status;
+
+    private List<Integer> questIds;
+
+    private Integer questsEvaluated;
+
+    /*
+     * customers with enough logs to complete a quest, summed over the quests
+     */
+    private Long customersCompleted;
+
+    /*
+     * completions recorded by this evaluation, those already rewarded before are not counted again
+     */
+    private Long customersAwarded;
+
+    private Long pointsAwarded;
+
+    private LocalDateTime startedDateTime;
+
+    private LocalDateTime finishedDateTime;
+
+    /*
+     * why the evaluation failed, completions awarded before the failure are kept
+     */
+    private String error;
+}
@@ -0,0 +1,24 @@
+package me.plantngo.backend.DTO;
+
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QuestSetDTO {
+
+    /*
+     * quests created together, in one transaction
+     */
+    @NotEmpty
+    @Size(max = 500)
+    private List<@Valid QuestDTO> quests;
+}
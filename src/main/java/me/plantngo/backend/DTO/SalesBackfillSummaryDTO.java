@@ -0,0 +1,23 @@
+package me.plantngo.backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SalesBackfillSummaryDTO {
+
+    /*
+     * fulfilled orders looked at
+     */
+    private Integer scanned;
+
+    private Integer rolledUp;
+
+    /*
+     * orders already in the rollups, e.g. added by the live consumer
+     */
+    private Integer skipped;
+}
@@ -0,0 +1,32 @@
+package me.plantngo.backend.DTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.plantngo.backend.models.SavingsBucket;
+
+/*
+ * A time series as one array per column, index i of every array is the i-th bucket.
+ * Buckets without orders are included with zeros, so the arrays can be charted as they are.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SavingsSeriesDTO {
+
+    private SavingsBucket bucket;
+
+    /*
+     * first day of each bucket; weeks start on Monday
+     */
+    private List<LocalDate> periods;
+
+    private List<Integer> orders;
+
+    private List<Double> emissionSaved;
+
+    private List<Integer> pointsEarned;
+}
@@ -0,0 +1,34 @@
+package me.plantngo.backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.plantngo.backend.models.SearchDocumentType;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchFilterDTO {
+
+    /*
+     * merchants and products if null
+     */
+    private SearchDocumentType type;
+
+    private String cuisineType;
+
+    /*
+     * leaves out merchants, which have no flavourType
+     */
+    private String flavourType;
+
+    /*
+     * compared with Product.carbonEmission and Merchant.carbonRating
+     */
+    private Double maxCarbonEmission;
+
+    /*
+     * a product's is its merchant's
+     */
+    private Integer priceRating;
+}
@@ -0,0 +1,43 @@
+package me.plantngo.backend.DTO;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.plantngo.backend.models.DecimalJsonSerializer;
+import me.plantngo.backend.models.SearchDocumentType;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchHitDTO {
+
+    private SearchDocumentType type;
+
+    private Integer id;
+
+    /*
+     * Merchant.company or Product.name
+     */
+    private String name;
+
+    private String merchantName;
+
+    private String description;
+
+    /*
+     * Product.carbonEmission or Merchant.carbonRating
+     */
+    private Double carbonEmission;
+
+    /*
+     * null for merchants
+     */
+    @JsonSerialize(using = DecimalJsonSerializer.class)
+    private Double price;
+
+    private Integer priceRating;
+
+    private Double score;
+}
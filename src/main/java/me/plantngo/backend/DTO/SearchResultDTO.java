@@ -0,0 +1,31 @@
+package me.plantngo.backend.DTO;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchResultDTO {
+
+    /*
+     * matches on every page
+     */
+    private Long total;
+
+    private List<SearchHitDTO> hits;
+
+    /*
+     * matches per carbon emission band, e.g. "500-1000", over every page
+     */
+    private Map<String, Long> carbonEmissionFacets;
+
+    /*
+     * matches per price rating, over every page
+     */
+    private Map<Integer, Long> priceRatingFacets;
+}
@@ -0,0 +1,40 @@
+package me.plantngo.backend.DTO;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.plantngo.backend.models.DecimalJsonSerializer;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SwapSuggestionDTO {
+
+    private Integer productId;
+
+    private String name;
+
+    private String merchantName;
+
+    @JsonSerialize(using = DecimalJsonSerializer.class)
+    private Double price;
+
+    private Double carbonEmission;
+
+    /*
+     * carbonEmission of the product swapped out minus this one's
+     */
+    private Double emissionSaved;
+
+    /*
+     * flavourType is one of the customer's preferences
+     */
+    private Boolean matchesPreferences;
+
+    /*
+     * customers who have had both products in fulfilled orders
+     */
+    private Integer coPurchases;
+}
@@ -3,6 +3,7 @@ package me.plantngo.backend.DTO;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 @Data
@@ -27,4 +28,10 @@ public class VoucherDTO {
 
     @NotNull(message = "description ")
     private String description;
+
+    /*
+    number of units on offer, leave empty for an unlimited voucher
+     */
+    @Min(0)
+    private Integer stock;
 }
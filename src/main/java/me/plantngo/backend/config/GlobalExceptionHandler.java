@@ -3,6 +3,7 @@ package me.plantngo.backend.config;
 import me.plantngo.backend.exceptions.*;
 import springfox.documentation.annotations.ApiIgnore;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -68,6 +69,49 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(MenuImportException.class)
+    private ResponseEntity<ErrorModel> handleMenuImport(MenuImportException ex) {
+        ErrorModel error = new ErrorModel(HttpStatus.BAD_REQUEST, "Menu import failed.", ex.getMessage());
+
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(OutOfStockException.class)
+    private ResponseEntity<ErrorModel> handleOutOfStock(OutOfStockException ex) {
+        ErrorModel error = new ErrorModel(HttpStatus.BAD_REQUEST, "Out of stock", ex.getMessage());
+
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(CartCheckedOutException.class)
+    private ResponseEntity<ErrorModel> handleCartCheckedOut(CartCheckedOutException ex) {
+        ErrorModel error = new ErrorModel(HttpStatus.CONFLICT, "Cart already checked out", ex.getMessage());
+
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    private ResponseEntity<ErrorModel> handleIdempotencyConflict(IdempotencyConflictException ex) {
+        ErrorModel error = new ErrorModel(HttpStatus.CONFLICT, "Idempotency-Key conflict", ex.getMessage());
+
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(InvalidOrderTransitionException.class)
+    private ResponseEntity<ErrorModel> handleInvalidOrderTransition(InvalidOrderTransitionException ex) {
+        ErrorModel error = new ErrorModel(HttpStatus.CONFLICT, "Invalid order status change", ex.getMessage());
+
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    private ResponseEntity<ErrorModel> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        ErrorModel error = new ErrorModel(HttpStatus.CONFLICT, "Concurrent update",
+                "This was changed by someone else at the same time, please try again.");
+
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     private ResponseEntity<ErrorModel> handleIllegalArgument(IllegalArgumentException ex) {
         ErrorModel error = new ErrorModel(HttpStatus.BAD_REQUEST, "Illegal argument(s).", ex.getMessage());
@@ -2,6 +2,7 @@ package me.plantngo.backend.config;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -17,6 +18,7 @@ import me.plantngo.backend.DTO.VoucherDTO;
 import me.plantngo.backend.models.Merchant;
 import me.plantngo.backend.models.Promotion;
 import me.plantngo.backend.models.Quest;
+import me.plantngo.backend.repositories.CustomerRepository;
 import me.plantngo.backend.repositories.PromotionRepository;
 import me.plantngo.backend.repositories.QuestRepository;
 import me.plantngo.backend.services.AuthService;
@@ -34,6 +36,8 @@ public class SampleDataConfig {
         @Autowired
         private MerchantService merchantService;
         @Autowired
+        private CustomerRepository customerRepository;
+        @Autowired
         private PromotionRepository promotionRepository;
         @Autowired
         private QuestRepository questRepository;
@@ -45,17 +49,24 @@ public class SampleDataConfig {
         CommandLineRunner commandLineRunner() {
                 return args -> {
 
-                        createCustomers();
-                        createMerchants();
-                        createMerchantCategories();
-                        createMerchantProducts();
-                        createVouchers();
-                        createPromotions();
-                        createQuests();
+                        // the schema now survives restarts, so only seed an empty database
+                        if (customerRepository.count() == 0) {
+                                seedSampleData();
+                        }
                         minioService.initBuckets();
                 };
         }
 
+        public void seedSampleData() throws MalformedURLException {
+                createCustomers();
+                createMerchants();
+                createMerchantCategories();
+                createMerchantProducts();
+                createVouchers();
+                createPromotions();
+                createQuests();
+        }
+
         public void createCustomers() {
                 RegistrationDTO customer1 = new RegistrationDTO(
                                 "soonann",
@@ -295,17 +306,20 @@ public class SampleDataConfig {
                                 100.0,
                                 'F',
                                 10.0,
-                                "$10 off sides @ PizzaHut");
+                                "$10 off sides @ PizzaHut",
+                                50);
                 VoucherDTO pizzaHutVoucher2 = new VoucherDTO(
                                 150.0,
                                 'P',
                                 0.15,
-                                "15% off total bill @ PizzaHut");
+                                "15% off total bill @ PizzaHut",
+                                null);
                 VoucherDTO pizzaHutVoucher3 = new VoucherDTO(
                                 200.0,
                                 'P',
                                 0.20,
-                                "20% off all sides @ PizzaHut");
+                                "20% off all sides @ PizzaHut",
+                                null);
                 shopService.addVoucher(pizzaHut, pizzaHutVoucher1);
                 shopService.addVoucher(pizzaHut, pizzaHutVoucher2);
                 shopService.addVoucher(pizzaHut, pizzaHutVoucher3);
@@ -315,17 +329,20 @@ public class SampleDataConfig {
                                 50.0,
                                 'F',
                                 0.0,
-                                "Free Hey Chips! - Banana Flavoured @ Fairprice");
+                                "Free Hey Chips! - Banana Flavoured @ Fairprice",
+                                null);
                 VoucherDTO fairPriceVoucher2 = new VoucherDTO(
                                 300,
                                 'F',
                                 0.0,
-                                "Free Hey Chips - Bulk (6) @ Fairprice ");
+                                "Free Hey Chips - Bulk (6) @ Fairprice ",
+                                null);
                 VoucherDTO fairPriceVoucher3 = new VoucherDTO(
                                 500.0,
                                 'F',
                                 0.0,
-                                "1-1 all Fruits Purchased (max 5 fruits)");
+                                "1-1 all Fruits Purchased (max 5 fruits)",
+                                null);
                 shopService.addVoucher(fairPrice, fairPriceVoucher1);
                 shopService.addVoucher(fairPrice, fairPriceVoucher2);
                 shopService.addVoucher(fairPrice, fairPriceVoucher3);
@@ -335,38 +352,39 @@ public class SampleDataConfig {
                                 1500.0,
                                 'P',
                                 15.0,
-                                "15% off 5 Course Set Meal");
+                                "15% off 5 Course Set Meal",
+                                null);
                 shopService.addVoucher(joieVege, joieVegeVoucher1);
 
         }
 
         private void createPromotions() throws MalformedURLException {
-                Promotion promotion = new Promotion(1, "30% Off Storewide Ala carte item takeaways", null, "20/12/2022",
-                                "06/11/2022",
+                Promotion promotion = new Promotion(1, "30% Off Storewide Ala carte item takeaways", null, LocalDate.of(2022, 11, 6),
+                                LocalDate.of(2022, 12, 20),
                                 new URL("https://www.whynotdeals.com/wp-content/uploads/2020/05/lotus-vegetarian-singapore-30-off-storewide-ala-carte-takeaways-promotion_why-not-deals.jpg"),
                                 30);
                 Promotion promotion2 = new Promotion(2,
                                 "Meatless Monday Promotion! S$1 Claypot Rice with Chicken in GongBao Sauce", null,
-                                "20/12/2022",
-                                "06/11/2022",
+                                LocalDate.of(2022, 11, 6),
+                                LocalDate.of(2022, 12, 20),
                                 new URL("https://media.womensweekly.com.sg/public/2019/11/Where-To-Go-For-Delicious-Vegetarian-Food-In-Singapore_3.jpg?compress=true&quality=80&w=480&dpr=2.6"),
                                 20);
                 Promotion promotion3 = new Promotion(3,
                                 "Students and Seniors Specials, S$5.90 Signature Bento Set and Noodles", null,
-                                "20/12/2022",
-                                "06/11/2022",
+                                LocalDate.of(2022, 11, 6),
+                                LocalDate.of(2022, 12, 20),
                                 new URL("https://www.greendot.sg/wp-content/uploads/2019/09/WEB_Students-Senior-Promotion-01.jpg"),
                                 1);
                 Promotion promotion4 = new Promotion(4,
                                 "Greendot free delivery!", null,
-                                "20/12/2022",
-                                "06/11/2022",
+                                LocalDate.of(2022, 11, 6),
+                                LocalDate.of(2022, 12, 20),
                                 new URL("https://www.greendot.sg/wp-content/uploads/2020/11/homebanner_getz-1048x576.jpeg"),
                                 1);
                 Promotion promotion5 = new Promotion(5,
                                 "Lotus Kitchen Mother's Day, 9 Course Special", null,
-                                "20/12/2022",
-                                "06/11/2022",
+                                LocalDate.of(2022, 11, 6),
+                                LocalDate.of(2022, 12, 20),
                                 new URL("https://www.whynotdeals.com/wp-content/uploads/2018/05/lotus-kitchen-singapore-mothers-day-vegetarian-9-course-meal-promotion-1-31-may-2018_why-not-deals.jpg"),
                                 1);
 
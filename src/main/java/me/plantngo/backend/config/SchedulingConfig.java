@@ -0,0 +1,14 @@
+package me.plantngo.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/*
+ * Enables @Async background work (e.g. the ingredient snapshot import on startup) and @Scheduled jobs
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,34 @@
+package me.plantngo.backend.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import me.plantngo.backend.DTO.CacheStatisticsDTO;
+import me.plantngo.backend.services.CacheStatisticsService;
+
+@RestController
+@RequestMapping(path = "api/v1/cache")
+@Api(value = "Cache Controller", description = "Second-level cache statistics for reference data")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class CacheController {
+
+    private final CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    public CacheController(CacheStatisticsService cacheStatisticsService) {
+        this.cacheStatisticsService = cacheStatisticsService;
+    }
+
+    @ApiOperation(value = "Get hit/miss statistics for every cache region")
+    @GetMapping(path = "/statistics")
+    public List<CacheStatisticsDTO> getCacheStatistics() {
+        return cacheStatisticsService.getCacheStatistics();
+    }
+}
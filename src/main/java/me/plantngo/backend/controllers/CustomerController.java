@@ -1,10 +1,13 @@
 package me.plantngo.backend.controllers;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import me.plantngo.backend.DTO.SavingsSeriesDTO;
 import me.plantngo.backend.DTO.UpdateCustomerDetailsDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,11 +16,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.models.SavingsBucket;
+import me.plantngo.backend.services.CustomerSavingsService;
 import me.plantngo.backend.services.CustomerService;
 
 
@@ -29,9 +35,12 @@ public class CustomerController {
 
     private final CustomerService customerService;
 
+    private final CustomerSavingsService customerSavingsService;
+
     @Autowired
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, CustomerSavingsService customerSavingsService) {
         this.customerService = customerService;
+        this.customerSavingsService = customerSavingsService;
     }
 
     @ApiOperation(value = "Get a specific Customer given their Username")
@@ -47,6 +56,15 @@ public class CustomerController {
         return customerService.findAll();
     }
 
+    @ApiOperation(value = "Get a Customer's emissions saved and green points earned per day, week or month")
+    @GetMapping(path = "/{username}/savings")
+    public SavingsSeriesDTO getSavings(@PathVariable("username") String username,
+            @RequestParam(value = "bucket", required = false, defaultValue = "DAY") SavingsBucket bucket,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return customerSavingsService.getSeries(username, bucket, from, to);
+    }
+
     @ApiOperation(value = "Edit a registered Customer's fields")
     @PutMapping(path="/{username}")
     public ResponseEntity<Customer> updateCustomer(@RequestBody UpdateCustomerDetailsDTO updateCustomerDetailsDTO,
@@ -3,15 +3,23 @@ package me.plantngo.backend.controllers;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import me.plantngo.backend.DTO.EmissionFetchDTO;
 import me.plantngo.backend.models.Ingredient;
+import me.plantngo.backend.services.EmissionFetchService;
 import me.plantngo.backend.services.EmissionService;
+import me.plantngo.backend.services.IngredientSearchService;
 
 @RestController
 @RequestMapping(path = "api/v1/ingredient")
@@ -21,9 +29,16 @@ public class IngredientController {
 
     private final EmissionService emissionService;
 
+    private final IngredientSearchService ingredientSearchService;
+
+    private final EmissionFetchService emissionFetchService;
+
     @Autowired
-    public IngredientController(EmissionService emissionService) {
+    public IngredientController(EmissionService emissionService, IngredientSearchService ingredientSearchService,
+            EmissionFetchService emissionFetchService) {
         this.emissionService = emissionService;
+        this.ingredientSearchService = ingredientSearchService;
+        this.emissionFetchService = emissionFetchService;
     }
 
     @ApiOperation(value = "Get all Ingredients")
@@ -32,10 +47,29 @@ public class IngredientController {
         return emissionService.getAllIngredients();
     }
 
+    @ApiOperation(value = "Search Ingredients by name or category prefix, best matches first")
+    @GetMapping(path = "/search")
+    public List<Ingredient> searchIngredients(@RequestParam("q") String query,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return ingredientSearchService.searchIngredients(query, limit);
+    }
+
     @ApiOperation(value = "Temporary endpoint to scrape data from myemissions.green and create + store Ingredient objects in local Repository")
     @GetMapping(path="/generate")
     public List<Ingredient> generateEmissions() {
         return emissionService.populateRepository();
     }
 
+    @ApiOperation(value = "Temporary endpoint to fetch every food and its emissions from myemissions.green in the background, resuming an interrupted run")
+    @PostMapping(path = "/generate/myemissions")
+    public ResponseEntity<EmissionFetchDTO> generateMyEmissions() {
+        return new ResponseEntity<>(emissionFetchService.startFetch(), HttpStatus.ACCEPTED);
+    }
+
+    @ApiOperation(value = "Get the progress of a myemissions.green fetch")
+    @GetMapping(path = "/generate/myemissions/{id}")
+    public EmissionFetchDTO getMyEmissionsFetch(@PathVariable("id") String id) {
+        return emissionFetchService.getFetch(id);
+    }
+
 }
@@ -0,0 +1,54 @@
+package me.plantngo.backend.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import me.plantngo.backend.DTO.LeaderboardEntryDTO;
+import me.plantngo.backend.models.LeaderboardPeriod;
+import me.plantngo.backend.services.LeaderboardService;
+
+@RestController
+@RequestMapping(path = "api/v1/leaderboard")
+@Api(value = "Leaderboard Controller", description = "Green points leaderboards")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class LeaderboardController {
+
+    private final LeaderboardService leaderboardService;
+
+    @Autowired
+    public LeaderboardController(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+
+    @ApiOperation(value = "Get the top Customers by green points, all-time or earned this week")
+    @GetMapping(path = "")
+    public List<LeaderboardEntryDTO> getTop(
+            @RequestParam(value = "period", required = false, defaultValue = "ALL_TIME") LeaderboardPeriod period,
+            @RequestParam(value = "limit", required = false, defaultValue = "10") Integer limit) {
+        return leaderboardService.getTop(period, Math.max(0, limit));
+    }
+
+    @ApiOperation(value = "Get a Customer's rank given their Username")
+    @GetMapping(path = "/{username}")
+    public LeaderboardEntryDTO getRank(@PathVariable("username") String username,
+            @RequestParam(value = "period", required = false, defaultValue = "ALL_TIME") LeaderboardPeriod period) {
+        return leaderboardService.getRank(username, period);
+    }
+
+    @ApiOperation(value = "Get the Customers ranked just above and below a Customer")
+    @GetMapping(path = "/{username}/around")
+    public List<LeaderboardEntryDTO> getAroundMe(@PathVariable("username") String username,
+            @RequestParam(value = "period", required = false, defaultValue = "ALL_TIME") LeaderboardPeriod period,
+            @RequestParam(value = "radius", required = false, defaultValue = "5") Integer radius) {
+        return leaderboardService.getAroundMe(username, period, Math.max(0, radius));
+    }
+}
@@ -2,6 +2,7 @@ package me.plantngo.backend.controllers;
 
 import java.util.List;
 
+import me.plantngo.backend.DTO.MerchantCarbonRatingDTO;
 import me.plantngo.backend.DTO.UpdateMerchantDetailsDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.services.CarbonRatingService;
 import me.plantngo.backend.services.MerchantService;
 
 @RestController()
@@ -21,9 +23,12 @@ public class MerchantController {
     
     private final MerchantService merchantService;
 
+    private final CarbonRatingService carbonRatingService;
+
     @Autowired
-    public MerchantController(MerchantService merchantService) {
+    public MerchantController(MerchantService merchantService, CarbonRatingService carbonRatingService) {
         this.merchantService = merchantService;
+        this.carbonRatingService = carbonRatingService;
     }
     
 
@@ -48,6 +53,13 @@ public class MerchantController {
         return merchantService.findMerchantsInRange(latitude, longitude);
     }
 
+    @ApiOperation(value = "Get the Merchants with the lowest average Product carbon emissions")
+    @GetMapping(path = "/greenest")
+    public List<MerchantCarbonRatingDTO> getGreenestMerchants(
+            @RequestParam(value = "limit", required = false, defaultValue = "10") Integer limit) {
+        return carbonRatingService.getGreenestMerchants(Math.max(0, limit));
+    }
+
     @ApiOperation(value = "Edit a registered Merchant's fields")
     @PutMapping(path="/{username}")
     public ResponseEntity<Merchant> updateMerchant(@RequestBody UpdateMerchantDetailsDTO updateMerchantDetailsDTO,
@@ -4,7 +4,6 @@ import java.util.List;
 
 import javax.validation.Valid;
 
-import me.plantngo.backend.services.LogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -20,12 +19,14 @@ import me.plantngo.backend.DTO.OrderItemDTO;
 import me.plantngo.backend.DTO.UpdateOrderDTO;
 import me.plantngo.backend.models.Order;
 import me.plantngo.backend.models.OrderStatus;
+import me.plantngo.backend.services.IdempotencyService;
 import me.plantngo.backend.services.OrderService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 @RestController()
 @RequestMapping(path = "api/v1/order")
@@ -35,9 +36,12 @@ public class OrderController {
 
     private final OrderService orderService;
 
+    private final IdempotencyService idempotencyService;
+
     @Autowired
-    public OrderController(OrderService orderService, LogService logService) {
+    public OrderController(OrderService orderService, IdempotencyService idempotencyService) {
         this.orderService = orderService;
+        this.idempotencyService = idempotencyService;
     }
 
     @ApiOperation(value = "Get all placed Orders")
@@ -105,11 +109,15 @@ public class OrderController {
         return orderService.getCancelledOrdersByMerchantName(name);
     }
 
-    @ApiOperation(value = "Create a new Order with Order Items")
+    @ApiOperation(value = "Create a new Order with Order Items, retries with the same Idempotency-Key return the first Order")
     @PostMapping(path = "/{customerName}")
     public ResponseEntity<Order> addToOrder(@RequestBody @Valid OrderDTO placeOrderDTO,
-            @PathVariable("customerName") String customerName) {
-        Order order = orderService.addOrder(placeOrderDTO, customerName);
+            @PathVariable("customerName") String customerName,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Order order = idempotencyService.execute(idempotencyKey, "POST /order/" + customerName, placeOrderDTO,
+                () -> orderService.addOrder(placeOrderDTO, customerName),
+                placed -> placed.getId().toString(),
+                orderId -> orderService.getOrderById(Integer.valueOf(orderId)));
         return new ResponseEntity<>(order, HttpStatus.CREATED);
     }
 
@@ -15,14 +15,17 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import me.plantngo.backend.DTO.ProductIngredientDTO;
+import me.plantngo.backend.DTO.SwapSuggestionDTO;
 import me.plantngo.backend.models.Product;
 import me.plantngo.backend.models.ProductIngredient;
 import me.plantngo.backend.services.ProductService;
+import me.plantngo.backend.services.RecommendationService;
 
 @RestController()
 @RequestMapping(path = "api/v1/product")
@@ -32,9 +35,12 @@ public class ProductController {
 
     private final ProductService productService;
 
+    private final RecommendationService recommendationService;
+
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, RecommendationService recommendationService) {
         this.productService = productService;
+        this.recommendationService = recommendationService;
     }
 
     @ApiOperation(value = "Get all registered Products")
@@ -49,6 +55,14 @@ public class ProductController {
         return productService.getProductById(productId);
     }
 
+    @ApiOperation(value = "Get lower-emission Products in the same category and flavour from any Merchant, ranked for a Customer if given")
+    @GetMapping(path = "/{productId}/greener-swaps")
+    public List<SwapSuggestionDTO> getGreenerSwaps(@PathVariable("productId") Integer productId,
+            @RequestParam(value = "username", required = false) String username,
+            @RequestParam(value = "limit", defaultValue = "5") Integer limit) {
+        return recommendationService.suggestSwaps(productId, username, limit);
+    }
+
     @ApiOperation(value = "Get all Product Ingredients By Merchant And Product")
     @GetMapping(path = "/{merchantName}/{productName}")
     public List<ProductIngredient> getProductIngredientsByMerchantAndProduct(
@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
@@ -25,6 +26,7 @@ import io.swagger.annotations.ApiOperation;
 import me.plantngo.backend.DTO.PromotionDTO;
 import me.plantngo.backend.models.Merchant;
 import me.plantngo.backend.models.Promotion;
+import me.plantngo.backend.models.PromotionOrder;
 import me.plantngo.backend.services.MerchantService;
 import me.plantngo.backend.services.PromotionService;
 
@@ -49,10 +51,14 @@ public class PromotionController {
         return promotionService.getAllPromotions();
     }
 
-    @ApiOperation(value = "Get all existing Promotions Sorted")
+    @ApiOperation(value = "Get a page of existing Promotions Sorted by clicks or trending score")
     @GetMapping(path = "/allPromoSorted")
-    public List<Promotion> getAllPromotionsSorted() {
-        return promotionService.getAllPromotionsSorted();
+    public List<Promotion> getAllPromotionsSorted(
+            @RequestParam(value = "order", required = false, defaultValue = "CLICKS") PromotionOrder order,
+            @RequestParam(value = "activeOnly", required = false, defaultValue = "false") Boolean activeOnly,
+            @RequestParam(value = "page", required = false, defaultValue = "0") Integer page,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return promotionService.getAllPromotionsSorted(order, activeOnly, page, size);
     }
 
     @ApiOperation(value = "Adding clicks")
@@ -62,6 +68,12 @@ public class PromotionController {
         return new ResponseEntity<>("Promotion clicked", HttpStatus.OK);
     }
 
+    @ApiOperation(value = "Get a Promotion's clicks, including clicks not yet saved")
+    @GetMapping(path = "/clicks/{promotionId}")
+    public Integer getLiveClicks(@PathVariable("promotionId") Integer id) {
+        return promotionService.getLiveClicks(id);
+    }
+
     @ApiOperation(value = "Create a Promotion")
     @PostMapping(path = "/{merchantName}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Promotion> addPromotion(@Valid @RequestPart("promotion") PromotionDTO promotionDTO,
@@ -78,6 +90,12 @@ public class PromotionController {
         return promotionService.getPromotionsByMerchant(merchantService.getMerchantByUsername(merchantName));
     }
 
+    @ApiOperation(value = "Get Merchant Promotions running today")
+    @GetMapping(path = "/{merchantName}/active")
+    public List<Promotion> getActivePromotions(@PathVariable("merchantName") String merchantName) {
+        return promotionService.getActivePromotionsByMerchant(merchantService.getMerchantByUsername(merchantName));
+    }
+
     @ApiOperation(value = "Delete a Merchant's Promotion given its Id")
     @DeleteMapping(path = "/{promotionId}")
     public ResponseEntity<String> deletePromotion(@PathVariable("promotionId") Integer promotionId) {
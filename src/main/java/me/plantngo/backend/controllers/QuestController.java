@@ -3,10 +3,14 @@ package me.plantngo.backend.controllers;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import me.plantngo.backend.DTO.QuestDTO;
+import me.plantngo.backend.DTO.QuestEvaluationDTO;
 import me.plantngo.backend.DTO.QuestProgressDTO;
+import me.plantngo.backend.DTO.QuestSetDTO;
 import me.plantngo.backend.models.Quest;
+import me.plantngo.backend.services.QuestEvaluationService;
 import me.plantngo.backend.services.QuestService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,9 +24,12 @@ import java.util.List;
 public class QuestController {
     private final QuestService questService;
 
+    private final QuestEvaluationService questEvaluationService;
+
     @Autowired
-    public QuestController(QuestService questService) {
+    public QuestController(QuestService questService, QuestEvaluationService questEvaluationService) {
         this.questService = questService;
+        this.questEvaluationService = questEvaluationService;
     }
 
     @ApiOperation(value = "Get all quests")
@@ -61,6 +68,12 @@ public class QuestController {
         return questService.addQuest(questDTO);
     }
 
+    @ApiOperation(value = "Create a set of quests in one go")
+    @PostMapping(path = "/batch")
+    public ResponseEntity<List<Quest>> addQuests(@Valid @RequestBody QuestSetDTO questSetDTO) {
+        return new ResponseEntity<>(questService.addQuests(questSetDTO.getQuests()), HttpStatus.CREATED);
+    }
+
     @ApiOperation(value = "Delete a quest by id")
     @DeleteMapping(path = "/{id}")
     public ResponseEntity<String> deleteQuest(@PathVariable Integer id) {
@@ -86,4 +99,17 @@ public class QuestController {
         return questService.refreshAll();
     }
 
+    @ApiOperation("Evaluate quests for all customers in the background, every active quest if none are given")
+    @PostMapping("/evaluations")
+    public ResponseEntity<QuestEvaluationDTO> startEvaluation(
+            @RequestParam(value = "questIds", required = false) List<Integer> questIds) {
+        return new ResponseEntity<>(questEvaluationService.startEvaluation(questIds), HttpStatus.ACCEPTED);
+    }
+
+    @ApiOperation("Get the progress of a quest evaluation")
+    @GetMapping("/evaluations/{id}")
+    public QuestEvaluationDTO getEvaluation(@PathVariable("id") String id) {
+        return questEvaluationService.getEvaluation(id);
+    }
+
 }
@@ -0,0 +1,57 @@
+package me.plantngo.backend.controllers;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import me.plantngo.backend.DTO.ProductSalesDTO;
+import me.plantngo.backend.DTO.SalesBackfillSummaryDTO;
+import me.plantngo.backend.models.MerchantDailySales;
+import me.plantngo.backend.services.SalesRollupService;
+
+@RestController
+@RequestMapping(path = "api/v1/sales")
+@Api(value = "Sales Controller", description = "Merchant sales and emissions saved, from the daily rollups")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class SalesController {
+
+    private final SalesRollupService salesRollupService;
+
+    @Autowired
+    public SalesController(SalesRollupService salesRollupService) {
+        this.salesRollupService = salesRollupService;
+    }
+
+    @ApiOperation(value = "Get a Merchant's fulfilled orders, revenue and emissions saved per day")
+    @GetMapping(path = "/{merchantName}")
+    public List<MerchantDailySales> getDailySales(@PathVariable("merchantName") String merchantName,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return salesRollupService.getDailySales(merchantName, from, to);
+    }
+
+    @ApiOperation(value = "Get a Merchant's sales per Product over a date range")
+    @GetMapping(path = "/{merchantName}/products")
+    public List<ProductSalesDTO> getProductSales(@PathVariable("merchantName") String merchantName,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return salesRollupService.getProductSales(merchantName, from, to);
+    }
+
+    @ApiOperation(value = "Add fulfilled orders from before the rollups existed")
+    @PostMapping(path = "/backfill")
+    public SalesBackfillSummaryDTO backfill() {
+        return salesRollupService.backfill();
+    }
+}
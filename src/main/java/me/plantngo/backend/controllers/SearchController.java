@@ -0,0 +1,36 @@
+package me.plantngo.backend.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import me.plantngo.backend.DTO.SearchFilterDTO;
+import me.plantngo.backend.DTO.SearchResultDTO;
+import me.plantngo.backend.services.CatalogueSearchService;
+
+@RestController
+@RequestMapping(path = "api/v1/search")
+@Api(value = "Search Controller", description = "Full-text search over Merchants and Products")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class SearchController {
+
+    private final CatalogueSearchService catalogueSearchService;
+
+    @Autowired
+    public SearchController(CatalogueSearchService catalogueSearchService) {
+        this.catalogueSearchService = catalogueSearchService;
+    }
+
+    @ApiOperation(value = "Search Merchants and Products, filtered by type, cuisineType, flavourType, maxCarbonEmission and priceRating, with carbon emission and price rating facets")
+    @GetMapping
+    public SearchResultDTO search(@RequestParam(value = "q", required = false) String query, SearchFilterDTO filter,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return catalogueSearchService.search(query, filter, page, size);
+    }
+}
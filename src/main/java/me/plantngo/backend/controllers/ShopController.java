@@ -1,14 +1,17 @@
 package me.plantngo.backend.controllers;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.util.List;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 import me.plantngo.backend.DTO.*;
 import me.plantngo.backend.models.*;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -16,13 +19,16 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.MediaType;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import me.plantngo.backend.services.MenuService;
 import me.plantngo.backend.services.MerchantService;
 import me.plantngo.backend.services.ShopService;
 
@@ -40,10 +46,13 @@ public class ShopController {
 
     private final MerchantService merchantService;
 
+    private final MenuService menuService;
+
     @Autowired
-    public ShopController(ShopService shopService, MerchantService merchantService) {
+    public ShopController(ShopService shopService, MerchantService merchantService, MenuService menuService) {
         this.shopService = shopService;
         this.merchantService = merchantService;
+        this.menuService = menuService;
 
     }
 
@@ -84,6 +93,16 @@ public class ShopController {
 
     }
 
+    @ApiOperation(value = "Add units to a limited Voucher, a negative quantity withdraws them")
+    @PutMapping(path = "/{merchantName}/vouchers/{voucherId}/stock")
+    public ResponseEntity<String> restockVoucher(@PathVariable("merchantName") String merchantName,
+            @PathVariable("voucherId") Integer voucherId, @RequestParam("quantity") Integer quantity) {
+
+        Merchant merchant = merchantService.getMerchantByUsername(merchantName);
+        shopService.restockVoucher(merchant, voucherId, quantity);
+        return new ResponseEntity<>("Voucher restocked!", HttpStatus.OK);
+    }
+
     @ApiOperation(value = "Delete a Voucher by a Merchant given its Id")
     @DeleteMapping(path = "/{merchantName}/vouchers/{voucherId}")
     public ResponseEntity<String> deleteVoucher(@PathVariable("merchantName") String merchantName,
@@ -129,6 +148,32 @@ public class ShopController {
 
     }
 
+    @ApiOperation(value = "Import a menu of Categories, Products and their Ingredients for a Merchant, as CSV or JSON")
+    @PostMapping(path = "/{merchantName}/menu", consumes = { "text/csv", MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<MenuImportSummaryDTO> importMenu(@PathVariable("merchantName") String merchantName,
+            HttpServletRequest request) throws IOException {
+
+        MenuFormat format = request.getContentType().startsWith("text/csv") ? MenuFormat.CSV : MenuFormat.JSON;
+        MenuImportSummaryDTO summary = menuService.importMenu(merchantName, request.getInputStream(), format);
+
+        return new ResponseEntity<>(summary, HttpStatus.CREATED);
+    }
+
+    @ApiOperation(value = "Export a Merchant's menu as CSV or JSON, in the format the import takes")
+    @GetMapping(path = "/{merchantName}/menu")
+    public ResponseEntity<StreamingResponseBody> exportMenu(@PathVariable("merchantName") String merchantName,
+            @RequestParam(value = "format", defaultValue = "JSON") MenuFormat format) {
+
+        Merchant merchant = merchantService.getMerchantByUsername(merchantName);
+        StreamingResponseBody body = output -> menuService.exportMenu(merchant.getUsername(), format, output);
+
+        return ResponseEntity.ok()
+            .contentType(format == MenuFormat.CSV ? new MediaType("text", "csv") : MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"" + merchant.getUsername() + "-menu." + format.name().toLowerCase() + "\"")
+            .body(body);
+    }
+
     @ApiOperation(value = "Add a product for a Merchant")
     @PostMapping(path = "/{merchantName}/{categoryName}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<String> addProduct(@PathVariable("merchantName") String merchantName,
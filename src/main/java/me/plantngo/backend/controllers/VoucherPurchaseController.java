@@ -14,6 +14,7 @@ import io.swagger.annotations.ApiOperation;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping(path = "api/v1/store")
@@ -25,18 +26,17 @@ public class VoucherPurchaseController {
     private final CustomerService customerService;
     private final ShopService shopService;
     private final MerchantService merchantService;
-
-    private final LogService logService;
+    private final IdempotencyService idempotencyService;
 
     @Autowired
     public VoucherPurchaseController(VoucherPurchaseService voucherPurchaseService,
                                      CustomerService customerService, ShopService shopService,
-                                     MerchantService merchantService, LogService logService) {
+                                     MerchantService merchantService, IdempotencyService idempotencyService) {
         this.voucherPurchaseService = voucherPurchaseService;
         this.customerService = customerService;
         this.shopService = shopService;
         this.merchantService = merchantService;
-        this.logService = logService;
+        this.idempotencyService = idempotencyService;
     }
 
     @ApiOperation(value = "Get all existing Vouchers")
@@ -94,14 +94,19 @@ public class VoucherPurchaseController {
 
     }
 
-    @ApiOperation(value = "Handles Customer's Voucher purchase")
+    @ApiOperation(value = "Handles Customer's Voucher purchase, retries with the same Idempotency-Key are not charged again")
     @PostMapping(path="/{username}/purchase-voucher")
-    public ResponseEntity<String> purchaseVouchers(@PathVariable("username") String customerUsername){
-
-        Customer customer = customerService.getCustomerByUsername(customerUsername);
-        voucherPurchaseService.purchaseVouchers(customer);
-        logService.addLog(customerUsername, "purchase-voucher");
-        return new ResponseEntity<>("Purchase successful!", HttpStatus.OK);
+    public ResponseEntity<String> purchaseVouchers(@PathVariable("username") String customerUsername,
+                                                   @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey){
+
+        String message = idempotencyService.execute(idempotencyKey, "POST /store/" + customerUsername + "/purchase-voucher", null,
+                () -> {
+                    Customer customer = customerService.getCustomerByUsername(customerUsername);
+                    voucherPurchaseService.purchaseVouchers(customer);
+                    return "Purchase successful!";
+                },
+                Function.identity(), Function.identity());
+        return new ResponseEntity<>(message, HttpStatus.OK);
 
     }
 
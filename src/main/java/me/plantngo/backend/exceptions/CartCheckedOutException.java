@@ -0,0 +1,7 @@
+package me.plantngo.backend.exceptions;
+
+public class CartCheckedOutException extends RuntimeException{
+    public CartCheckedOutException() {
+        super("Cart is empty, it may have been checked out already");
+    }
+}
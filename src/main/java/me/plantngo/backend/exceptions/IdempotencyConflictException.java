@@ -0,0 +1,10 @@
+package me.plantngo.backend.exceptions;
+
+public class IdempotencyConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package me.plantngo.backend.exceptions;
+
+import me.plantngo.backend.models.OrderStatus;
+
+public class InvalidOrderTransitionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidOrderTransitionException(OrderStatus from, OrderStatus to) {
+        super("Cannot change a " + from + " order to " + to + "!");
+    }
+
+    public InvalidOrderTransitionException(OrderStatus status) {
+        super("Cannot change the items of a " + status + " order!");
+    }
+}
@@ -0,0 +1,16 @@
+package me.plantngo.backend.exceptions;
+
+import java.util.List;
+
+import lombok.Getter;
+
+@Getter
+public class MenuImportException extends RuntimeException {
+
+    private final List<String> errors;
+
+    public MenuImportException(List<String> errors) {
+        super(String.join("; ", errors));
+        this.errors = errors;
+    }
+}
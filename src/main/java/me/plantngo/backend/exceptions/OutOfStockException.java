@@ -0,0 +1,7 @@
+package me.plantngo.backend.exceptions;
+
+public class OutOfStockException extends RuntimeException{
+    public OutOfStockException() {
+        super("Voucher is out of stock");
+    }
+}
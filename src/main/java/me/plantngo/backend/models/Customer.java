@@ -48,6 +48,8 @@ public class Customer {
         @JsonManagedReference(value = "customer_preference")
         private List<Preference> preferences;
 
+        // only written on insert, balance changes go through GreenPointsService
+        @Column(updatable = false)
         private Integer greenPoints = 0;
 
         @ManyToMany
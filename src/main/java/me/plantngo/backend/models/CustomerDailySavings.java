@@ -0,0 +1,51 @@
+package me.plantngo.backend.models;
+
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "customer_daily_savings")
+public class CustomerDailySavings {
+
+    @Id
+    @EqualsAndHashCode.Include
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @NotNull
+    @Column(name = "customer_id")
+    private Integer customerId;
+
+    /*
+     * day the orders were fulfilled
+     */
+    @NotNull
+    private LocalDate savingsDate;
+
+    @NotNull
+    private Integer orders;
+
+    /*
+     * carbon emission saved against the average item, in carbonEmission units
+     */
+    @NotNull
+    private Double emissionSaved;
+
+    @NotNull
+    private Integer pointsEarned;
+}
@@ -0,0 +1,42 @@
+package me.plantngo.backend.models;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "idempotency_key")
+public class IdempotencyRecord {
+
+    /*
+     * the client's Idempotency-Key header
+     */
+    @Id
+    @EqualsAndHashCode.Include
+    private String idempotencyKey;
+
+    /*
+     * SHA-256 of the endpoint and request body the key was first used with
+     */
+    @NotNull
+    private String requestHash;
+
+    /*
+     * reference to the completed request's result, null while the request is running
+     */
+    private String result;
+
+    @NotNull
+    private LocalDateTime createdAt;
+}
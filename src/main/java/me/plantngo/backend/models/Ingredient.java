@@ -10,6 +10,11 @@ import javax.persistence.Id;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import lombok.*;
@@ -22,6 +27,8 @@ import lombok.*;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Entity
 @Table(name = "ingredient")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ingredient")
+@NaturalIdCache(region = "ingredient-natural-id")
 public class Ingredient {
     
     @Id
@@ -30,6 +37,7 @@ public class Ingredient {
 
     private String ingredientId;
 
+    @NaturalId
     @EqualsAndHashCode.Include
     private String name;
 
@@ -0,0 +1,6 @@
+package me.plantngo.backend.models;
+
+public enum LeaderboardPeriod {
+    ALL_TIME,
+    WEEKLY
+}
@@ -0,0 +1,57 @@
+package me.plantngo.backend.models;
+
+import java.time.LocalDate;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "merchant_daily_sales")
+public class MerchantDailySales {
+
+    @Id
+    @EqualsAndHashCode.Include
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Integer id;
+
+    @NotNull
+    private Integer merchantId;
+
+    /*
+     * day the orders were placed
+     */
+    @NotNull
+    private LocalDate salesDate;
+
+    /*
+     * fulfilled orders
+     */
+    @NotNull
+    private Integer orders;
+
+    @NotNull
+    @JsonSerialize(using = DecimalJsonSerializer.class)
+    private Double revenue;
+
+    /*
+     * carbon emission saved against the average item, in carbonEmission units
+     */
+    @NotNull
+    private Double emissionSaved;
+}
@@ -4,5 +4,30 @@ public enum OrderStatus {
     CREATED,
     FULFILLED,
     PENDING,
-    CANCELLED
+    CANCELLED;
+
+    /*
+     * CREATED -> PENDING -> FULFILLED, and CREATED or PENDING -> CANCELLED. Fulfilled and cancelled orders
+     * are final. Staying in the same status is allowed, so a retried update is harmless.
+     */
+    public boolean canBecome(OrderStatus next) {
+        if (next == null || next == this) {
+            return true;
+        }
+        switch (this) {
+            case CREATED:
+                return next == PENDING || next == FULFILLED || next == CANCELLED;
+            case PENDING:
+                return next == FULFILLED || next == CANCELLED;
+            default:
+                return false;
+        }
+    }
+
+    /*
+     * whether the order's items may still change
+     */
+    public boolean isOpen() {
+        return this == CREATED || this == PENDING;
+    }
 }
@@ -0,0 +1,49 @@
+package me.plantngo.backend.models;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent {
+
+    @Id
+    @EqualsAndHashCode.Include
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    private OutboxEventType type;
+
+    /*
+     * id of the order the event is about, null for events about a customer only
+     */
+    private Integer aggregateId;
+
+    private Integer customerId;
+
+    /*
+     * event specific details as a JSON object, e.g. the points a fulfilled order earns
+     */
+    private String payload;
+
+    @NotNull
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,8 @@
+package me.plantngo.backend.models;
+
+public enum OutboxEventType {
+    ORDER_PLACED,
+    ORDER_FULFILLED,
+    ORDER_CANCELLED,
+    VOUCHERS_PURCHASED
+}
@@ -0,0 +1,29 @@
+package me.plantngo.backend.models;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "outbox_offset")
+public class OutboxOffset {
+
+    @Id
+    @EqualsAndHashCode.Include
+    private String consumer;
+
+    /*
+     * id of the last event the consumer has handled, or skipped
+     */
+    @NotNull
+    private Long lastEventId;
+}
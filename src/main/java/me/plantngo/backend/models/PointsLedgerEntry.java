@@ -0,0 +1,60 @@
+package me.plantngo.backend.models;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "points_ledger")
+public class PointsLedgerEntry {
+
+    @Id
+    @EqualsAndHashCode.Include
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id")
+    @JsonIgnore
+    @ToString.Exclude
+    private Customer customer;
+
+    /*
+     * points credited (positive) or debited (negative)
+     */
+    @NotNull
+    private Integer delta;
+
+    /*
+     * what the points were for, e.g. "order", "quest", "voucher-purchase"
+     */
+    @NotNull
+    private String reason;
+
+    /*
+     * unique per change, recording the same key twice has no effect
+     */
+    @NotNull
+    private String entryKey;
+
+    @NotNull
+    private LocalDateTime dateTime;
+}
@@ -0,0 +1,47 @@
+package me.plantngo.backend.models;
+
+import lombok.*;
+
+/*
+ * Published when a product is added, changed or removed, or a category and its products are deleted.
+ * The carbon ratings, the search index and the recommendations listen for it, so a write only publishes
+ * one event instead of calling each of them.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProductChangedEvent {
+
+    public enum Kind {
+        ADDED,
+        CHANGED,
+        REMOVED,
+        CATEGORY_REMOVED
+    }
+
+    private final Kind kind;
+
+    // null for CATEGORY_REMOVED
+    private final Product product;
+
+    private final Category category;
+
+    // carbonEmission before a CHANGED write
+    private final Double previousCarbonEmission;
+
+    public static ProductChangedEvent added(Product product) {
+        return new ProductChangedEvent(Kind.ADDED, product, product.getCategory(), null);
+    }
+
+    public static ProductChangedEvent changed(Product product, Double previousCarbonEmission) {
+        return new ProductChangedEvent(Kind.CHANGED, product, product.getCategory(), previousCarbonEmission);
+    }
+
+    public static ProductChangedEvent removed(Product product) {
+        return new ProductChangedEvent(Kind.REMOVED, product, product.getCategory(), null);
+    }
+
+    public static ProductChangedEvent categoryRemoved(Category category) {
+        return new ProductChangedEvent(Kind.CATEGORY_REMOVED, null, category, null);
+    }
+}
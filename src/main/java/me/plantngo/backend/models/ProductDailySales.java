@@ -0,0 +1,55 @@
+package me.plantngo.backend.models;
+
+import java.time.LocalDate;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "product_daily_sales")
+public class ProductDailySales {
+
+    @Id
+    @EqualsAndHashCode.Include
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @NotNull
+    private Integer merchantId;
+
+    @NotNull
+    private Integer productId;
+
+    /*
+     * day the orders were placed
+     */
+    @NotNull
+    private LocalDate salesDate;
+
+    /*
+     * fulfilled orders containing the product
+     */
+    @NotNull
+    private Integer orders;
+
+    @NotNull
+    private Integer quantity;
+
+    @NotNull
+    private Double revenue;
+
+    @NotNull
+    private Double emissionSaved;
+}
@@ -0,0 +1,18 @@
+package me.plantngo.backend.models;
+
+import java.util.Set;
+
+import lombok.*;
+
+/*
+ * Published when products are written in bulk instead of one by one, e.g. carbonEmissions recomputed
+ * after ingredient emission factors changed, or a menu imported, so the in-memory views of those
+ * products can re-read just them
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ProductsRecomputedEvent {
+
+    private final Set<Integer> productIds;
+}
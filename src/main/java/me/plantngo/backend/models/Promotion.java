@@ -1,7 +1,9 @@
 package me.plantngo.backend.models;
 
 import java.net.URL;
+import java.time.LocalDate;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -10,8 +12,10 @@ import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonFormat;
 
 import lombok.*;
 
@@ -44,14 +48,20 @@ public class Promotion {
     @JsonBackReference(value = "merchant_promotion")
     private Merchant merchant;
 
-    @NotBlank
-    private String startDate;
+    // first and last day the promotion runs, both inclusive. Promotions migrated without a readable date run
+    // from 1970-01-01 or to 9999-12-31, see V3__promotion_dates.sql
+    @NotNull
+    @JsonFormat(pattern = "dd/MM/yyyy")
+    private LocalDate startDate;
 
-    @NotBlank
-    private String endDate;
+    @NotNull
+    @JsonFormat(pattern = "dd/MM/yyyy")
+    private LocalDate endDate;
 
     // @NotBlank
     private URL bannerUrl;
 
+    // only written on insert, clicks are added by PromotionService's batched flush
+    @Column(updatable = false)
     private Integer clicks;
 }
@@ -0,0 +1,8 @@
+package me.plantngo.backend.models;
+
+public enum QuestEvaluationStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
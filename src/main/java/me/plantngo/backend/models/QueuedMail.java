@@ -0,0 +1,63 @@
+package me.plantngo.backend.models;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "mail_message")
+public class QueuedMail {
+
+    @Id
+    @EqualsAndHashCode.Include
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    private String recipient;
+
+    @NotNull
+    private String subject;
+
+    @NotNull
+    @ToString.Exclude
+    private String body;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    private MailStatus status;
+
+    /*
+     * failed sends so far
+     */
+    @NotNull
+    private Integer attempts;
+
+    /*
+     * when the message is next due; a dispatcher sending it pushes this forward so others leave it alone
+     */
+    @NotNull
+    private LocalDateTime nextAttemptAt;
+
+    private String lastError;
+
+    @NotNull
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,28 @@
+package me.plantngo.backend.models;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "sales_rollup_order")
+public class RolledUpOrder {
+
+    @Id
+    @EqualsAndHashCode.Include
+    private Integer orderId;
+
+    @NotNull
+    private LocalDateTime rolledUpAt;
+}
@@ -0,0 +1,7 @@
+package me.plantngo.backend.models;
+
+public enum SavingsBucket {
+    DAY,
+    WEEK,
+    MONTH
+}
@@ -3,6 +3,9 @@ package me.plantngo.backend.models;
 import com.fasterxml.jackson.annotation.*;
 import lombok.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.util.List;
@@ -18,6 +21,7 @@ each voucher is assumed to be applicable to all products issued by a merchant
 @EqualsAndHashCode
 @Entity
 @Table(name = "voucher")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "voucher")
 public class Voucher {
 
     @Id
@@ -51,6 +55,13 @@ public class Voucher {
     @NotNull
     private Integer merchantId;
 
+    /*
+     * units left, null for an unlimited voucher; only written on insert, then moved by the conditional
+     * UPDATEs in VoucherRepository so concurrent purchases cannot oversell
+     */
+    @Column(updatable = false)
+    private Integer stock;
+
     @JsonIgnore
     @ManyToMany(mappedBy = "ownedVouchers")
     @ToString.Exclude
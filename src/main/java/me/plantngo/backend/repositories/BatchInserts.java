@@ -0,0 +1,50 @@
+package me.plantngo.backend.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/*
+ * Batched INSERT ... ON CONFLICT DO NOTHING that reports which rows were inserted. The update counts of a
+ * batch cannot be trusted for this: PostgreSQL's driver reports Statement.SUCCESS_NO_INFO for every row
+ * once it rewrites the batch into multi-row inserts. The inserted rows are read back as generated keys
+ * instead, which the driver returns through RETURNING, so rows skipped on conflict are never included.
+ */
+final class BatchInserts {
+
+    private BatchInserts() {
+    }
+
+    /**
+     * Runs sql once per row in one batch
+     *
+     * @param jdbcTemplate
+     * @param sql an INSERT ... ON CONFLICT DO NOTHING
+     * @param rows the statement's parameters per row
+     * @param column an integer column of the inserted rows
+     * @return column of every inserted row
+     */
+    static List<Integer> insertReturning(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows,
+            String column) {
+        return jdbcTemplate.execute(connection -> connection.prepareStatement(sql, new String[] { column }),
+                (PreparedStatement statement) -> {
+                    for (Object[] row : rows) {
+                        new ArgumentPreparedStatementSetter(row).setValues(statement);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+
+                    List<Integer> inserted = new ArrayList<>();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        while (keys.next()) {
+                            inserted.add(keys.getInt(1));
+                        }
+                    }
+                    return inserted;
+                });
+    }
+}
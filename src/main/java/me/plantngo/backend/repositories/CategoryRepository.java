@@ -1,8 +1,15 @@
 package me.plantngo.backend.repositories;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import me.plantngo.backend.models.Category;
@@ -13,5 +20,28 @@ public interface CategoryRepository extends JpaRepository<Category, Integer> {
     
     Boolean existsByNameAndMerchant(String name, Merchant merchant);
     Boolean existsByName(String name);
+
+    // category lookups back every product operation, so keep them in the query cache
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<Category> findByNameAndMerchant(String name, Merchant merchant);
+
+    /*
+     * [merchantId, categoryId, sum of carbonEmission, product count] for every category
+     */
+    @Query("SELECT c.merchant.id, c.id, COALESCE(SUM(p.carbonEmission), 0.0), COUNT(p) FROM Category c"
+            + " LEFT JOIN c.products p GROUP BY c.merchant.id, c.id")
+    List<Object[]> sumCarbonEmissionByCategory();
+
+    /*
+     * sumCarbonEmissionByCategory for just the given merchants' categories
+     */
+    @Query("SELECT c.merchant.id, c.id, COALESCE(SUM(p.carbonEmission), 0.0), COUNT(p) FROM Category c"
+            + " LEFT JOIN c.products p WHERE c.merchant.id IN :merchantIds GROUP BY c.merchant.id, c.id")
+    List<Object[]> sumCarbonEmissionByCategoryForMerchants(@Param("merchantIds") Collection<Integer> merchantIds);
+
+    @Query("SELECT DISTINCT c.merchant.id FROM Product p JOIN p.category c WHERE p.id IN :productIds")
+    List<Integer> findMerchantIdsByProductIds(@Param("productIds") Collection<Integer> productIds);
+
+    @Query("SELECT c.id FROM Category c WHERE c.merchant.username = :username ORDER BY c.name, c.id")
+    List<Integer> findIdsByMerchantUsername(@Param("username") String username);
 }
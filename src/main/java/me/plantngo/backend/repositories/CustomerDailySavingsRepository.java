@@ -0,0 +1,41 @@
+package me.plantngo.backend.repositories;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import me.plantngo.backend.models.CustomerDailySavings;
+
+@Repository
+public interface CustomerDailySavingsRepository extends JpaRepository<CustomerDailySavings, Integer> {
+
+    List<CustomerDailySavings> findByCustomerIdAndSavingsDateBetweenOrderBySavingsDateAsc(Integer customerId,
+            LocalDate from, LocalDate to);
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "customer_daily_savings"))
+    @Query(value = "INSERT INTO customer_daily_savings (customer_id, savingsDate, orders, emissionSaved, pointsEarned) "
+            + "VALUES (:customerId, :savingsDate, 0, 0, 0) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int createIfAbsent(@Param("customerId") Integer customerId, @Param("savingsDate") LocalDate savingsDate);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CustomerDailySavings s SET s.orders = s.orders + :orders, "
+            + "s.emissionSaved = s.emissionSaved + :emissionSaved, s.pointsEarned = s.pointsEarned + :pointsEarned "
+            + "WHERE s.customerId = :customerId AND s.savingsDate = :savingsDate")
+    int add(@Param("customerId") Integer customerId, @Param("savingsDate") LocalDate savingsDate,
+            @Param("orders") Integer orders, @Param("emissionSaved") Double emissionSaved,
+            @Param("pointsEarned") Integer pointsEarned);
+}
@@ -1,8 +1,18 @@
 package me.plantngo.backend.repositories;
 
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import me.plantngo.backend.models.Customer;
@@ -16,4 +26,51 @@ public interface CustomerRepository extends JpaRepository<Customer, Integer>{
     Boolean existsByEmail(String email);
     Boolean existsByUsername(String username);
     void deleteByUsername(String username);
+
+    @Query("SELECT c.id, c.greenPoints FROM Customer c")
+    List<Object[]> findAllGreenPoints();
+
+    @Query("SELECT c.greenPoints FROM Customer c WHERE c.id = :id")
+    Integer findGreenPointsById(@Param("id") Integer id);
+
+    /*
+     * greenPoints is not updatable through the entity, balances only move through these single-statement
+     * updates so concurrent writers never overwrite each other
+     */
+    @Modifying
+    @Query("UPDATE Customer c SET c.greenPoints = COALESCE(c.greenPoints, 0) + :delta WHERE c.id = :id")
+    int addGreenPoints(@Param("id") Integer id, @Param("delta") Integer delta);
+
+    @Modifying
+    @Query("UPDATE Customer c SET c.greenPoints = COALESCE(c.greenPoints, 0) + :delta WHERE c.id IN :ids")
+    int addGreenPointsToAll(@Param("ids") Collection<Integer> ids, @Param("delta") Integer delta);
+
+    @Modifying
+    @Query("UPDATE Customer c SET c.greenPoints = c.greenPoints - :points WHERE c.id = :id AND c.greenPoints >= :points")
+    int deductGreenPoints(@Param("id") Integer id, @Param("points") Integer points);
+
+    @Modifying
+    @Query("UPDATE Customer c SET c.greenPoints = :balance WHERE c.id = :id AND c.greenPoints = :expected")
+    int replaceGreenPoints(@Param("id") Integer id, @Param("expected") Integer expected,
+            @Param("balance") Integer balance);
+
+    /*
+     * voucher checkout works on the cart and ownership join tables directly, so buying a cart is a few
+     * statements instead of loading and re-saving both sides of the many-to-many. The writes name the
+     * table they touch, otherwise Hibernate evicts every second-level cache region after a native statement.
+     */
+    @Query(value = "SELECT COALESCE(SUM(v.value), 0) FROM cart c JOIN voucher v ON v.id = c.voucher_id "
+            + "WHERE c.customer_id = :id", nativeQuery = true)
+    Long sumCartValue(@Param("id") Integer id);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "ownership"))
+    @Query(value = "INSERT INTO ownership (customer_id, voucher_id) SELECT customer_id, voucher_id FROM cart "
+            + "WHERE customer_id = :id ON CONFLICT DO NOTHING", nativeQuery = true)
+    int copyCartToOwnership(@Param("id") Integer id);
+
+    @Modifying(clearAutomatically = true)
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "cart"))
+    @Query(value = "DELETE FROM cart WHERE customer_id = :id", nativeQuery = true)
+    int clearCart(@Param("id") Integer id);
 }
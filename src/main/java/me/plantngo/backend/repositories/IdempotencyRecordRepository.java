@@ -0,0 +1,48 @@
+package me.plantngo.backend.repositories;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import me.plantngo.backend.models.IdempotencyRecord;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /*
+     * Claims the key unless another request already has, returns the number of rows inserted.
+     * Commits on its own so a retry on any instance sees the claim while the first request runs.
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "idempotency_key"))
+    @Query(value = "INSERT INTO idempotency_key (idempotencyKey, requestHash, createdAt) "
+            + "VALUES (:idempotencyKey, :requestHash, :createdAt) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int claim(@Param("idempotencyKey") String idempotencyKey, @Param("requestHash") String requestHash,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.result = :result WHERE r.idempotencyKey = :idempotencyKey")
+    int complete(@Param("idempotencyKey") String idempotencyKey, @Param("result") String result);
+
+    /*
+     * Deletes expired keys, and claims whose request never completed (e.g. the instance died)
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :expiredBefore "
+            + "OR (r.result IS NULL AND r.createdAt < :abandonedBefore)")
+    int deleteExpired(@Param("expiredBefore") LocalDateTime expiredBefore,
+            @Param("abandonedBefore") LocalDateTime abandonedBefore);
+}
@@ -1,15 +1,12 @@
 package me.plantngo.backend.repositories;
 
-import java.util.Optional;
-
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import me.plantngo.backend.models.Ingredient;
 
 @Repository
-public interface IngredientRepository extends JpaRepository<Ingredient, Integer> {
+public interface IngredientRepository extends JpaRepository<Ingredient, Integer>, IngredientRepositoryCustom {
     
-    Optional<Ingredient> findByName(String name);
     Boolean existsByName(String name);
 }
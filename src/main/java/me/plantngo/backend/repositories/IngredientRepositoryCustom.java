@@ -0,0 +1,22 @@
+package me.plantngo.backend.repositories;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import me.plantngo.backend.models.Ingredient;
+
+public interface IngredientRepositoryCustom {
+
+    /*
+     * resolved through the natural-id cache instead of a JPQL query
+     */
+    Optional<Ingredient> findByName(String name);
+
+    /*
+     * inserts ingredients whose name is new and updates the category / emission factor of those that
+     * changed, in JDBC batches. Products using an ingredient whose emissionPerGram changed have their
+     * carbonEmission recomputed in the same transaction, and a ProductsRecomputedEvent published for them.
+     * Returns the number of ingredient rows written.
+     */
+    int upsertAllByName(Collection<Ingredient> ingredients);
+}
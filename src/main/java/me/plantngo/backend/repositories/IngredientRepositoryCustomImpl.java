@@ -0,0 +1,133 @@
+package me.plantngo.backend.repositories;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import me.plantngo.backend.models.Ingredient;
+import me.plantngo.backend.models.ProductsRecomputedEvent;
+
+public class IngredientRepositoryCustomImpl implements IngredientRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public Optional<Ingredient> findByName(String name) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Ingredient.class)
+                .loadOptional(name);
+    }
+
+    @Override
+    @Transactional
+    public int upsertAllByName(Collection<Ingredient> ingredients) {
+        // one read of the current catalogue instead of an existsByName per row
+        Map<String, Object[]> existing = new HashMap<>();
+        jdbcTemplate.query("SELECT name, category, emissionPerGram FROM ingredient",
+                rs -> {
+                    existing.put(rs.getString(1), new Object[] { rs.getString(2), rs.getObject(3) });
+                });
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<String> changedFactors = new ArrayList<>();
+        for (Ingredient ingredient : ingredients) {
+            Object[] current = existing.get(ingredient.getName());
+            if (current == null) {
+                inserts.add(new Object[] { ingredient.getCategory(), ingredient.getEmissionPerGram(),
+                        ingredient.getIngredientId(), ingredient.getName() });
+                existing.put(ingredient.getName(),
+                        new Object[] { ingredient.getCategory(), ingredient.getEmissionPerGram() });
+            } else if (!Objects.equals(current[0], ingredient.getCategory())
+                    || !sameFactor(current[1], ingredient.getEmissionPerGram())) {
+                updates.add(new Object[] { ingredient.getCategory(), ingredient.getEmissionPerGram(),
+                        ingredient.getName() });
+                if (!sameFactor(current[1], ingredient.getEmissionPerGram())) {
+                    changedFactors.add(ingredient.getName());
+                }
+            }
+        }
+
+        for (int from = 0; from < inserts.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO ingredient (category, emissionPerGram, ingredientId, name) VALUES (?, ?, ?, ?)",
+                    inserts.subList(from, Math.min(from + BATCH_SIZE, inserts.size())));
+        }
+        for (int from = 0; from < updates.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate("UPDATE ingredient SET category = ?, emissionPerGram = ? WHERE name = ?",
+                    updates.subList(from, Math.min(from + BATCH_SIZE, updates.size())));
+        }
+
+        Set<Integer> recomputedProductIds = new HashSet<>();
+        for (int from = 0; from < changedFactors.size(); from += BATCH_SIZE) {
+            recomputedProductIds.addAll(this.recomputeProductEmissions(
+                    changedFactors.subList(from, Math.min(from + BATCH_SIZE, changedFactors.size()))));
+        }
+        if (!recomputedProductIds.isEmpty()) {
+            // the ratings, search index and recommendations re-read just these products
+            eventPublisher.publishEvent(new ProductsRecomputedEvent(recomputedProductIds));
+        }
+
+        if (!updates.isEmpty()) {
+            // rows were changed behind Hibernate's back, drop whatever the second-level cache holds
+            entityManager.getEntityManagerFactory().getCache().evict(Ingredient.class);
+            entityManager.unwrap(Session.class).getSessionFactory().getCache()
+                    .evictNaturalIdData(Ingredient.class);
+        }
+
+        return inserts.size() + updates.size();
+    }
+
+    /*
+     * Re-sums carbonEmission for just the products that use one of the given ingredients, found through
+     * the product_ingredient.ingredient_id index, in a single statement. Returns the ids of those products.
+     */
+    private List<Integer> recomputeProductEmissions(List<String> ingredientNames) {
+        String placeholders = String.join(", ", Collections.nCopies(ingredientNames.size(), "?"));
+        List<Integer> productIds = jdbcTemplate.queryForList("SELECT DISTINCT pi.product_id FROM product_ingredient pi"
+                + " JOIN ingredient i ON i.id = pi.ingredient_id WHERE i.name IN (" + placeholders + ")",
+                Integer.class, ingredientNames.toArray());
+        if (productIds.isEmpty()) {
+            return productIds;
+        }
+        jdbcTemplate.update("UPDATE product SET carbonEmission = COALESCE(("
+                + " SELECT SUM(pi.servingQty * i.emissionPerGram) FROM product_ingredient pi"
+                + " JOIN ingredient i ON i.id = pi.ingredient_id WHERE pi.product_id = product.id), 0)"
+                + " WHERE id IN (SELECT pi.product_id FROM product_ingredient pi"
+                + " JOIN ingredient i ON i.id = pi.ingredient_id WHERE i.name IN (" + placeholders + "))",
+                ingredientNames.toArray());
+        return productIds;
+    }
+
+    private static boolean sameFactor(Object current, Double incoming) {
+        if (current == null || incoming == null) {
+            return current == null && incoming == null;
+        }
+        return ((Number) current).doubleValue() == incoming;
+    }
+}
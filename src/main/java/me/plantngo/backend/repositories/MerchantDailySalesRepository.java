@@ -0,0 +1,44 @@
+package me.plantngo.backend.repositories;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import me.plantngo.backend.models.MerchantDailySales;
+
+@Repository
+public interface MerchantDailySalesRepository extends JpaRepository<MerchantDailySales, Integer> {
+
+    List<MerchantDailySales> findByMerchantIdAndSalesDateBetweenOrderBySalesDateAsc(Integer merchantId,
+            LocalDate from, LocalDate to);
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "merchant_daily_sales"))
+    @Query(value = "INSERT INTO merchant_daily_sales (merchantId, salesDate, orders, revenue, emissionSaved) "
+            + "VALUES (:merchantId, :salesDate, 0, 0, 0) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int createIfAbsent(@Param("merchantId") Integer merchantId, @Param("salesDate") LocalDate salesDate);
+
+    /*
+     * Adds to the day's totals in one UPDATE, so concurrent orders for the same day do not lose counts
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MerchantDailySales s SET s.orders = s.orders + :orders, s.revenue = s.revenue + :revenue, "
+            + "s.emissionSaved = s.emissionSaved + :emissionSaved "
+            + "WHERE s.merchantId = :merchantId AND s.salesDate = :salesDate")
+    int add(@Param("merchantId") Integer merchantId, @Param("salesDate") LocalDate salesDate,
+            @Param("orders") Integer orders, @Param("revenue") Double revenue,
+            @Param("emissionSaved") Double emissionSaved);
+}
@@ -2,7 +2,14 @@ package me.plantngo.backend.repositories;
 
 import java.util.Optional;
 
+import javax.persistence.LockModeType;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Repository;
 
 import me.plantngo.backend.models.Merchant;
@@ -16,6 +23,29 @@ public interface MerchantRepository extends JpaRepository<Merchant, Integer>{
     Optional<Merchant> findByCompany(String company);
     Boolean existsByEmail(String email);
     Boolean existsByUsername(String username);
-    
-}
 
+    @Modifying
+    @Transactional
+    @Query("UPDATE Merchant m SET m.carbonRating = :carbonRating WHERE m.id = :id")
+    int updateCarbonRating(@Param("id") Integer id, @Param("carbonRating") Double carbonRating);
+
+    /*
+     * Locks the merchant until the end of the transaction, so concurrent product changes refresh its
+     * carbonRating one after the other
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Transactional
+    @Query("SELECT m FROM Merchant m WHERE m.id = :id")
+    Merchant lockById(@Param("id") Integer id);
+
+    /*
+     * sets the merchant's carbonRating to the average emission of its products as this transaction sees
+     * them, a product without an emission counting as 0. A merchant without products keeps its rating.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Merchant m SET m.carbonRating = (SELECT AVG(COALESCE(p.carbonEmission, 0.0)) FROM Product p"
+            + " JOIN p.category c WHERE c.merchant.id = :id) WHERE m.id = :id"
+            + " AND EXISTS (SELECT p.id FROM Product p JOIN p.category c WHERE c.merchant.id = :id)")
+    int refreshCarbonRating(@Param("id") Integer id);
+}
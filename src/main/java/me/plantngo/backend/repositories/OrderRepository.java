@@ -3,7 +3,10 @@ package me.plantngo.backend.repositories;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import me.plantngo.backend.models.Order;
@@ -25,4 +28,13 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
 
     Order findFirstByCustomerUsernameAndMerchantUsernameAndOrderStatus(String customerName, String merchantName,
             OrderStatus orderStatus);
+
+    List<Order> findByOrderStatusAndIdGreaterThanOrderByIdAsc(OrderStatus orderStatus, Integer id, Pageable pageable);
+
+    /*
+     * [customerId, productId] for every product each customer has had in an order of that status
+     */
+    @Query("SELECT DISTINCT o.customer.id, i.productId FROM Order o JOIN o.orderItems i"
+            + " WHERE o.orderStatus = :orderStatus")
+    List<Object[]> findCustomerProductsByOrderStatus(@Param("orderStatus") OrderStatus orderStatus);
 }
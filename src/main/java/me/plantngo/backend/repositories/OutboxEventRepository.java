@@ -0,0 +1,38 @@
+package me.plantngo.backend.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import me.plantngo.backend.models.OutboxEvent;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(Long id, LocalDateTime createdBefore,
+            Pageable pageable);
+
+    /*
+     * Gaps of the consumer whose events have since committed, in id order
+     */
+    @Query(value = "SELECT e.* FROM outbox_event e JOIN outbox_gap g ON g.eventId = e.id "
+            + "WHERE g.consumer = :consumer AND g.detectedAt >= :detectedAfter ORDER BY e.id LIMIT :limit",
+            nativeQuery = true)
+    List<OutboxEvent> findGapEvents(@Param("consumer") String consumer,
+            @Param("detectedAfter") LocalDateTime detectedAfter, @Param("limit") int limit);
+
+    /*
+     * Deletes events every consumer is past, once they are older than the retention period
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxEvent e WHERE e.id <= :consumedUpTo AND e.createdAt < :createdBefore")
+    int deleteConsumed(@Param("consumedUpTo") Long consumedUpTo, @Param("createdBefore") LocalDateTime createdBefore);
+}
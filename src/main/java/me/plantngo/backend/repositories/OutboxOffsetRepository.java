@@ -0,0 +1,62 @@
+package me.plantngo.backend.repositories;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import me.plantngo.backend.models.OutboxOffset;
+
+@Repository
+public interface OutboxOffsetRepository extends JpaRepository<OutboxOffset, String>, OutboxOffsetRepositoryCustom {
+
+    /*
+     * Starts a new consumer at the beginning of the outbox, no-op for a consumer that already has an offset
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "outbox_offset"))
+    @Query(value = "INSERT INTO outbox_offset (consumer, lastEventId) VALUES (:consumer, 0) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int createIfAbsent(@Param("consumer") String consumer);
+
+    /*
+     * Locks the consumer's offset until the end of the transaction, so instances relaying the same
+     * consumer take turns instead of both handling an event
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM OutboxOffset o WHERE o.consumer = :consumer")
+    OutboxOffset lockByConsumer(@Param("consumer") String consumer);
+
+    @Query("SELECT MIN(o.lastEventId) FROM OutboxOffset o WHERE o.consumer IN :consumers")
+    Long findMinimumOffset(@Param("consumers") Collection<String> consumers);
+
+    /*
+     * Removes an event id from the consumer's gaps, returns 0 if it is not a gap (any more)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "outbox_gap"))
+    @Query(value = "DELETE FROM outbox_gap WHERE consumer = :consumer AND eventId = :eventId", nativeQuery = true)
+    int deleteGap(@Param("consumer") String consumer, @Param("eventId") Long eventId);
+
+    /*
+     * Forgets gaps that never filled, their transactions rolled back
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "outbox_gap"))
+    @Query(value = "DELETE FROM outbox_gap WHERE detectedAt < :detectedBefore", nativeQuery = true)
+    int deleteGapsDetectedBefore(@Param("detectedBefore") LocalDateTime detectedBefore);
+}
@@ -0,0 +1,13 @@
+package me.plantngo.backend.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxOffsetRepositoryCustom {
+
+    /*
+     * records event ids the consumer's offset is moving past without having seen them, in JDBC batches,
+     * skipping ids already recorded
+     */
+    void recordGaps(String consumer, List<Long> eventIds, LocalDateTime detectedAt);
+}
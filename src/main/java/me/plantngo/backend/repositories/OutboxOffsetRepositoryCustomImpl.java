@@ -0,0 +1,29 @@
+package me.plantngo.backend.repositories;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class OutboxOffsetRepositoryCustomImpl implements OutboxOffsetRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void recordGaps(String consumer, List<Long> eventIds, LocalDateTime detectedAt) {
+        Timestamp timestamp = Timestamp.valueOf(detectedAt);
+        for (int from = 0; from < eventIds.size(); from += BATCH_SIZE) {
+            List<Long> batch = eventIds.subList(from, Math.min(from + BATCH_SIZE, eventIds.size()));
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            batch.forEach(eventId -> rows.add(new Object[] { consumer, eventId, timestamp }));
+            jdbcTemplate.batchUpdate("INSERT INTO outbox_gap (consumer, eventId, detectedAt) VALUES (?, ?, ?) "
+                    + "ON CONFLICT DO NOTHING", rows);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package me.plantngo.backend.repositories;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import me.plantngo.backend.models.PointsLedgerEntry;
+
+@Repository
+public interface PointsLedgerRepository extends JpaRepository<PointsLedgerEntry, Integer>, PointsLedgerRepositoryCustom {
+
+    /*
+     * Inserts the entry unless its entryKey is already recorded, returns the number of rows inserted.
+     * Native statements invalidate every second-level cache region unless they name the tables they touch.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "points_ledger"))
+    @Query(value = "INSERT INTO points_ledger (customer_id, delta, reason, entryKey, dateTime) "
+            + "VALUES (:customerId, :delta, :reason, :entryKey, :dateTime) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("customerId") Integer customerId, @Param("delta") Integer delta,
+            @Param("reason") String reason, @Param("entryKey") String entryKey,
+            @Param("dateTime") LocalDateTime dateTime);
+
+    @Query("SELECT MAX(l.id) FROM PointsLedgerEntry l WHERE l.customer.id = :customerId")
+    Integer findLastEntryId(@Param("customerId") Integer customerId);
+
+    @Query("SELECT l.customer.id, SUM(l.delta) FROM PointsLedgerEntry l WHERE l.delta > 0 AND l.dateTime >= :since "
+            + "GROUP BY l.customer.id")
+    List<Object[]> sumCreditsByCustomerSince(@Param("since") LocalDateTime since);
+
+    /*
+     * Customers whose greenPoints differ from the sum of their ledger entries, as [id, greenPoints, ledger sum]
+     */
+    @Query("SELECT c.id, c.greenPoints, COALESCE(SUM(l.delta), 0) FROM Customer c "
+            + "LEFT JOIN PointsLedgerEntry l ON l.customer = c GROUP BY c.id, c.greenPoints "
+            + "HAVING COALESCE(c.greenPoints, 0) <> COALESCE(SUM(l.delta), 0)")
+    List<Object[]> findUnreconciledBalances();
+}
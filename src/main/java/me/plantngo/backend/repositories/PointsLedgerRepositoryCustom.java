@@ -0,0 +1,15 @@
+package me.plantngo.backend.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface PointsLedgerRepositoryCustom {
+
+    /*
+     * inserts one entry per customer id -> entryKey in JDBC batches, skipping keys already recorded.
+     * Returns the ids of the customers whose entry was inserted.
+     */
+    List<Integer> insertAllIfAbsent(Map<Integer, String> entryKeys, Integer delta, String reason,
+            LocalDateTime dateTime);
+}
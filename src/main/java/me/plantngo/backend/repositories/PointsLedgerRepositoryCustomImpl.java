@@ -0,0 +1,36 @@
+package me.plantngo.backend.repositories;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class PointsLedgerRepositoryCustomImpl implements PointsLedgerRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Integer> insertAllIfAbsent(Map<Integer, String> entryKeys, Integer delta, String reason,
+            LocalDateTime dateTime) {
+        List<Integer> customerIds = new ArrayList<>(entryKeys.keySet());
+        List<Integer> inserted = new ArrayList<>();
+        Timestamp timestamp = Timestamp.valueOf(dateTime);
+        for (int from = 0; from < customerIds.size(); from += BATCH_SIZE) {
+            List<Integer> batch = customerIds.subList(from, Math.min(from + BATCH_SIZE, customerIds.size()));
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            batch.forEach(customerId -> rows.add(
+                    new Object[] { customerId, delta, reason, entryKeys.get(customerId), timestamp }));
+            inserted.addAll(BatchInserts.insertReturning(jdbcTemplate, "INSERT INTO points_ledger "
+                    + "(customer_id, delta, reason, entryKey, dateTime) VALUES (?, ?, ?, ?, ?) ON CONFLICT DO NOTHING",
+                    rows, "customer_id"));
+        }
+        return inserted;
+    }
+}
@@ -0,0 +1,53 @@
+package me.plantngo.backend.repositories;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import me.plantngo.backend.DTO.ProductSalesDTO;
+import me.plantngo.backend.models.ProductDailySales;
+
+@Repository
+public interface ProductDailySalesRepository extends JpaRepository<ProductDailySales, Integer> {
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "product_daily_sales"))
+    @Query(value = "INSERT INTO product_daily_sales "
+            + "(merchantId, productId, salesDate, orders, quantity, revenue, emissionSaved) "
+            + "VALUES (:merchantId, :productId, :salesDate, 0, 0, 0, 0) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int createIfAbsent(@Param("merchantId") Integer merchantId, @Param("productId") Integer productId,
+            @Param("salesDate") LocalDate salesDate);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProductDailySales s SET s.orders = s.orders + :orders, s.quantity = s.quantity + :quantity, "
+            + "s.revenue = s.revenue + :revenue, s.emissionSaved = s.emissionSaved + :emissionSaved "
+            + "WHERE s.merchantId = :merchantId AND s.productId = :productId AND s.salesDate = :salesDate")
+    int add(@Param("merchantId") Integer merchantId, @Param("productId") Integer productId,
+            @Param("salesDate") LocalDate salesDate, @Param("orders") Integer orders,
+            @Param("quantity") Integer quantity, @Param("revenue") Double revenue,
+            @Param("emissionSaved") Double emissionSaved);
+
+    /*
+     * Totals per product over the date range, best selling first. Products deleted since have no name.
+     */
+    @Query("SELECT new me.plantngo.backend.DTO.ProductSalesDTO(s.productId, p.name, SUM(s.orders), SUM(s.quantity), "
+            + "SUM(s.revenue), SUM(s.emissionSaved)) "
+            + "FROM ProductDailySales s LEFT JOIN Product p ON p.id = s.productId "
+            + "WHERE s.merchantId = :merchantId AND s.salesDate BETWEEN :from AND :to "
+            + "GROUP BY s.productId, p.name ORDER BY SUM(s.revenue) DESC")
+    List<ProductSalesDTO> sumByProduct(@Param("merchantId") Integer merchantId, @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+}
@@ -11,7 +11,8 @@ import me.plantngo.backend.models.Product;
 import me.plantngo.backend.models.ProductIngredient;
 
 @Repository
-public interface ProductIngredientRepository extends JpaRepository<ProductIngredient, Integer> {
+public interface ProductIngredientRepository extends JpaRepository<ProductIngredient, Integer>,
+        ProductIngredientRepositoryCustom {
     
     Optional<ProductIngredient> findByIngredientAndProduct(Ingredient ingredient, Product product);
     boolean existsByIngredientAndProduct(Ingredient ingredient, Product product);
@@ -0,0 +1,11 @@
+package me.plantngo.backend.repositories;
+
+import java.util.List;
+
+public interface ProductIngredientRepositoryCustom {
+
+    /*
+     * inserts [productId, ingredientId, servingQty] rows in JDBC batches, for bulk menu imports
+     */
+    int insertAll(List<Object[]> productIngredients);
+}
@@ -0,0 +1,27 @@
+package me.plantngo.backend.repositories;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class ProductIngredientRepositoryCustomImpl implements ProductIngredientRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertAll(List<Object[]> productIngredients) {
+        int inserted = 0;
+        for (int from = 0; from < productIngredients.size(); from += BATCH_SIZE) {
+            List<Object[]> batch = productIngredients.subList(from,
+                    Math.min(from + BATCH_SIZE, productIngredients.size()));
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO product_ingredient (product_id, ingredient_id, servingQty) VALUES (?, ?, ?)", batch);
+            inserted += batch.size();
+        }
+        return inserted;
+    }
+}
@@ -10,7 +10,7 @@ import me.plantngo.backend.models.Merchant;
 import me.plantngo.backend.models.Promotion;
 
 @Repository
-public interface PromotionRepository extends JpaRepository<Promotion, Integer>{
+public interface PromotionRepository extends JpaRepository<Promotion, Integer>, PromotionRepositoryCustom {
     
     Optional<Promotion> findById(Integer id);
     List<Promotion> findByMerchant(Merchant merchant);
@@ -0,0 +1,13 @@
+package me.plantngo.backend.repositories;
+
+import java.util.Map;
+import java.util.Set;
+
+public interface PromotionRepositoryCustom {
+
+    /*
+     * adds each promotion's click delta with one batched "clicks = clicks + ?" UPDATE, returns the ids
+     * that matched no row (deleted promotions)
+     */
+    Set<Integer> addClicks(Map<Integer, Long> clicksById);
+}
@@ -0,0 +1,41 @@
+package me.plantngo.backend.repositories;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+public class PromotionRepositoryCustomImpl implements PromotionRepositoryCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public Set<Integer> addClicks(Map<Integer, Long> clicksById) {
+        Set<Integer> missing = new HashSet<>();
+        if (clicksById.isEmpty()) {
+            return missing;
+        }
+
+        List<Integer> ids = new ArrayList<>(clicksById.keySet());
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            args.add(new Object[] { clicksById.get(id), id });
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(
+                "UPDATE promotion SET clicks = COALESCE(clicks, 0) + ? WHERE id = ?", args);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(ids.get(i));
+            }
+        }
+        return missing;
+    }
+}
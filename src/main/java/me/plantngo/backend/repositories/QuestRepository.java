@@ -8,7 +8,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface QuestRepository extends JpaRepository<Quest, Integer> {
+public interface QuestRepository extends JpaRepository<Quest, Integer>, QuestRepositoryCustom {
     public List<Quest> findAllByEndDateTimeAfter(LocalDateTime localDateTime);
 
     public List<Quest> findAllByEndDateTimeBefore(LocalDateTime localDateTime);
@@ -0,0 +1,21 @@
+package me.plantngo.backend.repositories;
+
+import java.util.List;
+
+import me.plantngo.backend.models.Quest;
+
+public interface QuestRepositoryCustom {
+
+    /*
+     * one chunk of the usernames with at least countToComplete logs of the quest's type within its dates,
+     * in username order after afterUsername, as [username, customer id or null, true if already completed].
+     * The logs are counted with one GROUP BY per chunk instead of one query per customer.
+     */
+    List<Object[]> findCompletingCustomers(Quest quest, String afterUsername, int limit);
+
+    /*
+     * records the quest as completed by the given customers in JDBC batches, skipping those who already
+     * completed it. Returns the ids of the customers newly recorded.
+     */
+    List<Integer> insertCompletions(Integer questId, List<Integer> customerIds);
+}
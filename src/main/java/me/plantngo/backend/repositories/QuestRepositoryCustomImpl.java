@@ -0,0 +1,50 @@
+package me.plantngo.backend.repositories;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import me.plantngo.backend.models.Quest;
+
+public class QuestRepositoryCustomImpl implements QuestRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Object[]> findCompletingCustomers(Quest quest, String afterUsername, int limit) {
+        if (quest.getPostedDateTime() == null || quest.getEndDateTime() == null) {
+            // an undated quest has no logs between its dates, as in QuestService.refreshQuestForCustomer
+            return List.of();
+        }
+        return jdbcTemplate.query("SELECT l.username, c.id, qc.customer_id FROM ("
+                + " SELECT username FROM log WHERE type = ? AND dateTime BETWEEN ? AND ? AND username > ?"
+                + " GROUP BY username HAVING COUNT(*) >= ? ORDER BY username LIMIT ?) l"
+                + " LEFT JOIN customer c ON c.username = l.username"
+                + " LEFT JOIN quest_completion qc ON qc.customer_id = c.id AND qc.quest_id = ?"
+                + " ORDER BY l.username",
+                (rs, rowNum) -> new Object[] { rs.getString(1), rs.getObject(2, Integer.class),
+                        rs.getObject(3) != null },
+                quest.getType(), Timestamp.valueOf(quest.getPostedDateTime()),
+                Timestamp.valueOf(quest.getEndDateTime()), afterUsername, quest.getCountToComplete(), limit,
+                quest.getId());
+    }
+
+    @Override
+    public List<Integer> insertCompletions(Integer questId, List<Integer> customerIds) {
+        List<Integer> inserted = new ArrayList<>();
+        for (int from = 0; from < customerIds.size(); from += BATCH_SIZE) {
+            List<Integer> batch = customerIds.subList(from, Math.min(from + BATCH_SIZE, customerIds.size()));
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            batch.forEach(customerId -> rows.add(new Object[] { customerId, questId }));
+            inserted.addAll(BatchInserts.insertReturning(jdbcTemplate, "INSERT INTO quest_completion "
+                    + "(customer_id, quest_id) VALUES (?, ?) ON CONFLICT DO NOTHING", rows, "customer_id"));
+        }
+        return inserted;
+    }
+}
@@ -0,0 +1,36 @@
+package me.plantngo.backend.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import me.plantngo.backend.models.MailStatus;
+import me.plantngo.backend.models.QueuedMail;
+
+@Repository
+public interface QueuedMailRepository extends JpaRepository<QueuedMail, Long> {
+
+    List<QueuedMail> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(MailStatus status, LocalDateTime now,
+            Pageable pageable);
+
+    /*
+     * Takes a due message for sending until leaseUntil; returns 0 if another dispatcher took it first
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE QueuedMail m SET m.nextAttemptAt = :leaseUntil "
+            + "WHERE m.id = :id AND m.status = me.plantngo.backend.models.MailStatus.PENDING AND m.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM QueuedMail m WHERE m.status = me.plantngo.backend.models.MailStatus.SENT AND m.sentAt < :sentBefore")
+    int deleteSent(@Param("sentBefore") LocalDateTime sentBefore);
+}
@@ -0,0 +1,31 @@
+package me.plantngo.backend.repositories;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import me.plantngo.backend.models.RolledUpOrder;
+
+@Repository
+public interface RolledUpOrderRepository extends JpaRepository<RolledUpOrder, Integer> {
+
+    /*
+     * Marks the order as added to the rollups, returns 0 if it already was
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "sales_rollup_order"))
+    @Query(value = "INSERT INTO sales_rollup_order (orderId, rolledUpAt) VALUES (:orderId, :rolledUpAt) "
+            + "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int claim(@Param("orderId") Integer orderId, @Param("rolledUpAt") LocalDateTime rolledUpAt);
+}
@@ -3,21 +3,25 @@ package me.plantngo.backend.repositories;
 import me.plantngo.backend.models.Voucher;
 import me.plantngo.backend.models.Merchant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface VoucherRepository extends JpaRepository<Voucher, Integer> {
-
-    Optional<Voucher> findByIdAndMerchant(Integer id, Merchant merchant);
-
-    Boolean existsByIdAndMerchant(Integer id, Merchant merchant);
+public interface VoucherRepository extends JpaRepository<Voucher, Integer>, VoucherRepositoryCustom {
 
     List<Voucher> findAllByMerchant(Merchant merchant);
 
     List<Voucher> findByCustomersThatOwn_Username(String username);
 
     List<Voucher> findByCustomersInCart_Username(String username);
+
+    @Query("SELECT v.stock FROM Voucher v WHERE v.id = :id")
+    Integer findStockById(@Param("id") Integer id);
+
+    @Query(value = "SELECT v.id FROM cart c JOIN voucher v ON v.id = c.voucher_id "
+            + "WHERE c.customer_id = :customerId AND v.stock IS NOT NULL", nativeQuery = true)
+    List<Integer> findLimitedVoucherIdsInCart(@Param("customerId") Integer customerId);
 }
@@ -0,0 +1,31 @@
+package me.plantngo.backend.repositories;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.Voucher;
+
+public interface VoucherRepositoryCustom {
+
+    /*
+     * resolved through the voucher entity cache, then checked against the merchant
+     */
+    Optional<Voucher> findByIdAndMerchant(Integer id, Merchant merchant);
+
+    Boolean existsByIdAndMerchant(Integer id, Merchant merchant);
+
+    /*
+     * existence check for a single voucher, answered from the voucher entity cache or a primary key
+     * lookup instead of a query over the whole table
+     */
+    Boolean existsInCatalogue(Integer id);
+
+    /*
+     * stock only moves through conditional updates that bypass the entity, each changed voucher is evicted
+     * from the entity cache once the transaction commits
+     */
+    int takeStock(Collection<Integer> ids);
+
+    Boolean addStock(Integer id, int quantity);
+}
@@ -0,0 +1,96 @@
+package me.plantngo.backend.repositories;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.Voucher;
+
+public class VoucherRepositoryCustomImpl implements VoucherRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<Voucher> findByIdAndMerchant(Integer id, Merchant merchant) {
+        if (id == null || merchant == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(entityManager.find(Voucher.class, id))
+                .filter(voucher -> Objects.equals(voucher.getMerchantId(), merchant.getId()));
+    }
+
+    @Override
+    public Boolean existsByIdAndMerchant(Integer id, Merchant merchant) {
+        return this.findByIdAndMerchant(id, merchant).isPresent();
+    }
+
+    @Override
+    public Boolean existsInCatalogue(Integer id) {
+        if (id == null) {
+            return false;
+        }
+        return entityManager.find(Voucher.class, id) != null;
+    }
+
+    @Override
+    public int takeStock(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            args.add(new Object[] { id });
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate("UPDATE voucher SET stock = stock - 1 WHERE id = ? AND stock > 0", args);
+        int taken = 0;
+        for (int count : updated) {
+            taken += count;
+        }
+        this.evictAfterCommit(ids);
+        return taken;
+    }
+
+    @Override
+    public Boolean addStock(Integer id, int quantity) {
+        int updated = jdbcTemplate.update(
+                "UPDATE voucher SET stock = stock + ? WHERE id = ? AND stock IS NOT NULL AND stock + ? >= 0",
+                quantity, id, quantity);
+        this.evictAfterCommit(List.of(id));
+        return updated == 1;
+    }
+
+    private void evictAfterCommit(Collection<Integer> ids) {
+        List<Integer> evicted = new ArrayList<>(ids);
+        Runnable evict = () -> {
+            for (Integer id : evicted) {
+                entityManager.getEntityManagerFactory().getCache().evict(Voucher.class, id);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict.run();
+            }
+        });
+    }
+}
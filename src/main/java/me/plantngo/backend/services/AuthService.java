@@ -30,16 +30,21 @@ public class AuthService {
     private BCryptPasswordEncoder bCryptPasswordEncoder;
     private AuthenticationManager authenticationManager;
     private JwtProvider jwtProvider;
+    private CatalogueSearchService catalogueSearchService;
+    private LeaderboardService leaderboardService;
 
     @Autowired
     public AuthService(CustomerRepository customerRepository, MerchantRepository merchantRepository,
             BCryptPasswordEncoder bCryptPasswordEncoder, AuthenticationManager authenticationManager,
-            JwtProvider jwtProvider) {
+            JwtProvider jwtProvider, CatalogueSearchService catalogueSearchService,
+            LeaderboardService leaderboardService) {
         this.customerRepository = customerRepository;
         this.merchantRepository = merchantRepository;
         this.bCryptPasswordEncoder = bCryptPasswordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtProvider = jwtProvider;
+        this.catalogueSearchService = catalogueSearchService;
+        this.leaderboardService = leaderboardService;
     }
 
     /**
@@ -103,6 +108,7 @@ public class AuthService {
         Customer customer = this.customerMapToEntity(registrationDTO);
 
         customerRepository.save(customer);
+        leaderboardService.customerAdded(customer);
 
         return customer;
     }
@@ -134,6 +140,7 @@ public class AuthService {
         Merchant merchant = this.merchantMapToEntity(registrationDTO);
 
         merchantRepository.save(merchant);
+        catalogueSearchService.merchantChanged(merchant);
 
         return merchant;
 
@@ -0,0 +1,65 @@
+package me.plantngo.backend.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import me.plantngo.backend.DTO.CacheStatisticsDTO;
+
+@Service
+public class CacheStatisticsService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public CacheStatisticsService(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Gets hit/miss statistics for every second-level cache region
+     * 
+     * @return
+     */
+    public List<CacheStatisticsDTO> getCacheStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<String> regionNames = new ArrayList<>(Arrays.asList(statistics.getSecondLevelCacheRegionNames()));
+        regionNames.sort(String::compareTo);
+
+        List<CacheStatisticsDTO> output = new ArrayList<>();
+        for (String regionName : regionNames) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(regionName);
+            if (regionStatistics == null) {
+                continue;
+            }
+            output.add(this.cacheStatisticsMapToDTO(regionName, regionStatistics));
+        }
+
+        return output;
+    }
+
+    /**
+     * Clears the collected statistics, the cached data is left untouched
+     */
+    public void resetCacheStatistics() {
+        entityManagerFactory.unwrap(SessionFactory.class).getStatistics().clear();
+    }
+
+    private CacheStatisticsDTO cacheStatisticsMapToDTO(String regionName, CacheRegionStatistics regionStatistics) {
+        long hits = regionStatistics.getHitCount();
+        long misses = regionStatistics.getMissCount();
+        double hitRatio = hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+
+        return new CacheStatisticsDTO(regionName, hits, misses, regionStatistics.getPutCount(),
+                regionStatistics.getElementCountInMemory(), hitRatio);
+    }
+}
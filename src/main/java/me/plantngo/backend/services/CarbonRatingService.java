@@ -0,0 +1,364 @@
+package me.plantngo.backend.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import me.plantngo.backend.DTO.MerchantCarbonRatingDTO;
+import me.plantngo.backend.models.Category;
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.Product;
+import me.plantngo.backend.models.ProductChangedEvent;
+import me.plantngo.backend.models.ProductsRecomputedEvent;
+import me.plantngo.backend.repositories.CategoryRepository;
+import me.plantngo.backend.repositories.MerchantRepository;
+
+/*
+ * Keeps running sums and counts of Product.carbonEmission per category and per merchant.
+ *
+ * A merchant's carbon rating is the average emission of its products. Product changes adjust the sums
+ * in O(1) and move the merchant in the ranking in O(log n), instead of re-reading every product, once the
+ * change commits. The totals are rebuilt from one GROUP BY on startup, and per merchant after bulk emission
+ * recomputes.
+ */
+@Service
+public class CarbonRatingService {
+
+    private final CategoryRepository categoryRepository;
+
+    private final MerchantRepository merchantRepository;
+
+    private final Map<Integer, RunningTotal> merchantTotals = new HashMap<>();
+
+    private final Map<Integer, RunningTotal> categoryTotals = new HashMap<>();
+
+    // merchants with at least one product, greenest (lowest average) first
+    private final TreeSet<RunningTotal> ranking = new TreeSet<>(
+            Comparator.comparingDouble(RunningTotal::average).thenComparing(total -> total.id));
+
+    @Autowired
+    public CarbonRatingService(CategoryRepository categoryRepository, MerchantRepository merchantRepository) {
+        this.categoryRepository = categoryRepository;
+        this.merchantRepository = merchantRepository;
+    }
+
+    /**
+     * Rebuilds every running total from the product table and stores the resulting carbon ratings
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        merchantTotals.clear();
+        categoryTotals.clear();
+        ranking.clear();
+
+        for (Object[] row : categoryRepository.sumCarbonEmissionByCategory()) {
+            Integer merchantId = (Integer) row[0];
+            Integer categoryId = (Integer) row[1];
+            double sum = ((Number) row[2]).doubleValue();
+            long count = ((Number) row[3]).longValue();
+
+            categoryTotals.computeIfAbsent(categoryId, RunningTotal::new).add(sum, count);
+            if (merchantId != null) {
+                merchantTotals.computeIfAbsent(merchantId, RunningTotal::new).add(sum, count);
+            }
+        }
+
+        for (RunningTotal total : merchantTotals.values()) {
+            if (total.count > 0) {
+                ranking.add(total);
+                merchantRepository.updateCarbonRating(total.id, total.average());
+            }
+        }
+    }
+
+    /**
+     * Re-aggregates just the given merchants from the product table and stores their carbon ratings, e.g.
+     * after their products' emissions were recomputed in bulk
+     *
+     * @param merchantIds
+     */
+    public void rebuildMerchants(Collection<Integer> merchantIds) {
+        if (merchantIds.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, RunningTotal> rebuiltMerchants = new HashMap<>();
+        Map<Integer, RunningTotal> rebuiltCategories = new HashMap<>();
+        for (Object[] row : categoryRepository.sumCarbonEmissionByCategoryForMerchants(merchantIds)) {
+            Integer merchantId = (Integer) row[0];
+            Integer categoryId = (Integer) row[1];
+            double sum = ((Number) row[2]).doubleValue();
+            long count = ((Number) row[3]).longValue();
+
+            rebuiltCategories.computeIfAbsent(categoryId, RunningTotal::new).add(sum, count);
+            rebuiltMerchants.computeIfAbsent(merchantId, RunningTotal::new).add(sum, count);
+        }
+
+        for (RunningTotal total : rebuiltMerchants.values()) {
+            if (total.count > 0) {
+                merchantRepository.updateCarbonRating(total.id, total.average());
+            }
+        }
+
+        List<Integer> ids = List.copyOf(merchantIds);
+        this.afterCommit(() -> {
+            for (Integer merchantId : ids) {
+                RunningTotal previous = merchantTotals.remove(merchantId);
+                if (previous != null) {
+                    ranking.remove(previous);
+                }
+            }
+            categoryTotals.putAll(rebuiltCategories);
+            for (RunningTotal total : rebuiltMerchants.values()) {
+                merchantTotals.put(total.id, total);
+                if (total.count > 0) {
+                    ranking.add(total);
+                }
+            }
+        });
+    }
+
+    /**
+     * Applies a product write to the totals. Runs before the write commits, so the new rating is stored in
+     * the same transaction, and ahead of the search index, which reads the new rating.
+     *
+     * @param event
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.getKind()) {
+            case ADDED:
+                this.productAdded(event.getProduct());
+                break;
+            case CHANGED:
+                this.productEmissionChanged(event.getProduct(), event.getPreviousCarbonEmission());
+                break;
+            case REMOVED:
+                this.productRemoved(event.getProduct());
+                break;
+            case CATEGORY_REMOVED:
+                this.categoryRemoved(event.getCategory());
+                break;
+        }
+    }
+
+    /**
+     * Re-aggregates the merchants of products whose emissions were recomputed in bulk
+     *
+     * @param event
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductsRecomputed(ProductsRecomputedEvent event) {
+        if (!event.getProductIds().isEmpty()) {
+            this.rebuildMerchants(categoryRepository.findMerchantIdsByProductIds(event.getProductIds()));
+        }
+    }
+
+    /**
+     * Counts a newly added product towards its category and merchant
+     *
+     * @param product
+     */
+    public void productAdded(Product product) {
+        this.apply(product.getCategory(), nullToZero(product.getCarbonEmission()), 1);
+    }
+
+    /**
+     * Removes a deleted product from its category and merchant totals
+     *
+     * @param product
+     */
+    public void productRemoved(Product product) {
+        this.apply(product.getCategory(), -nullToZero(product.getCarbonEmission()), -1);
+    }
+
+    /**
+     * Moves a product's contribution from its previous carbonEmission to its current one
+     *
+     * @param product
+     * @param previousCarbonEmission
+     */
+    public void productEmissionChanged(Product product, Double previousCarbonEmission) {
+        double delta = nullToZero(product.getCarbonEmission()) - nullToZero(previousCarbonEmission);
+        if (delta != 0) {
+            this.apply(product.getCategory(), delta, 0);
+        }
+    }
+
+    /**
+     * Removes every product of a deleted category
+     *
+     * @param category
+     */
+    public void categoryRemoved(Category category) {
+        RunningTotal categoryTotal;
+        synchronized (this) {
+            categoryTotal = categoryTotals.get(category.getId());
+        }
+        if (categoryTotal != null) {
+            this.apply(category, -categoryTotal.sum, -categoryTotal.count);
+        }
+        Integer categoryId = category.getId();
+        this.afterCommit(() -> categoryTotals.remove(categoryId));
+    }
+
+    /**
+     * Gets the merchants with the lowest average product emissions
+     *
+     * @param limit
+     * @return
+     */
+    public List<MerchantCarbonRatingDTO> getGreenestMerchants(int limit) {
+        List<RunningTotal> top = new ArrayList<>();
+        synchronized (this) {
+            for (RunningTotal total : ranking) {
+                if (top.size() == limit) {
+                    break;
+                }
+                top.add(total.copy());
+            }
+        }
+
+        Map<Integer, Merchant> merchants = new HashMap<>();
+        for (Merchant merchant : merchantRepository.findAllById(top.stream().map(total -> total.id).toList())) {
+            merchants.put(merchant.getId(), merchant);
+        }
+
+        List<MerchantCarbonRatingDTO> output = new ArrayList<>();
+        for (RunningTotal total : top) {
+            Merchant merchant = merchants.get(total.id);
+            if (merchant != null) {
+                output.add(new MerchantCarbonRatingDTO(merchant.getUsername(), merchant.getCompany(),
+                        total.average(), total.count));
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Gets the average product emission of a category, or null if it has no products
+     *
+     * @param categoryId
+     * @return
+     */
+    public synchronized Double getCategoryAverage(Integer categoryId) {
+        RunningTotal total = categoryTotals.get(categoryId);
+        return total == null || total.count == 0 ? null : total.average();
+    }
+
+    /**
+     * Gets the carbon rating of a merchant, or null if it has no products
+     *
+     * @param merchantId
+     * @return
+     */
+    public synchronized Double getMerchantAverage(Integer merchantId) {
+        RunningTotal total = merchantTotals.get(merchantId);
+        return total == null || total.count == 0 ? null : total.average();
+    }
+
+    /*
+     * Recomputes the merchant's stored rating from its products in the caller's transaction, so it rolls
+     * back with the product change, and only moves the running totals and the ranking once that change
+     * commits. The rating is not worked out from the running totals, which leave out the transaction's
+     * earlier changes and other transactions' uncommitted ones. The merchant is locked first, so the
+     * aggregate runs after any concurrent change to its products has committed and includes it.
+     */
+    private void apply(Category category, double sumDelta, long countDelta) {
+        if (category == null) {
+            return;
+        }
+
+        Integer categoryId = category.getId();
+        Integer merchantId = category.getMerchant() == null ? null : category.getMerchant().getId();
+        if (merchantId != null) {
+            merchantRepository.lockById(merchantId);
+            merchantRepository.refreshCarbonRating(merchantId);
+        }
+
+        this.afterCommit(() -> {
+            categoryTotals.computeIfAbsent(categoryId, RunningTotal::new).add(sumDelta, countDelta);
+            if (merchantId == null) {
+                return;
+            }
+
+            RunningTotal merchantTotal = merchantTotals.computeIfAbsent(merchantId, RunningTotal::new);
+            // re-key the merchant in the ranking, its average is part of the ordering
+            ranking.remove(merchantTotal);
+            merchantTotal.add(sumDelta, countDelta);
+            if (merchantTotal.count > 0) {
+                ranking.add(merchantTotal);
+            }
+        });
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.applyTotals(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyTotals(change);
+            }
+        });
+    }
+
+    private synchronized void applyTotals(Runnable change) {
+        change.run();
+    }
+
+    private static double nullToZero(Double value) {
+        return value == null ? 0.0 : value;
+    }
+
+    private static class RunningTotal {
+
+        private final Integer id;
+        private double sum;
+        private long count;
+
+        private RunningTotal(Integer id) {
+            this.id = id;
+        }
+
+        private void add(double sumDelta, long countDelta) {
+            sum += sumDelta;
+            count += countDelta;
+            if (count <= 0) {
+                // clear floating point residue once the last product is gone
+                sum = 0;
+                count = 0;
+            }
+        }
+
+        private double average() {
+            return count == 0 ? 0.0 : sum / count;
+        }
+
+        private RunningTotal copy() {
+            RunningTotal copy = new RunningTotal(id);
+            copy.sum = sum;
+            copy.count = count;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package me.plantngo.backend.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import me.plantngo.backend.DTO.SearchFilterDTO;
+import me.plantngo.backend.DTO.SearchResultDTO;
+import me.plantngo.backend.models.Category;
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.Product;
+import me.plantngo.backend.models.ProductChangedEvent;
+import me.plantngo.backend.models.ProductsRecomputedEvent;
+import me.plantngo.backend.models.SearchDocumentType;
+import me.plantngo.backend.repositories.MerchantRepository;
+import me.plantngo.backend.repositories.ProductRepository;
+import me.plantngo.backend.utils.CatalogueSearchIndex;
+import me.plantngo.backend.utils.CatalogueSearchIndex.Document;
+
+/*
+ * Full-text search over merchants and products.
+ *
+ * Writes to merchants hand their new state to the index through the hooks below, product writes and bulk
+ * emission recomputes through their events. The state is copied when the hook is called and applied once
+ * the surrounding transaction commits, so a rolled back write never shows up in search results; outside a
+ * transaction it is applied at once.
+ */
+@Service
+public class CatalogueSearchService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    public static final int MAX_PAGE_SIZE = 50;
+
+    // deeper pages would make every query rank max page x page size matches
+    public static final int MAX_PAGE = 1000;
+
+    private final MerchantRepository merchantRepository;
+
+    private final ProductRepository productRepository;
+
+    private final CarbonRatingService carbonRatingService;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private CatalogueSearchIndex index = new CatalogueSearchIndex();
+
+    // changes applied while a rebuild is reading the tables, replayed onto the rebuilt index
+    private final List<Consumer<CatalogueSearchIndex>> appliedDuringRebuild = new ArrayList<>();
+
+    private boolean rebuilding;
+
+    @Autowired
+    public CatalogueSearchService(MerchantRepository merchantRepository, ProductRepository productRepository,
+            CarbonRatingService carbonRatingService) {
+        this.merchantRepository = merchantRepository;
+        this.productRepository = productRepository;
+        this.carbonRatingService = carbonRatingService;
+    }
+
+    /**
+     * Rebuilds the index from the merchant and product tables. The new index is built off to the side and
+     * swapped in, so searches keep being served while it loads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            appliedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        CatalogueSearchIndex rebuilt = new CatalogueSearchIndex();
+        boolean loaded = false;
+        try {
+            for (Merchant merchant : merchantRepository.findAll()) {
+                rebuilt.put(Document.of(merchant));
+            }
+            for (Product product : productRepository.findAll()) {
+                rebuilt.put(Document.of(product));
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // if reading the tables failed, keep serving the old index
+                if (loaded) {
+                    appliedDuringRebuild.forEach(change -> change.accept(rebuilt));
+                    index = rebuilt;
+                }
+                rebuilding = false;
+                appliedDuringRebuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Indexes a new or changed merchant, and its products, which are filtered by the merchant's
+     * cuisineType and priceRating
+     *
+     * @param merchant
+     */
+    public void merchantChanged(Merchant merchant) {
+        List<Document> documents = new ArrayList<>();
+        documents.add(this.merchantDocument(merchant));
+        for (Product product : productRepository.findByCategoryMerchantUsernameOrderByCarbonEmission(
+                merchant.getUsername())) {
+            documents.add(Document.of(product));
+        }
+        this.afterCommit(index -> index.putAll(documents));
+    }
+
+    /**
+     * Indexes a new or changed product
+     *
+     * @param product
+     */
+    public void productChanged(Product product) {
+        Document document = Document.of(product);
+        this.afterCommit(index -> index.put(document));
+    }
+
+    /**
+     * Removes a deleted product from the index
+     *
+     * @param product
+     */
+    public void productRemoved(Product product) {
+        Integer productId = product.getId();
+        this.afterCommit(index -> index.remove(SearchDocumentType.PRODUCT, productId));
+    }
+
+    /**
+     * Removes every product of a deleted category from the index
+     *
+     * @param category
+     */
+    public void categoryRemoved(Category category) {
+        List<Integer> productIds = new ArrayList<>();
+        if (category.getProducts() != null) {
+            category.getProducts().forEach(product -> productIds.add(product.getId()));
+        }
+        this.afterCommit(index -> productIds.forEach(id -> index.remove(SearchDocumentType.PRODUCT, id)));
+    }
+
+    /**
+     * Applies a product write to the index once it has committed, along with the merchant's new carbon
+     * rating
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.getKind()) {
+            case ADDED:
+            case CHANGED:
+                this.productChanged(event.getProduct());
+                break;
+            case REMOVED:
+                this.productRemoved(event.getProduct());
+                break;
+            case CATEGORY_REMOVED:
+                this.categoryRemoved(event.getCategory());
+                break;
+        }
+
+        Merchant merchant = event.getCategory() == null ? null : event.getCategory().getMerchant();
+        if (merchant != null) {
+            Document document = this.merchantDocument(merchant);
+            this.afterCommit(index -> index.put(document));
+        }
+    }
+
+    /**
+     * Re-reads the products whose emissions were recomputed in bulk, and their merchants' ratings
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsRecomputed(ProductsRecomputedEvent event) {
+        List<Document> documents = new ArrayList<>();
+        Map<Integer, Merchant> merchants = new HashMap<>();
+        for (Product product : productRepository.findAllById(event.getProductIds())) {
+            documents.add(Document.of(product));
+            Merchant merchant = product.getCategory() == null ? null : product.getCategory().getMerchant();
+            if (merchant != null) {
+                merchants.put(merchant.getId(), merchant);
+            }
+        }
+        merchants.values().forEach(merchant -> documents.add(this.merchantDocument(merchant)));
+        this.afterCommit(index -> index.putAll(documents));
+    }
+
+    /**
+     * Searches merchants and products, ranked by relevance to the query, with the number of matches per
+     * carbon emission band and price rating
+     *
+     * @param query blank to browse everything passing the filter
+     * @param filter
+     * @param page zero-based, at most MAX_PAGE
+     * @param size
+     * @return
+     */
+    public SearchResultDTO search(String query, SearchFilterDTO filter, Integer page, Integer size) {
+        int boundedPage = page == null ? 0 : page;
+        int boundedSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if (boundedPage < 0) {
+            throw new IllegalArgumentException("page must not be negative");
+        }
+        if (boundedPage > MAX_PAGE) {
+            throw new IllegalArgumentException("page must be at most " + MAX_PAGE);
+        }
+        int offset = Math.multiplyExact(boundedPage, boundedSize);
+
+        lock.readLock().lock();
+        try {
+            return index.search(query, filter, offset, boundedSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getIndexSize() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * The rating is taken from the carbon rating totals, the entity may predate the UPDATE that stored it
+     */
+    private Document merchantDocument(Merchant merchant) {
+        Double carbonRating = carbonRatingService.getMerchantAverage(merchant.getId());
+        return Document.of(merchant, carbonRating == null ? merchant.getCarbonRating() : carbonRating);
+    }
+
+    private void afterCommit(Consumer<CatalogueSearchIndex> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.apply(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(change);
+            }
+        });
+    }
+
+    private void apply(Consumer<CatalogueSearchIndex> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (rebuilding) {
+                appliedDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
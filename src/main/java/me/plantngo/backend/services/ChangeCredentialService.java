@@ -20,16 +20,19 @@ public class ChangeCredentialService {
     CustomerRepository customerRepository;
     MerchantRepository merchantRepository;
     BCryptPasswordEncoder bCryptPasswordEncoder;
+    CatalogueSearchService catalogueSearchService;
 
     private static final String USER_NOT_FOUND_ERROR = "User does not exist";
 
     @Autowired
     public ChangeCredentialService(CustomerRepository customerRepository,
                                    MerchantRepository merchantRepository,
-                                   BCryptPasswordEncoder bCryptPasswordEncoder) {
+                                   BCryptPasswordEncoder bCryptPasswordEncoder,
+                                   CatalogueSearchService catalogueSearchService) {
         this.customerRepository = customerRepository;
         this.merchantRepository = merchantRepository;
         this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.catalogueSearchService = catalogueSearchService;
     }
 
     public void validateNewUsername(String newUsername, Character userType){
@@ -64,6 +67,7 @@ public class ChangeCredentialService {
     public ResponseEntity<String> replaceMerchantUsername(Merchant merchant, String newUsername){
         merchant.setUsername(newUsername);
         merchantRepository.saveAndFlush(merchant);
+        catalogueSearchService.merchantChanged(merchant);
         return new ResponseEntity<>("Successfully changed username to " + newUsername, HttpStatus.OK);
     }
     public ResponseEntity<String> replacePassword(String username, String newPassword, Character userType){
@@ -0,0 +1,42 @@
+package me.plantngo.backend.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import me.plantngo.backend.models.OutboxEvent;
+import me.plantngo.backend.models.OutboxEventType;
+
+/*
+ * Adds fulfilled orders to the customer's daily savings. The totals and the consumer's outbox offset
+ * commit together, so each order is counted once.
+ */
+@Service
+public class CustomerSavingsEventConsumer implements OutboxConsumer {
+
+    private final CustomerSavingsService customerSavingsService;
+
+    private final OutboxService outboxService;
+
+    @Autowired
+    public CustomerSavingsEventConsumer(CustomerSavingsService customerSavingsService, OutboxService outboxService) {
+        this.customerSavingsService = customerSavingsService;
+        this.outboxService = outboxService;
+    }
+
+    @Override
+    public String getName() {
+        return "customer-savings";
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        if (event.getType() != OutboxEventType.ORDER_FULFILLED || event.getCustomerId() == null) {
+            return;
+        }
+        JsonNode payload = outboxService.payloadOf(event);
+        customerSavingsService.record(event.getCustomerId(), event.getCreatedAt().toLocalDate(),
+                payload.path("emissionSaved").asDouble(), payload.path("points").asInt());
+    }
+}
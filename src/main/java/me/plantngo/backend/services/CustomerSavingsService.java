@@ -0,0 +1,131 @@
+package me.plantngo.backend.services;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import me.plantngo.backend.DTO.SavingsSeriesDTO;
+import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.models.CustomerDailySavings;
+import me.plantngo.backend.models.SavingsBucket;
+import me.plantngo.backend.repositories.CustomerDailySavingsRepository;
+
+/*
+ * Keeps one row per customer per day with the orders fulfilled, emissions saved and points earned
+ * that day, and serves them as daily, weekly or monthly series. A range reads at most one row per day
+ * in it, however many orders the customer has.
+ */
+@Service
+public class CustomerSavingsService {
+
+    // longest series served, e.g. a bit over a year of days
+    private static final int MAX_BUCKETS = 400;
+
+    private final CustomerDailySavingsRepository customerDailySavingsRepository;
+
+    private final CustomerService customerService;
+
+    @Autowired
+    public CustomerSavingsService(CustomerDailySavingsRepository customerDailySavingsRepository,
+            CustomerService customerService) {
+        this.customerDailySavingsRepository = customerDailySavingsRepository;
+        this.customerService = customerService;
+    }
+
+    /**
+     * Adds a fulfilled order to the customer's totals for the day
+     *
+     * @param customerId
+     * @param date
+     * @param emissionSaved
+     * @param pointsEarned
+     */
+    @Transactional
+    public void record(Integer customerId, LocalDate date, Double emissionSaved, Integer pointsEarned) {
+        customerDailySavingsRepository.createIfAbsent(customerId, date);
+        customerDailySavingsRepository.add(customerId, date, 1, emissionSaved, pointsEarned);
+    }
+
+    /**
+     * Gets a customer's savings between two dates, inclusive, summed per bucket
+     *
+     * @param username
+     * @param bucket
+     * @param from defaults to 30 days, 12 weeks or 12 months before to
+     * @param to defaults to today
+     * @return
+     */
+    public SavingsSeriesDTO getSeries(String username, SavingsBucket bucket, LocalDate from, LocalDate to) {
+        Customer customer = customerService.getCustomerByUsername(username);
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = this.startOf(bucket, from == null ? this.defaultFrom(bucket, end) : from);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (this.unit(bucket).between(start, end) >= MAX_BUCKETS) {
+            throw new IllegalArgumentException("Range is longer than " + MAX_BUCKETS + " buckets");
+        }
+
+        List<LocalDate> periods = new ArrayList<>();
+        Map<LocalDate, Integer> indexOf = new HashMap<>();
+        for (LocalDate period = start; !period.isAfter(end); period = period.plus(1, this.unit(bucket))) {
+            indexOf.put(period, periods.size());
+            periods.add(period);
+        }
+        List<Integer> orders = new ArrayList<>(Collections.nCopies(periods.size(), 0));
+        List<Double> emissionSaved = new ArrayList<>(Collections.nCopies(periods.size(), 0.0));
+        List<Integer> pointsEarned = new ArrayList<>(Collections.nCopies(periods.size(), 0));
+
+        for (CustomerDailySavings day : customerDailySavingsRepository
+                .findByCustomerIdAndSavingsDateBetweenOrderBySavingsDateAsc(customer.getId(), start, end)) {
+            int i = indexOf.get(this.startOf(bucket, day.getSavingsDate()));
+            orders.set(i, orders.get(i) + day.getOrders());
+            emissionSaved.set(i, emissionSaved.get(i) + day.getEmissionSaved());
+            pointsEarned.set(i, pointsEarned.get(i) + day.getPointsEarned());
+        }
+        return new SavingsSeriesDTO(bucket, periods, orders, emissionSaved, pointsEarned);
+    }
+
+    private LocalDate startOf(SavingsBucket bucket, LocalDate date) {
+        switch (bucket) {
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            default:
+                return date;
+        }
+    }
+
+    private LocalDate defaultFrom(SavingsBucket bucket, LocalDate to) {
+        switch (bucket) {
+            case WEEK:
+                return to.minusWeeks(11);
+            case MONTH:
+                return to.minusMonths(11);
+            default:
+                return to.minusDays(29);
+        }
+    }
+
+    private ChronoUnit unit(SavingsBucket bucket) {
+        switch (bucket) {
+            case WEEK:
+                return ChronoUnit.WEEKS;
+            case MONTH:
+                return ChronoUnit.MONTHS;
+            default:
+                return ChronoUnit.DAYS;
+        }
+    }
+}
@@ -24,10 +24,17 @@ public class CustomerService {
 
     private MerchantRepository merchantRepository;
 
+    private LeaderboardService leaderboardService;
+
+    private GreenPointsService greenPointsService;
+
     @Autowired
-    public CustomerService(CustomerRepository customerRepository, MerchantRepository merchantRepository) {
+    public CustomerService(CustomerRepository customerRepository, MerchantRepository merchantRepository,
+            LeaderboardService leaderboardService, GreenPointsService greenPointsService) {
         this.customerRepository = customerRepository;
         this.merchantRepository = merchantRepository;
+        this.leaderboardService = leaderboardService;
+        this.greenPointsService = greenPointsService;
     }
 
 
@@ -83,6 +90,7 @@ public class CustomerService {
         }
 
         Customer customer = this.getCustomerByUsername(username);
+        Integer previousGreenPoints = customer.getGreenPoints() == null ? 0 : customer.getGreenPoints();
         
         // Updating Customer
         ModelMapper mapper = new ModelMapper();
@@ -91,6 +99,12 @@ public class CustomerService {
 
         customerRepository.saveAndFlush(customer);
 
+        // greenPoints is not written by the save, a new balance is recorded as a ledger adjustment
+        if (updateCustomerDetailsDTO.getGreenPoints() != null) {
+            greenPointsService.addPoints(customer, updateCustomerDetailsDTO.getGreenPoints() - previousGreenPoints,
+                    "adjustment", null);
+        }
+
         return customer;
     }
 
@@ -104,6 +118,7 @@ public class CustomerService {
         if (!customerRepository.existsByUsername(username)) {
             throw new NotExistException("Customer");
         }
+        customerRepository.findByUsername(username).ifPresent(leaderboardService::customerRemoved);
         customerRepository.deleteByUsername(username);
     }
 
@@ -0,0 +1,443 @@
+package me.plantngo.backend.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import me.plantngo.backend.DTO.APIIngredientDTO;
+import me.plantngo.backend.DTO.APIPostDTO;
+import me.plantngo.backend.DTO.APIResponseDTO;
+import me.plantngo.backend.DTO.APIResultDTO;
+import me.plantngo.backend.DTO.EmissionFetchDTO;
+import me.plantngo.backend.DTO.EmissionFetchSummaryDTO;
+import me.plantngo.backend.exceptions.NotExistException;
+import me.plantngo.backend.models.EmissionFetchStatus;
+import me.plantngo.backend.models.Ingredient;
+import me.plantngo.backend.repositories.IngredientRepository;
+import me.plantngo.backend.utils.TokenBucket;
+
+/*
+ * Bulk import of foods and their emission factors from the myemissions.green calculator API.
+ *
+ * The API only prices one food per request, so foods are fetched by a bounded worker pool behind a shared
+ * token bucket. Failed requests are retried with exponential backoff. Results are saved in batches and
+ * every saved food id is appended to a checkpoint file, so an interrupted run resumes where it stopped.
+ *
+ * A run takes minutes, so requests start it on a background thread and poll its progress by id. Runs
+ * share the checkpoint file, so only one runs at a time and starting another while it is queued or
+ * running returns the one in progress.
+ */
+@Service
+public class EmissionFetchService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmissionFetchService.class);
+
+    // unit the calculator prices each food in
+    private static final String CALCULATOR_UNIT = "17b6249c-cbda-4e59-b575-018f7781c68c";
+
+    private static final int BATCH_SIZE = 100;
+
+    // finished runs kept for polling, the oldest dropped first
+    private static final int RETAINED_FETCHES = 20;
+
+    private final IngredientRepository ingredientRepository;
+
+    private final IngredientSearchService ingredientSearchService;
+
+    private final RestTemplate restTemplate;
+
+    private final String baseUrl;
+
+    private final int threads;
+
+    private final double requestsPerSecond;
+
+    private final int maxAttempts;
+
+    private final long backoffMillis;
+
+    private final Path checkpointFile;
+
+    private final Map<String, Fetch> fetches = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Fetch> eldest) {
+            return size() > RETAINED_FETCHES;
+        }
+    };
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor();
+
+    // the queued or running fetch, null when none is
+    private Fetch current;
+
+    @Autowired
+    public EmissionFetchService(IngredientRepository ingredientRepository,
+            IngredientSearchService ingredientSearchService,
+            @Value("${emission.myemissions.base-url:https://app.myemissions.green/api/v1/calculator}") String baseUrl,
+            @Value("${emission.myemissions.threads:8}") int threads,
+            @Value("${emission.myemissions.requests-per-second:10}") double requestsPerSecond,
+            @Value("${emission.myemissions.max-attempts:4}") int maxAttempts,
+            @Value("${emission.myemissions.backoff-millis:500}") long backoffMillis,
+            @Value("${emission.myemissions.checkpoint:myemissions.checkpoint}") String checkpointFile) {
+        this.ingredientRepository = ingredientRepository;
+        this.ingredientSearchService = ingredientSearchService;
+        this.baseUrl = baseUrl;
+        this.threads = threads;
+        this.requestsPerSecond = requestsPerSecond;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.checkpointFile = Paths.get(checkpointFile);
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(5000);
+        requestFactory.setReadTimeout(15000);
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    /**
+     * Starts fetching every food and its emissions in the background
+     *
+     * @return progress of the fetch, with the id to poll it by, or of the fetch already in progress
+     */
+    public EmissionFetchDTO startFetch() {
+        Fetch fetch;
+        synchronized (fetches) {
+            if (current != null) {
+                return current.toDTO();
+            }
+            fetch = new Fetch(UUID.randomUUID().toString());
+            fetches.put(fetch.id, fetch);
+            current = fetch;
+        }
+        runner.execute(() -> this.run(fetch));
+        return fetch.toDTO();
+    }
+
+    /**
+     * Gets the progress of a fetch
+     *
+     * @param id
+     * @return
+     */
+    public EmissionFetchDTO getFetch(String id) {
+        Fetch fetch;
+        synchronized (fetches) {
+            fetch = fetches.get(id);
+        }
+        if (fetch == null) {
+            throw new NotExistException("Emission fetch");
+        }
+        return fetch.toDTO();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * Fetches every food and its emissions, skipping foods saved by an earlier run. The checkpoint is
+     * removed once a run finishes without failures, so the next run refreshes everything.
+     *
+     * @return
+     * @throws InterruptedException
+     */
+    public EmissionFetchSummaryDTO fetchAll() throws InterruptedException {
+        List<APIResultDTO> foods = this.fetchFoods();
+        Set<String> checkpointed = this.readCheckpoint();
+
+        List<APIResultDTO> pending = new ArrayList<>();
+        for (APIResultDTO food : foods) {
+            if (!checkpointed.contains(food.getId())) {
+                pending.add(food);
+            }
+        }
+
+        TokenBucket tokenBucket = new TokenBucket(requestsPerSecond, Math.max(1, threads));
+        BlockingQueue<FetchResult> results = new LinkedBlockingQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            for (APIResultDTO food : pending) {
+                executor.execute(() -> {
+                    try {
+                        results.add(this.fetchEmissions(food, tokenBucket));
+                    } catch (RuntimeException e) {
+                        // every food must report back, or the drain loop below waits forever
+                        log.warn("Emissions request for food {} failed", food.getId(), e);
+                        results.add(new FetchResult(food, null));
+                    }
+                });
+            }
+
+            int fetched = 0;
+            int failed = 0;
+            List<FetchResult> batch = new ArrayList<>(BATCH_SIZE);
+            for (int received = 0; received < pending.size(); received++) {
+                FetchResult result = results.take();
+                if (result.ingredient == null) {
+                    failed++;
+                    continue;
+                }
+                batch.add(result);
+                fetched++;
+                if (batch.size() == BATCH_SIZE) {
+                    this.saveBatch(batch);
+                }
+            }
+            this.saveBatch(batch);
+
+            if (failed == 0) {
+                Files.deleteIfExists(checkpointFile);
+            }
+            if (fetched > 0) {
+                ingredientSearchService.rebuildIndex();
+            }
+
+            log.info("Fetched emissions for {} of {} foods, {} skipped, {} failed", fetched, foods.size(),
+                    foods.size() - pending.size(), failed);
+            return new EmissionFetchSummaryDTO(foods.size(), foods.size() - pending.size(), fetched, failed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void run(Fetch fetch) {
+        fetch.start();
+        EmissionFetchSummaryDTO summary = null;
+        String error = null;
+        try {
+            summary = this.fetchAll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Interrupted";
+        } catch (RuntimeException e) {
+            log.error("Emission fetch {} failed", fetch.id, e);
+            error = e.getMessage();
+        } finally {
+            synchronized (fetches) {
+                fetch.finish(summary, error);
+                current = null;
+            }
+        }
+    }
+
+    private List<APIResultDTO> fetchFoods() {
+        List<APIResultDTO> foods = new ArrayList<>();
+        String url = baseUrl + "/foods/?limit=1000";
+
+        // the list endpoint is paged, follow it to the end
+        while (url != null) {
+            APIResponseDTO page = restTemplate.getForObject(url, APIResponseDTO.class);
+            if (page == null || page.getResults() == null) {
+                break;
+            }
+            foods.addAll(page.getResults());
+            url = page.getNext();
+        }
+
+        return foods;
+    }
+
+    private FetchResult fetchEmissions(APIResultDTO food, TokenBucket tokenBucket) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+
+        List<APIIngredientDTO> apiIngredientDTOs = new ArrayList<>();
+        apiIngredientDTOs.add(new APIIngredientDTO(food.getId(), CALCULATOR_UNIT, "1"));
+        HttpEntity<APIPostDTO> entity = new HttpEntity<>(new APIPostDTO(apiIngredientDTOs, 1), headers);
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            long retryAfterMillis = 0;
+            try {
+                tokenBucket.acquire();
+                JsonNode body = restTemplate.postForObject(baseUrl + "/", entity, JsonNode.class);
+                JsonNode emissions = body == null ? null : body.path("ingredients").path(0).get("emissions");
+                if (emissions == null || !emissions.isNumber()) {
+                    log.warn("No emissions returned for food {}", food.getId());
+                    return new FetchResult(food, null);
+                }
+                return new FetchResult(food, this.ingredientMapToEntity(food, emissions.asDouble()));
+            } catch (HttpStatusCodeException e) {
+                if (!isRetryable(e.getStatusCode())) {
+                    log.warn("Emissions request for food {} rejected with {}", food.getId(), e.getStatusCode());
+                    return new FetchResult(food, null);
+                }
+                retryAfterMillis = retryAfterMillis(e.getResponseHeaders());
+            } catch (ResourceAccessException e) {
+                // connection refused / timed out, worth another try
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new FetchResult(food, null);
+            }
+
+            if (attempt < maxAttempts) {
+                try {
+                    Thread.sleep(Math.max(retryAfterMillis, this.backoff(attempt)));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return new FetchResult(food, null);
+                }
+            }
+        }
+
+        log.warn("Giving up on food {} after {} attempts", food.getId(), maxAttempts);
+        return new FetchResult(food, null);
+    }
+
+    private void saveBatch(List<FetchResult> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Ingredient> ingredients = new ArrayList<>(batch.size());
+        for (FetchResult result : batch) {
+            ingredients.add(result.ingredient);
+        }
+        ingredientRepository.upsertAllByName(ingredients);
+
+        // only checkpoint once the rows are committed
+        try (BufferedWriter writer = Files.newBufferedWriter(checkpointFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (FetchResult result : batch) {
+                writer.write(result.food.getId());
+                writer.newLine();
+            }
+        }
+        batch.clear();
+    }
+
+    private Set<String> readCheckpoint() {
+        Set<String> ids = new HashSet<>();
+        if (!Files.exists(checkpointFile)) {
+            return ids;
+        }
+        try {
+            for (String line : Files.readAllLines(checkpointFile, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    ids.add(line.trim());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not read checkpoint {}, starting from scratch", checkpointFile, e);
+        }
+        return ids;
+    }
+
+    private Ingredient ingredientMapToEntity(APIResultDTO food, Double emissions) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setIngredientId(food.getId());
+        ingredient.setCategory(food.getCategory());
+        ingredient.setName(food.getName());
+        ingredient.setEmissionPerGram(emissions);
+
+        return ingredient;
+    }
+
+    // exponential backoff with full jitter: a random wait in [0, backoffMillis * 2^(attempt - 1)]
+    private long backoff(int attempt) {
+        long ceiling = backoffMillis << Math.min(attempt - 1, 10);
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static boolean isRetryable(HttpStatus status) {
+        return status == HttpStatus.TOO_MANY_REQUESTS || status.is5xxServerError();
+    }
+
+    private static long retryAfterMillis(HttpHeaders headers) {
+        if (headers == null || headers.getFirst(HttpHeaders.RETRY_AFTER) == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(headers.getFirst(HttpHeaders.RETRY_AFTER).trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /*
+     * Progress of one fetch, written by the runner thread and read by pollers
+     */
+    private static class Fetch {
+
+        private final String id;
+        private EmissionFetchStatus status = EmissionFetchStatus.QUEUED;
+        private EmissionFetchSummaryDTO summary;
+        private LocalDateTime startedDateTime;
+        private LocalDateTime finishedDateTime;
+        private String error;
+
+        private Fetch(String id) {
+            this.id = id;
+        }
+
+        private synchronized void start() {
+            status = EmissionFetchStatus.RUNNING;
+            startedDateTime = LocalDateTime.now();
+        }
+
+        private synchronized void finish(EmissionFetchSummaryDTO summary, String error) {
+            this.status = error == null ? EmissionFetchStatus.COMPLETED : EmissionFetchStatus.FAILED;
+            this.summary = summary;
+            this.error = error;
+            finishedDateTime = LocalDateTime.now();
+        }
+
+        private synchronized EmissionFetchDTO toDTO() {
+            return new EmissionFetchDTO(id, status, summary, startedDateTime, finishedDateTime, error);
+        }
+    }
+
+    private static class FetchResult {
+
+        private final APIResultDTO food;
+
+        // null when the food could not be priced
+        private final Ingredient ingredient;
+
+        private FetchResult(APIResultDTO food, Ingredient ingredient) {
+            this.food = food;
+            this.ingredient = ingredient;
+        }
+    }
+}
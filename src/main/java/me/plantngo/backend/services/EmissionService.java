@@ -1,147 +1,199 @@
 package me.plantngo.backend.services;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
-import javax.annotation.PostConstruct;
-
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-
-import me.plantngo.backend.DTO.APIIngredientDTO;
-import me.plantngo.backend.DTO.APIPostDTO;
-import me.plantngo.backend.DTO.APIResponseDTO;
-import me.plantngo.backend.DTO.APIResultDTO;
+
 import me.plantngo.backend.models.Ingredient;
 import me.plantngo.backend.repositories.IngredientRepository;
 
 @Service
 public class EmissionService {
 
+    private static final Logger log = LoggerFactory.getLogger(EmissionService.class);
+
     private IngredientRepository ingredientRepository;
 
+    private IngredientSearchService ingredientSearchService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    // versioned snapshot of the feed at feedUrl, read on startup when it is bundled
+    @Value("${emission.snapshot:classpath:data/ingredients-v1.json.gz}")
+    private Resource snapshot;
+
+    @Value("${emission.feed-url:https://assets.plateupfortheplanet.org/carbon-calculator/JSON/ingredients-updated.json}")
+    private String feedUrl;
+
+    @Value("${emission.sync.on-missing-snapshot:true}")
+    private boolean syncOnMissingSnapshot;
+
+    private String feedETag;
+
     @Autowired
-    public EmissionService(IngredientRepository ingredientRepository) {
+    public EmissionService(IngredientRepository ingredientRepository,
+            IngredientSearchService ingredientSearchService) {
         this.ingredientRepository = ingredientRepository;
+        this.ingredientSearchService = ingredientSearchService;
     }
 
     public List<Ingredient> getAllIngredients() {
         return ingredientRepository.findAll();
     }
 
-    @PostConstruct
-    public List<Ingredient> populateRepository() {
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode arrNode = null;
-        List<Ingredient> outputList = new ArrayList<>();
-
-        try {
-            arrNode = mapper.readTree(
-                    new URL("https://assets.plateupfortheplanet.org/carbon-calculator/JSON/ingredients-updated.json"));
-        } catch (MalformedURLException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
-        if (arrNode.isArray()) {
-            for (JsonNode objNode : arrNode) {
-                Ingredient ingredient = this.createAndSaveIngredient(objNode);
-                outputList.add(ingredient);
+    /**
+     * Loads the ingredient snapshot in the background once the application is up, so the HTTP listener does
+     * not wait on it. With a snapshot bundled startup needs no network access; without one the feed is
+     * fetched instead, unless emission.sync.on-missing-snapshot is turned off.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSnapshot() {
+        if (!snapshot.exists()) {
+            if (syncOnMissingSnapshot) {
+                log.warn("Ingredient snapshot {} is missing, fetching {} instead", snapshot.getDescription(),
+                        feedUrl);
+                this.syncFeed();
+            } else {
+                log.error("Ingredient snapshot {} is missing, no ingredients loaded. Bundle it, or enable "
+                        + "emission.sync.on-missing-snapshot to fetch the feed", snapshot.getDescription());
             }
+            return;
         }
 
-        return outputList;
-    }
-
-    private Ingredient createAndSaveIngredient(JsonNode objNode) {
-        Ingredient ingredient = new Ingredient();
-        ingredient.setCategory(objNode.get("Group").asText());
-        ingredient.setEmissionPerGram(objNode.get("Unknown").asDouble() / 1000);
-        ingredient.setName(objNode.get("FOOD").asText());
-        ingredient.setIngredientId(null);
-
-        if (!ingredientRepository.existsByName(ingredient.getName())) {
-            ingredientRepository.save(ingredient);
+        try (InputStream in = this.openSnapshot()) {
+            List<Ingredient> ingredients = this.readIngredients(in);
+            // products using a changed factor are recomputed in bulk and published to the ratings and indexes
+            int written = ingredientRepository.upsertAllByName(ingredients);
+            log.info("Loaded {} ingredients from {}, {} rows written", ingredients.size(),
+                    snapshot.getDescription(), written);
+        } catch (IOException e) {
+            log.error("Could not read ingredient snapshot {}", snapshot.getDescription(), e);
+            return;
         }
 
-        return ingredient;
+        ingredientSearchService.rebuildIndex();
     }
 
-    // @PostConstruct
-    public void populateRepositoryMyEmissions() {
-        RestTemplate restTemplate = new RestTemplate();
-
-        String url = "https://app.myemissions.green/api/v1/calculator/foods/?limit=1000";
+    /**
+     * Scheduled delta sync against the remote feed, off unless emission.sync.cron is set. The feed is
+     * requested conditionally so an unchanged feed costs one 304, and only new or changed rows are written.
+     */
+    @Scheduled(cron = "${emission.sync.cron:-}")
+    public void syncFeed() {
+        HttpHeaders headers = new HttpHeaders();
+        if (feedETag != null) {
+            headers.setIfNoneMatch(feedETag);
+        }
 
-        APIResponseDTO apiResponseDTO = restTemplate.getForObject(url, APIResponseDTO.class);
+        ResponseEntity<byte[]> response;
+        try {
+            response = restTemplate.exchange(feedUrl, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        } catch (RestClientException e) {
+            log.warn("Could not fetch ingredient feed {}: {}", feedUrl, e.getMessage());
+            return;
+        }
 
-        List<APIResultDTO> results = apiResponseDTO.getResults();
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED || response.getBody() == null) {
+            return;
+        }
 
-        for (APIResultDTO r : results) {
-            Ingredient ingredient = new Ingredient();
-            ingredient.setIngredientId(r.getId());
-            ingredient.setCategory(r.getCategory());
-            ingredient.setName(r.getName());
-            ingredient.setEmissionPerGram(this.calculateEmissions(r.getId()));
-            ingredientRepository.save(ingredient);
+        try {
+            this.importIngredients(new ByteArrayInputStream(response.getBody()));
+            feedETag = response.getHeaders().getETag();
+        } catch (IOException e) {
+            log.error("Could not parse ingredient feed {}", feedUrl, e);
         }
     }
 
-    private Double calculateEmissions(String ingredientId) {
-
-        RestTemplate restTemplate = new RestTemplate();
-
-        String url = "https://app.myemissions.green/api/v1/calculator/";
+    /**
+     * Fetches the whole remote feed and upserts it
+     * 
+     * @return
+     */
+    public List<Ingredient> populateRepository() {
+        try (InputStream in = new URL(feedUrl).openStream()) {
+            return this.importIngredients(in);
+        } catch (IOException e) {
+            throw new RestClientException("Could not fetch ingredient feed " + feedUrl, e);
+        }
+    }
 
-        // create headers
-        HttpHeaders headers = new HttpHeaders();
-        // set `content-type` header
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        // set `accept` header
-        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+    private List<Ingredient> importIngredients(InputStream in) throws IOException {
+        List<Ingredient> ingredients = this.readIngredients(in);
+        int written = ingredientRepository.upsertAllByName(ingredients);
+        log.info("Synced {} ingredients from {}, {} rows written", ingredients.size(), feedUrl, written);
 
-        APIIngredientDTO apiIngredientDTO = new APIIngredientDTO(ingredientId, "17b6249c-cbda-4e59-b575-018f7781c68c",
-                "1");
-        List<APIIngredientDTO> apiIngredientDTOs = new ArrayList<>();
-        apiIngredientDTOs.add(apiIngredientDTO);
-        APIPostDTO apiPostDTO = new APIPostDTO(apiIngredientDTOs, 1);
+        if (written > 0) {
+            ingredientSearchService.rebuildIndex();
+        }
+        return ingredients;
+    }
 
-        HttpEntity<APIPostDTO> entity = new HttpEntity<>(apiPostDTO, headers);
+    private InputStream openSnapshot() throws IOException {
+        InputStream in = new BufferedInputStream(snapshot.getInputStream());
+        String filename = snapshot.getFilename();
+        return filename != null && filename.endsWith(".gz") ? new GZIPInputStream(in) : in;
+    }
 
-        ResponseEntity<String> response = null;
-        String jsonBody = null;
+    /*
+     * Streams the feed's array of {"FOOD", "Group", "Unknown"} objects without building the whole tree
+     */
+    List<Ingredient> readIngredients(InputStream in) throws IOException {
+        List<Ingredient> outputList = new ArrayList<>();
 
-        try {
-            response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
-            jsonBody = response.getBody();
-        } catch (HttpStatusCodeException e) {
-            return 0.0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of ingredients");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode objNode = parser.readValueAsTree();
+                if (objNode.hasNonNull("FOOD")) {
+                    outputList.add(this.ingredientMapToEntity(objNode));
+                }
+            }
         }
 
-        JsonArray objectArr = JsonParser.parseString(jsonBody).getAsJsonObject().get("ingredients").getAsJsonArray();
-        JsonObject object = objectArr.get(0).getAsJsonObject();
+        return outputList;
+    }
 
-        Double emissions = object.get("emissions").getAsDouble();
+    private Ingredient ingredientMapToEntity(JsonNode objNode) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setCategory(objNode.path("Group").asText(null));
+        ingredient.setEmissionPerGram(objNode.path("Unknown").asDouble() / 1000);
+        ingredient.setName(objNode.get("FOOD").asText());
+        ingredient.setIngredientId(null);
 
-        return emissions;
+        return ingredient;
     }
-
 }
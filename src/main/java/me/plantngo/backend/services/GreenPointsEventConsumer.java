@@ -0,0 +1,45 @@
+package me.plantngo.backend.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import me.plantngo.backend.models.OutboxEvent;
+import me.plantngo.backend.models.OutboxEventType;
+import me.plantngo.backend.repositories.CustomerRepository;
+
+/*
+ * Awards the green points a fulfilled order earned
+ */
+@Service
+public class GreenPointsEventConsumer implements OutboxConsumer {
+
+    private final GreenPointsService greenPointsService;
+
+    private final CustomerRepository customerRepository;
+
+    private final OutboxService outboxService;
+
+    @Autowired
+    public GreenPointsEventConsumer(GreenPointsService greenPointsService, CustomerRepository customerRepository,
+            OutboxService outboxService) {
+        this.greenPointsService = greenPointsService;
+        this.customerRepository = customerRepository;
+        this.outboxService = outboxService;
+    }
+
+    @Override
+    public String getName() {
+        return "green-points";
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        if (event.getType() != OutboxEventType.ORDER_FULFILLED) {
+            return;
+        }
+        int points = outboxService.payloadOf(event).path("points").asInt();
+        // keyed per order, a redelivered event does not reward the order twice
+        customerRepository.findById(event.getCustomerId()).ifPresent(customer -> greenPointsService
+                .addPoints(customer, points, "order", "order:" + event.getAggregateId()));
+    }
+}
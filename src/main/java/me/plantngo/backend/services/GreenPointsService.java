@@ -0,0 +1,175 @@
+package me.plantngo.backend.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import me.plantngo.backend.exceptions.InsufficientBalanceException;
+import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.repositories.CustomerRepository;
+import me.plantngo.backend.repositories.PointsLedgerRepository;
+
+/*
+ * The only writer of Customer.greenPoints.
+ *
+ * Every change appends a points_ledger row and moves the balance with a single UPDATE in the same
+ * transaction, so concurrent writers never lose each other's updates and no row lock is held across a
+ * read-modify-write. The ledger row's entryKey is unique: recording the same change twice (a retried
+ * request, two threads fulfilling the same order) is a no-op.
+ */
+@Service
+public class GreenPointsService {
+
+    private static final Logger log = LoggerFactory.getLogger(GreenPointsService.class);
+
+    private final PointsLedgerRepository pointsLedgerRepository;
+
+    private final CustomerRepository customerRepository;
+
+    private final LeaderboardService leaderboardService;
+
+    @Autowired
+    public GreenPointsService(PointsLedgerRepository pointsLedgerRepository, CustomerRepository customerRepository,
+            LeaderboardService leaderboardService) {
+        this.pointsLedgerRepository = pointsLedgerRepository;
+        this.customerRepository = customerRepository;
+        this.leaderboardService = leaderboardService;
+    }
+
+    /**
+     * Adds points to a customer's balance. A negative delta is applied as is, even if the balance goes
+     * below zero.
+     *
+     * @param customer
+     * @param delta
+     * @param reason
+     * @param entryKey unique key of this change, or null if it cannot be repeated
+     * @return false if a change with this entryKey was already recorded
+     */
+    @Transactional
+    public boolean addPoints(Customer customer, int delta, String reason, String entryKey) {
+        if (delta == 0 || !this.appendEntry(customer, delta, reason, entryKey)) {
+            return false;
+        }
+        customerRepository.addGreenPoints(customer.getId(), delta);
+        this.balanceChanged(customer, delta);
+        return true;
+    }
+
+    /**
+     * Adds the same points to many customers' balances in JDBC batches, e.g. a quest completed by
+     * thousands of customers. The leaderboards are not moved per customer, callers rebuild them once
+     * they are done.
+     *
+     * @param entryKeys customer id -> unique key of that customer's change
+     * @param delta
+     * @param reason
+     * @return ids of the customers credited, those whose entryKey was already recorded are skipped
+     */
+    @Transactional
+    public List<Integer> addPointsToAll(Map<Integer, String> entryKeys, int delta, String reason) {
+        if (delta == 0 || entryKeys.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> credited = pointsLedgerRepository.insertAllIfAbsent(entryKeys, delta, reason,
+                LocalDateTime.now());
+        if (!credited.isEmpty()) {
+            customerRepository.addGreenPointsToAll(credited, delta);
+        }
+        return credited;
+    }
+
+    /**
+     * Spends points from a customer's balance
+     *
+     * @param customer
+     * @param points
+     * @param reason
+     * @param entryKey unique key of this change, a retried debit must come with the same key
+     * @return false if a change with this entryKey was already recorded
+     * @throws IllegalArgumentException if entryKey is null
+     * @throws InsufficientBalanceException if the balance is lower than points, nothing is recorded
+     */
+    @Transactional
+    public boolean spendPoints(Customer customer, int points, String reason, String entryKey) {
+        if (entryKey == null) {
+            // a generated key would make every retry a new debit
+            throw new IllegalArgumentException("A debit needs an entry key");
+        }
+        if (points == 0 || !this.appendEntry(customer, -points, reason, entryKey)) {
+            return false;
+        }
+        // the balance check and the debit are one statement, a concurrent spend cannot overdraw
+        if (customerRepository.deductGreenPoints(customer.getId(), points) == 0) {
+            // rolls back the ledger row
+            throw new InsufficientBalanceException();
+        }
+        this.balanceChanged(customer, -points);
+        return true;
+    }
+
+    /**
+     * Gets the id of the customer's latest ledger entry, e.g. to key a debit that must happen once for a
+     * given balance
+     *
+     * @param customer
+     * @return 0 if the customer has no entries
+     */
+    public int getLastEntryId(Customer customer) {
+        Integer lastEntryId = pointsLedgerRepository.findLastEntryId(customer.getId());
+        return lastEntryId == null ? 0 : lastEntryId;
+    }
+
+    /**
+     * Repairs every customer whose greenPoints no longer match the sum of their ledger entries, e.g.
+     * after a manual database edit. The ledger is taken as the source of truth.
+     *
+     * @return number of customers repaired
+     */
+    @Scheduled(cron = "${points.reconcile.cron:-}")
+    @Transactional
+    public int reconcile() {
+        int repaired = 0;
+        for (Object[] row : pointsLedgerRepository.findUnreconciledBalances()) {
+            Integer customerId = (Integer) row[0];
+            Integer greenPoints = (Integer) row[1];
+            int ledgerBalance = ((Number) row[2]).intValue();
+
+            log.warn("Customer {} has {} green points but a ledger balance of {}, repairing", customerId,
+                    greenPoints, ledgerBalance);
+            // compare-and-set, a customer whose balance moved since the read is left for the next run
+            if (greenPoints != null
+                    && customerRepository.replaceGreenPoints(customerId, greenPoints, ledgerBalance) > 0) {
+                repaired++;
+            }
+        }
+
+        if (repaired > 0) {
+            leaderboardService.rebuild();
+        }
+        return repaired;
+    }
+
+    private boolean appendEntry(Customer customer, int delta, String reason, String entryKey) {
+        String key = entryKey == null ? reason + ":" + UUID.randomUUID() : entryKey;
+        if (pointsLedgerRepository.insertIfAbsent(customer.getId(), delta, reason, key, LocalDateTime.now()) == 0) {
+            log.info("Green points entry {} already recorded, skipping", key);
+            return false;
+        }
+        return true;
+    }
+
+    private void balanceChanged(Customer customer, int delta) {
+        // the in-memory customer is stale after the UPDATE, refresh it for the caller
+        customer.setGreenPoints(customerRepository.findGreenPointsById(customer.getId()));
+        leaderboardService.pointsChanged(customer, delta);
+    }
+}
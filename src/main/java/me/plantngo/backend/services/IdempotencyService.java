@@ -0,0 +1,201 @@
+package me.plantngo.backend.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import me.plantngo.backend.exceptions.IdempotencyConflictException;
+import me.plantngo.backend.models.IdempotencyRecord;
+import me.plantngo.backend.repositories.IdempotencyRecordRepository;
+
+/*
+ * Runs a request at most once per Idempotency-Key, so a client retrying after a lost response gets the
+ * original result back instead of placing a second order or paying twice.
+ *
+ * The key is claimed in the idempotency_key table before the request runs, which makes a retry wait its
+ * turn on every instance, and the table keeps a reference to the result once it has completed. Completed
+ * keys are also kept in a bounded in-memory map, so retries on the same instance are answered without a
+ * query. The request runs in the same transaction that stores its result, and a request that rolls back gives
+ * its key up, so it can be retried.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final long ttlMinutes;
+
+    private final long abandonAfterMinutes;
+
+    // most recently completed keys, least recently used dropped first
+    private final Map<String, CompletedRequest> completed;
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository, ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${idempotency.abandon-after-minutes:5}") long abandonAfterMinutes,
+            @Value("${idempotency.max-cached:10000}") int maxCached) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttlMinutes = ttlHours * 60;
+        this.abandonAfterMinutes = abandonAfterMinutes;
+        this.completed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletedRequest> eldest) {
+                return size() > maxCached;
+            }
+        });
+    }
+
+    /**
+     * Runs the action, or returns the result of the request that already ran with this key
+     *
+     * @param <T>
+     * @param idempotencyKey client supplied key, the action simply runs if null
+     * @param endpoint identifies the operation, e.g. "POST /order/Daniel"
+     * @param request request body, null if there is none
+     * @param action
+     * @param toResult turns the action's result into a short reference to store, e.g. an id
+     * @param fromResult looks a result up again from its stored reference
+     * @return
+     * @throws IdempotencyConflictException if the key is in use by a running request or a different request
+     */
+    public <T> T execute(String idempotencyKey, String endpoint, Object request, Supplier<T> action,
+            Function<T, String> toResult, Function<String, T> fromResult) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters.");
+        }
+        String requestHash = this.hash(endpoint, request);
+
+        CompletedRequest cached = completed.get(idempotencyKey);
+        if (cached != null && cached.expiresAt.isAfter(LocalDateTime.now())) {
+            this.checkSameRequest(cached.requestHash, requestHash);
+            return fromResult.apply(cached.result);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (idempotencyRecordRepository.claim(idempotencyKey, requestHash, now) == 0) {
+            return fromResult.apply(this.previousResult(idempotencyKey, requestHash));
+        }
+
+        // the action and its result commit together, a key is never left without a result once the action's
+        // side effects are committed, so the sweep cannot free it for a retry to run the action again
+        CompletedAction<T> done;
+        try {
+            done = transactionTemplate.execute(status -> {
+                T value = action.get();
+                if (status.isRollbackOnly()) {
+                    // the action's transaction will not commit although it returned, so it has no result
+                    throw new UnexpectedRollbackException("Request with Idempotency-Key " + idempotencyKey
+                            + " was rolled back without an error");
+                }
+                String result = toResult.apply(value);
+                idempotencyRecordRepository.complete(idempotencyKey, result);
+                return new CompletedAction<>(value, result);
+            });
+        } catch (RuntimeException e) {
+            // rolled back with the action, nothing happened and the request can be retried
+            idempotencyRecordRepository.deleteById(idempotencyKey);
+            throw e;
+        }
+        completed.put(idempotencyKey, new CompletedRequest(requestHash, done.result, now.plusMinutes(ttlMinutes)));
+        return done.value;
+    }
+
+    /**
+     * Forgets expired keys, and claims of requests that never completed
+     */
+    @Scheduled(fixedDelayString = "${idempotency.sweep-interval-millis:600000}")
+    public void sweepExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        idempotencyRecordRepository.deleteExpired(now.minusMinutes(ttlMinutes), now.minusMinutes(abandonAfterMinutes));
+        completed.values().removeIf(request -> !request.expiresAt.isAfter(now));
+    }
+
+    private String previousResult(String idempotencyKey, String requestHash) {
+        Optional<IdempotencyRecord> record = idempotencyRecordRepository.findById(idempotencyKey);
+        if (record.isEmpty() || record.get().getResult() == null) {
+            this.checkSameRequest(record.map(IdempotencyRecord::getRequestHash).orElse(requestHash), requestHash);
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is still being processed.");
+        }
+        IdempotencyRecord previous = record.get();
+        this.checkSameRequest(previous.getRequestHash(), requestHash);
+        completed.put(idempotencyKey, new CompletedRequest(previous.getRequestHash(), previous.getResult(),
+                previous.getCreatedAt().plusMinutes(ttlMinutes)));
+        return previous.getResult();
+    }
+
+    private void checkSameRequest(String usedWith, String requestHash) {
+        if (!usedWith.equals(requestHash)) {
+            throw new IdempotencyConflictException("This Idempotency-Key was already used for a different request.");
+        }
+    }
+
+    private String hash(String endpoint, Object request) {
+        try {
+            String body = request == null ? "" : objectMapper.writeValueAsString(request);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((endpoint + "\n" + body).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash request", e);
+        }
+    }
+
+    private static class CompletedAction<T> {
+
+        private final T value;
+
+        private final String result;
+
+        private CompletedAction(T value, String result) {
+            this.value = value;
+            this.result = result;
+        }
+    }
+
+    private static class CompletedRequest {
+
+        private final String requestHash;
+
+        private final String result;
+
+        private final LocalDateTime expiresAt;
+
+        private CompletedRequest(String requestHash, String result, LocalDateTime expiresAt) {
+            this.requestHash = requestHash;
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
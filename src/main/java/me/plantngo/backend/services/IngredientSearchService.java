@@ -0,0 +1,119 @@
+package me.plantngo.backend.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import me.plantngo.backend.models.Ingredient;
+import me.plantngo.backend.repositories.IngredientRepository;
+import me.plantngo.backend.utils.IngredientSearchIndex;
+
+@Service
+public class IngredientSearchService {
+
+    public static final int DEFAULT_LIMIT = 10;
+
+    public static final int MAX_LIMIT = 50;
+
+    private final IngredientRepository ingredientRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private IngredientSearchIndex index = new IngredientSearchIndex();
+
+    // ingredients indexed while a rebuild is reading the table, replayed onto the rebuilt index
+    private final List<Ingredient> indexedDuringRebuild = new ArrayList<>();
+
+    private boolean rebuilding;
+
+    @Autowired
+    public IngredientSearchService(IngredientRepository ingredientRepository) {
+        this.ingredientRepository = ingredientRepository;
+    }
+
+    /**
+     * Rebuilds the index from the ingredient table. The new index is built off to the side and swapped in,
+     * so searches keep being served while it loads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            indexedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        IngredientSearchIndex rebuilt = new IngredientSearchIndex();
+        boolean loaded = false;
+        try {
+            rebuilt.addAll(ingredientRepository.findAll());
+            loaded = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // if reading the table failed, keep serving the old index
+                if (loaded) {
+                    rebuilt.addAll(indexedDuringRebuild);
+                    index = rebuilt;
+                }
+                rebuilding = false;
+                indexedDuringRebuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Adds a newly imported (or updated) ingredient to the index
+     *
+     * @param ingredient
+     */
+    public void indexIngredient(Ingredient ingredient) {
+        lock.writeLock().lock();
+        try {
+            index.add(ingredient);
+            if (rebuilding) {
+                indexedDuringRebuild.add(ingredient);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the ingredients best matching a typeahead query, by name or category prefix with a fuzzy
+     * fallback for misspellings
+     *
+     * @param query
+     * @param limit
+     * @return
+     */
+    public List<Ingredient> searchIngredients(String query, Integer limit) {
+        int boundedLimit = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        lock.readLock().lock();
+        try {
+            return index.search(query, boundedLimit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getIndexSize() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package me.plantngo.backend.services;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import me.plantngo.backend.DTO.LeaderboardEntryDTO;
+import me.plantngo.backend.exceptions.NotExistException;
+import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.models.LeaderboardPeriod;
+import me.plantngo.backend.repositories.CustomerRepository;
+import me.plantngo.backend.repositories.PointsLedgerRepository;
+import me.plantngo.backend.utils.RankedSkipList;
+
+/*
+ * Green points leaderboards kept in memory as ranked skip lists, so rank, top-N and around-me lookups
+ * are O(log n) instead of sorting every customer.
+ *
+ * The all-time board mirrors Customer.greenPoints and is rebuilt from the customer table on startup.
+ * The weekly board only counts points earned since Monday, it is rebuilt from the points ledger and
+ * cleared when the week rolls over. Both only move once the change behind them commits.
+ */
+@Service
+public class LeaderboardService {
+
+    private final CustomerRepository customerRepository;
+
+    private final PointsLedgerRepository pointsLedgerRepository;
+
+    private final RankedSkipList allTime = new RankedSkipList();
+
+    private final RankedSkipList weekly = new RankedSkipList();
+
+    private LocalDate weekStart = currentWeekStart();
+
+    @Autowired
+    public LeaderboardService(CustomerRepository customerRepository,
+            PointsLedgerRepository pointsLedgerRepository) {
+        this.customerRepository = customerRepository;
+        this.pointsLedgerRepository = pointsLedgerRepository;
+    }
+
+    /**
+     * Rebuilds the all-time leaderboard from every customer's green points, and the weekly leaderboard
+     * from the points earned since Monday
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        allTime.clear();
+        for (Object[] row : customerRepository.findAllGreenPoints()) {
+            Integer greenPoints = (Integer) row[1];
+            allTime.put((Integer) row[0], greenPoints == null ? 0 : greenPoints);
+        }
+
+        weekly.clear();
+        weekStart = currentWeekStart();
+        for (Object[] row : pointsLedgerRepository.sumCreditsByCustomerSince(weekStart.atStartOfDay())) {
+            weekly.put((Integer) row[0], ((Number) row[1]).longValue());
+        }
+    }
+
+    /**
+     * Adds a newly registered customer to the all-time leaderboard once their registration commits
+     *
+     * @param customer
+     */
+    public void customerAdded(Customer customer) {
+        if (customer.getId() == null) {
+            return;
+        }
+        Integer customerId = customer.getId();
+        int greenPoints = customer.getGreenPoints() == null ? 0 : customer.getGreenPoints();
+        this.afterCommit(() -> {
+            if (allTime.getScore(customerId) == null) {
+                allTime.put(customerId, greenPoints);
+            }
+        });
+    }
+
+    /**
+     * Moves a customer to their current green points, and counts earned points towards this week, once
+     * the change commits. A change that rolls back, or is retried, does not move the boards.
+     *
+     * @param customer
+     * @param delta points earned (positive) or spent (negative)
+     */
+    public void pointsChanged(Customer customer, int delta) {
+        if (customer.getId() == null) {
+            return;
+        }
+        Integer customerId = customer.getId();
+        int greenPoints = customer.getGreenPoints() == null ? 0 : customer.getGreenPoints();
+        this.afterCommit(() -> {
+            allTime.put(customerId, greenPoints);
+
+            if (delta > 0) {
+                this.rollWeek();
+                Double earned = weekly.getScore(customerId);
+                weekly.put(customerId, (earned == null ? 0 : earned) + delta);
+            }
+        });
+    }
+
+    /**
+     * Removes a deleted customer from every leaderboard once the deletion commits
+     *
+     * @param customer
+     */
+    public void customerRemoved(Customer customer) {
+        if (customer.getId() == null) {
+            return;
+        }
+        Integer customerId = customer.getId();
+        this.afterCommit(() -> {
+            allTime.remove(customerId);
+            weekly.remove(customerId);
+        });
+    }
+
+    /**
+     * Gets the top customers of a leaderboard
+     *
+     * @param period
+     * @param limit
+     * @return
+     */
+    public List<LeaderboardEntryDTO> getTop(LeaderboardPeriod period, int limit) {
+        List<RankedSkipList.Entry> entries;
+        synchronized (this) {
+            entries = this.board(period).range(1, limit);
+        }
+        return this.entriesMapToDTOs(entries);
+    }
+
+    /**
+     * Gets a customer's position on a leaderboard
+     *
+     * @param username
+     * @param period
+     * @return
+     */
+    public LeaderboardEntryDTO getRank(String username, LeaderboardPeriod period) {
+        List<LeaderboardEntryDTO> entries = this.getAroundMe(username, period, 0);
+        return entries.isEmpty() ? new LeaderboardEntryDTO(null, username, 0L) : entries.get(0);
+    }
+
+    /**
+     * Gets a customer's position on a leaderboard with up to radius customers above and below them
+     *
+     * @param username
+     * @param period
+     * @param radius
+     * @return
+     */
+    public List<LeaderboardEntryDTO> getAroundMe(String username, LeaderboardPeriod period, int radius) {
+        Customer customer = customerRepository.findByUsername(username)
+                .orElseThrow(() -> new NotExistException("Customer"));
+
+        List<RankedSkipList.Entry> entries;
+        synchronized (this) {
+            // customers who registered after startup join the board on first lookup
+            if (allTime.getScore(customer.getId()) == null) {
+                allTime.put(customer.getId(), customer.getGreenPoints() == null ? 0 : customer.getGreenPoints());
+            }
+
+            RankedSkipList board = this.board(period);
+            int rank = board.rank(customer.getId());
+            if (rank == 0) {
+                // has not earned anything this week
+                return new ArrayList<>();
+            }
+            int fromRank = Math.max(1, rank - radius);
+            entries = board.range(fromRank, rank - fromRank + radius + 1);
+        }
+        return this.entriesMapToDTOs(entries);
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.apply(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(change);
+            }
+        });
+    }
+
+    private synchronized void apply(Runnable change) {
+        change.run();
+    }
+
+    private RankedSkipList board(LeaderboardPeriod period) {
+        if (period == LeaderboardPeriod.WEEKLY) {
+            this.rollWeek();
+            return weekly;
+        }
+        return allTime;
+    }
+
+    private void rollWeek() {
+        LocalDate currentWeekStart = currentWeekStart();
+        if (!currentWeekStart.equals(weekStart)) {
+            weekly.clear();
+            weekStart = currentWeekStart;
+        }
+    }
+
+    private List<LeaderboardEntryDTO> entriesMapToDTOs(List<RankedSkipList.Entry> entries) {
+        List<Integer> ids = new ArrayList<>();
+        for (RankedSkipList.Entry entry : entries) {
+            ids.add(entry.getId());
+        }
+
+        Map<Integer, String> usernames = new HashMap<>();
+        for (Customer customer : customerRepository.findAllById(ids)) {
+            usernames.put(customer.getId(), customer.getUsername());
+        }
+
+        List<LeaderboardEntryDTO> output = new ArrayList<>();
+        for (RankedSkipList.Entry entry : entries) {
+            String username = usernames.get(entry.getId());
+            if (username != null) {
+                output.add(new LeaderboardEntryDTO(entry.getRank(), username, (long) entry.getScore()));
+            }
+        }
+        return output;
+    }
+
+    private static LocalDate currentWeekStart() {
+        return LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
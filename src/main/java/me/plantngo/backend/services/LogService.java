@@ -17,10 +17,14 @@ public class LogService {
     }
 
     public Log addLog(String username, String type) {
+        return this.addLog(username, type, LocalDateTime.now());
+    }
+
+    public Log addLog(String username, String type, LocalDateTime dateTime) {
         Log log = new Log();
         log.setUsername(username);
         log.setType(type);
-        log.setDateTime(LocalDateTime.now());
+        log.setDateTime(dateTime);
         logRepository.save(log);
         return log;
     }
@@ -0,0 +1,213 @@
+package me.plantngo.backend.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import me.plantngo.backend.models.MailStatus;
+import me.plantngo.backend.models.QueuedMail;
+import me.plantngo.backend.repositories.QueuedMailRepository;
+
+/*
+ * Sends the mail queued by MailService.
+ *
+ * Each poll claims a batch of due messages and splits it over a fixed pool of sender threads. A sender
+ * hands its whole share to JavaMailSender in one call, which sends it over a single SMTP connection
+ * instead of connecting once per message. Claiming pushes a message's nextAttemptAt past a lease, so
+ * dispatchers on other instances skip it, and a dispatcher that dies mid-send only delays it.
+ *
+ * A failed message is retried with exponential backoff and marked DEAD once max-attempts sends have
+ * failed. DEAD messages stay in the table with the last error for someone to look at.
+ */
+@Service
+public class MailDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(MailDispatcher.class);
+
+    private static final String FROM = "project.plantngo@outlook.com";
+
+    private final QueuedMailRepository queuedMailRepository;
+
+    private final JavaMailSender javaMailSender;
+
+    private final int threads;
+
+    private final int batchSize;
+
+    private final int maxAttempts;
+
+    private final long backoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private final long leaseMillis;
+
+    private final long retentionDays;
+
+    private final ExecutorService senders;
+
+    @Autowired
+    public MailDispatcher(QueuedMailRepository queuedMailRepository, JavaMailSender javaMailSender,
+            @Value("${mail.queue.threads:2}") int threads,
+            @Value("${mail.queue.batch-size:50}") int batchSize,
+            @Value("${mail.queue.max-attempts:6}") int maxAttempts,
+            @Value("${mail.queue.backoff-millis:30000}") long backoffMillis,
+            @Value("${mail.queue.max-backoff-millis:3600000}") long maxBackoffMillis,
+            @Value("${mail.queue.lease-millis:300000}") long leaseMillis,
+            @Value("${mail.queue.retention-days:7}") long retentionDays) {
+        this.queuedMailRepository = queuedMailRepository;
+        this.javaMailSender = javaMailSender;
+        this.threads = Math.max(1, threads);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.leaseMillis = leaseMillis;
+        this.retentionDays = retentionDays;
+        this.senders = Executors.newFixedThreadPool(this.threads);
+    }
+
+    /**
+     * Sends one batch of due messages
+     *
+     * @return number of messages sent
+     */
+    @Scheduled(fixedDelayString = "${mail.queue.poll-interval-millis:2000}")
+    public int dispatch() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusNanos(leaseMillis * 1_000_000);
+
+        List<List<QueuedMail>> shares = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            shares.add(new ArrayList<>());
+        }
+        int claimed = 0;
+        for (QueuedMail mail : queuedMailRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                MailStatus.PENDING, now, PageRequest.of(0, batchSize))) {
+            if (queuedMailRepository.claim(mail.getId(), now, leaseUntil) == 1) {
+                shares.get(claimed++ % threads).add(mail);
+            }
+        }
+        if (claimed == 0) {
+            return 0;
+        }
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for (List<QueuedMail> share : shares) {
+            if (!share.isEmpty()) {
+                results.add(senders.submit(() -> this.send(share)));
+            }
+        }
+        int sent = 0;
+        for (Future<Integer> result : results) {
+            try {
+                sent += result.get();
+            } catch (ExecutionException e) {
+                // the share keeps its lease and is retried once it runs out
+                log.error("Mail sender failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Deletes sent messages older than the retention period
+     */
+    @Scheduled(cron = "${mail.queue.cleanup-cron:0 45 4 * * *}")
+    public void deleteSent() {
+        queuedMailRepository.deleteSent(LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+
+    private int send(List<QueuedMail> share) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[share.size()];
+        for (int i = 0; i < share.size(); i++) {
+            messages[i] = this.toMessage(share.get(i));
+        }
+
+        Map<Object, Exception> failed = Map.of();
+        Exception failedAll = null;
+        try {
+            javaMailSender.send(messages);
+        } catch (MailSendException e) {
+            // the messages the server accepted are in neither map
+            failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                failedAll = e;
+            }
+        } catch (MailException e) {
+            // e.g. authentication failed, nothing was sent
+            failedAll = e;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int sent = 0;
+        for (int i = 0; i < share.size(); i++) {
+            QueuedMail mail = share.get(i);
+            Exception error = failedAll != null ? failedAll : failed.get(messages[i]);
+            if (error == null) {
+                mail.setStatus(MailStatus.SENT);
+                mail.setSentAt(now);
+                sent++;
+            } else {
+                this.recordFailure(mail, error, now);
+            }
+            queuedMailRepository.save(mail);
+        }
+        return sent;
+    }
+
+    private void recordFailure(QueuedMail mail, Exception error, LocalDateTime now) {
+        int attempts = mail.getAttempts() + 1;
+        mail.setAttempts(attempts);
+        String message = String.valueOf(error.getMessage());
+        mail.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+
+        if (attempts >= maxAttempts) {
+            mail.setStatus(MailStatus.DEAD);
+            log.error("Mail {} to {} failed {} times, giving up: {}", mail.getId(), mail.getRecipient(), attempts,
+                    message);
+            return;
+        }
+        // backoff, 2 x backoff, 4 x backoff, ... up to max-backoff-millis
+        long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempts - 1, 30));
+        mail.setNextAttemptAt(now.plusNanos(delay * 1_000_000));
+        log.warn("Mail {} to {} failed (attempt {}), retrying in {} ms: {}", mail.getId(), mail.getRecipient(),
+                attempts, delay, message);
+    }
+
+    private SimpleMailMessage toMessage(QueuedMail mail) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(FROM);
+        message.setTo(mail.getRecipient());
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getBody());
+        return message;
+    }
+}
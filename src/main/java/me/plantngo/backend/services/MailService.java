@@ -1,27 +1,52 @@
 package me.plantngo.backend.services;
 
+import java.time.LocalDateTime;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import me.plantngo.backend.models.MailStatus;
+import me.plantngo.backend.models.QueuedMail;
+import me.plantngo.backend.repositories.QueuedMailRepository;
+
+/*
+ * Queues outgoing mail in the mail_message table; MailDispatcher sends it in the background, so a slow
+ * SMTP server never holds up the request that asked for the mail. Called inside a transaction, the
+ * message is only queued if that transaction commits.
+ */
 @Service
 public class MailService {
 
-    private JavaMailSender javaMailSender;
+    private QueuedMailRepository queuedMailRepository;
 
     @Autowired
-    public MailService(JavaMailSender javaMailSender) {
-        this.javaMailSender = javaMailSender;
+    public MailService(QueuedMailRepository queuedMailRepository) {
+        this.queuedMailRepository = queuedMailRepository;
     }
 
     public void sendSimpleMessage(String to, String subject, String text) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom("project.plantngo@outlook.com");
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(String.format("[THIS IS AN AUTOMATED MESSAGE - PLEASE DO NOT REPLY DIRECTLY TO THIS EMAIL]\n\nHere is your reset password key: %s%n%nPlease paste this key in the app to reset your password%n" ,text));
+        this.sendMessage(to, subject, String.format("Here is your reset password key: %s%n%nPlease paste this key in the app to reset your password%n" ,text));
+    }
+
+    /**
+     * Queues a message for sending
+     *
+     * @param to
+     * @param subject
+     * @param text
+     * @return
+     */
+    public QueuedMail sendMessage(String to, String subject, String text) {
+        LocalDateTime now = LocalDateTime.now();
+        QueuedMail mail = new QueuedMail();
+        mail.setRecipient(to);
+        mail.setSubject(subject);
+        mail.setBody("[THIS IS AN AUTOMATED MESSAGE - PLEASE DO NOT REPLY DIRECTLY TO THIS EMAIL]\n\n" + text);
+        mail.setStatus(MailStatus.PENDING);
+        mail.setAttempts(0);
+        mail.setNextAttemptAt(now);
+        mail.setCreatedAt(now);
 
-        javaMailSender.send(message);
+        return queuedMailRepository.save(mail);
     }
 }
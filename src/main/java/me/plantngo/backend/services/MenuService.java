@@ -0,0 +1,465 @@
+package me.plantngo.backend.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import me.plantngo.backend.DTO.MenuImportSummaryDTO;
+import me.plantngo.backend.DTO.MenuProductDTO;
+import me.plantngo.backend.DTO.ProductIngredientDTO;
+import me.plantngo.backend.exceptions.MenuImportException;
+import me.plantngo.backend.models.Category;
+import me.plantngo.backend.models.Ingredient;
+import me.plantngo.backend.models.MenuFormat;
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.Product;
+import me.plantngo.backend.models.ProductIngredient;
+import me.plantngo.backend.models.ProductsRecomputedEvent;
+import me.plantngo.backend.repositories.CategoryRepository;
+import me.plantngo.backend.repositories.IngredientRepository;
+import me.plantngo.backend.repositories.ProductIngredientRepository;
+import me.plantngo.backend.repositories.ProductRepository;
+import me.plantngo.backend.utils.CsvReader;
+import me.plantngo.backend.utils.CsvWriter;
+
+/*
+ * Bulk import and export of a merchant's menu: categories, products and the ingredients of each product.
+ *
+ * An import is read one product at a time and validated as it goes. Valid products are saved in batches
+ * of menu.import.batch-size, with their ingredients inserted in JDBC batches. carbonEmission is summed
+ * from the ingredients as each product is read, so it is written with the product instead of once per
+ * ingredient as addProductIngredient does. The persistence context is cleared after every batch, so an
+ * import only holds one batch of products. The import runs in one transaction and any invalid row
+ * rolls it all back, reporting every error found (up to menu.import.max-errors).
+ *
+ * CSV menus have one row per product ingredient, with the product's columns repeated on each of its
+ * rows; a product without ingredients has one row with the ingredient columns empty. JSON menus are an
+ * array of MenuProductDTO. Exports use the same formats, so an exported menu can be imported again.
+ */
+@Service
+public class MenuService {
+
+    public static final List<String> CSV_HEADER = List.of("category", "product", "price", "description",
+            "flavourType", "ingredient", "servingQty");
+
+    private static final Logger log = LoggerFactory.getLogger(MenuService.class);
+
+    private final CategoryRepository categoryRepository;
+
+    private final ProductRepository productRepository;
+
+    private final ProductIngredientRepository productIngredientRepository;
+
+    private final IngredientRepository ingredientRepository;
+
+    private final MerchantService merchantService;
+
+    private final EntityManager entityManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final int batchSize;
+
+    private final int maxErrors;
+
+    @Autowired
+    public MenuService(CategoryRepository categoryRepository, ProductRepository productRepository,
+            ProductIngredientRepository productIngredientRepository, IngredientRepository ingredientRepository,
+            MerchantService merchantService, EntityManager entityManager, ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+            @Value("${menu.import.batch-size:200}") int batchSize,
+            @Value("${menu.import.max-errors:50}") int maxErrors) {
+        this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+        this.productIngredientRepository = productIngredientRepository;
+        this.ingredientRepository = ingredientRepository;
+        this.merchantService = merchantService;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Imports a menu into a merchant's shop, creating missing categories
+     *
+     * @param merchantName
+     * @param input
+     * @param format
+     * @return
+     */
+    public MenuImportSummaryDTO importMenu(String merchantName, InputStream input, MenuFormat format) {
+        Merchant merchant = merchantService.getMerchantByUsername(merchantName);
+
+        MenuImport menuImport = transactionTemplate.execute(status -> {
+            MenuImport state = new MenuImport(merchant);
+            try {
+                if (format == MenuFormat.CSV) {
+                    this.readCsv(input, state);
+                } else {
+                    this.readJson(input, state);
+                }
+            } catch (IOException e) {
+                state.errors.add("could not read menu: " + e.getMessage());
+            }
+            if (!state.errors.isEmpty()) {
+                throw new MenuImportException(state.errors);
+            }
+            this.flush(state);
+            // the ratings of this merchant, the search index and the recommendations re-read just the
+            // imported products
+            eventPublisher.publishEvent(new ProductsRecomputedEvent(new HashSet<>(state.productIds)));
+            return state;
+        });
+
+        log.info("Imported {} products in {} new categories for {}", menuImport.productIds.size(),
+                menuImport.categoriesCreated, merchantName);
+        return new MenuImportSummaryDTO(menuImport.categoriesCreated, menuImport.productIds.size(),
+                menuImport.ingredientsAdded);
+    }
+
+    /**
+     * Writes a merchant's menu, one category at a time
+     *
+     * @param merchantName
+     * @param format
+     * @param output
+     * @throws IOException
+     */
+    public void exportMenu(String merchantName, MenuFormat format, OutputStream output) throws IOException {
+        List<Integer> categoryIds = categoryRepository.findIdsByMerchantUsername(merchantName);
+        if (format == MenuFormat.CSV) {
+            CsvWriter writer = new CsvWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            writer.write(CSV_HEADER.toArray());
+            for (Integer categoryId : categoryIds) {
+                for (MenuProductDTO product : this.readCategory(categoryId)) {
+                    if (product.getIngredients().isEmpty()) {
+                        writer.write(product.getCategory(), product.getName(), product.getPrice(),
+                                product.getDescription(), product.getFlavourType(), null, null);
+                    }
+                    for (ProductIngredientDTO ingredient : product.getIngredients()) {
+                        writer.write(product.getCategory(), product.getName(), product.getPrice(),
+                                product.getDescription(), product.getFlavourType(), ingredient.getName(),
+                                ingredient.getServingQty());
+                    }
+                }
+                writer.flush();
+            }
+            writer.flush();
+            return;
+        }
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.writeStartArray();
+            for (Integer categoryId : categoryIds) {
+                for (MenuProductDTO product : this.readCategory(categoryId)) {
+                    generator.writeObject(product);
+                }
+                generator.flush();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /*
+     * Reads one category in its own read-only transaction, so an export only holds one category at a time
+     */
+    private List<MenuProductDTO> readCategory(Integer categoryId) {
+        return readOnlyTransactionTemplate.execute(status -> {
+            List<MenuProductDTO> output = new ArrayList<>();
+            Optional<Category> category = categoryRepository.findById(categoryId);
+            if (category.isEmpty() || category.get().getProducts() == null) {
+                return output;
+            }
+            List<Product> products = new ArrayList<>(category.get().getProducts());
+            products.sort(Comparator.comparing(Product::getName));
+            for (Product product : products) {
+                List<ProductIngredientDTO> ingredients = new ArrayList<>();
+                if (product.getProductIngredients() != null) {
+                    for (ProductIngredient productIngredient : product.getProductIngredients()) {
+                        ingredients.add(new ProductIngredientDTO(productIngredient.getIngredient().getName(),
+                                productIngredient.getServingQty()));
+                    }
+                }
+                ingredients.sort(Comparator.comparing(ProductIngredientDTO::getName));
+                output.add(new MenuProductDTO(category.get().getName(), product.getName(), product.getPrice(),
+                        product.getDescription(), product.getFlavourType(), ingredients));
+            }
+            return output;
+        });
+    }
+
+    private static boolean isHeader(List<String> record) {
+        if (record == null || record.size() != CSV_HEADER.size()) {
+            return false;
+        }
+        for (int i = 0; i < CSV_HEADER.size(); i++) {
+            if (!CSV_HEADER.get(i).equalsIgnoreCase(record.get(i).trim())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void readCsv(InputStream input, MenuImport state) throws IOException {
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        List<String> header = reader.next();
+        if (!isHeader(header)) {
+            state.errors.add("line 1: header must be " + String.join(",", CSV_HEADER));
+            return;
+        }
+
+        MenuProductDTO current = null;
+        String currentLocation = null;
+        List<String> record;
+        while (!state.isFull() && (record = readRecord(reader, state)) != null) {
+            String location = "line " + reader.getLine();
+            if (record.size() != CSV_HEADER.size()) {
+                state.addError(location, "expected " + CSV_HEADER.size() + " columns but found " + record.size());
+                continue;
+            }
+            String category = record.get(0).trim();
+            String name = record.get(1).trim();
+            if (current == null || !current.getCategory().equals(category) || !current.getName().equals(name)) {
+                if (current != null) {
+                    this.accept(currentLocation, current, state);
+                }
+                current = new MenuProductDTO(category, name, parseDouble(record.get(2), location, "price", state),
+                        blankToNull(record.get(3)), blankToNull(record.get(4)), new ArrayList<>());
+                currentLocation = location;
+            }
+            String ingredient = record.get(5).trim();
+            if (!ingredient.isEmpty() || !record.get(6).isBlank()) {
+                current.getIngredients().add(new ProductIngredientDTO(ingredient,
+                        parseDouble(record.get(6), location, "servingQty", state)));
+            }
+        }
+        if (current != null && !state.isFull()) {
+            this.accept(currentLocation, current, state);
+        }
+    }
+
+    private void readJson(InputStream input, MenuImport state) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                state.errors.add("menu must be a JSON array of products");
+                return;
+            }
+            int item = 0;
+            while (!state.isFull() && parser.nextToken() == JsonToken.START_OBJECT) {
+                item++;
+                MenuProductDTO product;
+                try {
+                    product = parser.readValueAs(MenuProductDTO.class);
+                } catch (JsonProcessingException e) {
+                    // the parser cannot be trusted past a malformed item
+                    state.addError("item " + item, e.getOriginalMessage());
+                    return;
+                }
+                this.accept("item " + item, product, state);
+            }
+        }
+    }
+
+    /*
+     * Validates one product and queues it for the next batch
+     */
+    private void accept(String location, MenuProductDTO menuProduct, MenuImport state) {
+        String categoryName = blankToNull(menuProduct.getCategory());
+        String name = blankToNull(menuProduct.getName());
+        if (categoryName == null) {
+            state.addError(location, "category is required");
+        }
+        if (name == null) {
+            state.addError(location, "product name is required");
+        }
+        if (menuProduct.getPrice() == null || menuProduct.getPrice() < 0) {
+            state.addError(location, "price must be zero or more");
+        }
+        if (blankToNull(menuProduct.getDescription()) == null) {
+            state.addError(location, "description is required");
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        double carbonEmission = 0;
+        Set<String> ingredientNames = new HashSet<>();
+        List<ProductIngredientDTO> ingredients = menuProduct.getIngredients() == null ? List.of()
+                : menuProduct.getIngredients();
+        for (ProductIngredientDTO productIngredient : ingredients) {
+            Optional<Ingredient> ingredient = productIngredient.getName() == null ? Optional.empty()
+                    : state.ingredients.computeIfAbsent(productIngredient.getName().trim(),
+                            ingredientRepository::findByName);
+            if (ingredient.isEmpty()) {
+                state.addError(location, "ingredient " + productIngredient.getName() + " does not exist");
+            } else if (!ingredientNames.add(ingredient.get().getName())) {
+                state.addError(location, "ingredient " + productIngredient.getName() + " is listed twice");
+            } else if (productIngredient.getServingQty() == null || productIngredient.getServingQty() <= 0) {
+                state.addError(location, "servingQty of " + productIngredient.getName() + " must be more than zero");
+            } else {
+                rows.add(new Object[] { null, ingredient.get().getId(), productIngredient.getServingQty() });
+                if (ingredient.get().getEmissionPerGram() != null) {
+                    carbonEmission += ingredient.get().getEmissionPerGram() * productIngredient.getServingQty();
+                }
+            }
+        }
+        if (categoryName == null || name == null) {
+            return;
+        }
+
+        Integer categoryId = state.categoryIds.get(categoryName);
+        Category existing = null;
+        if (categoryId == null) {
+            existing = categoryRepository.findByNameAndMerchant(categoryName, state.merchant).orElse(null);
+        }
+        Set<String> taken = state.productNames.computeIfAbsent(categoryName, key -> new HashSet<>());
+        if (taken.isEmpty() && existing != null && existing.getProducts() != null) {
+            existing.getProducts().forEach(product -> taken.add(product.getName()));
+        }
+        if (!taken.add(name)) {
+            state.addError(location, "product " + name + " already exists in category " + categoryName);
+        }
+
+        // nothing is written once the import is known to fail
+        if (!state.errors.isEmpty()) {
+            return;
+        }
+        if (categoryId == null) {
+            if (existing == null) {
+                existing = categoryRepository.save(new Category(null, categoryName, new ArrayList<>(), state.merchant));
+                state.categoriesCreated++;
+            }
+            categoryId = existing.getId();
+            state.categoryIds.put(categoryName, categoryId);
+        }
+
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(menuProduct.getPrice());
+        product.setDescription(menuProduct.getDescription());
+        product.setFlavourType(blankToNull(menuProduct.getFlavourType()));
+        product.setCarbonEmission(carbonEmission);
+        // a reference, the import does not keep categories or their product lists loaded
+        product.setCategory(categoryRepository.getReferenceById(categoryId));
+        state.pendingProducts.add(product);
+        state.pendingIngredients.add(rows);
+        if (state.pendingProducts.size() >= batchSize) {
+            this.flush(state);
+        }
+    }
+
+    private void flush(MenuImport state) {
+        if (state.pendingProducts.isEmpty()) {
+            return;
+        }
+        productRepository.saveAllAndFlush(state.pendingProducts);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < state.pendingProducts.size(); i++) {
+            Integer productId = state.pendingProducts.get(i).getId();
+            state.productIds.add(productId);
+            for (Object[] row : state.pendingIngredients.get(i)) {
+                row[0] = productId;
+                rows.add(row);
+            }
+        }
+        state.ingredientsAdded += productIngredientRepository.insertAll(rows);
+        state.pendingProducts.clear();
+        state.pendingIngredients.clear();
+        // only the ids are kept, so memory and each flush's dirty check stay bounded by one batch
+        entityManager.clear();
+    }
+
+    private static List<String> readRecord(CsvReader reader, MenuImport state) throws IOException {
+        try {
+            return reader.next();
+        } catch (IllegalArgumentException e) {
+            state.errors.add(e.getMessage());
+            return null;
+        }
+    }
+
+    private static Double parseDouble(String value, String location, String column, MenuImport state) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            state.addError(location, column + " " + value + " is not a number");
+            return null;
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /*
+     * State of one import, confined to the thread running it
+     */
+    private class MenuImport {
+
+        private final Merchant merchant;
+        private final List<String> errors = new ArrayList<>();
+        private final Map<String, Optional<Ingredient>> ingredients = new HashMap<>();
+        private final Map<String, Integer> categoryIds = new HashMap<>();
+        private final Map<String, Set<String>> productNames = new HashMap<>();
+        private final List<Product> pendingProducts = new ArrayList<>();
+        private final List<List<Object[]>> pendingIngredients = new ArrayList<>();
+        private final List<Integer> productIds = new ArrayList<>();
+        private int categoriesCreated;
+        private int ingredientsAdded;
+
+        private MenuImport(Merchant merchant) {
+            this.merchant = merchant;
+        }
+
+        private void addError(String location, String message) {
+            if (errors.size() < maxErrors) {
+                errors.add(location + ": " + message);
+            }
+        }
+
+        private boolean isFull() {
+            return errors.size() >= maxErrors;
+        }
+    }
+}
@@ -21,10 +21,14 @@ public class MerchantService {
 
     private CustomerRepository customerRepository;
 
+    private CatalogueSearchService catalogueSearchService;
+
     @Autowired
-    public MerchantService(MerchantRepository merchantRepository, CustomerRepository customerRepository) {
+    public MerchantService(MerchantRepository merchantRepository, CustomerRepository customerRepository,
+            CatalogueSearchService catalogueSearchService) {
         this.merchantRepository = merchantRepository;
         this.customerRepository = customerRepository;
+        this.catalogueSearchService = catalogueSearchService;
     }
 
     /**
@@ -116,6 +120,7 @@ public class MerchantService {
         mapper.map(updateMerchantDetailsDTO, merchant);
 
         merchantRepository.saveAndFlush(merchant);
+        catalogueSearchService.merchantChanged(merchant);
 
         return merchant;
     }
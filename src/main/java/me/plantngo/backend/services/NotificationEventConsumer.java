@@ -0,0 +1,43 @@
+package me.plantngo.backend.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import me.plantngo.backend.models.OutboxEvent;
+import me.plantngo.backend.models.OutboxEventType;
+import me.plantngo.backend.repositories.CustomerRepository;
+
+/*
+ * Tells customers by mail when their order is ready. The mail is queued in the relay's transaction, so
+ * it is queued exactly once even if the event is delivered again.
+ */
+@Service
+public class NotificationEventConsumer implements OutboxConsumer {
+
+    private final MailService mailService;
+
+    private final CustomerRepository customerRepository;
+
+    @Autowired
+    public NotificationEventConsumer(MailService mailService, CustomerRepository customerRepository) {
+        this.mailService = mailService;
+        this.customerRepository = customerRepository;
+    }
+
+    @Override
+    public String getName() {
+        return "notifications";
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        if (event.getType() != OutboxEventType.ORDER_FULFILLED) {
+            return;
+        }
+        customerRepository.findById(event.getCustomerId())
+                .filter(customer -> customer.getEmail() != null)
+                .ifPresent(customer -> mailService.sendMessage(customer.getEmail(), "Your order is ready",
+                        "Hi " + customer.getUsername() + ", your order #" + event.getAggregateId()
+                                + " has been fulfilled. Enjoy your meal!"));
+    }
+}
@@ -1,20 +1,28 @@
 package me.plantngo.backend.services;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import me.plantngo.backend.models.*;
 import me.plantngo.backend.repositories.CustomerRepository;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import me.plantngo.backend.DTO.OrderItemDTO;
 import me.plantngo.backend.DTO.UpdateOrderDTO;
 import me.plantngo.backend.DTO.OrderDTO;
 import me.plantngo.backend.DTO.UpdateOrderItemDTO;
+import me.plantngo.backend.exceptions.InvalidOrderTransitionException;
 import me.plantngo.backend.exceptions.NotExistException;
 import me.plantngo.backend.repositories.OrderRepository;
 import me.plantngo.backend.repositories.ProductRepository;
@@ -32,20 +40,29 @@ public class OrderService {
 
     private CustomerRepository customerRepository;
 
-    private LogService logService;
+    private TransactionTemplate transactionTemplate;
+
+    private OutboxService outboxService;
 
     private static final String ORDER_STRING = "Order";
 
+    // carbonEmission of an average item; items below it save emissions and earn green points
+    public static final int AVERAGE_EMISSION = 4000;
+
+    // attempts at an order update that keeps losing to concurrent updates before giving up
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
     @Autowired
     public OrderService(OrderRepository orderRepository, CustomerService customerService,
-            ProductRepository productRepository, MerchantService merchantService, CustomerRepository customerRepository
-            ,LogService logService) {
+            ProductRepository productRepository, MerchantService merchantService, CustomerRepository customerRepository,
+            PlatformTransactionManager transactionManager, OutboxService outboxService) {
         this.orderRepository = orderRepository;
         this.customerService = customerService;
         this.productRepository = productRepository;
         this.merchantService = merchantService;
         this.customerRepository = customerRepository;
-        this.logService = logService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outboxService = outboxService;
     }
 
     /**
@@ -159,6 +176,16 @@ public class OrderService {
         return tmpList;
     }
 
+    /**
+     * Gets an Order given its Id
+     * 
+     * @param orderId
+     * @return
+     */
+    public Order getOrderById(Integer orderId) {
+        return orderRepository.findById(orderId).orElseThrow(() -> new NotExistException(ORDER_STRING));
+    }
+
     /**
      * Adds a new order for a Customer
      * 
@@ -166,6 +193,7 @@ public class OrderService {
      * @param customerName
      * @return
      */
+    @Transactional
     public Order addOrder(OrderDTO placeOrderDTO, String customerName) {
         // Check if customer exists
         Customer customer = customerService.getCustomerByUsername(customerName);
@@ -187,6 +215,10 @@ public class OrderService {
         order.setTotalPrice(this.getTotalPrice(orderItems));
 
         Order response = orderRepository.save(order);
+        Map<String, Object> placed = new HashMap<>();
+        placed.put("merchantId", merchant.getId());
+        placed.put("totalPrice", response.getTotalPrice());
+        outboxService.publish(OutboxEventType.ORDER_PLACED, response.getId(), customer.getId(), placed);
 
         return response;
     }
@@ -200,21 +232,23 @@ public class OrderService {
      * @return
      */
     public Order addOrderItem(String customerName, Integer orderId, OrderItemDTO orderItemDTO) {
+        return this.retryOnConflict(() -> {
+            // find existing order
+            Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new NotExistException("Order"));
+            this.checkOpen(order);
 
-        // find existing order
-        Order order = orderRepository.findById(orderId)
-            .orElseThrow(() -> new NotExistException("Order"));
-
-        Set<OrderItem> orderItems = order.getOrderItems();
-        OrderItem orderItem = this.orderItemMapToEntity(orderItemDTO, order);
-        orderItems.add(orderItem);
+            Set<OrderItem> orderItems = order.getOrderItems();
+            OrderItem orderItem = this.orderItemMapToEntity(orderItemDTO, order);
+            orderItems.add(orderItem);
 
-        order.setOrderItems(orderItems);
-        order.setTotalPrice(this.getTotalPrice(orderItems));
+            order.setOrderItems(orderItems);
+            order.setTotalPrice(this.getTotalPrice(orderItems));
 
-        orderRepository.save(order);
+            orderRepository.save(order);
 
-        return order;
+            return order;
+        });
     }
 
     /**
@@ -225,39 +259,32 @@ public class OrderService {
      * @return
      */
     public Order updateOrder(UpdateOrderDTO updateOrderDTO, Integer orderId) {
+        return this.retryOnConflict(() -> this.applyUpdate(updateOrderDTO, orderId));
+    }
+
+    private Order applyUpdate(UpdateOrderDTO updateOrderDTO, Integer orderId) {
         // Check if order exists
         Order order = orderRepository.findById(orderId).orElseThrow(() -> new NotExistException(ORDER_STRING));
 
+        OrderStatus previousStatus = this.statusOf(order);
+        if (!previousStatus.canBecome(updateOrderDTO.getOrderStatus())) {
+            throw new InvalidOrderTransitionException(previousStatus, updateOrderDTO.getOrderStatus());
+        }
+
         // Update Order
         ModelMapper mapper = new ModelMapper();
         mapper.getConfiguration().setSkipNullEnabled(true);
         mapper.map(updateOrderDTO, order);
 
 
-        Customer customer = order.getCustomer();
-        /*
-         *  add green points to customer
-         *  to log a fulfilled order
-         */
-        if (order.getOrderStatus() == OrderStatus.FULFILLED) {
-            Set<OrderItem> orderItems = order.getOrderItems();
-            Integer greenPointsToAdd = customer.getGreenPoints();
-            Integer averageEmission = 4000;
-
-            for (OrderItem item : orderItems){
-                Integer emissionSaved = averageEmission - item.getProduct().getCarbonEmission().intValue();
-                greenPointsToAdd += emissionSaved * item.getQuantity() / 100;
-            }
-            customer.setGreenPoints(greenPointsToAdd);
-            customerRepository.saveAndFlush(customer);
-            logService.addLog(order.getCustomer().getUsername(), "order");
-        }
-
         // Update OrderItems in order
         Set<UpdateOrderItemDTO> updateOrderItemDTOs = updateOrderDTO.getUpdateOrderItemDTOs();
         if (updateOrderItemDTOs == null) {
             updateOrderItemDTOs = new HashSet<>();
         }
+        if (!updateOrderItemDTOs.isEmpty() && !previousStatus.isOpen()) {
+            throw new InvalidOrderTransitionException(previousStatus);
+        }
         Set<OrderItem> orderItems = order.getOrderItems();
 
         for (UpdateOrderItemDTO updateOrderItemDTO : updateOrderItemDTOs) {
@@ -269,13 +296,43 @@ public class OrderService {
             }
 
         }
-        if (orderItems.size() > 0) {
-            order.setTotalPrice(this.getTotalPrice(orderItems));
-            order.setOrderItems(orderItems);
-            orderRepository.save(order);
-        } else {
+        if (orderItems.isEmpty()) {
+            // an order left without items is dropped, there is nothing to fulfil or cancel
             orderRepository.delete(order);
+            return order;
         }
+        order.setTotalPrice(this.getTotalPrice(orderItems));
+        order.setOrderItems(orderItems);
+
+        Customer customer = order.getCustomer();
+        /*
+         *  record the points a fulfilled order earned and the emissions it saved, from the items as
+         *  this update left them, the points are awarded and the order is logged for quests by the
+         *  outbox consumers
+         */
+        if (order.getOrderStatus() == OrderStatus.FULFILLED && previousStatus != OrderStatus.FULFILLED) {
+            Integer greenPointsToAdd = 0;
+            // not truncated, the savings rollups sum it as a double
+            double totalEmissionSaved = 0;
+            // per product, so the sales rollups add the same figures the customer's savings do
+            Map<Integer, Double> itemEmissionSaved = new HashMap<>();
+
+            for (OrderItem item : orderItems){
+                Double carbonEmission = item.getProduct().getCarbonEmission();
+                // points stay whole numbers, earned per 100 whole units saved
+                greenPointsToAdd += (AVERAGE_EMISSION - carbonEmission.intValue()) * item.getQuantity() / 100;
+                double emissionSaved = (AVERAGE_EMISSION - carbonEmission) * item.getQuantity();
+                totalEmissionSaved += emissionSaved;
+                itemEmissionSaved.put(item.getProductId(), emissionSaved);
+            }
+            outboxService.publish(OutboxEventType.ORDER_FULFILLED, orderId, customer.getId(),
+                    Map.of("points", greenPointsToAdd, "emissionSaved", totalEmissionSaved,
+                            "itemEmissionSaved", itemEmissionSaved));
+        }
+        if (order.getOrderStatus() == OrderStatus.CANCELLED && previousStatus != OrderStatus.CANCELLED) {
+            outboxService.publish(OutboxEventType.ORDER_CANCELLED, orderId, customer.getId(), Map.of());
+        }
+        orderRepository.save(order);
 
         return order;
     }
@@ -291,22 +348,26 @@ public class OrderService {
         if (!orderRepository.existsById(orderId)) {
             throw new NotExistException(ORDER_STRING);
         }
-        Order order = orderRepository.findById(orderId).orElseThrow(() -> new NotExistException(ORDER_STRING));
+        this.retryOnConflict(() -> {
+            Order order = orderRepository.findById(orderId).orElseThrow(() -> new NotExistException(ORDER_STRING));
+            this.checkOpen(order);
 
-        Set<OrderItem> orderItems = order.getOrderItems();
-        Iterator<OrderItem> itr = orderItems.iterator();
-
-        while (itr.hasNext()) {
-            OrderItem orderItem = itr.next();
-            if (orderItem.getProductId().equals(productId)) {
-                itr.remove();
-                order.setOrderItems(orderItems);
-                orderRepository.save(order);
-                return;
+            Set<OrderItem> orderItems = order.getOrderItems();
+            Iterator<OrderItem> itr = orderItems.iterator();
+
+            while (itr.hasNext()) {
+                OrderItem orderItem = itr.next();
+                if (orderItem.getProductId().equals(productId)) {
+                    itr.remove();
+                    order.setOrderItems(orderItems);
+                    order.setTotalPrice(this.getTotalPrice(orderItems));
+                    orderRepository.save(order);
+                    return order;
+                }
             }
-        }
 
-        throw new NotExistException("Order Item");
+            throw new NotExistException("Order Item");
+        });
     }
 
     /*
@@ -315,6 +376,33 @@ public class OrderService {
      * 
      */
 
+    /*
+     * Runs an order update in its own transaction. An update that lost to a concurrent one (stale version)
+     * was rolled back as a whole, including any points it awarded, so it is re-run from a fresh read, where
+     * the state machine sees what the other update did.
+     */
+    private <T> T retryOnConflict(Supplier<T> update) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> update.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private OrderStatus statusOf(Order order) {
+        return order.getOrderStatus() == null ? OrderStatus.CREATED : order.getOrderStatus();
+    }
+
+    private void checkOpen(Order order) {
+        if (!this.statusOf(order).isOpen()) {
+            throw new InvalidOrderTransitionException(this.statusOf(order));
+        }
+    }
+
     private Double getTotalPrice(Set<OrderItem> orderItems) {
         Double totalPrice = 0.0;
         for (OrderItem orderItem : orderItems) {
@@ -0,0 +1,25 @@
+package me.plantngo.backend.services;
+
+import me.plantngo.backend.models.OutboxEvent;
+
+/*
+ * Receives every outbox event in order, at least once. OutboxRelay calls handle in a transaction that
+ * also records the consumer's offset, so database work done by a consumer commits together with the
+ * offset and is not repeated. Work outside the database (e.g. mail) can be repeated after a failure.
+ */
+public interface OutboxConsumer {
+
+    /**
+     * Unique name the consumer's offset is stored under, must not change once deployed
+     *
+     * @return
+     */
+    String getName();
+
+    /**
+     * Handles one event, events the consumer does not care about are ignored
+     *
+     * @param event
+     */
+    void handle(OutboxEvent event);
+}
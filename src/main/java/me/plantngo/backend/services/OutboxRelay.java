@@ -0,0 +1,231 @@
+package me.plantngo.backend.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import me.plantngo.backend.models.OutboxEvent;
+import me.plantngo.backend.models.OutboxOffset;
+import me.plantngo.backend.repositories.OutboxEventRepository;
+import me.plantngo.backend.repositories.OutboxOffsetRepository;
+
+/*
+ * Polls the outbox and hands new events to every OutboxConsumer, in id order, in batches.
+ *
+ * Each consumer has its own offset, so a slow or failing consumer does not hold the others back. An event
+ * is handled in a transaction that locks the consumer's offset and moves it past the event, so database
+ * work done by the consumer and the offset commit together, and instances relaying the same consumer take
+ * turns. A failed event is retried on the next polls and skipped after a configurable number of attempts,
+ * so one bad event cannot stop a consumer for good.
+ *
+ * Ids are allocated when an event is inserted but become visible when its transaction commits, so a
+ * later id can commit first. Only events older than a settle delay are relayed, which gives the
+ * transactions holding earlier ids time to commit before the offset moves past them. A transaction can
+ * still outlast the delay, so the ids an offset moves past without seeing are recorded as gaps in the same
+ * transaction. Each poll delivers the gaps whose events have committed since, out of id order, and gaps
+ * still empty after a window (their transaction rolled back) are forgotten by the cleanup.
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    // gaps recorded per event at most, the ids closest below it
+    private static final int MAX_GAPS = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final OutboxOffsetRepository outboxOffsetRepository;
+
+    private final List<OutboxConsumer> consumers;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final long settleMillis;
+
+    private final int maxAttempts;
+
+    private final long gapWindowMillis;
+
+    private final long retentionDays;
+
+    // "consumer:eventId" -> failed attempts
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxOffsetRepository outboxOffsetRepository,
+            List<OutboxConsumer> consumers, PlatformTransactionManager transactionManager,
+            @Value("${outbox.relay.batch-size:100}") int batchSize,
+            @Value("${outbox.relay.settle-millis:2000}") long settleMillis,
+            @Value("${outbox.relay.max-attempts:5}") int maxAttempts,
+            @Value("${outbox.relay.gap-window-millis:300000}") long gapWindowMillis,
+            @Value("${outbox.retention-days:7}") long retentionDays) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxOffsetRepository = outboxOffsetRepository;
+        this.consumers = consumers;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.settleMillis = settleMillis;
+        this.maxAttempts = maxAttempts;
+        this.gapWindowMillis = gapWindowMillis;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Delivers one batch of new events to each consumer
+     *
+     * @return number of events delivered, over all consumers
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-millis:1000}")
+    public int relay() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime settledBefore = now.minusNanos(settleMillis * 1_000_000);
+        LocalDateTime gapsDetectedAfter = now.minusNanos(gapWindowMillis * 1_000_000);
+        int delivered = 0;
+        for (OutboxConsumer consumer : consumers) {
+            delivered += this.relayTo(consumer, settledBefore, gapsDetectedAfter);
+        }
+        return delivered;
+    }
+
+    /**
+     * Deletes events every consumer has handled, once they are older than the retention period, and gaps
+     * older than the gap window
+     */
+    @Scheduled(cron = "${outbox.cleanup-cron:0 15 4 * * *}")
+    public void deleteConsumed() {
+        int expired = outboxOffsetRepository
+            .deleteGapsDetectedBefore(LocalDateTime.now().minusNanos(gapWindowMillis * 1_000_000));
+        if (expired > 0) {
+            log.info("Forgot {} outbox gaps that never filled", expired);
+        }
+        List<String> names = consumers.stream().map(OutboxConsumer::getName).collect(Collectors.toList());
+        if (names.isEmpty()) {
+            return;
+        }
+        Long consumedUpTo = outboxOffsetRepository.findMinimumOffset(names);
+        if (consumedUpTo != null) {
+            outboxEventRepository.deleteConsumed(consumedUpTo, LocalDateTime.now().minusDays(retentionDays));
+        }
+    }
+
+    private int relayTo(OutboxConsumer consumer, LocalDateTime settledBefore, LocalDateTime gapsDetectedAfter) {
+        String name = consumer.getName();
+        outboxOffsetRepository.createIfAbsent(name);
+
+        int delivered = 0;
+        for (OutboxEvent event : outboxEventRepository.findGapEvents(name, gapsDetectedAfter, batchSize)) {
+            Boolean handled = this.attempt(consumer, event, handle -> this.deliverGap(consumer, event, handle));
+            if (handled == null) {
+                // gaps are already out of order, the new events need not wait for them
+                break;
+            }
+            if (handled) {
+                delivered++;
+            }
+        }
+
+        Long offset = outboxOffsetRepository.findById(name).map(OutboxOffset::getLastEventId).orElse(0L);
+        List<OutboxEvent> batch = outboxEventRepository.findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(offset,
+                settledBefore, PageRequest.of(0, batchSize));
+        for (OutboxEvent event : batch) {
+            Boolean handled = this.attempt(consumer, event, handle -> this.deliver(consumer, event, handle));
+            if (handled == null) {
+                // later events wait, consumers see events in order
+                return delivered;
+            }
+            if (handled) {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    /*
+     * Delivers the event in a transaction, or skips it once the consumer has failed on it maxAttempts
+     * times. Returns whether the consumer handled it, or null if it failed and is retried on the next poll.
+     */
+    private Boolean attempt(OutboxConsumer consumer, OutboxEvent event, Delivery delivery) {
+        String name = consumer.getName();
+        String failureKey = name + ":" + event.getId();
+        try {
+            Boolean handled = transactionTemplate.execute(status -> delivery.deliver(true));
+            failures.remove(failureKey);
+            return Boolean.TRUE.equals(handled);
+        } catch (RuntimeException e) {
+            int attempts = failures.merge(failureKey, 1, Integer::sum);
+            if (attempts < maxAttempts) {
+                log.warn("Outbox consumer {} failed on event {} (attempt {}), retrying on the next poll",
+                        name, event.getId(), attempts, e);
+                return null;
+            }
+            log.error("Outbox consumer {} failed on event {} {} times, skipping it", name, event.getId(),
+                    attempts, e);
+            transactionTemplate.execute(status -> delivery.deliver(false));
+            failures.remove(failureKey);
+            return false;
+        }
+    }
+
+    private boolean deliver(OutboxConsumer consumer, OutboxEvent event, boolean handle) {
+        OutboxOffset offset = outboxOffsetRepository.lockByConsumer(consumer.getName());
+        if (offset.getLastEventId() >= event.getId()) {
+            // another instance got there first
+            return false;
+        }
+        this.recordGaps(consumer, offset.getLastEventId(), event.getId());
+        if (handle) {
+            consumer.handle(event);
+        }
+        offset.setLastEventId(event.getId());
+        return handle;
+    }
+
+    private boolean deliverGap(OutboxConsumer consumer, OutboxEvent event, boolean handle) {
+        // takes turns with the other instances, whichever removes the gap delivers the event
+        outboxOffsetRepository.lockByConsumer(consumer.getName());
+        if (outboxOffsetRepository.deleteGap(consumer.getName(), event.getId()) == 0) {
+            return false;
+        }
+        if (handle) {
+            consumer.handle(event);
+        }
+        return handle;
+    }
+
+    /*
+     * Records the ids between the offset and the event, their transactions have not committed yet
+     */
+    private void recordGaps(OutboxConsumer consumer, long offset, long eventId) {
+        long from = Math.max(offset + 1, eventId - MAX_GAPS);
+        if (from >= eventId) {
+            return;
+        }
+        List<Long> gaps = new ArrayList<>();
+        for (long id = from; id < eventId; id++) {
+            gaps.add(id);
+        }
+        outboxOffsetRepository.recordGaps(consumer.getName(), gaps, LocalDateTime.now());
+    }
+
+    @FunctionalInterface
+    private interface Delivery {
+
+        boolean deliver(boolean handle);
+    }
+}
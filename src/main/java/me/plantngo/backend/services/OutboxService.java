@@ -0,0 +1,74 @@
+package me.plantngo.backend.services;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import me.plantngo.backend.models.OutboxEvent;
+import me.plantngo.backend.models.OutboxEventType;
+import me.plantngo.backend.repositories.OutboxEventRepository;
+
+/*
+ * Records domain events in the outbox_event table. Events are written in the transaction of the change
+ * they describe, so an event exists exactly when its change committed, and OutboxRelay hands them to
+ * the consumers afterwards.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Records an event in the caller's transaction
+     *
+     * @param type
+     * @param aggregateId id of the order the event is about, or null
+     * @param customerId
+     * @param payload event specific details
+     * @return
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent publish(OutboxEventType type, Integer aggregateId, Integer customerId, Map<String, ?> payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setAggregateId(aggregateId);
+        event.setCustomerId(customerId);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Event payload is not serialisable", e);
+        }
+        event.setCreatedAt(LocalDateTime.now());
+        return outboxEventRepository.save(event);
+    }
+
+    /**
+     * Reads an event's payload
+     *
+     * @param event
+     * @return
+     */
+    public JsonNode payloadOf(OutboxEvent event) {
+        try {
+            return objectMapper.readTree(event.getPayload() == null ? "{}" : event.getPayload());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Payload of outbox event " + event.getId() + " is not JSON", e);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import javax.validation.Valid;
 
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import me.plantngo.backend.DTO.ProductIngredientDTO;
@@ -15,6 +16,7 @@ import me.plantngo.backend.exceptions.NotExistException;
 import me.plantngo.backend.models.Ingredient;
 import me.plantngo.backend.models.Merchant;
 import me.plantngo.backend.models.Product;
+import me.plantngo.backend.models.ProductChangedEvent;
 import me.plantngo.backend.models.ProductIngredient;
 import me.plantngo.backend.repositories.IngredientRepository;
 import me.plantngo.backend.repositories.ProductIngredientRepository;
@@ -29,16 +31,19 @@ public class ProductService {
 
     private final IngredientRepository ingredientRepository;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     private static final String PRODUCT_STRING = "Product";
 
     private static final String PRODUCT_INGREDIENT_STRING = "Product Ingredient";
 
     @Autowired
     public ProductService(ProductRepository productRepository, ProductIngredientRepository productIngredientRepository,
-            IngredientRepository ingredientRepository) {
+            IngredientRepository ingredientRepository, ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
         this.productIngredientRepository = productIngredientRepository;
         this.ingredientRepository = ingredientRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -167,14 +172,13 @@ public class ProductService {
         productIngredients.add(productIngredient);
 
         // Save all the new values in product
-        product.setCarbonEmission(this.calculateTotalEmissions(productIngredients));
+        Double previousCarbonEmission = product.getCarbonEmission();
+        product.setCarbonEmission(this.addEmissions(product, productIngredient, productIngredient.getServingQty()));
         product.setProductIngredients(productIngredients);
 
-        // Merchant merchant = product.getCategory().getMerchant();
-        // merchant.setCarbonRating(this.calculateCarbonRating(product));
-
         // Add ProductIngredient to Repo + Update Product in Repo
         productIngredientRepository.save(productIngredient);
+        eventPublisher.publishEvent(ProductChangedEvent.changed(product, previousCarbonEmission));
 
         return productIngredient;
     }
@@ -198,6 +202,7 @@ public class ProductService {
                         merchantName);
 
         // Set new servingQty
+        Double previousServingQty = productIngredient.getServingQty();
         productIngredient.setServingQty(productIngredientDTO.getServingQty());
 
         // Update Ingredients list in Product
@@ -205,12 +210,13 @@ public class ProductService {
         productIngredients.remove(productIngredient);
         productIngredients.add(productIngredient);
         product.setProductIngredients(productIngredients);
-        product.setCarbonEmission(this.calculateTotalEmissions(productIngredients));
-        // Merchant merchant = product.getCategory().getMerchant();
-        // merchant.setCarbonRating(this.calculateCarbonRating(product));
+        Double previousCarbonEmission = product.getCarbonEmission();
+        product.setCarbonEmission(this.addEmissions(product, productIngredient,
+                productIngredient.getServingQty() - previousServingQty));
 
         // Add ProductIngredient to Repo + Update Product in Repo
         productIngredientRepository.save(productIngredient);
+        eventPublisher.publishEvent(ProductChangedEvent.changed(product, previousCarbonEmission));
 
         return productIngredient;
     }
@@ -228,11 +234,11 @@ public class ProductService {
         productIngredients.clear();
 
         product.setProductIngredients(productIngredients);
-        product.setCarbonEmission(this.calculateTotalEmissions(productIngredients));
-        // Merchant merchant = product.getCategory().getMerchant();
-        // merchant.setCarbonRating(this.calculateCarbonRating(product));
+        Double previousCarbonEmission = product.getCarbonEmission();
+        product.setCarbonEmission(0.0);
 
         productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.changed(product, previousCarbonEmission));
     }
 
     /**
@@ -256,11 +262,12 @@ public class ProductService {
 
         productIngredients.remove(productIngredient);
         product.setProductIngredients(productIngredients);
-        product.setCarbonEmission(this.calculateTotalEmissions(productIngredients));
-        // Merchant merchant = product.getCategory().getMerchant();
-        // merchant.setCarbonRating(this.calculateCarbonRating(product));
+        Double previousCarbonEmission = product.getCarbonEmission();
+        product.setCarbonEmission(productIngredients.isEmpty() ? 0.0
+                : this.addEmissions(product, productIngredient, -productIngredient.getServingQty()));
 
         productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.changed(product, previousCarbonEmission));
     }
 
     /*
@@ -269,27 +276,18 @@ public class ProductService {
      * 
      */
 
-    private Double calculateCarbonRating(Product product) {
-        List<Product> products = product.getCategory().getProducts();
-        double totalCarbonEmissions = 0.0;
-        int size = products.size();
-
-        for (Product p : products) {
-            totalCarbonEmissions += p.getCarbonEmission();
-        }
-
-        return Double.valueOf(totalCarbonEmissions / size);
-    }
-
-    private Double calculateTotalEmissions(Set<ProductIngredient> productIngredients) {
-        Double totalEmissions = 0.0;
-
-        for (ProductIngredient p : productIngredients) {
-            double emission = p.getIngredient().getEmissionPerGram().doubleValue() * p.getServingQty().doubleValue();
-            totalEmissions += Double.valueOf(emission);
-        }
+    /*
+     * Emissions are maintained as a running total: each ingredient change only adds its own
+     * emissionPerGram * servingQty delta instead of re-summing every ingredient of the product.
+     * Changes to an ingredient's emissionPerGram are propagated in bulk by
+     * IngredientRepositoryCustom.upsertAllByName.
+     */
+    private Double addEmissions(Product product, ProductIngredient productIngredient, Double servingQtyDelta) {
+        double current = product.getCarbonEmission() == null ? 0.0 : product.getCarbonEmission();
+        double delta = productIngredient.getIngredient().getEmissionPerGram() * servingQtyDelta;
 
-        return totalEmissions;
+        // never let floating point drift push the total below zero
+        return Math.max(0.0, current + delta);
     }
 
     private ProductIngredient productIngredientMapToEntity(@Valid ProductIngredientDTO productIngredientDTO,
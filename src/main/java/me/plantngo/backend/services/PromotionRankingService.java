@@ -0,0 +1,297 @@
+package me.plantngo.backend.services;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import me.plantngo.backend.models.Promotion;
+import me.plantngo.backend.models.PromotionOrder;
+import me.plantngo.backend.repositories.PromotionRepository;
+import me.plantngo.backend.utils.RankedSkipList;
+
+/*
+ * Precomputed promotion orderings, so a page of "most clicked" or "trending" promotions is a skip list
+ * walk instead of loading and sorting the promotion table.
+ *
+ * Trending is clicks decayed exponentially with a configurable half-life. Decaying every score as time
+ * passes would touch every promotion, so scores are kept as log2 of the clicks weighted forward in
+ * time instead: a click at time t adds 2^(t / halfLife). All scores grow by the same factor, so the
+ * order is the same as with decayed scores, and only the clicked promotion is re-ranked.
+ *
+ * Currently active promotions are kept in their own lists and per merchant, so live promotions are read
+ * without scanning the rest. Each promotion's boundary days (its start day and the day after its end
+ * day) are kept in a calendar, and when the date changes only the promotions with a boundary that has
+ * passed are moved in or out.
+ */
+@Service
+public class PromotionRankingService {
+
+    private final PromotionRepository promotionRepository;
+
+    private final double halfLifeMillis;
+
+    private final Map<Integer, RankedPromotion> promotions = new HashMap<>();
+
+    private final RankedSkipList byClicks = new RankedSkipList();
+
+    private final RankedSkipList byTrending = new RankedSkipList();
+
+    private final RankedSkipList activeByClicks = new RankedSkipList();
+
+    private final RankedSkipList activeByTrending = new RankedSkipList();
+
+    private final Map<Integer, Set<Integer>> activeByMerchant = new HashMap<>();
+
+    // day -> promotions that start or expire that day
+    private final NavigableMap<LocalDate, Set<Integer>> boundaries = new TreeMap<>();
+
+    private LocalDate activeOn = LocalDate.now();
+
+    @Autowired
+    public PromotionRankingService(PromotionRepository promotionRepository,
+            @Value("${promotion.trending.half-life-hours:24}") double halfLifeHours) {
+        this.promotionRepository = promotionRepository;
+        this.halfLifeMillis = halfLifeHours * 60 * 60 * 1000;
+    }
+
+    /**
+     * Rebuilds every ordering from the promotion table. Click times are not stored, so a promotion's
+     * clicks so far count as made on its start date.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        promotions.clear();
+        byClicks.clear();
+        byTrending.clear();
+        activeByClicks.clear();
+        activeByTrending.clear();
+        activeByMerchant.clear();
+        boundaries.clear();
+        activeOn = LocalDate.now();
+
+        for (Promotion promotion : promotionRepository.findAll()) {
+            RankedPromotion ranked = this.toRanked(promotion);
+            long clicks = promotion.getClicks() == null ? 0 : promotion.getClicks();
+            ranked.clicks = clicks;
+            LocalDate clickedOn = ranked.startDate == null ? LocalDate.now() : ranked.startDate;
+            ranked.trending = this.addDecayed(ranked.trending, clicks,
+                    clickedOn.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            this.place(ranked);
+        }
+    }
+
+    /**
+     * Adds a new promotion, or picks up changed dates of an existing one
+     *
+     * @param promotion
+     */
+    public synchronized void promotionSaved(Promotion promotion) {
+        if (promotion.getId() == null) {
+            return;
+        }
+        RankedPromotion ranked = this.toRanked(promotion);
+        RankedPromotion existing = promotions.get(promotion.getId());
+        if (existing != null) {
+            ranked.clicks = existing.clicks;
+            ranked.trending = existing.trending;
+        }
+        this.place(ranked);
+    }
+
+    /**
+     * Removes a deleted promotion
+     *
+     * @param promotionId
+     */
+    public synchronized void promotionRemoved(Integer promotionId) {
+        RankedPromotion ranked = promotions.remove(promotionId);
+        if (ranked != null) {
+            this.deactivate(ranked);
+        }
+        byClicks.remove(promotionId);
+        byTrending.remove(promotionId);
+    }
+
+    /**
+     * Re-ranks promotions after clicks were flushed to the database
+     *
+     * @param clicksById clicks added per promotion
+     */
+    public synchronized void clicksAdded(Map<Integer, Long> clicksById) {
+        long now = System.currentTimeMillis();
+        clicksById.forEach((id, clicks) -> {
+            RankedPromotion ranked = promotions.get(id);
+            if (ranked == null || clicks <= 0) {
+                return;
+            }
+            ranked.clicks += clicks;
+            ranked.trending = this.addDecayed(ranked.trending, clicks, now);
+            this.place(ranked);
+        });
+    }
+
+    /**
+     * Moves promotions that started or expired since the last refresh in and out of the active
+     * orderings. Reads also refresh when they notice the date has changed.
+     */
+    @Scheduled(cron = "${promotion.active.refresh-cron:0 0 0 * * *}")
+    public synchronized void refreshActive() {
+        activeOn = LocalDate.now();
+        NavigableMap<LocalDate, Set<Integer>> passed = boundaries.headMap(activeOn, true);
+        List<Set<Integer>> due = new ArrayList<>(passed.values());
+        passed.clear();
+        for (Set<Integer> ids : due) {
+            for (Integer id : ids) {
+                RankedPromotion ranked = promotions.get(id);
+                if (ranked != null) {
+                    this.place(ranked);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the ids of a merchant's promotions running today, most clicked first
+     *
+     * @param merchantId
+     * @return
+     */
+    public synchronized List<Integer> getActiveIds(Integer merchantId) {
+        this.refreshIfDateChanged();
+        List<Integer> ids = new ArrayList<>(activeByMerchant.getOrDefault(merchantId, Set.of()));
+        ids.sort(Comparator.comparingInt(activeByClicks::rank));
+        return ids;
+    }
+
+    /**
+     * Gets one page of promotion ids in the given order
+     *
+     * @param order
+     * @param activeOnly
+     * @param page 0-based
+     * @param size
+     * @return
+     */
+    public synchronized List<Integer> getPage(PromotionOrder order, boolean activeOnly, int page, int size) {
+        this.refreshIfDateChanged();
+        RankedSkipList list;
+        if (order == PromotionOrder.TRENDING) {
+            list = activeOnly ? activeByTrending : byTrending;
+        } else {
+            list = activeOnly ? activeByClicks : byClicks;
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        long fromRank = (long) page * size + 1;
+        if (page < 0 || size <= 0 || fromRank > list.size()) {
+            return ids;
+        }
+        for (RankedSkipList.Entry entry : list.range((int) fromRank, size)) {
+            ids.add(entry.getId());
+        }
+        return ids;
+    }
+
+    private void place(RankedPromotion ranked) {
+        RankedPromotion previous = promotions.put(ranked.id, ranked);
+        if (previous != null && !Objects.equals(previous.merchantId, ranked.merchantId)) {
+            this.deactivate(previous);
+        }
+        byClicks.put(ranked.id, ranked.clicks);
+        byTrending.put(ranked.id, ranked.trending);
+
+        if (ranked.isActiveOn(activeOn)) {
+            activeByClicks.put(ranked.id, ranked.clicks);
+            activeByTrending.put(ranked.id, ranked.trending);
+            activeByMerchant.computeIfAbsent(ranked.merchantId, id -> new HashSet<>()).add(ranked.id);
+        } else {
+            this.deactivate(ranked);
+        }
+
+        // a boundary that is already behind us cannot change anything, stale entries are re-checked harmlessly
+        if (ranked.startDate != null && ranked.startDate.isAfter(activeOn)) {
+            boundaries.computeIfAbsent(ranked.startDate, day -> new HashSet<>()).add(ranked.id);
+        }
+        if (ranked.endDate != null && !ranked.endDate.isBefore(activeOn)) {
+            boundaries.computeIfAbsent(ranked.endDate.plusDays(1), day -> new HashSet<>()).add(ranked.id);
+        }
+    }
+
+    private void deactivate(RankedPromotion ranked) {
+        activeByClicks.remove(ranked.id);
+        activeByTrending.remove(ranked.id);
+        Set<Integer> merchantActive = activeByMerchant.get(ranked.merchantId);
+        if (merchantActive != null) {
+            merchantActive.remove(ranked.id);
+            if (merchantActive.isEmpty()) {
+                activeByMerchant.remove(ranked.merchantId);
+            }
+        }
+    }
+
+    private void refreshIfDateChanged() {
+        if (!activeOn.equals(LocalDate.now())) {
+            this.refreshActive();
+        }
+    }
+
+    // log2(2^score + clicks * 2^(atMillis / halfLife)), without leaving log space
+    private double addDecayed(double score, long clicks, long atMillis) {
+        if (clicks <= 0) {
+            return score;
+        }
+        double added = atMillis / halfLifeMillis + Math.log(clicks) / Math.log(2);
+        if (score == Double.NEGATIVE_INFINITY) {
+            return added;
+        }
+        double max = Math.max(score, added);
+        return max + Math.log(Math.pow(2, score - max) + Math.pow(2, added - max)) / Math.log(2);
+    }
+
+    private RankedPromotion toRanked(Promotion promotion) {
+        RankedPromotion ranked = new RankedPromotion(promotion.getId());
+        ranked.merchantId = promotion.getMerchant() == null ? null : promotion.getMerchant().getId();
+        ranked.startDate = promotion.getStartDate();
+        ranked.endDate = promotion.getEndDate();
+        return ranked;
+    }
+
+    private static class RankedPromotion {
+
+        private final Integer id;
+
+        private long clicks;
+
+        private double trending = Double.NEGATIVE_INFINITY;
+
+        private Integer merchantId;
+
+        private LocalDate startDate;
+
+        private LocalDate endDate;
+
+        private RankedPromotion(Integer id) {
+            this.id = id;
+        }
+
+        private boolean isActiveOn(LocalDate date) {
+            return (startDate == null || !date.isBefore(startDate)) && (endDate == null || !date.isAfter(endDate));
+        }
+    }
+}
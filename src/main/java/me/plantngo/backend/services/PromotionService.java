@@ -2,12 +2,20 @@ package me.plantngo.backend.services;
 
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
 
 import org.modelmapper.ModelMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -16,27 +24,44 @@ import me.plantngo.backend.exceptions.NotExistException;
 import me.plantngo.backend.exceptions.PromotionNotFoundException;
 import me.plantngo.backend.models.Merchant;
 import me.plantngo.backend.models.Promotion;
+import me.plantngo.backend.models.PromotionOrder;
 import me.plantngo.backend.repositories.PromotionRepository;
 
 @Service
 public class PromotionService {
 
+    private static final Logger log = LoggerFactory.getLogger(PromotionService.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    public static final int MAX_PAGE_SIZE = 50;
+
     private final PromotionRepository promotionRepository;
 
     private final ProductService productService;
 
     private final MinioService minioService;
 
+    private final PromotionRankingService promotionRankingService;
+
     private final static String PROMOTION_STRING = "Promotion";
 
+    /*
+     * Clicks are counted in memory and added to promotion.clicks by flushClicks, so a click costs no
+     * database write and concurrent clicks never overwrite each other. A promotion's counter is created
+     * once its id has been checked to exist.
+     */
+    private final Map<Integer, ClickCounter> clickCounters = new ConcurrentHashMap<>();
+
     @Autowired
     public PromotionService(PromotionRepository promotionRepository, ProductService productService,
-            MinioService minioService
+            MinioService minioService, PromotionRankingService promotionRankingService
 
     ) {
         this.promotionRepository = promotionRepository;
         this.productService = productService;
         this.minioService = minioService;
+        this.promotionRankingService = promotionRankingService;
     }
 
     public Promotion getPromotionById(Integer id) {
@@ -48,14 +73,34 @@ public class PromotionService {
         return promotionRepository.findAll();
     }
 
-    public List<Promotion> getAllPromotionsSorted() {
-        List<Promotion> promoList = promotionRepository.findAll();
-        Collections.sort(promoList, new Comparator<Promotion>() {
-            @Override
-            public int compare(Promotion u1, Promotion u2) {
-                return u2.getClicks().compareTo(u1.getClicks());
+    /**
+     * Gets one page of promotions in a precomputed order, most clicked or trending first
+     *
+     * @param order
+     * @param activeOnly only promotions running today
+     * @param page 0-based
+     * @param size defaults to DEFAULT_PAGE_SIZE, at most MAX_PAGE_SIZE
+     * @return
+     */
+    public List<Promotion> getAllPromotionsSorted(PromotionOrder order, boolean activeOnly, int page, Integer size) {
+        int boundedSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return this.promotionsInOrder(promotionRankingService.getPage(order, activeOnly, page, boundedSize));
+    }
+
+    private List<Promotion> promotionsInOrder(List<Integer> ids) {
+        Map<Integer, Promotion> promotionsById = new HashMap<>();
+        for (Promotion promotion : promotionRepository.findAllById(ids)) {
+            promotionsById.put(promotion.getId(), promotion);
+        }
+
+        List<Promotion> promoList = new ArrayList<>();
+        for (Integer id : ids) {
+            Promotion promotion = promotionsById.get(id);
+            if (promotion != null) {
+                promotion.setClicks(this.getLiveClicks(promotion));
+                promoList.add(promotion);
             }
-        });
+        }
         return promoList;
     }
 
@@ -63,12 +108,23 @@ public class PromotionService {
         return promotionRepository.findByMerchant(merchant);
     }
 
+    /**
+     * Gets a merchant's promotions running today, most clicked first
+     *
+     * @param merchant
+     * @return
+     */
+    public List<Promotion> getActivePromotionsByMerchant(Merchant merchant) {
+        return this.promotionsInOrder(promotionRankingService.getActiveIds(merchant.getId()));
+    }
+
     public Promotion addPromotion(PromotionDTO promotionDTO, Merchant merchant) {
 
         Promotion promotion = this.promotionMapToEntity(promotionDTO, merchant);
         promotion.setClicks(0);
 
         promotionRepository.save(promotion);
+        promotionRankingService.promotionSaved(promotion);
 
         return promotion;
     }
@@ -91,6 +147,7 @@ public class PromotionService {
         }
 
         promotionRepository.save(promotion);
+        promotionRankingService.promotionSaved(promotion);
 
         return promotion;
     }
@@ -100,18 +157,84 @@ public class PromotionService {
             throw new NotExistException(PROMOTION_STRING);
         }
         promotionRepository.deleteById(promotionId);
+        clickCounters.remove(promotionId);
+        promotionRankingService.promotionRemoved(promotionId);
     }
 
     public void addClicksToPromotion(Integer promotionId) {
-        if (!promotionRepository.existsById(promotionId)) {
-            throw new NotExistException("Promotion ID: " + promotionId);
+        ClickCounter counter = clickCounters.get(promotionId);
+        if (counter == null) {
+            if (!promotionRepository.existsById(promotionId)) {
+                throw new NotExistException("Promotion ID: " + promotionId);
+            }
+            counter = clickCounters.computeIfAbsent(promotionId, id -> new ClickCounter());
+        }
+        counter.clicks.increment();
+    }
+
+    /**
+     * Gets a promotion's clicks, including clicks not flushed to the database yet
+     *
+     * @param promotionId
+     * @return
+     */
+    public Integer getLiveClicks(Integer promotionId) {
+        return this.getLiveClicks(this.getPromotionById(promotionId));
+    }
+
+    /**
+     * Adds the clicks counted since the last flush to the database, one batched UPDATE for all
+     * promotions. Also runs on shutdown so counted clicks are not lost.
+     */
+    @Scheduled(fixedDelayString = "${promotion.clicks.flush-interval-millis:5000}")
+    @PreDestroy
+    public synchronized void flushClicks() {
+        Map<Integer, Long> pending = new HashMap<>();
+        Map<Integer, Long> totals = new HashMap<>();
+        clickCounters.forEach((id, counter) -> {
+            // sum() is read once; clicks counted after it are picked up by the next flush
+            long total = counter.clicks.sum();
+            if (total > counter.flushed) {
+                pending.put(id, total - counter.flushed);
+                totals.put(id, total);
+            }
+        });
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (Integer missing : promotionRepository.addClicks(pending)) {
+                // deleted since it was clicked
+                clickCounters.remove(missing);
+                pending.remove(missing);
+            }
+        } catch (RuntimeException e) {
+            // nothing is marked flushed, the same clicks are retried next time
+            log.warn("Failed to flush clicks for {} promotions", pending.size(), e);
+            return;
         }
-        Promotion promotion = this.getPromotionById(promotionId);
-        promotion.setClicks(promotion.getClicks() + 1);
-        promotionRepository.saveAndFlush(promotion);
+
+        totals.forEach((id, total) -> {
+            ClickCounter counter = clickCounters.get(id);
+            if (counter != null) {
+                counter.flushed = total;
+            }
+        });
+        promotionRankingService.clicksAdded(pending);
+    }
+
+    private Integer getLiveClicks(Promotion promotion) {
+        int stored = promotion.getClicks() == null ? 0 : promotion.getClicks();
+        ClickCounter counter = clickCounters.get(promotion.getId());
+        if (counter == null) {
+            return stored;
+        }
+        return stored + (int) (counter.clicks.sum() - counter.flushed);
     }
 
     private Promotion promotionMapToEntity(PromotionDTO promotionDTO, Merchant merchant) {
+        this.checkDateRange(promotionDTO);
         ModelMapper mapper = new ModelMapper();
         Promotion promotion = mapper.map(promotionDTO, Promotion.class);
         promotion.setMerchant(merchant);
@@ -119,7 +242,15 @@ public class PromotionService {
         return promotion;
     }
 
+    private void checkDateRange(PromotionDTO promotionDTO) {
+        if (promotionDTO.getStartDate() != null && promotionDTO.getEndDate() != null
+                && promotionDTO.getEndDate().isBefore(promotionDTO.getStartDate())) {
+            throw new IllegalArgumentException("Promotion end date cannot be before its start date.");
+        }
+    }
+
     public Promotion updatePromotion(PromotionDTO promotionDTO, Integer promotionId) {
+        this.checkDateRange(promotionDTO);
 
         Promotion promotion = promotionRepository.findById(promotionId)
                 .orElseThrow(() -> new NotExistException(PROMOTION_STRING));
@@ -130,12 +261,14 @@ public class PromotionService {
         promotion.setEndDate(promotionDTO.getEndDate());
 
         promotionRepository.save(promotion);
+        promotionRankingService.promotionSaved(promotion);
 
         return promotion;
     }
 
     public Promotion updatePromotion(PromotionDTO promotionDTO, Integer promotionId, MultipartFile file)
             throws MalformedURLException {
+        this.checkDateRange(promotionDTO);
 
         Promotion promotion = promotionRepository.findById(promotionId)
                 .orElseThrow(() -> new NotExistException(PROMOTION_STRING));
@@ -153,8 +286,16 @@ public class PromotionService {
         promotion.setEndDate(promotionDTO.getEndDate());
 
         promotionRepository.save(promotion);
+        promotionRankingService.promotionSaved(promotion);
 
         return promotion;
     }
 
+    private static class ClickCounter {
+
+        private final LongAdder clicks = new LongAdder();
+
+        // clicks already added to the database, only written by flushClicks
+        private volatile long flushed;
+    }
 }
@@ -0,0 +1,249 @@
+package me.plantngo.backend.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import me.plantngo.backend.DTO.QuestEvaluationDTO;
+import me.plantngo.backend.exceptions.NotExistException;
+import me.plantngo.backend.models.Quest;
+import me.plantngo.backend.models.QuestEvaluationStatus;
+import me.plantngo.backend.repositories.QuestRepository;
+
+/*
+ * Evaluates quests for every customer in the background.
+ *
+ * QuestService.refreshQuest loads every customer and checks them one at a time with a query and an entity
+ * save each. Here the logs of a quest are counted per username with one GROUP BY per chunk of usernames,
+ * walked in username order, and the chunk's new completions and points go in as JDBC batches in one
+ * transaction. A failed evaluation keeps the chunks already committed; evaluating again skips customers
+ * already rewarded, since completions and ledger entries are both keyed per customer and quest.
+ *
+ * Evaluations run one at a time on a single thread. Their progress is kept in memory and polled by id,
+ * up to quest.evaluation.retained of them, the oldest dropped first.
+ */
+@Service
+public class QuestEvaluationService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestEvaluationService.class);
+
+    private final QuestRepository questRepository;
+
+    private final GreenPointsService greenPointsService;
+
+    private final LeaderboardService leaderboardService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    private final Map<String, Evaluation> evaluations;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor();
+
+    @Autowired
+    public QuestEvaluationService(QuestRepository questRepository, GreenPointsService greenPointsService,
+            LeaderboardService leaderboardService, PlatformTransactionManager transactionManager,
+            @Value("${quest.evaluation.chunk-size:1000}") int chunkSize,
+            @Value("${quest.evaluation.retained:100}") int retained) {
+        this.questRepository = questRepository;
+        this.greenPointsService = greenPointsService;
+        this.leaderboardService = leaderboardService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.evaluations = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Evaluation> eldest) {
+                return size() > Math.max(1, retained);
+            }
+        };
+    }
+
+    /**
+     * Starts evaluating quests for every customer
+     *
+     * @param questIds null or empty for every active quest
+     * @return progress of the evaluation, with the id to poll it by
+     * @throws NotExistException if a quest does not exist, nothing is started
+     */
+    public QuestEvaluationDTO startEvaluation(List<Integer> questIds) {
+        List<Quest> quests = new ArrayList<>();
+        if (questIds == null || questIds.isEmpty()) {
+            quests.addAll(questRepository.findAllByEndDateTimeAfter(LocalDateTime.now()));
+        } else {
+            for (Integer questId : questIds) {
+                quests.add(questRepository.findById(questId).orElseThrow(() -> new NotExistException("Quest")));
+            }
+        }
+
+        Evaluation evaluation = new Evaluation(UUID.randomUUID().toString(), quests);
+        synchronized (evaluations) {
+            evaluations.put(evaluation.id, evaluation);
+        }
+        runner.execute(() -> this.run(evaluation));
+        return evaluation.toDTO();
+    }
+
+    /**
+     * Gets the progress of an evaluation
+     *
+     * @param id
+     * @return
+     */
+    public QuestEvaluationDTO getEvaluation(String id) {
+        Evaluation evaluation;
+        synchronized (evaluations) {
+            evaluation = evaluations.get(id);
+        }
+        if (evaluation == null) {
+            throw new NotExistException("Quest evaluation");
+        }
+        return evaluation.toDTO();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void run(Evaluation evaluation) {
+        evaluation.start();
+        QuestEvaluationStatus status = QuestEvaluationStatus.COMPLETED;
+        String error = null;
+        try {
+            for (Quest quest : evaluation.quests) {
+                this.evaluate(quest, evaluation);
+                evaluation.questEvaluated();
+            }
+        } catch (RuntimeException e) {
+            log.error("Quest evaluation {} failed", evaluation.id, e);
+            status = QuestEvaluationStatus.FAILED;
+            error = e.getMessage();
+        }
+
+        try {
+            if (evaluation.hasAwarded()) {
+                // points were credited in bulk without moving the leaderboards
+                leaderboardService.rebuild();
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not rebuild the leaderboards after quest evaluation {}", evaluation.id, e);
+        } finally {
+            evaluation.finish(status, error);
+        }
+        log.info("Quest evaluation {} {}", evaluation.id, evaluation.toDTO());
+    }
+
+    private void evaluate(Quest quest, Evaluation evaluation) {
+        String afterUsername = "";
+        List<Object[]> rows;
+        do {
+            rows = questRepository.findCompletingCustomers(quest, afterUsername, chunkSize);
+            if (rows.isEmpty()) {
+                return;
+            }
+            afterUsername = (String) rows.get(rows.size() - 1)[0];
+
+            int completing = 0;
+            List<Integer> customerIds = new ArrayList<>();
+            for (Object[] row : rows) {
+                // logs of a username that is no longer a customer
+                if (row[1] == null) {
+                    continue;
+                }
+                completing++;
+                if (!Boolean.TRUE.equals(row[2])) {
+                    customerIds.add((Integer) row[1]);
+                }
+            }
+            int[] awarded = customerIds.isEmpty() ? new int[2] : this.award(quest, customerIds);
+            evaluation.chunkEvaluated(completing, awarded[0], (long) awarded[1] * quest.getPoints());
+        } while (rows.size() == chunkSize);
+    }
+
+    /*
+     * Records the completions and credits the points of one chunk in one transaction, returns the number
+     * of completions recorded and of customers credited
+     */
+    private int[] award(Quest quest, List<Integer> customerIds) {
+        return transactionTemplate.execute(status -> {
+            List<Integer> completed = questRepository.insertCompletions(quest.getId(), customerIds);
+            Map<Integer, String> entryKeys = new LinkedHashMap<>();
+            for (Integer customerId : completed) {
+                // the same key as QuestService.refreshQuestForCustomer, a customer is only rewarded once
+                entryKeys.put(customerId, "quest:" + quest.getId() + ":customer:" + customerId);
+            }
+            List<Integer> credited = greenPointsService.addPointsToAll(entryKeys, quest.getPoints(), "quest");
+            return new int[] { completed.size(), credited.size() };
+        });
+    }
+
+    /*
+     * Progress of one evaluation, written by the runner thread and read by pollers
+     */
+    private static class Evaluation {
+
+        private final String id;
+        private final List<Quest> quests;
+        private QuestEvaluationStatus status = QuestEvaluationStatus.QUEUED;
+        private int questsEvaluated;
+        private long customersCompleted;
+        private long customersAwarded;
+        private long pointsAwarded;
+        private LocalDateTime startedDateTime;
+        private LocalDateTime finishedDateTime;
+        private String error;
+
+        private Evaluation(String id, List<Quest> quests) {
+            this.id = id;
+            this.quests = quests;
+        }
+
+        private synchronized void start() {
+            status = QuestEvaluationStatus.RUNNING;
+            startedDateTime = LocalDateTime.now();
+        }
+
+        private synchronized void chunkEvaluated(int completed, int awarded, long points) {
+            customersCompleted += completed;
+            customersAwarded += awarded;
+            pointsAwarded += points;
+        }
+
+        private synchronized void questEvaluated() {
+            questsEvaluated++;
+        }
+
+        private synchronized void finish(QuestEvaluationStatus status, String error) {
+            this.status = status;
+            this.error = error;
+            finishedDateTime = LocalDateTime.now();
+        }
+
+        private synchronized boolean hasAwarded() {
+            return customersAwarded > 0;
+        }
+
+        private synchronized QuestEvaluationDTO toDTO() {
+            List<Integer> questIds = new ArrayList<>();
+            quests.forEach(quest -> questIds.add(quest.getId()));
+            return new QuestEvaluationDTO(id, status, questIds, questsEvaluated, customersCompleted,
+                    customersAwarded, pointsAwarded, startedDateTime, finishedDateTime, error);
+        }
+    }
+}
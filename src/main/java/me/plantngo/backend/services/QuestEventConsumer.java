@@ -0,0 +1,53 @@
+package me.plantngo.backend.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import me.plantngo.backend.models.OutboxEvent;
+import me.plantngo.backend.repositories.CustomerRepository;
+
+/*
+ * Logs the activity quests count, and checks the customer's active quests of that kind
+ */
+@Service
+public class QuestEventConsumer implements OutboxConsumer {
+
+    private final LogService logService;
+
+    private final QuestService questService;
+
+    private final CustomerRepository customerRepository;
+
+    @Autowired
+    public QuestEventConsumer(LogService logService, QuestService questService,
+            CustomerRepository customerRepository) {
+        this.logService = logService;
+        this.questService = questService;
+        this.customerRepository = customerRepository;
+    }
+
+    @Override
+    public String getName() {
+        return "quest-engine";
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        String logType;
+        switch (event.getType()) {
+            case ORDER_FULFILLED:
+                logType = "order";
+                break;
+            case VOUCHERS_PURCHASED:
+                logType = "purchase-voucher";
+                break;
+            default:
+                return;
+        }
+        customerRepository.findById(event.getCustomerId()).ifPresent(customer -> {
+            // dated when it happened, not when it was relayed, so it counts towards the right quests
+            logService.addLog(customer.getUsername(), logType, event.getCreatedAt());
+            questService.refreshActiveQuestsForCustomer(customer, logType);
+        });
+    }
+}
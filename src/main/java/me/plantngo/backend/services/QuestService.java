@@ -11,10 +11,15 @@ import me.plantngo.backend.repositories.LogRepository;
 import me.plantngo.backend.repositories.QuestRepository;
 
 import org.modelmapper.ModelMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -23,18 +28,27 @@ import java.util.*;
 @Service
 public class QuestService {
 
+    private static final Logger log = LoggerFactory.getLogger(QuestService.class);
+
     private final QuestRepository questRepository;
 
     private final LogRepository logRepository;
 
     private final CustomerRepository customerRepository;
 
+    private final GreenPointsService greenPointsService;
+
+    private final TransactionTemplate transactionTemplate;
+
     @Autowired
     public QuestService(QuestRepository questRepository, LogRepository logRepository,
-            CustomerRepository customerRepository) {
+            CustomerRepository customerRepository, GreenPointsService greenPointsService,
+            PlatformTransactionManager transactionManager) {
         this.questRepository = questRepository;
         this.logRepository = logRepository;
         this.customerRepository = customerRepository;
+        this.greenPointsService = greenPointsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public List<Quest> getAllQuests() {
@@ -55,18 +69,37 @@ public class QuestService {
     }
 
     public ResponseEntity<String> addQuest(QuestDTO questDTO) {
+        questRepository.save(toQuest(questDTO, LocalDateTime.now()));
+
+        return new ResponseEntity<>("Successfully added new quest", HttpStatus.OK);
+    }
+
+    /**
+     * Adds a set of quests in one transaction, all posted at the same time
+     *
+     * @param questDTOs
+     * @return the saved quests, with their ids
+     */
+    @Transactional
+    public List<Quest> addQuests(List<QuestDTO> questDTOs) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Quest> quests = new ArrayList<>();
+        for (QuestDTO questDTO : questDTOs) {
+            quests.add(toQuest(questDTO, now));
+        }
+        return questRepository.saveAll(quests);
+    }
+
+    private static Quest toQuest(QuestDTO questDTO, LocalDateTime postedDateTime) {
         Quest quest = new Quest();
 
         ModelMapper mapper = new ModelMapper();
         mapper.getConfiguration().setSkipNullEnabled(true);
         mapper.map(questDTO, quest);
 
-        quest.setPostedDateTime(LocalDateTime.now());
-        quest.setEndDateTime(LocalDateTime.now().plus(Duration.ofDays(questDTO.getPersistForHowManyDays())));
-
-        questRepository.save(quest);
-
-        return new ResponseEntity<>("Successfully added new quest", HttpStatus.OK);
+        quest.setPostedDateTime(postedDateTime);
+        quest.setEndDateTime(postedDateTime.plus(Duration.ofDays(questDTO.getPersistForHowManyDays())));
+        return quest;
     }
 
     public ResponseEntity<String> deleteQuest(Integer id) {
@@ -122,10 +155,16 @@ public class QuestService {
                 completed.add(quest);
 
                 customer.setCompletedQuests(completed);
-                customer.setGreenPoints(customer.getGreenPoints() + quest.getPoints());
-
-                customerRepository.save(customer);
 
+                // the completion and its reward commit together, a failed reward does not leave the quest
+                // completed and never rewarded. Also called in a loop from this class, where an
+                // annotation would not apply.
+                transactionTemplate.executeWithoutResult(status -> {
+                    customerRepository.save(customer);
+                    // keyed per customer and quest, a concurrent refresh cannot reward it twice
+                    greenPointsService.addPoints(customer, quest.getPoints(), "quest",
+                            "quest:" + quest.getId() + ":customer:" + customer.getId());
+                });
             }
 
         }
@@ -133,6 +172,20 @@ public class QuestService {
         return new ResponseEntity<>("Refreshed quest for customer: " + username, HttpStatus.OK);
     }
 
+    /**
+     * Checks a customer's active quests of one type, e.g. after they did something of that type
+     *
+     * @param customer
+     * @param type
+     */
+    public void refreshActiveQuestsForCustomer(Customer customer, String type) {
+        for (Quest quest : questRepository.findAllByEndDateTimeAfter(LocalDateTime.now())) {
+            if (type.equals(quest.getType())) {
+                refreshQuestForCustomer(quest.getId(), customer);
+            }
+        }
+    }
+
     public ResponseEntity<String> refreshQuest(Integer questId) {
         List<Customer> allCustomers = customerRepository.findAll();
 
@@ -157,25 +210,28 @@ public class QuestService {
     }
 
     private Boolean addCompletedQuestForCustomer(Customer customer, Quest newQuest) {
-        try {
-            Set<Quest> completed = customer.getCompletedQuests();
-
-            if (completed == null) {
-                completed = new HashSet<>();
-            }
+        Set<Quest> completed = customer.getCompletedQuests();
 
-            Boolean isAdded = completed.add(newQuest);
-
-            customer.setCompletedQuests(completed);
-            customer.setGreenPoints(customer.getGreenPoints() + newQuest.getPoints());
-
-            customerRepository.save(customer);
-            return isAdded;
-        } catch (Exception e) {
+        if (completed == null) {
+            completed = new HashSet<>();
+        }
 
+        if (!completed.add(newQuest)) {
+            log.info("Customer {} already completed quest {}, not rewarding it again", customer.getId(),
+                    newQuest.getId());
             return false;
         }
 
+        customer.setCompletedQuests(completed);
+
+        // rolled back as one, and a failed reward reaches the caller instead of marking an enclosing
+        // transaction rollback-only behind its back
+        transactionTemplate.executeWithoutResult(status -> {
+            customerRepository.save(customer);
+            greenPointsService.addPoints(customer, newQuest.getPoints(), "quest",
+                    "quest:" + newQuest.getId() + ":customer:" + customer.getId());
+        });
+        return true;
     }
 
     private List<Integer> extractQuestIdsList(List<Quest> quests) {
@@ -0,0 +1,44 @@
+package me.plantngo.backend.services;
+
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import me.plantngo.backend.models.OrderItem;
+import me.plantngo.backend.models.OutboxEvent;
+import me.plantngo.backend.models.OutboxEventType;
+import me.plantngo.backend.repositories.OrderRepository;
+
+/*
+ * Adds fulfilled orders to the co-purchase counts of the recommendation index. The index counts a
+ * product once per customer, so an event handled again does not change it.
+ */
+@Service
+public class RecommendationEventConsumer implements OutboxConsumer {
+
+    private final RecommendationService recommendationService;
+
+    private final OrderRepository orderRepository;
+
+    @Autowired
+    public RecommendationEventConsumer(RecommendationService recommendationService, OrderRepository orderRepository) {
+        this.recommendationService = recommendationService;
+        this.orderRepository = orderRepository;
+    }
+
+    @Override
+    public String getName() {
+        return "recommendations";
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        if (event.getType() != OutboxEventType.ORDER_FULFILLED || event.getCustomerId() == null) {
+            return;
+        }
+        orderRepository.findById(event.getAggregateId())
+            .ifPresent(order -> recommendationService.orderFulfilled(event.getCustomerId(),
+                    order.getOrderItems().stream().map(OrderItem::getProductId).collect(Collectors.toList())));
+    }
+}
@@ -0,0 +1,407 @@
+package me.plantngo.backend.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import me.plantngo.backend.DTO.SwapSuggestionDTO;
+import me.plantngo.backend.exceptions.NotExistException;
+import me.plantngo.backend.models.Category;
+import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.models.OrderStatus;
+import me.plantngo.backend.models.Preference;
+import me.plantngo.backend.models.Product;
+import me.plantngo.backend.models.ProductChangedEvent;
+import me.plantngo.backend.models.ProductsRecomputedEvent;
+import me.plantngo.backend.repositories.OrderRepository;
+import me.plantngo.backend.repositories.ProductRepository;
+
+/*
+ * In-memory index for "suggest a greener swap".
+ *
+ * Products are grouped by category name and flavourType across all merchants, and every product keeps a
+ * precomputed list of the products in its group with the next lower carbonEmission, nearest first. It
+ * also counts, for every pair of products, the customers who have had both in fulfilled orders. A query
+ * only reads those two structures and ranks a handful of alternatives, so it does not touch the database.
+ *
+ * Product changes, including bulk emission recomputes, recompute only the groups involved. Fulfilled
+ * orders add to the co-purchase counts as the outbox relays them. The whole index is only rebuilt on
+ * startup; a rebuild fills a new index and swaps it in, replaying the changes made while it was reading
+ * the tables.
+ */
+@Service
+public class RecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    // products per customer counted towards co-purchases, bounds the pairs one customer adds
+    private static final int MAX_PRODUCTS_PER_CUSTOMER = 100;
+
+    private final ProductRepository productRepository;
+
+    private final OrderRepository orderRepository;
+
+    private final CustomerService customerService;
+
+    private final int maxAlternatives;
+
+    // replaced whole by a rebuild, so queries never see a half-built index
+    private volatile Index index = new Index();
+
+    // changes applied while a rebuild is reading the tables, replayed onto the rebuilt index
+    private final List<Consumer<Index>> appliedDuringRebuild = new ArrayList<>();
+
+    private boolean rebuilding;
+
+    private final Object rebuildLock = new Object();
+
+    @Autowired
+    public RecommendationService(ProductRepository productRepository, OrderRepository orderRepository,
+            CustomerService customerService,
+            @Value("${recommendation.max-alternatives:10}") int maxAlternatives) {
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.customerService = customerService;
+        this.maxAlternatives = maxAlternatives;
+    }
+
+    /**
+     * Rebuilds the whole index from the product table and fulfilled orders. The new index is built off to
+     * the side and swapped in, so suggestions keep being served while it loads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                rebuilding = true;
+                appliedDuringRebuild.clear();
+            }
+
+            Index rebuilt = new Index();
+            boolean loaded = false;
+            try {
+                rebuilt.load(productRepository.findAll(),
+                        orderRepository.findCustomerProductsByOrderStatus(OrderStatus.FULFILLED));
+                loaded = true;
+            } finally {
+                synchronized (this) {
+                    // if reading the tables failed, keep serving the old index
+                    if (loaded) {
+                        appliedDuringRebuild.forEach(change -> change.accept(rebuilt));
+                        index = rebuilt;
+                        log.info("Recommendation index built with {} products in {} groups",
+                                rebuilt.products.size(), rebuilt.groups.size());
+                    }
+                    rebuilding = false;
+                    appliedDuringRebuild.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a new or changed product to the index
+     *
+     * @param product
+     */
+    public void productChanged(Product product) {
+        IndexedProduct indexed = IndexedProduct.of(product);
+        Integer productId = product.getId();
+        this.apply(current -> {
+            if (indexed == null) {
+                current.remove(productId);
+            } else {
+                current.put(indexed);
+            }
+        });
+    }
+
+    /**
+     * Removes a deleted product from the index
+     *
+     * @param product
+     */
+    public void productRemoved(Product product) {
+        Integer productId = product.getId();
+        this.apply(current -> current.remove(productId));
+    }
+
+    /**
+     * Removes every product of a deleted category from the index
+     *
+     * @param category
+     */
+    public void categoryRemoved(Category category) {
+        if (category.getProducts() == null) {
+            return;
+        }
+        List<Integer> productIds = new ArrayList<>();
+        category.getProducts().forEach(product -> productIds.add(product.getId()));
+        this.apply(current -> productIds.forEach(current::remove));
+    }
+
+    /**
+     * Applies a product write to the index once it has committed
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.getKind()) {
+            case ADDED:
+            case CHANGED:
+                this.productChanged(event.getProduct());
+                break;
+            case REMOVED:
+                this.productRemoved(event.getProduct());
+                break;
+            case CATEGORY_REMOVED:
+                this.categoryRemoved(event.getCategory());
+                break;
+        }
+    }
+
+    /**
+     * Re-reads the products whose emissions were recomputed in bulk, once the recompute has committed
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsRecomputed(ProductsRecomputedEvent event) {
+        productRepository.findAllById(event.getProductIds()).forEach(this::productChanged);
+    }
+
+    /**
+     * Counts the products of a fulfilled order towards the customer's co-purchases
+     *
+     * @param customerId
+     * @param productIds
+     */
+    public void orderFulfilled(Integer customerId, Collection<Integer> productIds) {
+        List<Integer> bought = List.copyOf(productIds);
+        this.apply(current -> bought.forEach(productId -> current.addPurchase(customerId, productId)));
+    }
+
+    /**
+     * Suggests lower-emission products from the same category and flavour, from any merchant. Products
+     * matching the customer's preferences come first, then those bought by customers who also bought
+     * this product, then the largest saving.
+     *
+     * @param productId
+     * @param preferences customer preferences, matched against flavourType
+     * @param limit
+     * @return
+     */
+    public List<SwapSuggestionDTO> suggestSwaps(Integer productId, Set<String> preferences, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        Index current = index;
+        IndexedProduct product = current.products.get(productId);
+        if (product == null) {
+            throw new NotExistException("Product");
+        }
+        List<IndexedProduct> candidates = current.alternatives.getOrDefault(productId, List.of());
+        Map<Integer, Integer> boughtWith = current.coPurchases.getOrDefault(productId, Map.of());
+
+        List<SwapSuggestionDTO> suggestions = new ArrayList<>(candidates.size());
+        for (IndexedProduct candidate : candidates) {
+            suggestions.add(new SwapSuggestionDTO(candidate.id, candidate.name, candidate.merchantName,
+                    candidate.price, candidate.carbonEmission, product.carbonEmission - candidate.carbonEmission,
+                    candidate.flavour != null && preferences.contains(candidate.flavour),
+                    boughtWith.getOrDefault(candidate.id, 0)));
+        }
+        suggestions.sort(Comparator.comparing(SwapSuggestionDTO::getMatchesPreferences).reversed()
+                .thenComparing(Comparator.comparing(SwapSuggestionDTO::getCoPurchases).reversed())
+                .thenComparing(Comparator.comparing(SwapSuggestionDTO::getEmissionSaved).reversed()));
+        return suggestions.size() > limit ? suggestions.subList(0, limit) : suggestions;
+    }
+
+    /**
+     * Suggests greener swaps for a product, ranked for a customer if one is given
+     *
+     * @param productId
+     * @param username
+     * @param limit
+     * @return
+     */
+    public List<SwapSuggestionDTO> suggestSwaps(Integer productId, String username, int limit) {
+        Set<String> preferences = new HashSet<>();
+        if (username != null) {
+            Customer customer = customerService.getCustomerByUsername(username);
+            if (customer.getPreferences() != null) {
+                for (Preference preference : customer.getPreferences()) {
+                    if (preference.getPreference() != null) {
+                        preferences.add(normalise(preference.getPreference()));
+                    }
+                }
+            }
+        }
+        return this.suggestSwaps(productId, preferences, limit);
+    }
+
+    /*
+     * Changes are idempotent, so one also applied to the index being rebuilt is not counted twice
+     */
+    private synchronized void apply(Consumer<Index> change) {
+        change.accept(index);
+        if (rebuilding) {
+            appliedDuringRebuild.add(change);
+        }
+    }
+
+    private static String normalise(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /*
+     * One generation of the index. Queries read it without locking: its maps are concurrent and the lists
+     * in them are replaced, never changed. Changes are made under the service's lock.
+     */
+    private class Index {
+
+        private final Map<Integer, IndexedProduct> products = new ConcurrentHashMap<>();
+
+        // group key -> products sorted by carbonEmission
+        private final Map<String, List<IndexedProduct>> groups = new ConcurrentHashMap<>();
+
+        // product id -> lower-emission products in its group, nearest first
+        private final Map<Integer, List<IndexedProduct>> alternatives = new ConcurrentHashMap<>();
+
+        // product id -> product id -> customers who had both
+        private final Map<Integer, Map<Integer, Integer>> coPurchases = new ConcurrentHashMap<>();
+
+        private final Map<Integer, Set<Integer>> customerProducts = new HashMap<>();
+
+        private void load(List<Product> allProducts, List<Object[]> purchases) {
+            for (Product product : allProducts) {
+                IndexedProduct indexed = IndexedProduct.of(product);
+                if (indexed != null) {
+                    products.put(indexed.id, indexed);
+                }
+            }
+            products.values().stream().collect(Collectors.groupingBy(indexed -> indexed.groupKey))
+                .forEach(this::reindexGroup);
+            for (Object[] row : purchases) {
+                this.addPurchase((Integer) row[0], (Integer) row[1]);
+            }
+        }
+
+        private void put(IndexedProduct indexed) {
+            IndexedProduct previous = products.put(indexed.id, indexed);
+            if (previous != null && !previous.groupKey.equals(indexed.groupKey)) {
+                this.reindexGroup(previous.groupKey, this.groupWithout(previous.groupKey, indexed.id));
+            }
+            List<IndexedProduct> group = this.groupWithout(indexed.groupKey, indexed.id);
+            group.add(indexed);
+            this.reindexGroup(indexed.groupKey, group);
+        }
+
+        private void remove(Integer productId) {
+            IndexedProduct previous = products.remove(productId);
+            alternatives.remove(productId);
+            if (previous != null) {
+                this.reindexGroup(previous.groupKey, this.groupWithout(previous.groupKey, productId));
+            }
+        }
+
+        private List<IndexedProduct> groupWithout(String groupKey, Integer productId) {
+            List<IndexedProduct> group = new ArrayList<>();
+            for (IndexedProduct indexed : groups.getOrDefault(groupKey, List.of())) {
+                if (!indexed.id.equals(productId)) {
+                    group.add(indexed);
+                }
+            }
+            return group;
+        }
+
+        private void reindexGroup(String groupKey, List<IndexedProduct> members) {
+            if (members.isEmpty()) {
+                groups.remove(groupKey);
+                return;
+            }
+            List<IndexedProduct> group = new ArrayList<>(members);
+            group.sort(Comparator.comparingDouble((IndexedProduct indexed) -> indexed.carbonEmission)
+                .thenComparing(indexed -> indexed.id));
+            groups.put(groupKey, List.copyOf(group));
+
+            for (int i = 0; i < group.size(); i++) {
+                IndexedProduct product = group.get(i);
+                List<IndexedProduct> lower = new ArrayList<>();
+                for (int j = i - 1; j >= 0 && lower.size() < maxAlternatives; j--) {
+                    // equal emissions are not a swap
+                    if (group.get(j).carbonEmission < product.carbonEmission) {
+                        lower.add(group.get(j));
+                    }
+                }
+                alternatives.put(product.id, List.copyOf(lower));
+            }
+        }
+
+        private void addPurchase(Integer customerId, Integer productId) {
+            Set<Integer> bought = customerProducts.computeIfAbsent(customerId, id -> new HashSet<>());
+            if (bought.contains(productId) || bought.size() >= MAX_PRODUCTS_PER_CUSTOMER) {
+                return;
+            }
+            for (Integer other : bought) {
+                coPurchases.computeIfAbsent(productId, id -> new ConcurrentHashMap<>()).merge(other, 1, Integer::sum);
+                coPurchases.computeIfAbsent(other, id -> new ConcurrentHashMap<>()).merge(productId, 1, Integer::sum);
+            }
+            bought.add(productId);
+        }
+    }
+
+    /*
+     * What a suggestion needs of a product, copied out of the entity
+     */
+    private static class IndexedProduct {
+
+        private final Integer id;
+        private final String name;
+        private final String merchantName;
+        private final double price;
+        private final double carbonEmission;
+        private final String flavour;
+        private final String groupKey;
+
+        private IndexedProduct(Product product, String merchantName, String flavour, String groupKey) {
+            this.id = product.getId();
+            this.name = product.getName();
+            this.merchantName = merchantName;
+            this.price = product.getPrice();
+            this.carbonEmission = product.getCarbonEmission();
+            this.flavour = flavour;
+            this.groupKey = groupKey;
+        }
+
+        private static IndexedProduct of(Product product) {
+            Category category = product.getCategory();
+            if (product.getId() == null || product.getCarbonEmission() == null || category == null
+                    || category.getName() == null) {
+                return null;
+            }
+            String merchantName = category.getMerchant() == null ? null : category.getMerchant().getUsername();
+            String flavour = product.getFlavourType() == null ? null : normalise(product.getFlavourType());
+            return new IndexedProduct(product, merchantName, flavour,
+                    normalise(category.getName()) + "|" + (flavour == null ? "" : flavour));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package me.plantngo.backend.services;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import me.plantngo.backend.models.OutboxEvent;
+import me.plantngo.backend.models.OutboxEventType;
+import me.plantngo.backend.repositories.OrderRepository;
+
+/*
+ * Adds fulfilled orders to the merchant sales rollups, on the day the event was written, which is the day
+ * the order was fulfilled and the day CustomerSavingsEventConsumer records it on
+ */
+@Service
+public class SalesRollupEventConsumer implements OutboxConsumer {
+
+    private final SalesRollupService salesRollupService;
+
+    private final OrderRepository orderRepository;
+
+    private final OutboxService outboxService;
+
+    @Autowired
+    public SalesRollupEventConsumer(SalesRollupService salesRollupService, OrderRepository orderRepository,
+            OutboxService outboxService) {
+        this.salesRollupService = salesRollupService;
+        this.orderRepository = orderRepository;
+        this.outboxService = outboxService;
+    }
+
+    @Override
+    public String getName() {
+        return "sales-rollup";
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        if (event.getType() != OutboxEventType.ORDER_FULFILLED) {
+            return;
+        }
+        JsonNode payload = outboxService.payloadOf(event);
+        Map<Integer, Double> itemEmissionSaved = new HashMap<>();
+        payload.path("itemEmissionSaved").fields().forEachRemaining(
+                item -> itemEmissionSaved.put(Integer.valueOf(item.getKey()), item.getValue().asDouble()));
+        orderRepository.findById(event.getAggregateId()).ifPresent(order -> salesRollupService.rollUp(order,
+                event.getCreatedAt().toLocalDate(), itemEmissionSaved));
+    }
+}
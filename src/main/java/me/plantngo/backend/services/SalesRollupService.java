@@ -0,0 +1,204 @@
+package me.plantngo.backend.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import me.plantngo.backend.DTO.ProductSalesDTO;
+import me.plantngo.backend.DTO.SalesBackfillSummaryDTO;
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.MerchantDailySales;
+import me.plantngo.backend.models.Order;
+import me.plantngo.backend.models.OrderItem;
+import me.plantngo.backend.models.OrderStatus;
+import me.plantngo.backend.repositories.MerchantDailySalesRepository;
+import me.plantngo.backend.repositories.OrderRepository;
+import me.plantngo.backend.repositories.ProductDailySalesRepository;
+import me.plantngo.backend.repositories.RolledUpOrderRepository;
+
+/*
+ * Keeps per merchant and per product daily totals of fulfilled orders, so the merchant dashboard reads a
+ * few pre-aggregated rows instead of every order and its items.
+ *
+ * Fulfilled orders are added by SalesRollupEventConsumer as the outbox relays them, on the day they were
+ * fulfilled and with the emissions saved the ORDER_FULFILLED event carries, the same figures the
+ * customer's savings are recorded with. Orders fulfilled before the rollups existed are added by
+ * backfill(); no fulfilment time or emissions were recorded for them, so they count towards the day
+ * they were placed and their emissions are worked out from the products' current carbonEmission.
+ * Every order is recorded in sales_rollup_order
+ * when it is added, in the same transaction, so the two never count an order twice and a redelivered
+ * event is a no-op. Totals are added with UPDATE ... SET x = x + ?, so concurrent orders for the same
+ * merchant and day do not overwrite each other.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+
+    // dashboard range when none is given
+    private static final int DEFAULT_DAYS = 30;
+
+    private final MerchantDailySalesRepository merchantDailySalesRepository;
+
+    private final ProductDailySalesRepository productDailySalesRepository;
+
+    private final RolledUpOrderRepository rolledUpOrderRepository;
+
+    private final OrderRepository orderRepository;
+
+    private final MerchantService merchantService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int backfillChunkSize;
+
+    @Autowired
+    public SalesRollupService(MerchantDailySalesRepository merchantDailySalesRepository,
+            ProductDailySalesRepository productDailySalesRepository, RolledUpOrderRepository rolledUpOrderRepository,
+            OrderRepository orderRepository, MerchantService merchantService,
+            PlatformTransactionManager transactionManager,
+            @Value("${sales.backfill.chunk-size:500}") int backfillChunkSize) {
+        this.merchantDailySalesRepository = merchantDailySalesRepository;
+        this.productDailySalesRepository = productDailySalesRepository;
+        this.rolledUpOrderRepository = rolledUpOrderRepository;
+        this.orderRepository = orderRepository;
+        this.merchantService = merchantService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillChunkSize = backfillChunkSize;
+    }
+
+    /**
+     * Adds a fulfilled order to its merchant's and products' totals for a day
+     *
+     * @param order
+     * @param salesDate the day the order was fulfilled
+     * @param itemEmissionSaved emissions saved per product id, products left out are worked out from
+     *                          their current carbonEmission
+     * @return false if the order was already added
+     */
+    @Transactional
+    public boolean rollUp(Order order, LocalDate salesDate, Map<Integer, Double> itemEmissionSaved) {
+        if (rolledUpOrderRepository.claim(order.getId(), LocalDateTime.now()) == 0) {
+            return false;
+        }
+        Integer merchantId = order.getMerchant().getId();
+
+        double revenue = 0;
+        double emissionSaved = 0;
+        for (OrderItem item : order.getOrderItems()) {
+            Double recorded = itemEmissionSaved.get(item.getProductId());
+            double itemSaved = recorded == null ? this.emissionSavedOf(item) : recorded;
+            productDailySalesRepository.createIfAbsent(merchantId, item.getProductId(), salesDate);
+            productDailySalesRepository.add(merchantId, item.getProductId(), salesDate, 1, item.getQuantity(),
+                    item.getPrice(), itemSaved);
+            revenue += item.getPrice();
+            emissionSaved += itemSaved;
+        }
+        merchantDailySalesRepository.createIfAbsent(merchantId, salesDate);
+        merchantDailySalesRepository.add(merchantId, salesDate, 1, revenue, emissionSaved);
+        return true;
+    }
+
+    /**
+     * Adds every fulfilled order not yet in the rollups, in chunks of sales.backfill.chunk-size orders,
+     * each chunk in its own transaction
+     *
+     * @return
+     */
+    public SalesBackfillSummaryDTO backfill() {
+        int scanned = 0;
+        int rolledUp = 0;
+        Integer lastId = 0;
+        while (true) {
+            Integer afterId = lastId;
+            BackfillChunk chunk = transactionTemplate.execute(status -> this.backfillChunk(afterId));
+            if (chunk.scanned == 0) {
+                break;
+            }
+            scanned += chunk.scanned;
+            rolledUp += chunk.rolledUp;
+            lastId = chunk.lastId;
+        }
+        log.info("Sales backfill looked at {} fulfilled orders, added {}", scanned, rolledUp);
+        return new SalesBackfillSummaryDTO(scanned, rolledUp, scanned - rolledUp);
+    }
+
+    /**
+     * Gets a merchant's daily totals between two dates, inclusive. Days without fulfilled orders are
+     * left out.
+     *
+     * @param merchantName
+     * @param from defaults to 30 days before to
+     * @param to defaults to today
+     * @return
+     */
+    public List<MerchantDailySales> getDailySales(String merchantName, LocalDate from, LocalDate to) {
+        Merchant merchant = merchantService.getMerchantByUsername(merchantName);
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(DEFAULT_DAYS - 1L) : from;
+        this.checkRange(start, end);
+        return merchantDailySalesRepository.findByMerchantIdAndSalesDateBetweenOrderBySalesDateAsc(merchant.getId(),
+                start, end);
+    }
+
+    /**
+     * Gets a merchant's totals per product between two dates, inclusive, highest revenue first
+     *
+     * @param merchantName
+     * @param from defaults to 30 days before to
+     * @param to defaults to today
+     * @return
+     */
+    public List<ProductSalesDTO> getProductSales(String merchantName, LocalDate from, LocalDate to) {
+        Merchant merchant = merchantService.getMerchantByUsername(merchantName);
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(DEFAULT_DAYS - 1L) : from;
+        this.checkRange(start, end);
+        return productDailySalesRepository.sumByProduct(merchant.getId(), start, end);
+    }
+
+    private BackfillChunk backfillChunk(Integer afterId) {
+        List<Order> orders = orderRepository.findByOrderStatusAndIdGreaterThanOrderByIdAsc(OrderStatus.FULFILLED,
+                afterId, PageRequest.of(0, backfillChunkSize));
+        BackfillChunk chunk = new BackfillChunk();
+        for (Order order : orders) {
+            chunk.scanned++;
+            LocalDate placedOn = order.getOrderTime() == null ? LocalDate.now() : order.getOrderTime().toLocalDate();
+            if (this.rollUp(order, placedOn, Map.of())) {
+                chunk.rolledUp++;
+            }
+            chunk.lastId = order.getId();
+        }
+        return chunk;
+    }
+
+    private double emissionSavedOf(OrderItem item) {
+        if (item.getProduct() == null) {
+            return 0;
+        }
+        return (OrderService.AVERAGE_EMISSION - item.getProduct().getCarbonEmission()) * item.getQuantity();
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+    }
+
+    private static class BackfillChunk {
+        private int scanned;
+        private int rolledUp;
+        private Integer lastId;
+    }
+}
@@ -7,6 +7,7 @@ import java.util.Optional;
 
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -21,6 +22,7 @@ import me.plantngo.backend.exceptions.NotExistException;
 import me.plantngo.backend.models.Category;
 import me.plantngo.backend.models.Merchant;
 import me.plantngo.backend.models.Product;
+import me.plantngo.backend.models.ProductChangedEvent;
 import me.plantngo.backend.models.Voucher;
 import me.plantngo.backend.repositories.CategoryRepository;
 import me.plantngo.backend.repositories.MerchantRepository;
@@ -35,15 +37,20 @@ public class ShopService {
     private CategoryRepository categoryRepository;
     private VoucherRepository voucherRepository;
     private MinioService minioService;
+    private VoucherStockService voucherStockService;
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public ShopService(ProductRepository productRepository, MerchantRepository merchantRepository,
-            CategoryRepository categoryRepository, VoucherRepository voucherRepository, MinioService minioService) {
+            CategoryRepository categoryRepository, VoucherRepository voucherRepository, MinioService minioService,
+            VoucherStockService voucherStockService, ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
         this.merchantRepository = merchantRepository;
         this.categoryRepository = categoryRepository;
         this.voucherRepository = voucherRepository;
         this.minioService = minioService;
+        this.voucherStockService = voucherStockService;
+        this.eventPublisher = eventPublisher;
 
     }
 
@@ -122,6 +129,25 @@ public class ShopService {
         return voucher;
     }
 
+    /**
+     * Adds units to a limited Voucher, or withdraws them if quantity is negative
+     * 
+     * @param merchant
+     * @param voucherId
+     * @param quantity
+     */
+    public void restockVoucher(Merchant merchant, Integer voucherId, Integer quantity) {
+        Voucher voucher = voucherRepository.findByIdAndMerchant(voucherId, merchant)
+            .orElseThrow(() -> new NotExistException("Voucher"));
+        if (voucher.getStock() == null) {
+            throw new IllegalArgumentException("Voucher has unlimited stock.");
+        }
+        if (!voucherRepository.addStock(voucherId, quantity)) {
+            throw new IllegalArgumentException("Cannot withdraw more units than are in stock.");
+        }
+        voucherStockService.restocked(voucherId, quantity);
+    }
+
     /**
      * Deletes a Voucher given Merchant and VoucherId
      * 
@@ -132,6 +158,7 @@ public class ShopService {
         Voucher voucher = voucherRepository.findByIdAndMerchant(voucherId, merchant)
             .orElseThrow(() -> new NotExistException("Voucher"));
         voucherRepository.delete(voucher);
+        voucherStockService.voucherRemoved(voucherId);
     }
 
     /*
@@ -219,6 +246,7 @@ public class ShopService {
         Category category = categoryRepository.findByNameAndMerchant(categoryName, merchant)
             .orElseThrow(() -> new NotExistException("Category"));
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(ProductChangedEvent.categoryRemoved(category));
     }
 
     /*
@@ -285,6 +313,7 @@ public class ShopService {
         Product product = this.productMapToEntity(productDTO, category);
 
         productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.added(product));
 
         return product;
     }
@@ -316,6 +345,7 @@ public class ShopService {
         Product product = this.productMapToEntity(productDTO, category);
 
         productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.added(product));
 
         return product;
     }
@@ -348,12 +378,14 @@ public class ShopService {
         }
 
         // Updating product
+        Double previousCarbonEmission = product.getCarbonEmission();
         ModelMapper mapper = new ModelMapper();
         mapper.getConfiguration().setSkipNullEnabled(true);
         mapper.map(updateProductDTO, product);
 
         // In case we need to call it before method ends
         productRepository.saveAndFlush(product);
+        eventPublisher.publishEvent(ProductChangedEvent.changed(product, previousCarbonEmission));
 
         return product;
     }
@@ -389,12 +421,14 @@ public class ShopService {
         }
 
         // Updating product
+        Double previousCarbonEmission = product.getCarbonEmission();
         ModelMapper mapper = new ModelMapper();
         mapper.getConfiguration().setSkipNullEnabled(true);
         mapper.map(updateProductDTO, product);
 
         // In case we need to call it before method ends
         productRepository.saveAndFlush(product);
+        eventPublisher.publishEvent(ProductChangedEvent.changed(product, previousCarbonEmission));
 
         return product;
     }
@@ -403,6 +437,7 @@ public class ShopService {
         Category category = product.getCategory();
         category.getProducts().remove(product);
         productRepository.deleteById(product.getId());
+        eventPublisher.publishEvent(ProductChangedEvent.removed(product));
     }
 
     // public List<Product> getAllProductsByMerchant(Merchant merchant) {
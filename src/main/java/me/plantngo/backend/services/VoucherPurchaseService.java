@@ -1,30 +1,41 @@
 package me.plantngo.backend.services;
 
 import me.plantngo.backend.exceptions.AlreadyExistsException;
-import me.plantngo.backend.exceptions.InsufficientBalanceException;
+import me.plantngo.backend.exceptions.CartCheckedOutException;
 import me.plantngo.backend.exceptions.NotExistException;
+import me.plantngo.backend.exceptions.OutOfStockException;
 import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.models.OutboxEventType;
 import me.plantngo.backend.models.Voucher;
 import me.plantngo.backend.repositories.CustomerRepository;
 import me.plantngo.backend.repositories.VoucherRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 @Service
 public class VoucherPurchaseService {
 
     private VoucherRepository voucherRepository;
     private CustomerRepository customerRepository;
+    private GreenPointsService greenPointsService;
+    private VoucherStockService voucherStockService;
+    private OutboxService outboxService;
 
     @Autowired
-    public VoucherPurchaseService(VoucherRepository voucherRepository, CustomerRepository customerRepository){
+    public VoucherPurchaseService(VoucherRepository voucherRepository, CustomerRepository customerRepository,
+            GreenPointsService greenPointsService, VoucherStockService voucherStockService,
+            OutboxService outboxService){
         this.voucherRepository = voucherRepository;
         this.customerRepository = customerRepository;
+        this.greenPointsService = greenPointsService;
+        this.voucherStockService = voucherStockService;
+        this.outboxService = outboxService;
     }
 
     public List<Voucher> getAllVouchers() {
@@ -41,7 +52,7 @@ public class VoucherPurchaseService {
 
     public void addToCart(Customer customer, Voucher voucher){
 
-        if(!voucherRepository.findAll().contains(voucher)) throw new NotExistException("Voucher");
+        if(!voucherRepository.existsInCatalogue(voucher.getId())) throw new NotExistException("Voucher");
 
         if(customer.getVouchersCart() == null) customer.setVouchersCart(new HashSet<Voucher>());
 
@@ -49,13 +60,22 @@ public class VoucherPurchaseService {
 
         if(customer.getVouchersCart().contains(voucher)) throw new AlreadyExistsException("Voucher");
 
-        customer.getVouchersCart().add(voucher);
+        // holds a unit of a limited voucher while it sits in the cart
+        voucherStockService.reserve(customer.getId(), voucher);
 
-        voucher.getCustomersInCart().add(customer);
+        try {
+            customer.getVouchersCart().add(voucher);
 
-        voucherRepository.saveAndFlush(voucher);
+            voucher.getCustomersInCart().add(customer);
 
-        customerRepository.saveAndFlush(customer);
+            voucherRepository.saveAndFlush(voucher);
+
+            customerRepository.saveAndFlush(customer);
+        } catch (RuntimeException e) {
+            // the voucher did not make it into the cart, so neither does its hold
+            voucherStockService.release(customer.getId(), voucher.getId());
+            throw e;
+        }
     }
 
     public void deleteFromCart(Customer customer, Voucher voucher){
@@ -69,53 +89,97 @@ public class VoucherPurchaseService {
         voucherRepository.saveAndFlush(voucher);
 
         customerRepository.saveAndFlush(customer);
+
+        voucherStockService.release(customer.getId(), voucher.getId());
     }
 
+    /**
+     * Gives a Customer a Voucher without charging points. A unit of a limited voucher is sold as at
+     * checkout: held for the Customer, then taken from voucher.stock in the same transaction.
+     *
+     * @param customer
+     * @param voucher
+     * @throws OutOfStockException if the voucher is limited and has no units left
+     */
+    @Transactional
     public void addOwnedVoucher(Customer customer, Voucher voucher){
 
-        if(!voucherRepository.findAll().contains(voucher)) throw new NotExistException("Voucher");
+        if(!voucherRepository.existsInCatalogue(voucher.getId())) throw new NotExistException("Voucher");
 
         if(customer.getOwnedVouchers() == null) customer.setOwnedVouchers(new HashSet<Voucher>());
 
         if(customer.getOwnedVouchers().contains(voucher)) throw new AlreadyExistsException("Voucher");
 
-        
-        customer.getOwnedVouchers().add(voucher);
-        customer.getVouchersCart().remove(voucher);
+        boolean inCart = customer.getVouchersCart() != null && customer.getVouchersCart().contains(voucher);
+        List<Integer> limitedVoucherIds = voucher.getStock() == null ? List.of() : List.of(voucher.getId());
+        voucherStockService.claim(customer.getId(), limitedVoucherIds);
 
-        if(voucher.getCustomersThatOwn() == null) voucher.setCustomersThatOwn(new ArrayList<Customer>());
-        voucher.getCustomersThatOwn().add(customer);
+        try {
+            if (voucherRepository.takeStock(limitedVoucherIds) < limitedVoucherIds.size()) {
+                throw new OutOfStockException();
+            }
 
-        voucherRepository.saveAndFlush(voucher);
+            customer.getOwnedVouchers().add(voucher);
+            customer.getVouchersCart().remove(voucher);
 
-        customerRepository.saveAndFlush(customer);
+            if(voucher.getCustomersThatOwn() == null) voucher.setCustomersThatOwn(new ArrayList<Customer>());
+            voucher.getCustomersThatOwn().add(customer);
+
+            voucherRepository.saveAndFlush(voucher);
+
+            customerRepository.saveAndFlush(customer);
+        } catch (RuntimeException e) {
+            // a hold taken just now goes back, one that came with the cart stays with it
+            if (!inCart && !limitedVoucherIds.isEmpty()) {
+                voucherStockService.release(customer.getId(), voucher.getId());
+            }
+            throw e;
+        }
+        voucherStockService.consumeAfterCommit(customer.getId(), limitedVoucherIds);
     }
 
+    /**
+     * Buys every voucher in a Customer's cart in one transaction: the points are debited only if the
+     * balance covers the whole cart, then the cart is moved into the Customer's owned vouchers
+     *
+     * @param customer
+     * @throws CartCheckedOutException if the cart is empty, e.g. because a concurrent checkout bought it
+     * first, nothing is debited
+     */
+    @Transactional
     public void purchaseVouchers(Customer customer){
-        Set<Voucher> vouchersInCart = customer.getVouchersCart();
-        Integer balanceGreenPts = customer.getGreenPoints() == null? 0 : customer.getGreenPoints();
-        Integer totalCost = 0;
-        for (Voucher v: vouchersInCart){
-            totalCost += v.getValue();
+        // parallel checkouts of the same cart read the same ledger position and so debit under the same key,
+        // only the first records it. Read before the cart, a checkout starting after another committed
+        // finds the cart empty.
+        String entryKey = "voucher-purchase:customer:" + customer.getId() + ":after:"
+                + greenPointsService.getLastEntryId(customer);
+
+        Long totalCost = customerRepository.sumCartValue(customer.getId());
+        if (totalCost == null || totalCost == 0) {
+            throw new CartCheckedOutException();
         }
-        if (totalCost > balanceGreenPts){
-            throw new InsufficientBalanceException();
-        }
-
-        if(customer.getOwnedVouchers() == null)
-            customer.setOwnedVouchers(new HashSet<Voucher>());
 
-        for (Voucher voucher: vouchersInCart){
-            customer.getOwnedVouchers().add(voucher);
-            if(voucher.getCustomersThatOwn() == null) voucher.setCustomersThatOwn(new ArrayList<Customer>());
-            voucher.getCustomersThatOwn().add(customer);
+        // limited vouchers must still be held by this customer, and their units still be in the database
+        List<Integer> limitedVoucherIds = voucherRepository.findLimitedVoucherIdsInCart(customer.getId());
+        voucherStockService.claim(customer.getId(), limitedVoucherIds);
+        if (voucherRepository.takeStock(limitedVoucherIds) < limitedVoucherIds.size()) {
+            throw new OutOfStockException();
         }
-        customer.setVouchersCart(new HashSet<Voucher>());
-
 
-        customer.setGreenPoints(customer.getGreenPoints() - totalCost);
+        // conditional debit, throws InsufficientBalanceException and rolls back if the balance is too low
+        if (!greenPointsService.spendPoints(customer, totalCost.intValue(), "voucher-purchase", entryKey)) {
+            // a parallel checkout paid for this cart, rolls back the stock taken above
+            throw new CartCheckedOutException();
+        }
 
-        customerRepository.save(customer);
+        customerRepository.copyCartToOwnership(customer.getId());
+        if (customerRepository.clearCart(customer.getId()) == 0) {
+            // a checkout keyed after a different ledger entry emptied the cart first, rolls back the debit
+            throw new CartCheckedOutException();
+        }
+        voucherStockService.consumeAfterCommit(customer.getId(), limitedVoucherIds);
+        outboxService.publish(OutboxEventType.VOUCHERS_PURCHASED, null, customer.getId(),
+                Map.of("points", totalCost));
     }
 
     public void deleteOwnedVoucher(Customer customer, Voucher voucher){
@@ -0,0 +1,176 @@
+package me.plantngo.backend.services;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import me.plantngo.backend.exceptions.OutOfStockException;
+import me.plantngo.backend.models.Voucher;
+import me.plantngo.backend.repositories.VoucherRepository;
+
+/*
+ * Reservations of limited-stock vouchers. Adding a limited voucher to a cart holds one unit for the
+ * customer until the reservation expires, checkout turns the hold into a sale.
+ *
+ * Each limited voucher has an in-process counter of units that are neither sold nor held, loaded from
+ * voucher.stock on first use. Holds take a unit with a compare-and-set on the counter, so a flash sale
+ * never queues on a lock or the database, and a voucher with no units left is refused without a query.
+ * The database stays the authority: checkout decrements voucher.stock conditionally, so a counter that
+ * is off (e.g. several instances) can refuse a sale but never oversell.
+ */
+@Service
+public class VoucherStockService {
+
+    private final VoucherRepository voucherRepository;
+
+    private final long reservationTtlMillis;
+
+    // voucher id -> units neither sold nor held
+    private final Map<Integer, AtomicInteger> available = new ConcurrentHashMap<>();
+
+    // "customerId:voucherId" -> expiry in epoch millis
+    private final Map<String, Long> reservations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VoucherStockService(VoucherRepository voucherRepository,
+            @Value("${voucher.reservation.ttl-minutes:15}") long reservationTtlMinutes) {
+        this.voucherRepository = voucherRepository;
+        this.reservationTtlMillis = reservationTtlMinutes * 60 * 1000;
+    }
+
+    /**
+     * Holds one unit of a limited voucher for a customer, or extends the hold they already have
+     *
+     * @param customerId
+     * @param voucher
+     * @throws OutOfStockException if every unit is sold or held
+     */
+    public void reserve(Integer customerId, Voucher voucher) {
+        if (voucher.getStock() == null) {
+            return;
+        }
+        this.hold(customerId, voucher.getId());
+    }
+
+    /**
+     * Makes sure the customer holds each of the given vouchers before checkout, taking a unit again for
+     * holds that have expired
+     *
+     * @param customerId
+     * @param voucherIds limited vouchers in the customer's cart
+     * @throws OutOfStockException if a voucher whose hold expired has no units left
+     */
+    public void claim(Integer customerId, Collection<Integer> voucherIds) {
+        for (Integer voucherId : voucherIds) {
+            this.hold(customerId, voucherId);
+        }
+    }
+
+    /**
+     * Drops the holds once the checkout that sold them commits. The units are gone from voucher.stock by
+     * then, so the counters stay as they are. A rolled back checkout keeps its holds.
+     *
+     * @param customerId
+     * @param voucherIds
+     */
+    public void consumeAfterCommit(Integer customerId, Collection<Integer> voucherIds) {
+        Runnable consume = () -> {
+            for (Integer voucherId : voucherIds) {
+                reservations.remove(key(customerId, voucherId));
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            consume.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                consume.run();
+            }
+        });
+    }
+
+    /**
+     * Gives a held unit back, e.g. when the voucher is taken out of the cart
+     *
+     * @param customerId
+     * @param voucherId
+     */
+    public void release(Integer customerId, Integer voucherId) {
+        if (reservations.remove(key(customerId, voucherId)) != null) {
+            this.giveBack(voucherId, 1);
+        }
+    }
+
+    /**
+     * Adds restocked (or withdrawn, if negative) units to a voucher's counter
+     *
+     * @param voucherId
+     * @param quantity
+     */
+    public void restocked(Integer voucherId, int quantity) {
+        this.giveBack(voucherId, quantity);
+    }
+
+    /**
+     * Forgets a deleted voucher
+     *
+     * @param voucherId
+     */
+    public void voucherRemoved(Integer voucherId) {
+        available.remove(voucherId);
+        reservations.keySet().removeIf(key -> key.endsWith(":" + voucherId));
+    }
+
+    /**
+     * Gives the units of expired holds back
+     */
+    @Scheduled(fixedDelayString = "${voucher.reservation.sweep-interval-millis:30000}")
+    public void releaseExpired() {
+        long now = System.currentTimeMillis();
+        reservations.forEach((key, expiresAt) -> {
+            // remove(key, value) skips holds that were extended or consumed in the meantime
+            if (expiresAt <= now && reservations.remove(key, expiresAt)) {
+                this.giveBack(Integer.valueOf(key.substring(key.indexOf(':') + 1)), 1);
+            }
+        });
+    }
+
+    private void hold(Integer customerId, Integer voucherId) {
+        long expiresAt = System.currentTimeMillis() + reservationTtlMillis;
+        reservations.compute(key(customerId, voucherId), (key, current) -> {
+            // an existing hold, even an expired one the sweep has not reached, still owns its unit
+            if (current == null && this.counter(voucherId).getAndUpdate(units -> units > 0 ? units - 1 : units) <= 0) {
+                throw new OutOfStockException();
+            }
+            return expiresAt;
+        });
+    }
+
+    private void giveBack(Integer voucherId, int units) {
+        AtomicInteger counter = available.get(voucherId);
+        if (counter != null) {
+            counter.addAndGet(units);
+        }
+    }
+
+    private AtomicInteger counter(Integer voucherId) {
+        return available.computeIfAbsent(voucherId, id -> {
+            Integer stock = voucherRepository.findStockById(id);
+            return new AtomicInteger(stock == null ? 0 : stock);
+        });
+    }
+
+    private static String key(Integer customerId, Integer voucherId) {
+        return customerId + ":" + voucherId;
+    }
+}
@@ -0,0 +1,376 @@
+package me.plantngo.backend.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import me.plantngo.backend.DTO.SearchFilterDTO;
+import me.plantngo.backend.DTO.SearchHitDTO;
+import me.plantngo.backend.DTO.SearchResultDTO;
+import me.plantngo.backend.models.Category;
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.Product;
+import me.plantngo.backend.models.SearchDocumentType;
+
+/*
+ * In-memory inverted index over merchants and products for full-text search.
+ *
+ * Every word of a merchant's company, cuisineType and description, and of a product's name, flavourType
+ * and description, has a posting list of the documents containing it with a field-weighted term
+ * frequency. A query only walks the postings of its own words (and of the words its last word prefixes),
+ * so its cost follows the number of matches rather than the size of the catalogue. Matches are scored
+ * with BM25, filtered, counted into the facets and cut to a page with a bounded heap.
+ *
+ * The index is not thread-safe, callers are expected to guard it (see CatalogueSearchService).
+ */
+public class CatalogueSearchIndex {
+
+    // upper bounds of the carbon emission facet bands, the last band is open
+    private static final double[] EMISSION_BANDS = { 500, 1000, 2000, 4000 };
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private static final double NAME_WEIGHT = 3;
+
+    private static final double TYPE_WEIGHT = 2;
+
+    private static final double DESCRIPTION_WEIGHT = 1;
+
+    // a prefix match of the last query word counts for less than the whole word
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    private static final int MAX_PREFIX_TERMS = 64;
+
+    // the heap grows past this as needed, a deep page does not allocate it all up front
+    private static final int MAX_INITIAL_HEAP_CAPACITY = 1024;
+
+    private final Map<String, Document> documents = new HashMap<>();
+
+    // term -> document key -> weighted term frequency, sorted so prefixes are a range
+    private final TreeMap<String, Map<String, Double>> postings = new TreeMap<>();
+
+    private double totalLength;
+
+    /**
+     * Adds a document, or replaces the indexed document with the same type and id
+     *
+     * @param document
+     */
+    public void put(Document document) {
+        this.remove(document.key);
+        documents.put(document.key, document);
+        totalLength += document.length;
+        document.termFrequencies.forEach((term, frequency) -> postings
+            .computeIfAbsent(term, t -> new HashMap<>()).put(document.key, frequency));
+    }
+
+    public void putAll(Iterable<Document> documents) {
+        for (Document document : documents) {
+            this.put(document);
+        }
+    }
+
+    /**
+     * Removes a document if it is indexed
+     *
+     * @param type
+     * @param id
+     */
+    public void remove(SearchDocumentType type, Integer id) {
+        this.remove(key(type, id));
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Gets a page of the documents matching the query and filter, best match first, and counts every
+     * match into the facets. A blank query matches every document passing the filter, by name.
+     *
+     * @param query
+     * @param filter
+     * @param offset
+     * @param limit
+     * @return
+     */
+    public SearchResultDTO search(String query, SearchFilterDTO filter, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+        String[] queryTokens = tokenise(query);
+        Map<String, Double> scores = queryTokens.length == 0 ? null : this.score(query, queryTokens);
+        Iterable<String> candidates = scores == null ? documents.keySet() : scores.keySet();
+
+        Map<String, Long> emissionFacets = new LinkedHashMap<>();
+        for (int band = 0; band <= EMISSION_BANDS.length; band++) {
+            emissionFacets.put(bandLabel(band), 0L);
+        }
+        Map<Integer, Long> priceRatingFacets = new TreeMap<>();
+
+        Comparator<ScoredDocument> ranking = Comparator.comparingDouble((ScoredDocument scored) -> -scored.score)
+            .thenComparing(scored -> scored.document.sortName)
+            .thenComparing(scored -> scored.document.key);
+        // max-heap on rank so the worst of the current top-k is evicted first
+        int wanted = Math.addExact(offset, limit);
+        PriorityQueue<ScoredDocument> top = new PriorityQueue<>(
+                Math.max(1, Math.min(wanted + 1, MAX_INITIAL_HEAP_CAPACITY)), ranking.reversed());
+        long total = 0;
+        for (String key : candidates) {
+            Document document = documents.get(key);
+            if (!document.matches(filter)) {
+                continue;
+            }
+            total++;
+            if (document.carbonEmission != null) {
+                emissionFacets.merge(bandLabel(band(document.carbonEmission)), 1L, Long::sum);
+            }
+            if (document.priceRating != null) {
+                priceRatingFacets.merge(document.priceRating, 1L, Long::sum);
+            }
+            if (wanted > 0) {
+                top.add(new ScoredDocument(document, scores == null ? 0 : scores.get(key)));
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+        }
+
+        List<ScoredDocument> ranked = new ArrayList<>(top);
+        ranked.sort(ranking);
+        List<SearchHitDTO> hits = new ArrayList<>(limit);
+        for (int i = offset; i < ranked.size(); i++) {
+            hits.add(ranked.get(i).toHit());
+        }
+        return new SearchResultDTO(total, hits, emissionFacets, priceRatingFacets);
+    }
+
+    private Map<String, Double> score(String query, String[] queryTokens) {
+        double averageLength = documents.isEmpty() ? 1 : totalLength / documents.size();
+        // a query ending mid-word is still being typed, so its last word also matches as a prefix
+        boolean lastIsPrefix = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        Map<String, Double> scores = new HashMap<>();
+        for (int i = 0; i < queryTokens.length; i++) {
+            String token = queryTokens[i];
+            Map<String, Double> tokenScores = new HashMap<>();
+            this.scoreTerm(token, 1, averageLength, tokenScores);
+            if (i == queryTokens.length - 1 && lastIsPrefix) {
+                int expanded = 0;
+                for (String term : postings.subMap(token, false, token + Character.MAX_VALUE, false).keySet()) {
+                    if (expanded++ == MAX_PREFIX_TERMS) {
+                        break;
+                    }
+                    this.scoreTerm(term, PREFIX_WEIGHT, averageLength, tokenScores);
+                }
+            }
+            tokenScores.forEach((key, score) -> scores.merge(key, score, Double::sum));
+        }
+        return scores;
+    }
+
+    /*
+     * Keeps each document's best BM25 score for one query word over the terms it was expanded to
+     */
+    private void scoreTerm(String term, double weight, double averageLength, Map<String, Double> tokenScores) {
+        Map<String, Double> posting = postings.get(term);
+        if (posting == null) {
+            return;
+        }
+        double idf = Math.log(1 + (documents.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+        posting.forEach((key, frequency) -> {
+            double length = documents.get(key).length;
+            double score = weight * idf * frequency * (K1 + 1)
+                    / (frequency + K1 * (1 - B + B * length / averageLength));
+            tokenScores.merge(key, score, Math::max);
+        });
+    }
+
+    private void remove(String key) {
+        Document document = documents.remove(key);
+        if (document == null) {
+            return;
+        }
+        totalLength -= document.length;
+        for (String term : document.termFrequencies.keySet()) {
+            Map<String, Double> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(key);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static String key(SearchDocumentType type, Integer id) {
+        return type.name().charAt(0) + String.valueOf(id);
+    }
+
+    private static int band(double carbonEmission) {
+        int band = 0;
+        while (band < EMISSION_BANDS.length && carbonEmission >= EMISSION_BANDS[band]) {
+            band++;
+        }
+        return band;
+    }
+
+    private static String bandLabel(int band) {
+        if (band == 0) {
+            return "<" + (int) EMISSION_BANDS[0];
+        }
+        if (band == EMISSION_BANDS.length) {
+            return ">=" + (int) EMISSION_BANDS[band - 1];
+        }
+        return (int) EMISSION_BANDS[band - 1] + "-" + (int) EMISSION_BANDS[band];
+    }
+
+    static String normalise(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    static String[] tokenise(String text) {
+        String normalised = normalise(text);
+        return normalised.isEmpty() ? new String[0] : normalised.split(" ");
+    }
+
+    /*
+     * What search needs of a merchant or product, copied out of the entity so it can be indexed after
+     * the transaction that changed it has committed
+     */
+    public static class Document {
+
+        private final SearchDocumentType type;
+        private final Integer id;
+        private final String key;
+        private final String name;
+        private final String sortName;
+        private final String merchantName;
+        private final String description;
+        private final String cuisineType;
+        private final String flavourType;
+        private final Double carbonEmission;
+        private final Double price;
+        private final Integer priceRating;
+        private final Map<String, Double> termFrequencies = new HashMap<>();
+        private double length;
+
+        private Document(SearchDocumentType type, Integer id, String name, String merchantName, String description,
+                String cuisineType, String flavourType, Double carbonEmission, Double price, Integer priceRating) {
+            this.type = type;
+            this.id = id;
+            this.key = CatalogueSearchIndex.key(type, id);
+            this.name = name;
+            this.sortName = normalise(name);
+            this.merchantName = merchantName;
+            this.description = description;
+            this.cuisineType = normalise(cuisineType);
+            this.flavourType = normalise(flavourType);
+            this.carbonEmission = carbonEmission;
+            this.price = price;
+            this.priceRating = priceRating;
+        }
+
+        /**
+         * Makes the document of a merchant, over its company, cuisineType and description
+         *
+         * @param merchant
+         * @return
+         */
+        public static Document of(Merchant merchant) {
+            return of(merchant, merchant.getCarbonRating());
+        }
+
+        /**
+         * Makes the document of a merchant with a carbon rating newer than the entity's, e.g. one stored by a
+         * bulk UPDATE the entity has not seen
+         *
+         * @param merchant
+         * @param carbonRating
+         * @return
+         */
+        public static Document of(Merchant merchant, Double carbonRating) {
+            Document document = new Document(SearchDocumentType.MERCHANT, merchant.getId(), merchant.getCompany(),
+                    merchant.getUsername(), merchant.getDescription(), merchant.getCuisineType(), null,
+                    carbonRating, null, merchant.getPriceRating());
+            document.addField(merchant.getCompany(), NAME_WEIGHT);
+            document.addField(merchant.getCuisineType(), TYPE_WEIGHT);
+            document.addField(merchant.getDescription(), DESCRIPTION_WEIGHT);
+            return document;
+        }
+
+        /**
+         * Makes the document of a product, over its name, flavourType and description. It is filtered by
+         * its merchant's cuisineType and priceRating.
+         *
+         * @param product
+         * @return
+         */
+        public static Document of(Product product) {
+            Category category = product.getCategory();
+            Merchant merchant = category == null ? null : category.getMerchant();
+            Document document = new Document(SearchDocumentType.PRODUCT, product.getId(), product.getName(),
+                    merchant == null ? null : merchant.getUsername(), product.getDescription(),
+                    merchant == null ? null : merchant.getCuisineType(), product.getFlavourType(),
+                    product.getCarbonEmission(), product.getPrice(), merchant == null ? null : merchant.getPriceRating());
+            document.addField(product.getName(), NAME_WEIGHT);
+            document.addField(product.getFlavourType(), TYPE_WEIGHT);
+            document.addField(product.getDescription(), DESCRIPTION_WEIGHT);
+            return document;
+        }
+
+        private void addField(String text, double weight) {
+            for (String token : tokenise(text)) {
+                termFrequencies.merge(token, weight, Double::sum);
+                length += weight;
+            }
+        }
+
+        private boolean matches(SearchFilterDTO filter) {
+            if (filter == null) {
+                return true;
+            }
+            if (filter.getType() != null && filter.getType() != type) {
+                return false;
+            }
+            if (filter.getCuisineType() != null && !normalise(filter.getCuisineType()).equals(cuisineType)) {
+                return false;
+            }
+            if (filter.getFlavourType() != null && !normalise(filter.getFlavourType()).equals(flavourType)) {
+                return false;
+            }
+            if (filter.getMaxCarbonEmission() != null
+                    && (carbonEmission == null || carbonEmission > filter.getMaxCarbonEmission())) {
+                return false;
+            }
+            return filter.getPriceRating() == null || filter.getPriceRating().equals(priceRating);
+        }
+    }
+
+    private static class ScoredDocument {
+
+        private final Document document;
+        private final double score;
+
+        private ScoredDocument(Document document, double score) {
+            this.document = document;
+            this.score = score;
+        }
+
+        private SearchHitDTO toHit() {
+            return new SearchHitDTO(document.type, document.id, document.name, document.merchantName,
+                    document.description, document.carbonEmission, document.price, document.priceRating, score);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package me.plantngo.backend.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Reads RFC 4180 records one at a time: comma separated, fields optionally in double quotes, "" for a
+ * quote inside a quoted field, and line breaks allowed inside quotes. Only the current record is held
+ * in memory.
+ */
+public class CsvReader {
+
+    private final Reader reader;
+
+    private int line = 1;
+
+    private int recordLine;
+
+    private int pushedBack = -2;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record
+     *
+     * @return its fields, or null at the end of the input
+     * @throws IOException
+     */
+    public List<String> next() throws IOException {
+        int c = this.read();
+        // skip blank lines
+        while (c == '\r' || c == '\n') {
+            c = this.read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("line " + recordLine + ": unterminated quoted field");
+                }
+                if (c == '"') {
+                    int following = this.read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int following = this.read();
+                    if (following != '\n') {
+                        pushedBack = following;
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = this.read();
+        }
+    }
+
+    /**
+     * Gets the line the last record read started on
+     *
+     * @return
+     */
+    public int getLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != -2) {
+            c = pushedBack;
+            pushedBack = -2;
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+}
@@ -0,0 +1,390 @@
+package me.plantngo.backend.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import me.plantngo.backend.models.Ingredient;
+
+/*
+ * In-memory typeahead index over ingredient names and categories.
+ *
+ * Every word of an ingredient's name and category is inserted into a character trie, and each trie node
+ * keeps the (ascending) slots of the ingredients that have a word passing through it, so a prefix lookup
+ * is a walk of the query length. Queries that find too few prefix matches fall back to a trigram index
+ * over the name, which tolerates typos ("brocoli", "tofo").
+ *
+ * The index is not thread-safe, callers are expected to guard it (see IngredientSearchService).
+ */
+public class IngredientSearchIndex {
+
+    private static final double MIN_TRIGRAM_SIMILARITY = 0.5;
+
+    private final TrieNode root = new TrieNode();
+
+    private final Map<String, IntList> trigramPostings = new HashMap<>();
+
+    // slot -> entry, slots are never reused so postings stay sorted
+    private final List<Entry> entries = new ArrayList<>();
+
+    private final Map<String, Integer> slotByName = new HashMap<>();
+
+    private int size;
+
+    /**
+     * Adds an ingredient, or replaces the indexed copy of an ingredient with the same name
+     *
+     * @param ingredient
+     */
+    public void add(Ingredient ingredient) {
+        if (ingredient == null || ingredient.getName() == null) {
+            return;
+        }
+
+        String key = normalise(ingredient.getName());
+        Integer existingSlot = slotByName.get(key);
+        if (existingSlot != null) {
+            Entry existing = entries.get(existingSlot);
+            if (Arrays.equals(existing.categoryTokens, tokenise(ingredient.getCategory()))) {
+                existing.ingredient = ingredient;
+                return;
+            }
+            this.remove(existingSlot);
+        }
+
+        int slot = entries.size();
+        Entry entry = new Entry(ingredient, key, tokenise(ingredient.getName()), tokenise(ingredient.getCategory()));
+        entries.add(entry);
+        slotByName.put(key, slot);
+        size++;
+
+        for (String token : entry.allTokens()) {
+            root.insert(token, slot);
+        }
+        for (String trigram : entry.trigrams) {
+            trigramPostings.computeIfAbsent(trigram, t -> new IntList()).add(slot);
+        }
+    }
+
+    public void addAll(Iterable<Ingredient> ingredients) {
+        for (Ingredient ingredient : ingredients) {
+            this.add(ingredient);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets at most limit ingredients matching the query, best match first.
+     *
+     * Every word of the query has to prefix a word of the ingredient's name or category. Names starting
+     * with the whole query rank first, then name matches, then category-only matches; ties go to the
+     * shorter name. If that leaves fewer than limit results the remainder is filled with the names most
+     * similar to the query by trigram overlap.
+     *
+     * @param query
+     * @param limit
+     * @return
+     */
+    public List<Ingredient> search(String query, int limit) {
+        String normalisedQuery = normalise(query);
+        String[] queryTokens = tokenise(query);
+        if (queryTokens.length == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        List<Ingredient> output = new ArrayList<>(limit);
+        Set<Integer> taken = new HashSet<>();
+
+        for (ScoredSlot scored : this.prefixMatches(normalisedQuery, queryTokens, limit)) {
+            output.add(entries.get(scored.slot).ingredient);
+            taken.add(scored.slot);
+        }
+
+        if (output.size() < limit) {
+            for (ScoredSlot scored : this.trigramMatches(normalisedQuery, limit)) {
+                if (output.size() == limit) {
+                    break;
+                }
+                if (taken.add(scored.slot)) {
+                    output.add(entries.get(scored.slot).ingredient);
+                }
+            }
+        }
+
+        return output;
+    }
+
+    private List<ScoredSlot> prefixMatches(String normalisedQuery, String[] queryTokens, int limit) {
+        IntList[] postings = new IntList[queryTokens.length];
+        for (int i = 0; i < queryTokens.length; i++) {
+            TrieNode node = root.find(queryTokens[i]);
+            if (node == null || node.slots.size == 0) {
+                return new ArrayList<>();
+            }
+            postings[i] = node.slots;
+        }
+        // drive the intersection from the rarest word
+        Arrays.sort(postings, Comparator.comparingInt(p -> p.size));
+
+        // max-heap on score so the worst of the current top-k is evicted first
+        PriorityQueue<ScoredSlot> topK = new PriorityQueue<>(limit + 1, Comparator.<ScoredSlot>naturalOrder().reversed());
+        IntList driver = postings[0];
+        for (int i = 0; i < driver.size; i++) {
+            int slot = driver.values[i];
+            if (!this.containedInAll(slot, postings)) {
+                continue;
+            }
+            Entry entry = entries.get(slot);
+            if (entry == null) {
+                continue;
+            }
+            topK.add(new ScoredSlot(slot, entry.rank(normalisedQuery, queryTokens), entry.key));
+            if (topK.size() > limit) {
+                topK.poll();
+            }
+        }
+
+        List<ScoredSlot> output = new ArrayList<>(topK);
+        output.sort(Comparator.naturalOrder());
+        return output;
+    }
+
+    private boolean containedInAll(int slot, IntList[] postings) {
+        for (int i = 1; i < postings.length; i++) {
+            if (!postings[i].contains(slot)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<ScoredSlot> trigramMatches(String normalisedQuery, int limit) {
+        Set<String> queryTrigrams = trigrams(normalisedQuery);
+        if (queryTrigrams.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int[] shared = new int[entries.size()];
+        List<Integer> touched = new ArrayList<>();
+        for (String trigram : queryTrigrams) {
+            IntList posting = trigramPostings.get(trigram);
+            if (posting == null) {
+                continue;
+            }
+            for (int i = 0; i < posting.size; i++) {
+                int slot = posting.values[i];
+                if (shared[slot]++ == 0) {
+                    touched.add(slot);
+                }
+            }
+        }
+
+        PriorityQueue<ScoredSlot> topK = new PriorityQueue<>(limit + 1, Comparator.<ScoredSlot>naturalOrder().reversed());
+        for (int slot : touched) {
+            Entry entry = entries.get(slot);
+            if (entry == null) {
+                continue;
+            }
+            // Dice coefficient, negated so that lower sorts first like the prefix ranks
+            double similarity = 2.0 * shared[slot] / (queryTrigrams.size() + entry.trigrams.size());
+            if (similarity < MIN_TRIGRAM_SIMILARITY) {
+                continue;
+            }
+            topK.add(new ScoredSlot(slot, -similarity, entry.key));
+            if (topK.size() > limit) {
+                topK.poll();
+            }
+        }
+
+        List<ScoredSlot> output = new ArrayList<>(topK);
+        output.sort(Comparator.naturalOrder());
+        return output;
+    }
+
+    private void remove(int slot) {
+        Entry entry = entries.get(slot);
+        for (String token : entry.allTokens()) {
+            root.delete(token, slot);
+        }
+        for (String trigram : entry.trigrams) {
+            IntList posting = trigramPostings.get(trigram);
+            if (posting != null) {
+                posting.remove(slot);
+            }
+        }
+        entries.set(slot, null);
+        slotByName.remove(entry.key);
+        size--;
+    }
+
+    static String normalise(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    static String[] tokenise(String text) {
+        String normalised = normalise(text);
+        return normalised.isEmpty() ? new String[0] : normalised.split(" ");
+    }
+
+    static Set<String> trigrams(String normalised) {
+        Set<String> output = new HashSet<>();
+        if (normalised.isEmpty()) {
+            return output;
+        }
+        String padded = "  " + normalised + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            output.add(padded.substring(i, i + 3));
+        }
+        return output;
+    }
+
+    private static class Entry {
+
+        private Ingredient ingredient;
+        private final String key;
+        private final String[] nameTokens;
+        private final String[] categoryTokens;
+        private final Set<String> trigrams;
+
+        private Entry(Ingredient ingredient, String key, String[] nameTokens, String[] categoryTokens) {
+            this.ingredient = ingredient;
+            this.key = key;
+            this.nameTokens = nameTokens;
+            this.categoryTokens = categoryTokens;
+            this.trigrams = IngredientSearchIndex.trigrams(key);
+        }
+
+        private Set<String> allTokens() {
+            Set<String> tokens = new HashSet<>(Arrays.asList(nameTokens));
+            tokens.addAll(Arrays.asList(categoryTokens));
+            return tokens;
+        }
+
+        /*
+         * 0 - the name starts with the whole query
+         * 1 - every query word prefixes a word of the name
+         * 2 - at least one query word only matched the category
+         */
+        private double rank(String normalisedQuery, String[] queryTokens) {
+            if (key.startsWith(normalisedQuery)) {
+                return 0;
+            }
+            for (String queryToken : queryTokens) {
+                if (!prefixesAny(queryToken, nameTokens)) {
+                    return 2;
+                }
+            }
+            return 1;
+        }
+
+        private static boolean prefixesAny(String prefix, String[] tokens) {
+            for (String token : tokens) {
+                if (token.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class ScoredSlot implements Comparable<ScoredSlot> {
+
+        private final int slot;
+        private final double score;
+        private final String key;
+
+        private ScoredSlot(int slot, double score, String key) {
+            this.slot = slot;
+            this.score = score;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(ScoredSlot other) {
+            int byScore = Double.compare(score, other.score);
+            if (byScore != 0) {
+                return byScore;
+            }
+            int byLength = Integer.compare(key.length(), other.key.length());
+            return byLength != 0 ? byLength : key.compareTo(other.key);
+        }
+    }
+
+    private static class TrieNode {
+
+        private final Map<Character, TrieNode> children = new HashMap<>(4);
+        private final IntList slots = new IntList();
+
+        private void insert(String token, int slot) {
+            TrieNode node = this;
+            for (int i = 0; i < token.length(); i++) {
+                node = node.children.computeIfAbsent(token.charAt(i), c -> new TrieNode());
+                node.slots.add(slot);
+            }
+        }
+
+        private void delete(String token, int slot) {
+            TrieNode node = this;
+            for (int i = 0; i < token.length() && node != null; i++) {
+                node = node.children.get(token.charAt(i));
+                if (node != null) {
+                    node.slots.remove(slot);
+                }
+            }
+        }
+
+        private TrieNode find(String prefix) {
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.children.get(prefix.charAt(i));
+            }
+            return node;
+        }
+    }
+
+    /*
+     * Ascending list of primitive ints. Slots are always appended in increasing order, so membership is a
+     * binary search and the same slot is never added twice in a row.
+     */
+    private static class IntList {
+
+        private int[] values = new int[2];
+        private int size;
+
+        private void add(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        private void remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package me.plantngo.backend.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Indexable skip list of member ids ordered by score, highest first, ties broken by the lower id.
+ *
+ * Every forward pointer records how many members it skips, so rank-of-member, member-at-rank and score
+ * updates are all O(log n) expected, and a page of consecutive ranks is a walk along the bottom level.
+ * Ranks are 1-based.
+ *
+ * The list is not thread-safe, callers are expected to guard it (see LeaderboardService and
+ * PromotionRankingService).
+ */
+public class RankedSkipList {
+
+    private static final int MAX_LEVEL = 32;
+
+    private static final double LEVEL_PROBABILITY = 0.25;
+
+    private final Node head = new Node(0, 0, MAX_LEVEL);
+
+    private final Map<Integer, Node> nodes = new HashMap<>();
+
+    private int level = 1;
+
+    /**
+     * Sets a member's score, inserting the member if it is not in the list yet
+     *
+     * @param id
+     * @param score
+     */
+    public void put(int id, double score) {
+        Node existing = nodes.get(id);
+        if (existing != null) {
+            if (existing.score == score) {
+                return;
+            }
+            nodes.remove(id);
+            this.unlink(existing);
+        }
+        nodes.put(id, this.insert(id, score));
+    }
+
+    /**
+     * Removes a member
+     *
+     * @param id
+     * @return true if the member was in the list
+     */
+    public boolean remove(int id) {
+        Node node = nodes.remove(id);
+        if (node == null) {
+            return false;
+        }
+        this.unlink(node);
+        return true;
+    }
+
+    /**
+     * Gets a member's score, or null if it is not in the list
+     *
+     * @param id
+     * @return
+     */
+    public Double getScore(int id) {
+        Node node = nodes.get(id);
+        return node == null ? null : node.score;
+    }
+
+    /**
+     * Gets a member's 1-based rank, or 0 if it is not in the list
+     *
+     * @param id
+     * @return
+     */
+    public int rank(int id) {
+        Node target = nodes.get(id);
+        if (target == null) {
+            return 0;
+        }
+
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && (x.next[i] == target || precedes(x.next[i], target.score, target.id))) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == target) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets up to count members starting at the given 1-based rank
+     *
+     * @param fromRank
+     * @param count
+     * @return
+     */
+    public List<Entry> range(int fromRank, int count) {
+        List<Entry> output = new ArrayList<>();
+        if (fromRank < 1 || fromRank > nodes.size() || count <= 0) {
+            return output;
+        }
+
+        Node x = this.nodeAt(fromRank);
+        int rank = fromRank;
+        while (x != null && output.size() < count) {
+            output.add(new Entry(x.id, x.score, rank++));
+            x = x.next[0];
+        }
+        return output;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+            head.span[i] = 0;
+        }
+        nodes.clear();
+        level = 1;
+    }
+
+    private Node nodeAt(int rank) {
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    private Node insert(int id, double score) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && precedes(x.next[i], score, id)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = nodes.size();
+            }
+            level = nodeLevel;
+        }
+
+        Node node = new Node(id, score, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            // the new node takes over the part of the predecessor's span that lies behind it
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        return node;
+    }
+
+    private void unlink(Node node) {
+        Node[] update = new Node[MAX_LEVEL];
+
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && precedes(x.next[i], node.score, node.id)) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+    }
+
+    private static boolean precedes(Node node, double score, int id) {
+        return node.score > score || (node.score == score && node.id < id);
+    }
+
+    private static int randomLevel() {
+        int nodeLevel = 1;
+        while (nodeLevel < MAX_LEVEL && ThreadLocalRandom.current().nextDouble() < LEVEL_PROBABILITY) {
+            nodeLevel++;
+        }
+        return nodeLevel;
+    }
+
+    public static class Entry {
+
+        private final int id;
+
+        private final double score;
+
+        private final int rank;
+
+        private Entry(int id, double score, int rank) {
+            this.id = id;
+            this.score = score;
+            this.rank = rank;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+    }
+
+    private static class Node {
+
+        private final int id;
+
+        private final double score;
+
+        private final Node[] next;
+
+        // number of bottom-level steps each forward pointer covers
+        private final int[] span;
+
+        private Node(int id, double score, int nodeLevel) {
+            this.id = id;
+            this.score = score;
+            this.next = new Node[nodeLevel];
+            this.span = new int[nodeLevel];
+        }
+    }
+}
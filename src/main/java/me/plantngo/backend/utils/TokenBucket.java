@@ -0,0 +1,55 @@
+package me.plantngo.backend.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Blocking token bucket shared by concurrent callers. Tokens refill continuously at permitsPerSecond
+ * up to capacity, so short bursts are allowed but the long-run rate never exceeds permitsPerSecond.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+
+    private final double permitsPerNano;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    public TokenBucket(double permitsPerSecond, double capacity) {
+        if (permitsPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive and capacity at least 1");
+        }
+        this.capacity = capacity;
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes one token, waiting for it to refill if the bucket is empty
+     *
+     * @throws InterruptedException
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                this.refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((1 - tokens) / permitsPerNano);
+            }
+            // sleep outside the lock so other callers can refill and race for the next token
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,13 @@
+-- One narrow row per customer per day with a fulfilled order, maintained by CustomerSavingsEventConsumer.
+-- The unique index keeps a customer's days together, so a range is read with one index scan.
+CREATE TABLE IF NOT EXISTS customer_daily_savings (
+    id            integer GENERATED BY DEFAULT AS IDENTITY,
+    customer_id   integer          NOT NULL REFERENCES customer (id) ON DELETE CASCADE,
+    savingsDate   date             NOT NULL,
+    orders        integer          NOT NULL DEFAULT 0,
+    emissionSaved double precision NOT NULL DEFAULT 0,
+    pointsEarned  integer          NOT NULL DEFAULT 0,
+    PRIMARY KEY (id)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_customer_daily_savings ON customer_daily_savings (customer_id, savingsDate);
@@ -0,0 +1,4 @@
+-- QuestRepositoryCustom.findCompletingCustomers counts one quest's logs per username, walking usernames in
+-- order from where the last chunk stopped. The existing (username, type, dateTime) index serves the
+-- per-customer lookups.
+CREATE INDEX IF NOT EXISTS ix_log_type_username_datetime ON log (type, username, dateTime);
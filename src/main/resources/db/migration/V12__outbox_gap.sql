@@ -0,0 +1,11 @@
+-- Event ids a consumer's offset moved past without seeing, because the transaction holding them had not
+-- committed yet. OutboxRelay delivers them once they commit, or forgets them once detectedAt is older than
+-- outbox.relay.gap-window-millis (the transaction rolled back).
+CREATE TABLE IF NOT EXISTS outbox_gap (
+    consumer    varchar(64) NOT NULL,
+    eventId     bigint      NOT NULL,
+    detectedAt  timestamp   NOT NULL,
+    PRIMARY KEY (consumer, eventId)
+);
+
+CREATE INDEX IF NOT EXISTS ix_outbox_gap_detected_at ON outbox_gap (detectedAt);
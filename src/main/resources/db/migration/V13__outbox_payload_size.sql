@@ -0,0 +1,2 @@
+-- ORDER_FULFILLED carries the emissions saved per product, which outgrows 1000 characters for a large order
+ALTER TABLE outbox_event ALTER COLUMN payload SET DATA TYPE varchar(10000);
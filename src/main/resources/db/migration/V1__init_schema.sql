@@ -0,0 +1,199 @@
+-- Initial schema, matching the JPA mappings in me.plantngo.backend.models.
+--
+-- Identifiers are left unquoted so they fold to lower case on PostgreSQL, which is what Hibernate
+-- expects with the PhysicalNamingStrategyStandardImpl configured in application.yml.
+-- Tables use IF NOT EXISTS so that databases previously built by ddl-auto can be baselined.
+
+CREATE SEQUENCE IF NOT EXISTS hibernate_sequence START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS customer (
+    id                 integer      NOT NULL,
+    AUTHORITY          varchar(255) NOT NULL,
+    email              varchar(255),
+    greenPoints        integer,
+    password           varchar(255),
+    resetPasswordToken varchar(16),
+    username           varchar(15),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS merchant (
+    id                 integer      NOT NULL,
+    AUTHORITY          varchar(255),
+    address            varchar(255),
+    bannerUrl          varchar(255),
+    carbonRating       double precision,
+    company            varchar(255),
+    cuisineType        varchar(255),
+    description        varchar(255),
+    email              varchar(255),
+    latitude           double precision,
+    logoUrl            varchar(255),
+    longitude          double precision,
+    operatingHours     varchar(255),
+    password           varchar(255),
+    priceRating        integer,
+    resetPasswordToken varchar(16),
+    username           varchar(15),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS preference (
+    preference  varchar(255) NOT NULL,
+    customer_id integer REFERENCES customer (id),
+    PRIMARY KEY (preference)
+);
+
+CREATE TABLE IF NOT EXISTS log (
+    id       integer      NOT NULL,
+    dateTime timestamp    NOT NULL,
+    type     varchar(255) NOT NULL,
+    username varchar(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS category (
+    id          integer      NOT NULL,
+    name        varchar(255) NOT NULL,
+    merchant_id integer REFERENCES merchant (id),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS product (
+    id             integer          NOT NULL,
+    carbonEmission double precision NOT NULL,
+    description    varchar(255)     NOT NULL,
+    flavourType    varchar(255),
+    imageUrl       varchar(255),
+    name           varchar(255)     NOT NULL,
+    price          double precision NOT NULL,
+    category_id    integer          NOT NULL REFERENCES category (id),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS ingredient (
+    id              integer GENERATED BY DEFAULT AS IDENTITY,
+    category        varchar(255),
+    emissionPerGram double precision,
+    ingredientId    varchar(255),
+    name            varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS product_ingredient (
+    id            integer GENERATED BY DEFAULT AS IDENTITY,
+    servingQty    double precision,
+    ingredient_id integer REFERENCES ingredient (id),
+    product_id    integer REFERENCES product (id),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS ordering (
+    id          integer GENERATED BY DEFAULT AS IDENTITY,
+    isDineIn    boolean,
+    orderStatus varchar(255),
+    orderTime   timestamp,
+    totalPrice  double precision,
+    customer_id integer NOT NULL REFERENCES customer (id),
+    merchant_id integer NOT NULL REFERENCES merchant (id),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS order_item (
+    id         integer          NOT NULL,
+    price      double precision NOT NULL,
+    productId  integer          NOT NULL,
+    quantity   integer          NOT NULL,
+    order_id   integer REFERENCES ordering (id),
+    product_id integer REFERENCES product (id),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS voucher (
+    id          integer          NOT NULL,
+    description varchar(255)     NOT NULL,
+    discount    double precision NOT NULL,
+    merchantId  integer          NOT NULL,
+    type        char(1)          NOT NULL,
+    value       integer          NOT NULL,
+    merchant_id integer REFERENCES merchant (id),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS ownership (
+    customer_id integer NOT NULL REFERENCES customer (id),
+    voucher_id  integer NOT NULL REFERENCES voucher (id),
+    PRIMARY KEY (customer_id, voucher_id)
+);
+
+CREATE TABLE IF NOT EXISTS cart (
+    customer_id integer NOT NULL REFERENCES customer (id),
+    voucher_id  integer NOT NULL REFERENCES voucher (id),
+    PRIMARY KEY (customer_id, voucher_id)
+);
+
+CREATE TABLE IF NOT EXISTS promotion (
+    id          integer GENERATED BY DEFAULT AS IDENTITY,
+    bannerUrl   varchar(255),
+    clicks      integer,
+    description varchar(255),
+    endDate     varchar(255),
+    startDate   varchar(255),
+    merchant_id integer REFERENCES merchant (id),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS quest (
+    id              integer GENERATED BY DEFAULT AS IDENTITY,
+    countToComplete integer NOT NULL,
+    endDateTime     timestamp,
+    points          integer NOT NULL,
+    postedDateTime  timestamp,
+    type            varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS quest_completion (
+    customer_id integer NOT NULL REFERENCES customer (id),
+    quest_id    integer NOT NULL REFERENCES quest (id),
+    PRIMARY KEY (customer_id, quest_id)
+);
+
+-- Unique constraints. AuthService already rejects duplicate usernames and emails, these make it hold
+-- under concurrent registrations and give findByUsername / findByEmail a unique index seek.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_customer_username ON customer (username);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_customer_email ON customer (email);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_merchant_username ON merchant (username);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_merchant_email ON merchant (email);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_ingredient_name ON ingredient (name);
+
+-- MerchantRepository.findByCompany
+CREATE INDEX IF NOT EXISTS ix_merchant_company ON merchant (company);
+
+-- LogRepository.findAllByUsernameAndTypeAndDateTimeBetween: equality columns first, range column last
+CREATE INDEX IF NOT EXISTS ix_log_username_type_datetime ON log (username, type, dateTime);
+
+-- OrderRepository.findAllBy{Merchant,Customer}UsernameAndOrderStatus, after the username join
+CREATE INDEX IF NOT EXISTS ix_ordering_merchant_status ON ordering (merchant_id, orderStatus);
+CREATE INDEX IF NOT EXISTS ix_ordering_customer_status ON ordering (customer_id, orderStatus);
+
+CREATE INDEX IF NOT EXISTS ix_order_item_order ON order_item (order_id);
+
+-- ProductRepository.findByNameAndCategory / findByName / existsByName
+CREATE INDEX IF NOT EXISTS ix_product_name_category ON product (name, category_id);
+CREATE INDEX IF NOT EXISTS ix_product_category ON product (category_id);
+
+-- CategoryRepository.findByNameAndMerchant / existsByNameAndMerchant
+CREATE INDEX IF NOT EXISTS ix_category_merchant_name ON category (merchant_id, name);
+
+CREATE INDEX IF NOT EXISTS ix_product_ingredient_product ON product_ingredient (product_id);
+CREATE INDEX IF NOT EXISTS ix_product_ingredient_ingredient ON product_ingredient (ingredient_id);
+
+CREATE INDEX IF NOT EXISTS ix_voucher_merchant ON voucher (merchant_id);
+CREATE INDEX IF NOT EXISTS ix_promotion_merchant ON promotion (merchant_id);
+CREATE INDEX IF NOT EXISTS ix_preference_customer ON preference (customer_id);
+
+-- join tables are keyed (customer_id, voucher_id); lookups from the voucher side need their own index
+CREATE INDEX IF NOT EXISTS ix_ownership_voucher ON ownership (voucher_id);
+CREATE INDEX IF NOT EXISTS ix_cart_voucher ON cart (voucher_id);
+CREATE INDEX IF NOT EXISTS ix_quest_completion_quest ON quest_completion (quest_id);
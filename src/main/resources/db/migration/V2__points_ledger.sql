@@ -0,0 +1,26 @@
+-- Append-only record of every green points change. customer.greenPoints is the running balance of
+-- these rows, maintained by atomic UPDATEs in the same transaction as the insert.
+CREATE TABLE IF NOT EXISTS points_ledger (
+    id          integer GENERATED BY DEFAULT AS IDENTITY,
+    customer_id integer      NOT NULL REFERENCES customer (id) ON DELETE CASCADE,
+    delta       integer      NOT NULL,
+    reason      varchar(255) NOT NULL,
+    entryKey    varchar(255) NOT NULL,
+    dateTime    timestamp    NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- entryKey makes a change idempotent: a retried or concurrent duplicate insert is a no-op
+CREATE UNIQUE INDEX IF NOT EXISTS ux_points_ledger_entry_key ON points_ledger (entryKey);
+
+-- reconciliation sums per customer, the weekly leaderboard sums by date
+CREATE INDEX IF NOT EXISTS ix_points_ledger_customer ON points_ledger (customer_id);
+CREATE INDEX IF NOT EXISTS ix_points_ledger_datetime ON points_ledger (dateTime);
+
+UPDATE customer SET greenPoints = 0 WHERE greenPoints IS NULL;
+
+-- open the ledger with every existing balance so it sums to customer.greenPoints from the start
+INSERT INTO points_ledger (customer_id, delta, reason, entryKey, dateTime)
+SELECT id, greenPoints, 'opening-balance', CONCAT('opening-balance:', id), TIMESTAMP '1970-01-01 00:00:00'
+FROM customer
+WHERE greenPoints <> 0;
@@ -0,0 +1,43 @@
+-- Promotion start and end dates were free text, dd/MM/yyyy in practice. Convert them to real dates.
+ALTER TABLE promotion ADD COLUMN startDay date;
+ALTER TABLE promotion ADD COLUMN endDay date;
+
+-- rewrite dd/MM/yyyy as yyyy-MM-dd, so both formats go through the one check below
+UPDATE promotion SET startDate = TRIM(startDate), endDate = TRIM(endDate);
+UPDATE promotion SET startDate = SUBSTRING(startDate, 7, 4) || '-' || SUBSTRING(startDate, 4, 2) || '-'
+    || SUBSTRING(startDate, 1, 2)
+WHERE startDate ~ '^[0-9]{2}/[0-9]{2}/[0-9]{4}$';
+UPDATE promotion SET endDate = SUBSTRING(endDate, 7, 4) || '-' || SUBSTRING(endDate, 4, 2) || '-'
+    || SUBSTRING(endDate, 1, 2)
+WHERE endDate ~ '^[0-9]{2}/[0-9]{2}/[0-9]{4}$';
+
+-- only cast strings that are a real day, a cast that fails would abort the migration. The CASE makes sure
+-- the digits are only read once the pattern has matched.
+UPDATE promotion SET startDay = CAST(startDate AS date)
+WHERE CASE WHEN startDate ~ '^[1-9][0-9]{3}-(0[1-9]|1[0-2])-(0[1-9]|[12][0-9]|3[01])$'
+    THEN CAST(SUBSTRING(startDate, 9, 2) AS integer) <= CASE CAST(SUBSTRING(startDate, 6, 2) AS integer)
+        WHEN 2 THEN CASE WHEN MOD(CAST(SUBSTRING(startDate, 1, 4) AS integer), 4) = 0
+            AND (MOD(CAST(SUBSTRING(startDate, 1, 4) AS integer), 100) <> 0
+                OR MOD(CAST(SUBSTRING(startDate, 1, 4) AS integer), 400) = 0) THEN 29 ELSE 28 END
+        WHEN 4 THEN 30 WHEN 6 THEN 30 WHEN 9 THEN 30 WHEN 11 THEN 30 ELSE 31 END
+    ELSE FALSE END;
+UPDATE promotion SET endDay = CAST(endDate AS date)
+WHERE CASE WHEN endDate ~ '^[1-9][0-9]{3}-(0[1-9]|1[0-2])-(0[1-9]|[12][0-9]|3[01])$'
+    THEN CAST(SUBSTRING(endDate, 9, 2) AS integer) <= CASE CAST(SUBSTRING(endDate, 6, 2) AS integer)
+        WHEN 2 THEN CASE WHEN MOD(CAST(SUBSTRING(endDate, 1, 4) AS integer), 4) = 0
+            AND (MOD(CAST(SUBSTRING(endDate, 1, 4) AS integer), 100) <> 0
+                OR MOD(CAST(SUBSTRING(endDate, 1, 4) AS integer), 400) = 0) THEN 29 ELSE 28 END
+        WHEN 4 THEN 30 WHEN 6 THEN 30 WHEN 9 THEN 30 WHEN 11 THEN 30 ELSE 31 END
+    ELSE FALSE END;
+
+-- Promotion requires both dates, so a missing or unreadable one is backfilled rather than left NULL. The
+-- sentinels keep such a promotion running as before, when an unreadable date counted as an open end.
+UPDATE promotion SET startDay = DATE '1970-01-01' WHERE startDay IS NULL;
+UPDATE promotion SET endDay = DATE '9999-12-31' WHERE endDay IS NULL;
+
+ALTER TABLE promotion DROP COLUMN startDate;
+ALTER TABLE promotion DROP COLUMN endDate;
+ALTER TABLE promotion RENAME COLUMN startDay TO startDate;
+ALTER TABLE promotion RENAME COLUMN endDay TO endDate;
+ALTER TABLE promotion ALTER COLUMN startDate SET NOT NULL;
+ALTER TABLE promotion ALTER COLUMN endDate SET NOT NULL;
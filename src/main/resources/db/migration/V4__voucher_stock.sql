@@ -0,0 +1,4 @@
+-- Limited vouchers carry the number of units left; NULL means the voucher is unlimited.
+-- Stock only moves through conditional UPDATEs, the check is the last line of defence against overselling.
+ALTER TABLE voucher ADD COLUMN stock integer;
+ALTER TABLE voucher ADD CONSTRAINT ck_voucher_stock CHECK (stock >= 0);
@@ -0,0 +1,12 @@
+-- Idempotency-Key headers of requests that must not run twice. A row is claimed before the request
+-- runs (result NULL) and holds a reference to its result once it has completed.
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    idempotencyKey varchar(255) NOT NULL,
+    requestHash    varchar(64)  NOT NULL,
+    result         varchar(255),
+    createdAt      timestamp    NOT NULL,
+    PRIMARY KEY (idempotencyKey)
+);
+
+-- expired keys are swept by age
+CREATE INDEX IF NOT EXISTS ix_idempotency_key_created_at ON idempotency_key (createdAt);
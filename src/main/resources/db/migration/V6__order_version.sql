@@ -0,0 +1,2 @@
+-- optimistic locking for orders, see Order.version
+ALTER TABLE ordering ADD COLUMN version bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,20 @@
+-- Domain events written in the same transaction as the change they describe, relayed to in-process
+-- consumers by OutboxRelay. id is the delivery order.
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY,
+    type        varchar(64)   NOT NULL,
+    aggregateId integer,
+    customerId  integer,
+    payload     varchar(1000),
+    createdAt   timestamp     NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_outbox_event_created_at ON outbox_event (createdAt);
+
+-- last event each consumer has handled
+CREATE TABLE IF NOT EXISTS outbox_offset (
+    consumer    varchar(64) NOT NULL,
+    lastEventId bigint      NOT NULL DEFAULT 0,
+    PRIMARY KEY (consumer)
+);
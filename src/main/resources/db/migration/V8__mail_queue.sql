@@ -0,0 +1,17 @@
+-- Outgoing mail, written by MailService and sent by MailDispatcher. Sent rows are kept for a while,
+-- DEAD rows (attempts exhausted) are kept until someone looks at them.
+CREATE TABLE IF NOT EXISTS mail_message (
+    id            bigint GENERATED BY DEFAULT AS IDENTITY,
+    recipient     varchar(255)  NOT NULL,
+    subject       varchar(255)  NOT NULL,
+    body          varchar(4000) NOT NULL,
+    status        varchar(16)   NOT NULL,
+    attempts      integer       NOT NULL DEFAULT 0,
+    nextAttemptAt timestamp     NOT NULL,
+    lastError     varchar(1000),
+    createdAt     timestamp     NOT NULL,
+    sentAt        timestamp,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_mail_message_due ON mail_message (status, nextAttemptAt);
@@ -0,0 +1,35 @@
+-- Pre-aggregated sales for the merchant dashboard, maintained by SalesRollupService as orders are
+-- fulfilled. An order counts towards the day it was placed. emissionSaved is in the same units as
+-- product.carbonEmission, measured against the 4000 per item baseline green points use.
+CREATE TABLE IF NOT EXISTS merchant_daily_sales (
+    id            integer GENERATED BY DEFAULT AS IDENTITY,
+    merchantId    integer          NOT NULL,
+    salesDate     date             NOT NULL,
+    orders        integer          NOT NULL DEFAULT 0,
+    revenue       double precision NOT NULL DEFAULT 0,
+    emissionSaved double precision NOT NULL DEFAULT 0,
+    PRIMARY KEY (id)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_merchant_daily_sales ON merchant_daily_sales (merchantId, salesDate);
+
+CREATE TABLE IF NOT EXISTS product_daily_sales (
+    id            integer GENERATED BY DEFAULT AS IDENTITY,
+    merchantId    integer          NOT NULL,
+    productId     integer          NOT NULL,
+    salesDate     date             NOT NULL,
+    orders        integer          NOT NULL DEFAULT 0,
+    quantity      integer          NOT NULL DEFAULT 0,
+    revenue       double precision NOT NULL DEFAULT 0,
+    emissionSaved double precision NOT NULL DEFAULT 0,
+    PRIMARY KEY (id)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_product_daily_sales ON product_daily_sales (merchantId, salesDate, productId);
+
+-- orders already added to the rollups, so a redelivered event or a backfill does not count one twice
+CREATE TABLE IF NOT EXISTS sales_rollup_order (
+    orderId    integer   NOT NULL,
+    rolledUpAt timestamp NOT NULL,
+    PRIMARY KEY (orderId)
+);
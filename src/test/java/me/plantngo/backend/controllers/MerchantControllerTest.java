@@ -1,10 +1,14 @@
 package me.plantngo.backend.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.jupiter.api.AfterEach;
@@ -27,7 +31,9 @@ import org.springframework.test.context.ActiveProfiles;
 
 import me.plantngo.backend.BackendApplication;
 import me.plantngo.backend.DTO.UpdateMerchantDetailsDTO;
+import me.plantngo.backend.models.Ingredient;
 import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.repositories.IngredientRepository;
 import me.plantngo.backend.repositories.MerchantRepository;
 import me.plantngo.backend.services.MailService;
 import me.plantngo.backend.services.MinioService;
@@ -51,6 +57,11 @@ class MerchantControllerTest {
     @Autowired
     private MerchantRepository merchantRepository;
 
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    private final List<Ingredient> savedIngredients = new ArrayList<>();
+
     @MockBean
     private MailService mailService;
 
@@ -96,6 +107,8 @@ class MerchantControllerTest {
     void tearDown() {
         // clear the database after each test
         merchantRepository.deleteAll();
+        ingredientRepository.deleteAll(savedIngredients);
+        savedIngredients.clear();
     }
 
     @Test
@@ -217,4 +230,94 @@ class MerchantControllerTest {
 
         assertEquals(404, result.getStatusCode().value());
     }
+
+    @Test
+    void testImportMenu_CsvMenu_ProductsCreatedAndExportedAsJson() throws URISyntaxException, JSONException {
+
+        savedIngredients.add(ingredientRepository.save(new Ingredient(null, null, "Menu Tofu", "Legumes", 0.003, null)));
+        savedIngredients.add(ingredientRepository.save(new Ingredient(null, null, "Menu Rice", "Grains", 0.004, null)));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+        headers.setContentType(new MediaType("text", "csv"));
+        String menu = "category,product,price,description,flavourType,ingredient,servingQty\r\n"
+                + "Bowls,Tofu Bowl,8.5,\"Tofu, on rice\",Savoury,Menu Tofu,200\r\n"
+                + "Bowls,Tofu Bowl,8.5,\"Tofu, on rice\",Savoury,Menu Rice,250\r\n"
+                + "Drinks,Lemonade,3,Fresh,Sweet,,\r\n";
+
+        URI uri = new URI(rootUrl + port + apiUrl + "Gabriel/menu");
+
+        ResponseEntity<String> result = restTemplate.exchange(uri, HttpMethod.POST, new HttpEntity<>(menu, headers),
+                String.class);
+        JSONObject summary = new JSONObject(result.getBody());
+
+        assertEquals(201, result.getStatusCode().value(), result.getBody());
+        assertEquals(2, summary.getInt("categoriesCreated"));
+        assertEquals(2, summary.getInt("productsCreated"));
+        assertEquals(2, summary.getInt("ingredientsAdded"));
+
+        HttpHeaders exportHeaders = new HttpHeaders();
+        exportHeaders.set("Authorization", "Bearer " + jwtToken);
+        ResponseEntity<String> exported = restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(exportHeaders),
+                String.class);
+        JSONArray products = new JSONArray(exported.getBody());
+        JSONObject bowl = products.getJSONObject(0);
+
+        assertEquals(200, exported.getStatusCode().value());
+        assertEquals(2, products.length());
+        assertEquals("Tofu Bowl", bowl.getString("name"));
+        assertEquals("Tofu, on rice", bowl.getString("description"));
+        assertEquals("Menu Rice", bowl.getJSONArray("ingredients").getJSONObject(0).getString("name"));
+        assertEquals(0, products.getJSONObject(1).getJSONArray("ingredients").length());
+
+        ResponseEntity<String> listed = restTemplate.exchange(
+                new URI(rootUrl + port + "/api/v1/product/merchant/Gabriel"), HttpMethod.GET,
+                new HttpEntity<>(exportHeaders), String.class);
+        JSONArray listedProducts = new JSONArray(listed.getBody());
+
+        // 200g x 0.003 + 250g x 0.004, lowest emission first
+        assertEquals(0.0, listedProducts.getJSONObject(0).getDouble("carbonEmission"), 1e-9);
+        assertEquals(1.6, listedProducts.getJSONObject(1).getDouble("carbonEmission"), 1e-9);
+
+        // indexed for search with its summed emission, not a placeholder
+        ResponseEntity<String> searched = restTemplate.exchange(
+                new URI(rootUrl + port + "/api/v1/search?q=tofu%20bowl&type=PRODUCT"), HttpMethod.GET,
+                new HttpEntity<>(exportHeaders), String.class);
+        JSONArray hits = new JSONObject(searched.getBody()).getJSONArray("hits");
+        JSONObject indexedBowl = null;
+        for (int i = 0; i < hits.length(); i++) {
+            if ("Gabriel".equals(hits.getJSONObject(i).optString("merchantName"))) {
+                indexedBowl = hits.getJSONObject(i);
+            }
+        }
+        assertEquals("Tofu Bowl", indexedBowl.getString("name"));
+        assertEquals(1.6, indexedBowl.getDouble("carbonEmission"), 1e-9);
+    }
+
+    @Test
+    void testImportMenu_UnknownIngredient_Return400AndNothingSaved() throws URISyntaxException {
+
+        savedIngredients.add(ingredientRepository.save(new Ingredient(null, null, "Menu Tofu", "Legumes", 0.003, null)));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String menu = "[{\"category\": \"Bowls\", \"name\": \"Tofu Bowl\", \"price\": 8.5, \"description\": \"Tofu\","
+                + " \"ingredients\": [{\"name\": \"Menu Tofu\", \"servingQty\": 200}]},"
+                + " {\"category\": \"Bowls\", \"name\": \"Mystery Bowl\", \"price\": 9, \"description\": \"?\","
+                + " \"ingredients\": [{\"name\": \"Unobtainium\", \"servingQty\": 10}]}]";
+
+        URI uri = new URI(rootUrl + port + apiUrl + "Gabriel/menu");
+
+        ResponseEntity<String> result = restTemplate.exchange(uri, HttpMethod.POST, new HttpEntity<>(menu, headers),
+                String.class);
+
+        assertEquals(400, result.getStatusCode().value());
+        assertTrue(result.getBody().contains("item 2: ingredient Unobtainium does not exist"));
+
+        HttpHeaders exportHeaders = new HttpHeaders();
+        exportHeaders.set("Authorization", "Bearer " + jwtToken);
+        ResponseEntity<String> exported = restTemplate.exchange(new URI(uri + "?format=CSV"), HttpMethod.GET,
+                new HttpEntity<>(exportHeaders), String.class);
+
+        assertEquals("category,product,price,description,flavourType,ingredient,servingQty\r\n", exported.getBody());
+    }
 }
@@ -0,0 +1,294 @@
+package me.plantngo.backend.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import me.plantngo.backend.BackendApplication;
+import me.plantngo.backend.models.Category;
+import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.Order;
+import me.plantngo.backend.models.OrderItem;
+import me.plantngo.backend.models.OrderStatus;
+import me.plantngo.backend.models.Product;
+import me.plantngo.backend.repositories.CategoryRepository;
+import me.plantngo.backend.repositories.CustomerRepository;
+import me.plantngo.backend.repositories.MerchantRepository;
+import me.plantngo.backend.repositories.OrderRepository;
+import me.plantngo.backend.repositories.ProductRepository;
+import me.plantngo.backend.services.MailService;
+import me.plantngo.backend.services.MinioService;
+
+@SpringBootTest(classes = BackendApplication.class, webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class OrderControllerTest {
+
+    private final String rootUrl = "http://localhost:";
+
+    @LocalServerPort
+    private int port;
+
+    private final String apiUrl = "/api/v1/order/";
+
+    private final String loginUrl = "/api/v1/login/";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private MerchantRepository merchantRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private MailService mailService;
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @MockBean
+    private MinioService minioService;
+
+    private Customer customer;
+
+    private Merchant merchant;
+
+    private Order order;
+
+    private String jwtToken;
+
+    @BeforeEach
+    void setUp() {
+        merchant = new Merchant();
+        merchant.setUsername("OrderShop");
+        merchant.setPassword(new BCryptPasswordEncoder().encode("password"));
+        merchant.setEmail("order.merchant@yahoo.com.sg");
+        merchant.setCompany("Order Co");
+        merchantRepository.save(merchant);
+
+        Category category = new Category();
+        category.setName("Mains");
+        category.setMerchant(merchant);
+        categoryRepository.save(category);
+
+        Product product = new Product();
+        product.setName("Tempeh Bowl");
+        product.setDescription("It's a bowl");
+        product.setPrice(8.0);
+        product.setCarbonEmission(1000.0);
+        product.setCategory(category);
+        productRepository.save(product);
+
+        customer = new Customer();
+        customer.setUsername("Orderer");
+        customer.setPassword(new BCryptPasswordEncoder().encode("password"));
+        customer.setEmail("orderer@yahoo.com.sg");
+        customer.setGreenPoints(0);
+        customerRepository.save(customer);
+
+        order = new Order();
+        order.setCustomer(customer);
+        order.setMerchant(merchant);
+        order.setIsDineIn(false);
+        order.setOrderStatus(OrderStatus.PENDING);
+        order.setOrderTime(LocalDateTime.now());
+        OrderItem orderItem = new OrderItem(null, product.getId(), 2, 16.0, order, product);
+        order.setOrderItems(new HashSet<>(Set.of(orderItem)));
+        order.setTotalPrice(16.0);
+        orderRepository.save(order);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        JSONObject jsonObject = new JSONObject();
+        try {
+            jsonObject.put("username", "Orderer");
+            jsonObject.put("password", "password");
+            jsonObject.put("userType", "C");
+        } catch (JSONException e) {
+
+        }
+        HttpEntity<String> request = new HttpEntity<>(jsonObject.toString(), headers);
+
+        ResponseEntity<String> response = restTemplate.exchange(rootUrl + port + loginUrl, HttpMethod.POST, request, String.class);
+        jwtToken = response.getHeaders().get("jwt").get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // the customer owns the order, the merchant owns the category and product
+        customerRepository.deleteById(customer.getId());
+        merchantRepository.deleteById(merchant.getId());
+        jdbcTemplate.update("DELETE FROM log WHERE username = 'Orderer'");
+        jdbcTemplate.update("DELETE FROM merchant_daily_sales WHERE merchantId = ?", merchant.getId());
+        jdbcTemplate.update("DELETE FROM product_daily_sales WHERE merchantId = ?", merchant.getId());
+        jdbcTemplate.update("DELETE FROM sales_rollup_order WHERE orderId = ?", order.getId());
+    }
+
+    @Test
+    void testUpdateOrder_ParallelFulfilments_PointsAwardedOnce() throws Exception {
+
+        HttpEntity<String> request = new HttpEntity<>("{\"orderStatus\": \"FULFILLED\"}", this.headers());
+        URI uri = new URI(rootUrl + port + apiUrl + order.getId());
+
+        int fulfilments = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(fulfilments);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseEntity<String>>> results = new ArrayList<>();
+        for (int i = 0; i < fulfilments; i++) {
+            Callable<ResponseEntity<String>> fulfil = () -> {
+                start.await();
+                return restTemplate.exchange(uri, HttpMethod.PUT, request, String.class);
+            };
+            results.add(executor.submit(fulfil));
+        }
+        start.countDown();
+        int succeeded = 0;
+        for (Future<ResponseEntity<String>> result : results) {
+            int status = result.get().getStatusCode().value();
+            // a fulfilment that keeps losing to the others gives up with 409 once its retries are spent
+            assertTrue(status == 200 || status == 409, "unexpected status " + status);
+            if (status == 200) {
+                succeeded++;
+            }
+        }
+        executor.shutdown();
+
+        Integer customerId = customer.getId();
+        assertTrue(succeeded >= 1);
+        // points, quest logs and mail follow the fulfilment through the outbox
+        // (4000 - 1000) * 2 / 100
+        this.awaitGreenPoints(60);
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_event WHERE aggregateId = ? AND type = 'ORDER_FULFILLED'",
+                Integer.class, order.getId()));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM points_ledger WHERE customer_id = ? AND reason = 'order'",
+                Integer.class, customerId));
+        assertEquals("FULFILLED", jdbcTemplate.queryForObject(
+                "SELECT orderStatus FROM ordering WHERE id = ?", String.class, order.getId()));
+        // only the winning fulfilment wrote the order, the retried ones found nothing left to change
+        assertEquals(1L, jdbcTemplate.queryForObject(
+                "SELECT version FROM ordering WHERE id = ?", Long.class, order.getId()));
+        this.awaitCount("SELECT COUNT(*) FROM log WHERE username = 'Orderer' AND type = 'order'", 1);
+        verify(mailService, timeout(5000).times(1)).sendMessage(eq("orderer@yahoo.com.sg"), anyString(), anyString());
+
+        // the merchant's dashboard counts the order once
+        this.awaitCount("SELECT COUNT(*) FROM merchant_daily_sales WHERE merchantId = " + merchant.getId()
+                + " AND orders = 1", 1);
+        ResponseEntity<String> sales = restTemplate.exchange(rootUrl + port + "/api/v1/sales/OrderShop/products",
+                HttpMethod.GET, new HttpEntity<>(this.headers()), String.class);
+        assertEquals(200, sales.getStatusCode().value());
+        JSONObject productSales = new JSONArray(sales.getBody()).getJSONObject(0);
+        assertEquals("Tempeh Bowl", productSales.getString("name"));
+        assertEquals(2, productSales.getInt("quantity"));
+        assertEquals(16.0, productSales.getDouble("revenue"));
+        // (4000 - 1000) * 2
+        assertEquals(6000.0, productSales.getDouble("emissionSaved"));
+
+        // and so does the customer's savings series
+        this.awaitCount("SELECT COUNT(*) FROM customer_daily_savings WHERE customer_id = " + customerId, 1);
+        ResponseEntity<String> savings = restTemplate.exchange(rootUrl + port + "/api/v1/customer/Orderer/savings",
+                HttpMethod.GET, new HttpEntity<>(this.headers()), String.class);
+        assertEquals(200, savings.getStatusCode().value());
+        JSONObject series = new JSONObject(savings.getBody());
+        // the last daily bucket is today
+        int today = series.getJSONArray("periods").length() - 1;
+        assertEquals(1, series.getJSONArray("orders").getInt(today));
+        assertEquals(6000.0, series.getJSONArray("emissionSaved").getDouble(today));
+        assertEquals(60, series.getJSONArray("pointsEarned").getInt(today));
+    }
+
+    @Test
+    void testUpdateOrder_FulfilledBackToPending_Conflict() throws Exception {
+
+        URI uri = new URI(rootUrl + port + apiUrl + order.getId());
+        restTemplate.exchange(uri, HttpMethod.PUT,
+                new HttpEntity<>("{\"orderStatus\": \"FULFILLED\"}", this.headers()), String.class);
+
+        ResponseEntity<String> result = restTemplate.exchange(uri, HttpMethod.PUT,
+                new HttpEntity<>("{\"orderStatus\": \"PENDING\"}", this.headers()), String.class);
+
+        assertEquals(409, result.getStatusCode().value());
+        assertEquals("FULFILLED", jdbcTemplate.queryForObject(
+                "SELECT orderStatus FROM ordering WHERE id = ?", String.class, order.getId()));
+        this.awaitGreenPoints(60);
+        this.awaitCount("SELECT COUNT(*) FROM log WHERE username = 'Orderer' AND type = 'order'", 1);
+        this.awaitCount("SELECT COUNT(*) FROM sales_rollup_order WHERE orderId = " + order.getId(), 1);
+        this.awaitCount("SELECT COUNT(*) FROM customer_daily_savings WHERE customer_id = " + customer.getId(), 1);
+    }
+
+    private void awaitGreenPoints(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (customerRepository.findGreenPointsById(customer.getId()) != expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(expected, customerRepository.findGreenPointsById(customer.getId()));
+    }
+
+    private void awaitCount(String sql, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (jdbcTemplate.queryForObject(sql, Integer.class) != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(expected, jdbcTemplate.queryForObject(sql, Integer.class));
+    }
+
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Authorization", "Bearer " + jwtToken);
+        return headers;
+    }
+}
@@ -0,0 +1,223 @@
+package me.plantngo.backend.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import me.plantngo.backend.BackendApplication;
+import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.models.Log;
+import me.plantngo.backend.models.Quest;
+import me.plantngo.backend.repositories.CustomerRepository;
+import me.plantngo.backend.repositories.LogRepository;
+import me.plantngo.backend.repositories.QuestRepository;
+import me.plantngo.backend.services.MailService;
+import me.plantngo.backend.services.MinioService;
+
+@SpringBootTest(classes = BackendApplication.class, webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class QuestControllerTest {
+
+    private final String rootUrl = "http://localhost:";
+
+    @LocalServerPort
+    private int port;
+
+    private final String apiUrl = "/api/v1/quests/";
+
+    private final String loginUrl = "/api/v1/login/";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private QuestRepository questRepository;
+
+    @Autowired
+    private LogRepository logRepository;
+
+    @MockBean
+    private MailService mailService;
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @MockBean
+    private MinioService minioService;
+
+    private Customer customer;
+
+    private String jwtToken;
+
+    @BeforeEach
+    void setUp() throws JSONException {
+        customerRepository.deleteAll();
+
+        customer = new Customer();
+        customer.setUsername("Gabriel");
+        customer.setPassword(new BCryptPasswordEncoder().encode("password"));
+        customer.setEmail("gabriel@yahoo.com.sg");
+        customerRepository.save(customer);
+
+        Customer other = new Customer();
+        other.setUsername("Jackie");
+        other.setPassword(new BCryptPasswordEncoder().encode("password"));
+        other.setEmail("jackie@yahoo.com.sg");
+        customerRepository.save(other);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("username", "Gabriel");
+        jsonObject.put("password", "password");
+        jsonObject.put("userType", "C");
+        ResponseEntity<String> response = restTemplate.exchange(rootUrl + port + loginUrl, HttpMethod.POST,
+                new HttpEntity<>(jsonObject.toString(), headers), String.class);
+        jwtToken = response.getHeaders().get("jwt").get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // clear the database after each test
+        customerRepository.deleteAll();
+        logRepository.deleteAll();
+        questRepository.deleteAll();
+    }
+
+    @Test
+    void testAddQuests_QuestSet_Return201WithSavedQuests() throws URISyntaxException, JSONException {
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String questSet = "{\"quests\": ["
+                + "{\"type\": \"order\", \"countToComplete\": 3, \"points\": 30, \"persistForHowManyDays\": 7},"
+                + "{\"type\": \"login\", \"countToComplete\": 5, \"points\": 10, \"persistForHowManyDays\": 7}]}";
+
+        URI uri = new URI(rootUrl + port + apiUrl + "batch");
+
+        ResponseEntity<String> result = restTemplate.exchange(uri, HttpMethod.POST,
+                new HttpEntity<>(questSet, headers), String.class);
+        JSONArray quests = new JSONArray(result.getBody());
+
+        assertEquals(201, result.getStatusCode().value());
+        assertEquals(2, quests.length());
+        assertEquals("login", quests.getJSONObject(1).getString("type"));
+        assertEquals(2, questRepository.count());
+    }
+
+    @Test
+    void testAddQuests_InvalidQuest_Return400AndNothingSaved() throws URISyntaxException {
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String questSet = "{\"quests\": ["
+                + "{\"type\": \"order\", \"countToComplete\": 3, \"points\": 30, \"persistForHowManyDays\": 7},"
+                + "{\"type\": \"login\", \"countToComplete\": 5, \"persistForHowManyDays\": 7}]}";
+
+        URI uri = new URI(rootUrl + port + apiUrl + "batch");
+
+        ResponseEntity<String> result = restTemplate.exchange(uri, HttpMethod.POST,
+                new HttpEntity<>(questSet, headers), String.class);
+
+        assertEquals(400, result.getStatusCode().value());
+        assertEquals(0, questRepository.count());
+    }
+
+    @Test
+    void testStartEvaluation_LogsCountedPerUsername_AwardedOnlyOnce()
+            throws URISyntaxException, JSONException, InterruptedException {
+
+        LocalDateTime now = LocalDateTime.now();
+        Quest quest = questRepository.save(new Quest(null, now.minusDays(1), "order", 2, 50, now.plusDays(1), null));
+        // Gabriel completes the quest, Jackie is one order short, the old order is before the quest
+        logRepository.saveAll(List.of(
+                new Log(null, now.minusHours(2), "Gabriel", "order"),
+                new Log(null, now.minusHours(1), "Gabriel", "order"),
+                new Log(null, now.minusHours(1), "Gabriel", "login"),
+                new Log(null, now.minusHours(1), "Jackie", "order"),
+                new Log(null, now.minusDays(3), "Jackie", "order")));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+
+        URI uri = new URI(rootUrl + port + apiUrl + "evaluations?questIds=" + quest.getId());
+
+        ResponseEntity<String> result = restTemplate.exchange(uri, HttpMethod.POST, new HttpEntity<>(headers),
+                String.class);
+        JSONObject evaluation = this.awaitEvaluation(new JSONObject(result.getBody()).getString("id"), headers);
+
+        assertEquals(202, result.getStatusCode().value());
+        assertEquals("COMPLETED", evaluation.getString("status"));
+        assertEquals(1, evaluation.getInt("customersCompleted"));
+        assertEquals(1, evaluation.getInt("customersAwarded"));
+        assertEquals(50, evaluation.getInt("pointsAwarded"));
+        assertEquals(50, customerRepository.findGreenPointsById(customer.getId()));
+
+        ResponseEntity<String> again = restTemplate.exchange(uri, HttpMethod.POST, new HttpEntity<>(headers),
+                String.class);
+        JSONObject reevaluation = this.awaitEvaluation(new JSONObject(again.getBody()).getString("id"), headers);
+
+        assertEquals(1, reevaluation.getInt("customersCompleted"));
+        assertEquals(0, reevaluation.getInt("customersAwarded"));
+        assertEquals(50, customerRepository.findGreenPointsById(customer.getId()));
+    }
+
+    @Test
+    void testGetEvaluation_UnknownId_Return404() throws URISyntaxException {
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+
+        URI uri = new URI(rootUrl + port + apiUrl + "evaluations/unknown");
+
+        ResponseEntity<String> result = restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers),
+                String.class);
+
+        assertEquals(404, result.getStatusCode().value());
+    }
+
+    private JSONObject awaitEvaluation(String id, HttpHeaders headers)
+            throws URISyntaxException, JSONException, InterruptedException {
+        URI uri = new URI(rootUrl + port + apiUrl + "evaluations/" + id);
+        for (int attempt = 0; attempt < 100; attempt++) {
+            JSONObject evaluation = new JSONObject(restTemplate.exchange(uri, HttpMethod.GET,
+                    new HttpEntity<>(headers), String.class).getBody());
+            String status = evaluation.getString("status");
+            if (!"QUEUED".equals(status) && !"RUNNING".equals(status)) {
+                assertNotNull(evaluation.get("finishedDateTime"));
+                return evaluation;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("evaluation " + id + " did not finish");
+    }
+}
@@ -0,0 +1,295 @@
+package me.plantngo.backend.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import me.plantngo.backend.BackendApplication;
+import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.Voucher;
+import me.plantngo.backend.repositories.CustomerRepository;
+import me.plantngo.backend.repositories.MerchantRepository;
+import me.plantngo.backend.repositories.VoucherRepository;
+import me.plantngo.backend.services.MailService;
+import me.plantngo.backend.services.MinioService;
+
+@SpringBootTest(classes = BackendApplication.class, webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class VoucherPurchaseControllerTest {
+
+    private final String rootUrl = "http://localhost:";
+
+    @LocalServerPort
+    private int port;
+
+    private final String apiUrl = "/api/v1/store/";
+
+    private final String loginUrl = "/api/v1/login/";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private MerchantRepository merchantRepository;
+
+    @Autowired
+    private VoucherRepository voucherRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private MailService mailService;
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @MockBean
+    private MinioService minioService;
+
+    private Customer customer;
+
+    private Merchant merchant;
+
+    private Voucher voucher;
+
+    private String jwtToken;
+
+    @BeforeEach
+    void setUp() {
+        merchant = new Merchant();
+        merchant.setUsername("CheckoutShop");
+        merchant.setPassword(new BCryptPasswordEncoder().encode("password"));
+        merchant.setEmail("checkout.merchant@yahoo.com.sg");
+        merchant.setCompany("Checkout Co");
+        merchantRepository.save(merchant);
+
+        voucher = new Voucher();
+        voucher.setValue(60);
+        voucher.setType('F');
+        voucher.setDiscount(5.0);
+        voucher.setDescription("$5 off");
+        voucher.setMerchant(merchant);
+        voucher.setMerchantId(merchant.getId());
+        voucherRepository.save(voucher);
+
+        customer = new Customer();
+        customer.setUsername("Checkout");
+        customer.setPassword(new BCryptPasswordEncoder().encode("password"));
+        customer.setEmail("checkout@yahoo.com.sg");
+        customer.setGreenPoints(100);
+        customer.setVouchersCart(Set.of(voucher));
+        customerRepository.save(customer);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        JSONObject jsonObject = new JSONObject();
+        try {
+            jsonObject.put("username", "Checkout");
+            jsonObject.put("password", "password");
+            jsonObject.put("userType", "C");
+        } catch (JSONException e) {
+
+        }
+        HttpEntity<String> request = new HttpEntity<>(jsonObject.toString(), headers);
+
+        ResponseEntity<String> response = restTemplate.exchange(rootUrl + port + loginUrl, HttpMethod.POST, request, String.class);
+        jwtToken = response.getHeaders().get("jwt").get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // customers own the cart and ownership rows, so they go before the voucher they reference
+        customerRepository.deleteById(customer.getId());
+        merchantRepository.deleteById(merchant.getId());
+    }
+
+    @Test
+    void testPurchaseVouchers_ParallelCheckouts_CartPaidForOnce() throws Exception {
+
+        List<Integer> statuses = this.checkOutInParallel(8, false);
+
+        // one checkout buys the cart, the others find it bought and are told so
+        assertEquals(1, statuses.stream().filter(status -> status == 200).count());
+        assertEquals(7, statuses.stream().filter(status -> status == 409).count());
+        this.assertCartPaidForOnce();
+    }
+
+    @Test
+    void testPurchaseVouchers_ParallelCheckoutsWithIdempotencyKeys_CartPaidForOnceAndLosingKeysReleased()
+            throws Exception {
+
+        List<Integer> statuses = this.checkOutInParallel(8, true);
+
+        Integer customerId = customer.getId();
+        assertEquals(1, statuses.stream().filter(status -> status == 200).count());
+        assertEquals(7, statuses.stream().filter(status -> status == 409).count());
+        this.assertCartPaidForOnce();
+        // only the checkout that bought the cart keeps its key, the others can be retried
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM idempotency_key WHERE idempotencyKey LIKE ?", Integer.class,
+                "parallel-checkout-" + customerId + "-%"));
+
+        jdbcTemplate.update("DELETE FROM idempotency_key WHERE idempotencyKey LIKE ?",
+                "parallel-checkout-" + customerId + "-%");
+    }
+
+    @Test
+    void testPurchaseVouchers_BalanceTooLow_NothingBought() throws Exception {
+
+        jdbcTemplate.update("UPDATE customer SET greenPoints = 50 WHERE id = ?", customer.getId());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+        HttpEntity<String> request = new HttpEntity<>(headers);
+        URI uri = new URI(rootUrl + port + apiUrl + "Checkout/purchase-voucher");
+
+        ResponseEntity<String> result = restTemplate.exchange(uri, HttpMethod.POST, request, String.class);
+
+        Integer customerId = customer.getId();
+        assertEquals(400, result.getStatusCode().value());
+        assertEquals(50, customerRepository.findGreenPointsById(customerId));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ownership WHERE customer_id = ?", Integer.class, customerId));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cart WHERE customer_id = ?", Integer.class, customerId));
+    }
+
+    @Test
+    void testPurchaseVouchers_LastUnitOfLimitedVoucher_StockTaken() throws Exception {
+
+        jdbcTemplate.update("UPDATE voucher SET stock = 1 WHERE id = ?", voucher.getId());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+        HttpEntity<String> request = new HttpEntity<>(headers);
+        URI uri = new URI(rootUrl + port + apiUrl + "Checkout/purchase-voucher");
+
+        ResponseEntity<String> result = restTemplate.exchange(uri, HttpMethod.POST, request, String.class);
+
+        assertEquals(200, result.getStatusCode().value());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT stock FROM voucher WHERE id = ?", Integer.class, voucher.getId()));
+        assertEquals(40, customerRepository.findGreenPointsById(customer.getId()));
+    }
+
+    @Test
+    void testPurchaseVouchers_LimitedVoucherSoldOut_NothingBought() throws Exception {
+
+        jdbcTemplate.update("UPDATE voucher SET stock = 0 WHERE id = ?", voucher.getId());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+        HttpEntity<String> request = new HttpEntity<>(headers);
+        URI uri = new URI(rootUrl + port + apiUrl + "Checkout/purchase-voucher");
+
+        ResponseEntity<String> result = restTemplate.exchange(uri, HttpMethod.POST, request, String.class);
+
+        Integer customerId = customer.getId();
+        assertEquals(400, result.getStatusCode().value());
+        assertEquals(100, customerRepository.findGreenPointsById(customerId));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ownership WHERE customer_id = ?", Integer.class, customerId));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cart WHERE customer_id = ?", Integer.class, customerId));
+    }
+
+    @Test
+    void testPurchaseVouchers_RetryWithSameIdempotencyKey_PaidForOnce() throws Exception {
+
+        jdbcTemplate.update("UPDATE customer SET greenPoints = 200 WHERE id = ?", customer.getId());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+        headers.set("Idempotency-Key", "checkout-" + customer.getId());
+        HttpEntity<String> request = new HttpEntity<>(headers);
+        URI uri = new URI(rootUrl + port + apiUrl + "Checkout/purchase-voucher");
+
+        ResponseEntity<String> first = restTemplate.exchange(uri, HttpMethod.POST, request, String.class);
+        // the cart is empty by now, a second run would be refused as already checked out, so put the voucher back
+        jdbcTemplate.update("INSERT INTO cart (customer_id, voucher_id) VALUES (?, ?)", customer.getId(), voucher.getId());
+        ResponseEntity<String> retry = restTemplate.exchange(uri, HttpMethod.POST, request, String.class);
+
+        Integer customerId = customer.getId();
+        assertEquals(200, first.getStatusCode().value());
+        assertEquals(200, retry.getStatusCode().value());
+        assertEquals(first.getBody(), retry.getBody());
+        assertEquals(140, customerRepository.findGreenPointsById(customerId));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cart WHERE customer_id = ?", Integer.class, customerId));
+
+        jdbcTemplate.update("DELETE FROM idempotency_key WHERE idempotencyKey = ?", "checkout-" + customerId);
+    }
+
+    private List<Integer> checkOutInParallel(int checkouts, boolean withIdempotencyKeys) throws Exception {
+        URI uri = new URI(rootUrl + port + apiUrl + "Checkout/purchase-voucher");
+        ExecutorService executor = Executors.newFixedThreadPool(checkouts);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseEntity<String>>> results = new ArrayList<>();
+        for (int i = 0; i < checkouts; i++) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Authorization", "Bearer " + jwtToken);
+            if (withIdempotencyKeys) {
+                headers.set("Idempotency-Key", "parallel-checkout-" + customer.getId() + "-" + i);
+            }
+            HttpEntity<String> request = new HttpEntity<>(headers);
+            Callable<ResponseEntity<String>> checkout = () -> {
+                start.await();
+                return restTemplate.exchange(uri, HttpMethod.POST, request, String.class);
+            };
+            results.add(executor.submit(checkout));
+        }
+        start.countDown();
+        List<Integer> statuses = new ArrayList<>();
+        for (Future<ResponseEntity<String>> result : results) {
+            statuses.add(result.get().getStatusCode().value());
+        }
+        executor.shutdown();
+        return statuses;
+    }
+
+    private void assertCartPaidForOnce() {
+        Integer customerId = customer.getId();
+        assertEquals(40, customerRepository.findGreenPointsById(customerId));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ownership WHERE customer_id = ?", Integer.class, customerId));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cart WHERE customer_id = ?", Integer.class, customerId));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM points_ledger WHERE customer_id = ? AND reason = 'voucher-purchase'",
+                Integer.class, customerId));
+    }
+}
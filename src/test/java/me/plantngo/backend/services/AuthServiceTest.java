@@ -34,6 +34,12 @@ class AuthServiceTest {
     @Mock
     private MerchantRepository merchantRepository;
 
+    @Mock
+    private CatalogueSearchService catalogueSearchService;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
     @InjectMocks
     private AuthService authService;
 
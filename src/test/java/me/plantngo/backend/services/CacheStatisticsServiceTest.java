@@ -0,0 +1,91 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import me.plantngo.backend.DTO.CacheStatisticsDTO;
+
+@ExtendWith(MockitoExtension.class)
+class CacheStatisticsServiceTest {
+
+    // SessionFactory is the EntityManagerFactory Hibernate hands to Spring
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Statistics statistics;
+
+    @Mock
+    private CacheRegionStatistics ingredientStatistics;
+
+    @InjectMocks
+    private CacheStatisticsService cacheStatisticsService;
+
+    @BeforeEach
+    void initEach() {
+        when(sessionFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+    }
+
+    @Test
+    void testGetCacheStatistics_RegionsExist_ReturnSortedStatistics() {
+
+        // Arrange
+        CacheRegionStatistics voucherStatistics = mock(CacheRegionStatistics.class);
+
+        when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[] { "voucher", "ingredient" });
+        when(statistics.getCacheRegionStatistics("ingredient")).thenReturn(ingredientStatistics);
+        when(statistics.getCacheRegionStatistics("voucher")).thenReturn(voucherStatistics);
+        when(ingredientStatistics.getHitCount()).thenReturn(3L);
+        when(ingredientStatistics.getMissCount()).thenReturn(1L);
+        when(ingredientStatistics.getPutCount()).thenReturn(1L);
+        when(ingredientStatistics.getElementCountInMemory()).thenReturn(1L);
+
+        // Act
+        List<CacheStatisticsDTO> responseStatistics = cacheStatisticsService.getCacheStatistics();
+
+        // Assert
+        assertEquals(2, responseStatistics.size());
+        assertEquals(new CacheStatisticsDTO("ingredient", 3L, 1L, 1L, 1L, 0.75), responseStatistics.get(0));
+        assertEquals(new CacheStatisticsDTO("voucher", 0L, 0L, 0L, 0L, 0.0), responseStatistics.get(1));
+    }
+
+    @Test
+    void testGetCacheStatistics_UnknownRegion_SkipRegion() {
+
+        // Arrange
+        when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[] { "quest" });
+        when(statistics.getCacheRegionStatistics("quest")).thenReturn(null);
+
+        // Act
+        List<CacheStatisticsDTO> responseStatistics = cacheStatisticsService.getCacheStatistics();
+
+        // Assert
+        assertEquals(0, responseStatistics.size());
+    }
+
+    @Test
+    void testResetCacheStatistics_ClearStatistics() {
+
+        // Act
+        cacheStatisticsService.resetCacheStatistics();
+
+        // Assert
+        verify(statistics, times(1)).clear();
+    }
+}
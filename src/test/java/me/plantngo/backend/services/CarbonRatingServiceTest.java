@@ -0,0 +1,183 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import me.plantngo.backend.DTO.MerchantCarbonRatingDTO;
+import me.plantngo.backend.models.Category;
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.Product;
+import me.plantngo.backend.repositories.CategoryRepository;
+import me.plantngo.backend.repositories.MerchantRepository;
+
+@ExtendWith(MockitoExtension.class)
+class CarbonRatingServiceTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private MerchantRepository merchantRepository;
+
+    @InjectMocks
+    private CarbonRatingService carbonRatingService;
+
+    private Merchant greenMerchant;
+
+    private Merchant meatMerchant;
+
+    private Category saladCategory;
+
+    @BeforeEach
+    void setUp() {
+        greenMerchant = new Merchant();
+        greenMerchant.setId(1);
+        greenMerchant.setUsername("greens");
+        greenMerchant.setCompany("Green Bowl");
+
+        meatMerchant = new Merchant();
+        meatMerchant.setId(2);
+        meatMerchant.setUsername("grill");
+        meatMerchant.setCompany("Grill House");
+
+        saladCategory = new Category();
+        saladCategory.setId(10);
+        saladCategory.setMerchant(greenMerchant);
+    }
+
+    @Test
+    void testRebuild_CategorySums_RankMerchantsByAverageEmission() {
+
+        // Arrange
+        when(categoryRepository.sumCarbonEmissionByCategory()).thenReturn(List.of(
+                new Object[] { 1, 10, 2.0, 2L },
+                new Object[] { 1, 11, 1.0, 2L },
+                new Object[] { 2, 20, 9.0, 3L }));
+        when(merchantRepository.findAllById(any())).thenReturn(List.of(meatMerchant, greenMerchant));
+
+        // Act
+        carbonRatingService.rebuild();
+        List<MerchantCarbonRatingDTO> responseRatings = carbonRatingService.getGreenestMerchants(10);
+
+        // Assert
+        assertEquals(2, responseRatings.size());
+        assertEquals(new MerchantCarbonRatingDTO("greens", "Green Bowl", 0.75, 4L), responseRatings.get(0));
+        assertEquals(new MerchantCarbonRatingDTO("grill", "Grill House", 3.0, 3L), responseRatings.get(1));
+        assertEquals(1.0, carbonRatingService.getCategoryAverage(10));
+        verify(merchantRepository).updateCarbonRating(1, 0.75);
+        verify(merchantRepository).updateCarbonRating(2, 3.0);
+    }
+
+    @Test
+    void testProductAdded_NewProduct_UpdateAveragesAndStoreRating() {
+
+        // Arrange
+        Product product = new Product();
+        product.setCategory(saladCategory);
+        product.setCarbonEmission(4.0);
+
+        // Act
+        carbonRatingService.productAdded(product);
+
+        // Assert
+        assertEquals(4.0, carbonRatingService.getCategoryAverage(10));
+        assertEquals(4.0, carbonRatingService.getMerchantAverage(1));
+        verify(merchantRepository).lockById(1);
+        verify(merchantRepository).refreshCarbonRating(1);
+    }
+
+    @Test
+    void testProductEmissionChanged_EmissionLowered_ApplyDeltaToAverages() {
+
+        // Arrange
+        Product first = new Product();
+        first.setCategory(saladCategory);
+        first.setCarbonEmission(4.0);
+        Product second = new Product();
+        second.setCategory(saladCategory);
+        second.setCarbonEmission(2.0);
+        carbonRatingService.productAdded(first);
+        carbonRatingService.productAdded(second);
+        first.setCarbonEmission(1.0);
+
+        // Act
+        carbonRatingService.productEmissionChanged(first, 4.0);
+
+        // Assert
+        assertEquals(1.5, carbonRatingService.getMerchantAverage(1));
+        verify(merchantRepository, times(3)).refreshCarbonRating(1);
+    }
+
+    @Test
+    void testProductRemoved_LastProduct_MerchantDroppedFromRanking() {
+
+        // Arrange
+        Product product = new Product();
+        product.setCategory(saladCategory);
+        product.setCarbonEmission(4.0);
+        carbonRatingService.productAdded(product);
+
+        // Act
+        carbonRatingService.productRemoved(product);
+
+        // Assert
+        assertNull(carbonRatingService.getMerchantAverage(1));
+        assertEquals(0, carbonRatingService.getGreenestMerchants(10).size());
+    }
+
+    @Test
+    void testProductEmissionChanged_SameEmission_NothingStored() {
+
+        // Arrange
+        Product product = new Product();
+        product.setCategory(saladCategory);
+        product.setCarbonEmission(4.0);
+
+        // Act
+        carbonRatingService.productEmissionChanged(product, 4.0);
+
+        // Assert
+        verify(merchantRepository, never()).refreshCarbonRating(anyInt());
+    }
+
+    @Test
+    void testProductAdded_TransactionRolledBack_TotalsUnchanged() {
+
+        // Arrange
+        Product product = new Product();
+        product.setCategory(saladCategory);
+        product.setCarbonEmission(4.0);
+
+        // Act
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            carbonRatingService.productAdded(product);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        assertNull(carbonRatingService.getMerchantAverage(1));
+        assertEquals(0, carbonRatingService.getGreenestMerchants(10).size());
+    }
+}
@@ -0,0 +1,226 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import me.plantngo.backend.DTO.SearchFilterDTO;
+import me.plantngo.backend.DTO.SearchHitDTO;
+import me.plantngo.backend.DTO.SearchResultDTO;
+import me.plantngo.backend.models.Category;
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.Product;
+import me.plantngo.backend.models.ProductsRecomputedEvent;
+import me.plantngo.backend.models.SearchDocumentType;
+import me.plantngo.backend.repositories.MerchantRepository;
+import me.plantngo.backend.repositories.ProductRepository;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogueSearchServiceTest {
+
+    @Mock
+    private MerchantRepository merchantRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CarbonRatingService carbonRatingService;
+
+    @InjectMocks
+    private CatalogueSearchService catalogueSearchService;
+
+    private Merchant deli;
+
+    private Merchant rice;
+
+    private Category bowls;
+
+    @BeforeEach
+    void setUp() {
+        deli = this.merchant(1, "danieldeli", "Daniel's Deli", "Vegan", 2, "Sandwiches and tofu salads");
+        rice = this.merchant(2, "ryanrice", "Ryan's Rice", "Asian", 1, "Rice bowls");
+        Category sandwiches = this.category(deli);
+        bowls = this.category(rice);
+
+        when(merchantRepository.findAll()).thenReturn(List.of(deli, rice));
+        when(productRepository.findAll()).thenReturn(List.of(
+                this.product(10, "Tofu Bowl", "Silken tofu on rice", "Savoury", 800.0, bowls),
+                this.product(11, "Tempeh Bowl", "Tempeh with a little tofu sauce", "Savoury", 1200.0, bowls),
+                this.product(12, "Beef Sandwich", "Roast beef", "Savoury", 4500.0, sandwiches),
+                this.product(13, "Tomato Soup", "Tomatoes and basil", "Sweet", 300.0, sandwiches)));
+        catalogueSearchService.rebuildIndex();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testSearch_WordInNameAndDescription_NameMatchRankedFirst() {
+
+        // Act
+        SearchResultDTO responseResult = catalogueSearchService.search("tofu ", null, null, null);
+
+        // Assert
+        assertEquals(3L, responseResult.getTotal());
+        assertEquals(List.of("Tofu Bowl", "Tempeh Bowl", "Daniel's Deli"), this.names(responseResult));
+    }
+
+    @Test
+    void testSearch_PrefixWithFilter_MatchesFilteredAndCountedIntoFacets() {
+
+        // Arrange
+        SearchFilterDTO filter = new SearchFilterDTO(SearchDocumentType.PRODUCT, null, null, 1000.0, null);
+
+        // Act
+        // "to" prefixes tofu, tomato and tomatoes
+        SearchResultDTO responseResult = catalogueSearchService.search("to", filter, null, null);
+
+        // Assert
+        assertEquals(List.of("Tofu Bowl", "Tomato Soup"), this.names(responseResult).stream().sorted()
+            .collect(Collectors.toList()));
+        assertEquals(Map.of("<500", 1L, "500-1000", 1L, "1000-2000", 0L, "2000-4000", 0L, ">=4000", 0L),
+                responseResult.getCarbonEmissionFacets());
+        assertEquals(Map.of(1, 1L, 2, 1L), responseResult.getPriceRatingFacets());
+    }
+
+    @Test
+    void testSearch_SecondPage_RemainingMatchesAndFullTotal() {
+
+        // Act
+        SearchResultDTO responseResult = catalogueSearchService.search("",
+                new SearchFilterDTO(SearchDocumentType.PRODUCT, null, null, null, null), 1, 3);
+
+        // Assert
+        // a blank query browses by name
+        assertEquals(4L, responseResult.getTotal());
+        assertEquals(List.of("Tomato Soup"), this.names(responseResult));
+    }
+
+    @Test
+    void testMerchantChanged_InTransaction_IndexedOnlyAfterCommit() {
+
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        deli.setCompany("Daniel's Greens");
+
+        // Act
+        catalogueSearchService.merchantChanged(deli);
+        List<String> responseBeforeCommit = this.names(catalogueSearchService.search("greens", null, null, null));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        List<String> responseAfterCommit = this.names(catalogueSearchService.search("greens", null, null, null));
+
+        // Assert
+        assertEquals(List.of(), responseBeforeCommit);
+        assertEquals(List.of("Daniel's Greens"), responseAfterCommit);
+    }
+
+    @Test
+    void testOnProductsRecomputed_EmissionRaised_ProductAndMerchantReindexed() {
+
+        // Arrange
+        Product tofuBowl = this.product(10, "Tofu Bowl", "Silken tofu on rice", "Savoury", 5000.0, bowls);
+        when(productRepository.findAllById(Set.of(10))).thenReturn(List.of(tofuBowl));
+        when(carbonRatingService.getMerchantAverage(2)).thenReturn(3100.0);
+
+        // Act
+        catalogueSearchService.onProductsRecomputed(new ProductsRecomputedEvent(Set.of(10)));
+        SearchResultDTO responseProducts = catalogueSearchService.search("tofu",
+                new SearchFilterDTO(SearchDocumentType.PRODUCT, null, null, 1000.0, null), null, null);
+        SearchResultDTO responseMerchants = catalogueSearchService.search("rice",
+                new SearchFilterDTO(SearchDocumentType.MERCHANT, null, null, null, null), null, null);
+
+        // Assert
+        assertEquals(List.of(), this.names(responseProducts));
+        assertEquals(3100.0, responseMerchants.getHits().get(0).getCarbonEmission());
+    }
+
+    @Test
+    void testSearch_NegativePage_ThrowIllegalArgumentException() {
+
+        // Act
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> catalogueSearchService.search("tofu", null, -1, 10));
+
+        // Assert
+        assertEquals("page must not be negative", exception.getMessage());
+    }
+
+    @Test
+    void testSearch_HugePage_ThrowIllegalArgumentException() {
+
+        // Act
+        // page x size would overflow an int
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> catalogueSearchService.search("tofu", null, 100_000_000, 50));
+
+        // Assert
+        assertEquals("page must be at most 1000", exception.getMessage());
+    }
+
+    @Test
+    void testSearch_LastAllowedPage_EmptyPageWithFullTotal() {
+
+        // Act
+        SearchResultDTO responseResult = catalogueSearchService.search("tofu", null, 1000, 50);
+
+        // Assert
+        assertEquals(3L, responseResult.getTotal());
+        assertEquals(List.of(), responseResult.getHits());
+    }
+
+    private List<String> names(SearchResultDTO result) {
+        return result.getHits().stream().map(SearchHitDTO::getName).collect(Collectors.toList());
+    }
+
+    private Merchant merchant(Integer id, String username, String company, String cuisineType, Integer priceRating,
+            String description) {
+        Merchant merchant = new Merchant();
+        merchant.setId(id);
+        merchant.setUsername(username);
+        merchant.setCompany(company);
+        merchant.setCuisineType(cuisineType);
+        merchant.setPriceRating(priceRating);
+        merchant.setDescription(description);
+        return merchant;
+    }
+
+    private Category category(Merchant merchant) {
+        Category category = new Category();
+        category.setName("Mains");
+        category.setMerchant(merchant);
+        return category;
+    }
+
+    private Product product(Integer id, String name, String description, String flavourType, Double carbonEmission,
+            Category category) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setFlavourType(flavourType);
+        product.setCarbonEmission(carbonEmission);
+        product.setPrice(8.0);
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -36,6 +36,9 @@ class ChangeCredentialServiceTest {
     @Mock
     private BCryptPasswordEncoder bCryptPasswordEncoder;
 
+    @Mock
+    private CatalogueSearchService catalogueSearchService;
+
     @InjectMocks
     private ChangeCredentialService changeCredentialService;
 
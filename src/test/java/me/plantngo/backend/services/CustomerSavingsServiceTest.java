@@ -0,0 +1,122 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import me.plantngo.backend.DTO.SavingsSeriesDTO;
+import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.models.CustomerDailySavings;
+import me.plantngo.backend.models.SavingsBucket;
+import me.plantngo.backend.repositories.CustomerDailySavingsRepository;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerSavingsServiceTest {
+
+    @Mock
+    private CustomerDailySavingsRepository customerDailySavingsRepository;
+
+    @Mock
+    private CustomerService customerService;
+
+    @InjectMocks
+    private CustomerSavingsService customerSavingsService;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setId(3);
+        customer.setUsername("Daniel");
+    }
+
+    @Test
+    void testRecord_FulfilledOrder_AddedToDay() {
+
+        // Arrange
+        LocalDate day = LocalDate.of(2022, 10, 5);
+
+        // Act
+        customerSavingsService.record(3, day, 6000.0, 60);
+
+        // Assert
+        verify(customerDailySavingsRepository, times(1)).createIfAbsent(3, day);
+        verify(customerDailySavingsRepository, times(1)).add(3, day, 1, 6000.0, 60);
+    }
+
+    @Test
+    void testGetSeries_Weekly_DaysSummedPerWeekAndEmptyWeeksZero() {
+
+        // Arrange
+        // Wednesday 5 Oct 2022 to Friday 21 Oct 2022 covers the weeks of 3, 10 and 17 Oct
+        LocalDate from = LocalDate.of(2022, 10, 5);
+        LocalDate to = LocalDate.of(2022, 10, 21);
+        LocalDate monday = LocalDate.of(2022, 10, 3);
+        when(customerService.getCustomerByUsername("Daniel")).thenReturn(customer);
+        when(customerDailySavingsRepository.findByCustomerIdAndSavingsDateBetweenOrderBySavingsDateAsc(3, monday, to))
+            .thenReturn(List.of(
+                new CustomerDailySavings(1, 3, LocalDate.of(2022, 10, 4), 1, 6000.0, 60),
+                new CustomerDailySavings(2, 3, LocalDate.of(2022, 10, 9), 2, 1500.0, 15),
+                new CustomerDailySavings(3, 3, LocalDate.of(2022, 10, 21), 1, 200.0, 2)));
+
+        // Act
+        SavingsSeriesDTO responseSeries = customerSavingsService.getSeries("Daniel", SavingsBucket.WEEK, from, to);
+
+        // Assert
+        assertEquals(List.of(monday, LocalDate.of(2022, 10, 10), LocalDate.of(2022, 10, 17)),
+                responseSeries.getPeriods());
+        assertEquals(List.of(3, 0, 1), responseSeries.getOrders());
+        assertEquals(List.of(7500.0, 0.0, 200.0), responseSeries.getEmissionSaved());
+        assertEquals(List.of(75, 0, 2), responseSeries.getPointsEarned());
+    }
+
+    @Test
+    void testGetSeries_MonthlyNoRange_LastTwelveMonths() {
+
+        // Arrange
+        LocalDate to = LocalDate.of(2022, 10, 21);
+        when(customerService.getCustomerByUsername("Daniel")).thenReturn(customer);
+
+        // Act
+        SavingsSeriesDTO responseSeries = customerSavingsService.getSeries("Daniel", SavingsBucket.MONTH, null, to);
+
+        // Assert
+        assertEquals(12, responseSeries.getPeriods().size());
+        assertEquals(LocalDate.of(2021, 11, 1), responseSeries.getPeriods().get(0));
+        verify(customerDailySavingsRepository, times(1))
+            .findByCustomerIdAndSavingsDateBetweenOrderBySavingsDateAsc(3, LocalDate.of(2021, 11, 1), to);
+    }
+
+    @Test
+    void testGetSeries_TooManyDays_ThrowIllegalArgumentException() {
+
+        // Arrange
+        when(customerService.getCustomerByUsername("Daniel")).thenReturn(customer);
+
+        // Act
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> customerSavingsService.getSeries("Daniel", SavingsBucket.DAY, LocalDate.of(2020, 1, 1),
+                        LocalDate.of(2022, 1, 1)));
+
+        // Assert
+        assertEquals("Range is longer than 400 buckets", exception.getMessage());
+        verify(customerDailySavingsRepository, never())
+            .findByCustomerIdAndSavingsDateBetweenOrderBySavingsDateAsc(anyInt(), any(), any());
+    }
+}
@@ -35,6 +35,12 @@ class CustomerServiceTest {
     @Mock
     private MerchantRepository merchantRepository;
 
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private GreenPointsService greenPointsService;
+
     @InjectMocks
     private CustomerService customerService;
 
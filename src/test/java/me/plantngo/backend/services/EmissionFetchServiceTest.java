@@ -0,0 +1,232 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import me.plantngo.backend.DTO.EmissionFetchDTO;
+import me.plantngo.backend.DTO.EmissionFetchSummaryDTO;
+import me.plantngo.backend.exceptions.NotExistException;
+import me.plantngo.backend.models.EmissionFetchStatus;
+import me.plantngo.backend.models.Ingredient;
+import me.plantngo.backend.repositories.IngredientRepository;
+
+@ExtendWith(MockitoExtension.class)
+class EmissionFetchServiceTest {
+
+    private static final Pattern FOOD_ID = Pattern.compile("\"food\"\\s*:\\s*\"([^\"]+)\"");
+
+    @Mock
+    private IngredientRepository ingredientRepository;
+
+    @Mock
+    private IngredientSearchService ingredientSearchService;
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+
+    private EmissionFetchService emissionFetchService;
+
+    private Path checkpointFile;
+
+    // food id -> number of failures to answer with before succeeding
+    private final Map<String, AtomicInteger> failuresBeforeSuccess = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> requestsPerFood = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/calculator/foods/", exchange -> respond(exchange, 200, "{\"count\": 3, \"next\": null, "
+                + "\"previous\": null, \"results\": ["
+                + "{\"id\": \"f1\", \"name\": \"Oats\", \"category\": \"Grains\"},"
+                + "{\"id\": \"f2\", \"name\": \"Lentils\", \"category\": \"Legumes\"},"
+                + "{\"id\": \"f3\", \"name\": \"Cheddar\", \"category\": \"Dairy\"}]}"));
+        server.createContext("/calculator/", this::calculate);
+        server.start();
+
+        checkpointFile = tempDir.resolve("myemissions.checkpoint");
+        emissionFetchService = new EmissionFetchService(ingredientRepository, ingredientSearchService,
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/calculator", 4, 1000, 3, 1,
+                checkpointFile.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        emissionFetchService.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void testStartFetch_RunsInBackground_PolledUntilCompleted() throws InterruptedException {
+
+        // Arrange
+        when(ingredientRepository.upsertAllByName(anyCollection())).thenReturn(3);
+
+        // Act
+        EmissionFetchDTO responseStarted = emissionFetchService.startFetch();
+        EmissionFetchDTO responseFinished = this.awaitFetch(responseStarted.getId());
+
+        // Assert
+        assertEquals(EmissionFetchStatus.COMPLETED, responseFinished.getStatus());
+        assertEquals(new EmissionFetchSummaryDTO(3, 0, 3, 0), responseFinished.getSummary());
+        assertNotNull(responseFinished.getFinishedDateTime());
+        assertNull(responseFinished.getError());
+    }
+
+    @Test
+    void testGetFetch_UnknownId_ThrowNotExistException() {
+
+        // Act & Assert
+        assertThrows(NotExistException.class, () -> emissionFetchService.getFetch("unknown"));
+    }
+
+    @Test
+    void testFetchAll_TransientFailures_RetriedAndSaved() throws InterruptedException {
+
+        // Arrange
+        failuresBeforeSuccess.put("f2", new AtomicInteger(2));
+        when(ingredientRepository.upsertAllByName(anyCollection())).thenReturn(3);
+
+        // Act
+        EmissionFetchSummaryDTO responseSummary = emissionFetchService.fetchAll();
+
+        // Assert
+        assertEquals(new EmissionFetchSummaryDTO(3, 0, 3, 0), responseSummary);
+        assertEquals(3, requestsPerFood.get("f2").get());
+        List<Ingredient> savedIngredients = this.capturedIngredients();
+        assertEquals(3, savedIngredients.size());
+        assertTrue(savedIngredients.stream()
+                .anyMatch(i -> "Lentils".equals(i.getName()) && "f2".equals(i.getIngredientId())
+                        && i.getEmissionPerGram() == 0.002));
+        // a complete run leaves no checkpoint behind
+        assertFalse(Files.exists(checkpointFile));
+        verify(ingredientSearchService).rebuildIndex();
+    }
+
+    @Test
+    void testFetchAll_PersistentFailure_CheckpointKeptForNextRun() throws InterruptedException, IOException {
+
+        // Arrange
+        failuresBeforeSuccess.put("f3", new AtomicInteger(Integer.MAX_VALUE));
+        when(ingredientRepository.upsertAllByName(anyCollection())).thenReturn(2);
+
+        // Act
+        EmissionFetchSummaryDTO responseSummary = emissionFetchService.fetchAll();
+
+        // Assert
+        assertEquals(new EmissionFetchSummaryDTO(3, 0, 2, 1), responseSummary);
+        assertEquals(3, requestsPerFood.get("f3").get());
+        List<String> checkpointed = Files.readAllLines(checkpointFile);
+        assertEquals(2, checkpointed.size());
+        assertTrue(checkpointed.containsAll(List.of("f1", "f2")));
+    }
+
+    @Test
+    void testFetchAll_ExistingCheckpoint_OnlyRemainingFoodsFetched() throws InterruptedException, IOException {
+
+        // Arrange
+        Files.write(checkpointFile, List.of("f1", "f3"), StandardCharsets.UTF_8);
+        when(ingredientRepository.upsertAllByName(anyCollection())).thenReturn(1);
+
+        // Act
+        EmissionFetchSummaryDTO responseSummary = emissionFetchService.fetchAll();
+
+        // Assert
+        assertEquals(new EmissionFetchSummaryDTO(3, 2, 1, 0), responseSummary);
+        assertEquals(1, requestsPerFood.get("f2").get());
+        assertEquals(1, requestsPerFood.size());
+        assertEquals("Lentils", this.capturedIngredients().get(0).getName());
+    }
+
+    private EmissionFetchDTO awaitFetch(String id) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            EmissionFetchDTO fetch = emissionFetchService.getFetch(id);
+            if (fetch.getStatus() != EmissionFetchStatus.QUEUED && fetch.getStatus() != EmissionFetchStatus.RUNNING) {
+                return fetch;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("fetch " + id + " did not finish");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Ingredient> capturedIngredients() {
+        ArgumentCaptor<Collection<Ingredient>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(ingredientRepository, atLeastOnce()).upsertAllByName(captor.capture());
+
+        List<Ingredient> ingredients = new ArrayList<>();
+        captor.getAllValues().forEach(ingredients::addAll);
+        return ingredients;
+    }
+
+    private void calculate(HttpExchange exchange) throws IOException {
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Matcher matcher = FOOD_ID.matcher(body);
+        if (!"POST".equals(exchange.getRequestMethod()) || !matcher.find()) {
+            respond(exchange, 400, "{}");
+            return;
+        }
+
+        String foodId = matcher.group(1);
+        requestsPerFood.computeIfAbsent(foodId, id -> new AtomicInteger()).incrementAndGet();
+
+        AtomicInteger failures = failuresBeforeSuccess.get(foodId);
+        if (failures != null && failures.getAndDecrement() > 0) {
+            respond(exchange, 503, "{}");
+            return;
+        }
+
+        double emissions = Integer.parseInt(foodId.substring(1)) / 1000.0;
+        respond(exchange, 200, "{\"ingredients\": [{\"food\": \"" + foodId + "\", \"emissions\": " + emissions + "}]}");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
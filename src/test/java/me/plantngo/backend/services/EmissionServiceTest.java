@@ -0,0 +1,108 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import me.plantngo.backend.models.Ingredient;
+import me.plantngo.backend.repositories.IngredientRepository;
+
+@ExtendWith(MockitoExtension.class)
+class EmissionServiceTest {
+
+    @Mock
+    private IngredientRepository ingredientRepository;
+
+    @Mock
+    private IngredientSearchService ingredientSearchService;
+
+    @InjectMocks
+    private EmissionService emissionService;
+
+    @Captor
+    private ArgumentCaptor<Collection<Ingredient>> ingredientsCaptor;
+
+    @Test
+    void testLoadSnapshot_BundledSnapshot_UpsertAllIngredientsInOneCall() {
+
+        // Arrange
+        ReflectionTestUtils.setField(emissionService, "snapshot", new ClassPathResource("data/ingredients-test.json.gz"));
+        when(ingredientRepository.upsertAllByName(anyCollection())).thenReturn(3);
+
+        // Act
+        emissionService.loadSnapshot();
+
+        // Assert
+        verify(ingredientRepository, times(1)).upsertAllByName(ingredientsCaptor.capture());
+        List<Ingredient> responseIngredients = new ArrayList<>(ingredientsCaptor.getValue());
+        assertEquals(3, responseIngredients.size());
+        assertEquals("Tofu", responseIngredients.get(0).getName());
+        assertEquals("Legumes", responseIngredients.get(0).getCategory());
+        assertEquals(0.003, responseIngredients.get(0).getEmissionPerGram());
+        verify(ingredientSearchService, times(1)).rebuildIndex();
+    }
+
+    @Test
+    void testLoadSnapshot_MissingSnapshotAndSyncDisabled_NothingWritten() {
+
+        // Arrange
+        ReflectionTestUtils.setField(emissionService, "snapshot", new ClassPathResource("data/does-not-exist.json.gz"));
+        ReflectionTestUtils.setField(emissionService, "syncOnMissingSnapshot", false);
+
+        // Act
+        emissionService.loadSnapshot();
+
+        // Assert
+        verify(ingredientRepository, never()).upsertAllByName(anyCollection());
+        verify(ingredientSearchService, never()).rebuildIndex();
+    }
+
+    @Test
+    void testReadIngredients_EntryWithoutName_Skipped() throws IOException {
+
+        // Arrange
+        String json = "[{\"FOOD\": \"Oats\", \"Group\": \"Grains\", \"Unknown\": 0.9}, {\"Group\": \"Grains\"}]";
+
+        // Act
+        List<Ingredient> responseIngredients = emissionService
+                .readIngredients(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals(1, responseIngredients.size());
+        assertEquals("Oats", responseIngredients.get(0).getName());
+    }
+
+    @Test
+    void testReadIngredients_NotAnArray_ThrowIOException() {
+
+        // Arrange
+        String json = "{\"FOOD\": \"Oats\"}";
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> emissionService
+                .readIngredients(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+        verify(ingredientRepository, never()).saveAll(any());
+    }
+}
@@ -0,0 +1,81 @@
+package me.plantngo.backend.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.models.OutboxEvent;
+import me.plantngo.backend.models.OutboxEventType;
+import me.plantngo.backend.repositories.CustomerRepository;
+import me.plantngo.backend.repositories.OutboxEventRepository;
+
+@ExtendWith(MockitoExtension.class)
+class GreenPointsEventConsumerTest {
+
+    @Mock
+    private GreenPointsService greenPointsService;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    private GreenPointsEventConsumer greenPointsEventConsumer;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        OutboxService outboxService = new OutboxService(outboxEventRepository, new ObjectMapper());
+        greenPointsEventConsumer = new GreenPointsEventConsumer(greenPointsService, customerRepository, outboxService);
+
+        customer = new Customer();
+        customer.setId(7);
+        customer.setUsername("Daniel");
+    }
+
+    @Test
+    void testHandle_OrderFulfilled_PointsAwardedPerOrder() {
+
+        // Arrange
+        OutboxEvent event = new OutboxEvent(1L, OutboxEventType.ORDER_FULFILLED, 3, 7, "{\"points\":60}",
+                LocalDateTime.now());
+        when(customerRepository.findById(7)).thenReturn(Optional.of(customer));
+
+        // Act
+        greenPointsEventConsumer.handle(event);
+
+        // Assert
+        verify(greenPointsService, times(1)).addPoints(customer, 60, "order", "order:3");
+    }
+
+    @Test
+    void testHandle_OtherEvent_Ignored() {
+
+        // Arrange
+        OutboxEvent event = new OutboxEvent(1L, OutboxEventType.ORDER_CANCELLED, 3, 7, "{}", LocalDateTime.now());
+
+        // Act
+        greenPointsEventConsumer.handle(event);
+
+        // Assert
+        verify(greenPointsService, never()).addPoints(any(), anyInt(), anyString(), anyString());
+    }
+}
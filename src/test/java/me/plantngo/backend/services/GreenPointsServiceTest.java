@@ -0,0 +1,167 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import me.plantngo.backend.exceptions.InsufficientBalanceException;
+import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.repositories.CustomerRepository;
+import me.plantngo.backend.repositories.PointsLedgerRepository;
+
+@ExtendWith(MockitoExtension.class)
+class GreenPointsServiceTest {
+
+    @Mock
+    private PointsLedgerRepository pointsLedgerRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @InjectMocks
+    private GreenPointsService greenPointsService;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setId(7);
+        customer.setUsername("jacky");
+        customer.setGreenPoints(100);
+    }
+
+    @Test
+    void testAddPoints_NewEntry_BalanceUpdatedAtomically() {
+
+        // Arrange
+        when(pointsLedgerRepository.insertIfAbsent(eq(7), eq(30), eq("order"), eq("order:1"), any())).thenReturn(1);
+        when(customerRepository.findGreenPointsById(7)).thenReturn(130);
+
+        // Act
+        boolean responseApplied = greenPointsService.addPoints(customer, 30, "order", "order:1");
+
+        // Assert
+        assertTrue(responseApplied);
+        verify(customerRepository).addGreenPoints(7, 30);
+        assertEquals(130, customer.getGreenPoints());
+        verify(leaderboardService).pointsChanged(customer, 30);
+    }
+
+    @Test
+    void testAddPoints_EntryKeyAlreadyRecorded_NothingApplied() {
+
+        // Arrange
+        when(pointsLedgerRepository.insertIfAbsent(eq(7), eq(30), eq("order"), eq("order:1"), any())).thenReturn(0);
+
+        // Act
+        boolean responseApplied = greenPointsService.addPoints(customer, 30, "order", "order:1");
+
+        // Assert
+        assertFalse(responseApplied);
+        verify(customerRepository, never()).addGreenPoints(anyInt(), anyInt());
+        assertEquals(100, customer.getGreenPoints());
+    }
+
+    @Test
+    void testSpendPoints_NewEntryKey_BalanceDebited() {
+
+        // Arrange
+        when(pointsLedgerRepository.insertIfAbsent(eq(7), eq(-40), eq("voucher-purchase"),
+                eq("voucher-purchase:customer:7:after:3"), any())).thenReturn(1);
+        when(customerRepository.deductGreenPoints(7, 40)).thenReturn(1);
+        when(customerRepository.findGreenPointsById(7)).thenReturn(60);
+
+        // Act
+        boolean responseApplied = greenPointsService.spendPoints(customer, 40, "voucher-purchase",
+                "voucher-purchase:customer:7:after:3");
+
+        // Assert
+        assertTrue(responseApplied);
+        assertEquals(60, customer.getGreenPoints());
+        verify(leaderboardService).pointsChanged(customer, -40);
+    }
+
+    @Test
+    void testSpendPoints_NoEntryKey_ThrowIllegalArgumentException() {
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> greenPointsService.spendPoints(customer, 40, "voucher-purchase", null));
+        verify(pointsLedgerRepository, never()).insertIfAbsent(any(), any(), any(), any(), any());
+        verify(customerRepository, never()).deductGreenPoints(anyInt(), anyInt());
+    }
+
+    @Test
+    void testSpendPoints_BalanceTooLow_ThrowInsufficientBalanceException() {
+
+        // Arrange
+        when(pointsLedgerRepository.insertIfAbsent(eq(7), eq(-400), eq("voucher-purchase"), any(), any()))
+                .thenReturn(1);
+        when(customerRepository.deductGreenPoints(7, 400)).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(InsufficientBalanceException.class,
+                () -> greenPointsService.spendPoints(customer, 400, "voucher-purchase", "voucher-purchase:7"));
+        verify(leaderboardService, never()).pointsChanged(any(), anyInt());
+    }
+
+    @Test
+    void testReconcile_DriftedBalance_ReplacedWithLedgerBalance() {
+
+        // Arrange
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 7, 100, 90L });
+        when(pointsLedgerRepository.findUnreconciledBalances()).thenReturn(rows);
+        when(customerRepository.replaceGreenPoints(7, 100, 90)).thenReturn(1);
+
+        // Act
+        int responseRepaired = greenPointsService.reconcile();
+
+        // Assert
+        assertEquals(1, responseRepaired);
+        verify(leaderboardService).rebuild();
+    }
+
+    @Test
+    void testAddPointsToAll_SomeAlreadyRecorded_OnlyNewEntriesCredited() {
+
+        // Arrange
+        Map<Integer, String> entryKeys = new LinkedHashMap<>();
+        entryKeys.put(7, "quest:1:customer:7");
+        entryKeys.put(8, "quest:1:customer:8");
+        when(pointsLedgerRepository.insertAllIfAbsent(eq(entryKeys), eq(50), eq("quest"), any()))
+            .thenReturn(List.of(8));
+
+        // Act
+        List<Integer> responseCredited = greenPointsService.addPointsToAll(entryKeys, 50, "quest");
+
+        // Assert
+        assertEquals(List.of(8), responseCredited);
+        verify(customerRepository).addGreenPointsToAll(List.of(8), 50);
+        verify(leaderboardService, never()).pointsChanged(any(), anyInt());
+    }
+}
@@ -0,0 +1,207 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import me.plantngo.backend.exceptions.IdempotencyConflictException;
+import me.plantngo.backend.models.IdempotencyRecord;
+import me.plantngo.backend.repositories.IdempotencyRecordRepository;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyService idempotencyService;
+
+    private AtomicInteger runs;
+
+    private Supplier<String> action;
+
+    private SimpleTransactionStatus transaction;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new SimpleTransactionStatus();
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, new ObjectMapper(), transactionManager,
+                24, 5, 100);
+        runs = new AtomicInteger();
+        action = () -> "order-" + runs.incrementAndGet();
+    }
+
+    @Test
+    void testExecute_NoKey_ActionRunsEveryTime() {
+
+        // Act
+        idempotencyService.execute(null, "POST /order/Daniel", null, action, Function.identity(), Function.identity());
+        idempotencyService.execute(null, "POST /order/Daniel", null, action, Function.identity(), Function.identity());
+
+        // Assert
+        assertEquals(2, runs.get());
+        verify(idempotencyRecordRepository, never()).claim(anyString(), anyString(), any());
+    }
+
+    @Test
+    void testExecute_RetryOnSameInstance_ReturnFirstResultWithoutRunning() {
+
+        // Arrange
+        when(idempotencyRecordRepository.claim(eq("key-1"), anyString(), any())).thenReturn(1);
+
+        // Act
+        String first = idempotencyService.execute("key-1", "POST /order/Daniel", "body", action,
+                Function.identity(), Function.identity());
+        String retry = idempotencyService.execute("key-1", "POST /order/Daniel", "body", action,
+                Function.identity(), Function.identity());
+
+        // Assert
+        assertEquals("order-1", first);
+        assertEquals("order-1", retry);
+        assertEquals(1, runs.get());
+        verify(idempotencyRecordRepository, times(1)).claim(eq("key-1"), anyString(), any());
+        verify(idempotencyRecordRepository, times(1)).complete("key-1", "order-1");
+    }
+
+    @Test
+    void testExecute_CompletedOnAnotherInstance_ReturnStoredResult() {
+
+        // Arrange
+        ArgumentCaptor<String> requestHash = ArgumentCaptor.forClass(String.class);
+        when(idempotencyRecordRepository.claim(eq("key-1"), requestHash.capture(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("key-1")).thenAnswer(invocation -> Optional.of(
+                new IdempotencyRecord("key-1", requestHash.getValue(), "order-7", LocalDateTime.now())));
+
+        // Act
+        String response = idempotencyService.execute("key-1", "POST /order/Daniel", "body", action,
+                Function.identity(), Function.identity());
+
+        // Assert
+        assertEquals("order-7", response);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void testExecute_StillRunning_ThrowIdempotencyConflictException() {
+
+        // Arrange
+        ArgumentCaptor<String> requestHash = ArgumentCaptor.forClass(String.class);
+        when(idempotencyRecordRepository.claim(eq("key-1"), requestHash.capture(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("key-1")).thenAnswer(invocation -> Optional.of(
+                new IdempotencyRecord("key-1", requestHash.getValue(), null, LocalDateTime.now())));
+
+        // Act
+        IdempotencyConflictException exception = assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.execute("key-1", "POST /order/Daniel", "body", action,
+                        Function.identity(), Function.identity()));
+
+        // Assert
+        assertEquals("A request with this Idempotency-Key is still being processed.", exception.getMessage());
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void testExecute_KeyReusedForDifferentRequest_ThrowIdempotencyConflictException() {
+
+        // Arrange
+        when(idempotencyRecordRepository.claim(eq("key-1"), anyString(), any())).thenReturn(1);
+        idempotencyService.execute("key-1", "POST /order/Daniel", "body", action,
+                Function.identity(), Function.identity());
+
+        // Act
+        IdempotencyConflictException exception = assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.execute("key-1", "POST /order/Daniel", "other body", action,
+                        Function.identity(), Function.identity()));
+
+        // Assert
+        assertEquals("This Idempotency-Key was already used for a different request.", exception.getMessage());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testExecute_ActionFails_KeyReleased() {
+
+        // Arrange
+        when(idempotencyRecordRepository.claim(eq("key-1"), anyString(), any())).thenReturn(1);
+        Supplier<String> failing = () -> {
+            throw new IllegalArgumentException("Invalid order");
+        };
+
+        // Act
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.execute("key-1",
+                "POST /order/Daniel", "body", failing, Function.identity(), Function.identity()));
+
+        // Assert
+        verify(idempotencyRecordRepository, times(1)).deleteById("key-1");
+        verify(idempotencyRecordRepository, never()).complete(anyString(), anyString());
+    }
+
+    @Test
+    void testExecute_CompleteFails_ActionRolledBackAndKeyReleased() {
+
+        // Arrange
+        when(idempotencyRecordRepository.claim(eq("key-1"), anyString(), any())).thenReturn(1);
+        when(idempotencyRecordRepository.complete("key-1", "order-1"))
+                .thenThrow(new IllegalStateException("Connection lost"));
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("key-1",
+                "POST /order/Daniel", "body", action, Function.identity(), Function.identity()));
+
+        // Assert
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(idempotencyRecordRepository, times(1)).deleteById("key-1");
+    }
+
+    @Test
+    void testExecute_ActionMarksRollbackOnly_NoResultStoredAndKeyReleased() {
+
+        // Arrange
+        when(idempotencyRecordRepository.claim(eq("key-1"), anyString(), any())).thenReturn(1);
+        // e.g. a @Transactional method the action calls set its shared transaction rollback-only and returned
+        Supplier<String> rolledBack = () -> {
+            transaction.setRollbackOnly();
+            return "order-1";
+        };
+
+        // Act
+        assertThrows(UnexpectedRollbackException.class, () -> idempotencyService.execute("key-1",
+                "POST /order/Daniel", "body", rolledBack, Function.identity(), Function.identity()));
+
+        // Assert
+        verify(idempotencyRecordRepository, never()).complete(anyString(), anyString());
+        verify(transactionManager, times(1)).rollback(transaction);
+        verify(transactionManager, never()).commit(any());
+        verify(idempotencyRecordRepository, times(1)).deleteById("key-1");
+    }
+}
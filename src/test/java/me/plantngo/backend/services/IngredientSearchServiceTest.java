@@ -0,0 +1,126 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import me.plantngo.backend.models.Ingredient;
+import me.plantngo.backend.repositories.IngredientRepository;
+
+@ExtendWith(MockitoExtension.class)
+class IngredientSearchServiceTest {
+
+    @Mock
+    private IngredientRepository ingredientRepository;
+
+    @InjectMocks
+    private IngredientSearchService ingredientSearchService;
+
+    @BeforeEach
+    void setUp() {
+        List<Ingredient> ingredients = new ArrayList<>();
+        ingredients.add(new Ingredient(1, null, "Tofu", "Legumes", 0.003, null));
+        ingredients.add(new Ingredient(2, null, "Tomato", "Vegetables", 0.0014, null));
+        ingredients.add(new Ingredient(3, null, "Sun-dried Tomato", "Vegetables", 0.002, null));
+        ingredients.add(new Ingredient(4, null, "Broccoli", "Vegetables", 0.0009, null));
+        ingredients.add(new Ingredient(5, null, "Beef mince", "Meat", 0.06, null));
+
+        when(ingredientRepository.findAll()).thenReturn(ingredients);
+        ingredientSearchService.rebuildIndex();
+    }
+
+    @Test
+    void testSearchIngredients_NamePrefix_ReturnNameStartingWithQueryFirst() {
+
+        // Act
+        List<String> responseNames = names(ingredientSearchService.searchIngredients("tom", 10));
+
+        // Assert
+        assertEquals(List.of("Tomato", "Sun-dried Tomato"), responseNames);
+    }
+
+    @Test
+    void testSearchIngredients_MultipleWords_ReturnIngredientsMatchingEveryWord() {
+
+        // Act
+        List<String> responseNames = names(ingredientSearchService.searchIngredients("dried to", 10));
+
+        // Assert
+        assertEquals(List.of("Sun-dried Tomato"), responseNames);
+    }
+
+    @Test
+    void testSearchIngredients_CategoryPrefix_ReturnCategoryMatches() {
+
+        // Act
+        List<String> responseNames = names(ingredientSearchService.searchIngredients("vege", 2));
+
+        // Assert
+        assertEquals(List.of("Tomato", "Broccoli"), responseNames);
+    }
+
+    @Test
+    void testSearchIngredients_Misspelt_ReturnFuzzyMatch() {
+
+        // Act
+        List<String> responseNames = names(ingredientSearchService.searchIngredients("brocoli", 10));
+
+        // Assert
+        assertEquals(List.of("Broccoli"), responseNames);
+    }
+
+    @Test
+    void testSearchIngredients_BlankQuery_ReturnEmptyList() {
+
+        // Act
+        List<Ingredient> responseIngredients = ingredientSearchService.searchIngredients("  ", 10);
+
+        // Assert
+        assertTrue(responseIngredients.isEmpty());
+    }
+
+    @Test
+    void testIndexIngredient_NewIngredient_ReturnInSearch() {
+
+        // Arrange
+        Ingredient tempeh = new Ingredient(6, null, "Tempeh", "Legumes", 0.002, null);
+
+        // Act
+        ingredientSearchService.indexIngredient(tempeh);
+        List<String> responseNames = names(ingredientSearchService.searchIngredients("te", 10));
+
+        // Assert
+        assertEquals(List.of("Tempeh"), responseNames);
+        assertEquals(6, ingredientSearchService.getIndexSize());
+    }
+
+    @Test
+    void testIndexIngredient_ChangedCategory_ReturnUnderNewCategoryOnly() {
+
+        // Arrange
+        Ingredient tofu = new Ingredient(1, null, "Tofu", "Soy products", 0.003, null);
+
+        // Act
+        ingredientSearchService.indexIngredient(tofu);
+
+        // Assert
+        assertEquals(List.of("Tofu"), names(ingredientSearchService.searchIngredients("soy", 10)));
+        assertTrue(ingredientSearchService.searchIngredients("legumes", 10).isEmpty());
+        assertEquals(5, ingredientSearchService.getIndexSize());
+    }
+
+    private static List<String> names(List<Ingredient> ingredients) {
+        return ingredients.stream().map(Ingredient::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,251 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import me.plantngo.backend.DTO.LeaderboardEntryDTO;
+import me.plantngo.backend.exceptions.NotExistException;
+import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.models.LeaderboardPeriod;
+import me.plantngo.backend.repositories.CustomerRepository;
+import me.plantngo.backend.repositories.PointsLedgerRepository;
+
+@ExtendWith(MockitoExtension.class)
+class LeaderboardServiceTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private PointsLedgerRepository pointsLedgerRepository;
+
+    @InjectMocks
+    private LeaderboardService leaderboardService;
+
+    private final Map<Integer, Customer> customers = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(customerRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<Customer> output = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                if (customers.containsKey(id)) {
+                    output.add(customers.get(id));
+                }
+            }
+            return output;
+        });
+        lenient().when(customerRepository.findByUsername(anyString())).thenAnswer(invocation -> customers.values()
+                .stream().filter(c -> c.getUsername().equals(invocation.getArgument(0))).findFirst());
+    }
+
+    @Test
+    void testRebuild_CustomersInDatabase_RankedByGreenPointsThenId() {
+
+        // Arrange
+        this.stubCustomers(new int[] { 30, 50, 30, 10 });
+
+        // Act
+        leaderboardService.rebuild();
+        List<LeaderboardEntryDTO> responseTop = leaderboardService.getTop(LeaderboardPeriod.ALL_TIME, 3);
+
+        // Assert
+        assertEquals(List.of(new LeaderboardEntryDTO(1, "customer2", 50L),
+                new LeaderboardEntryDTO(2, "customer1", 30L),
+                new LeaderboardEntryDTO(3, "customer3", 30L)), responseTop);
+        assertEquals(4, leaderboardService.getRank("customer4", LeaderboardPeriod.ALL_TIME).getRank());
+    }
+
+    @Test
+    void testPointsChanged_ManyUpdates_RanksMatchSortedOrder() {
+
+        // Arrange
+        Random random = new Random(42);
+        int[] points = new int[500];
+        this.stubCustomers(points);
+        leaderboardService.rebuild();
+
+        // Act
+        for (int i = 0; i < 5000; i++) {
+            Customer customer = customers.get(1 + random.nextInt(points.length));
+            int delta = random.nextInt(200) - 50;
+            customer.setGreenPoints(customer.getGreenPoints() + delta);
+            leaderboardService.pointsChanged(customer, delta);
+        }
+
+        // Assert
+        List<Customer> expected = new ArrayList<>(customers.values());
+        expected.sort(Comparator.comparing(Customer::getGreenPoints).reversed().thenComparing(Customer::getId));
+        List<LeaderboardEntryDTO> responseTop = leaderboardService.getTop(LeaderboardPeriod.ALL_TIME, points.length);
+        assertEquals(points.length, responseTop.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getUsername(), responseTop.get(i).getUsername());
+            assertEquals(i + 1, responseTop.get(i).getRank());
+        }
+        Customer middle = expected.get(250);
+        assertEquals(251, leaderboardService.getRank(middle.getUsername(), LeaderboardPeriod.ALL_TIME).getRank());
+    }
+
+    @Test
+    void testGetAroundMe_CustomerInMiddle_NeighboursOnBothSides() {
+
+        // Arrange
+        this.stubCustomers(new int[] { 100, 90, 80, 70, 60, 50 });
+        leaderboardService.rebuild();
+
+        // Act
+        List<LeaderboardEntryDTO> responseEntries = leaderboardService.getAroundMe("customer2", LeaderboardPeriod.ALL_TIME, 2);
+
+        // Assert
+        assertEquals(4, responseEntries.size());
+        assertEquals("customer1", responseEntries.get(0).getUsername());
+        assertEquals("customer4", responseEntries.get(3).getUsername());
+    }
+
+    @Test
+    void testPointsChanged_PointsSpent_NotCountedThisWeek() {
+
+        // Arrange
+        this.stubCustomers(new int[] { 0, 0 });
+        leaderboardService.rebuild();
+        Customer earner = customers.get(1);
+        Customer spender = customers.get(2);
+
+        // Act
+        earner.setGreenPoints(40);
+        leaderboardService.pointsChanged(earner, 40);
+        spender.setGreenPoints(100);
+        leaderboardService.pointsChanged(spender, 100);
+        spender.setGreenPoints(10);
+        leaderboardService.pointsChanged(spender, -90);
+
+        // Assert
+        List<LeaderboardEntryDTO> responseWeekly = leaderboardService.getTop(LeaderboardPeriod.WEEKLY, 10);
+        assertEquals(new LeaderboardEntryDTO(1, "customer2", 100L), responseWeekly.get(0));
+        assertEquals(new LeaderboardEntryDTO(2, "customer1", 40L), responseWeekly.get(1));
+        assertEquals(1, leaderboardService.getRank("customer1", LeaderboardPeriod.ALL_TIME).getRank());
+    }
+
+    @Test
+    void testPointsChanged_TransactionRolledBack_BoardsUnchanged() {
+
+        // Arrange
+        this.stubCustomers(new int[] { 50, 20 });
+        leaderboardService.rebuild();
+        Customer customer = customers.get(2);
+
+        // Act
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            customer.setGreenPoints(120);
+            leaderboardService.pointsChanged(customer, 100);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        assertEquals(new LeaderboardEntryDTO(2, "customer2", 20L),
+                leaderboardService.getRank("customer2", LeaderboardPeriod.ALL_TIME));
+        assertTrue(leaderboardService.getTop(LeaderboardPeriod.WEEKLY, 10).isEmpty());
+    }
+
+    @Test
+    void testCustomerAdded_NewCustomer_OnTopBoard() {
+
+        // Arrange
+        this.stubCustomers(new int[] { 50 });
+        leaderboardService.rebuild();
+        Customer customer = new Customer();
+        customer.setId(2);
+        customer.setUsername("customer2");
+        customer.setGreenPoints(0);
+        customers.put(2, customer);
+
+        // Act
+        leaderboardService.customerAdded(customer);
+
+        // Assert
+        assertEquals(List.of(new LeaderboardEntryDTO(1, "customer1", 50L), new LeaderboardEntryDTO(2, "customer2", 0L)),
+                leaderboardService.getTop(LeaderboardPeriod.ALL_TIME, 10));
+    }
+
+    @Test
+    void testRebuild_CreditsThisWeekInLedger_WeeklyBoardRebuilt() {
+
+        // Arrange
+        this.stubCustomers(new int[] { 500, 20 });
+        List<Object[]> credits = new ArrayList<>();
+        credits.add(new Object[] { 2, 20L });
+        when(pointsLedgerRepository.sumCreditsByCustomerSince(any())).thenReturn(credits);
+
+        // Act
+        leaderboardService.rebuild();
+        List<LeaderboardEntryDTO> responseWeekly = leaderboardService.getTop(LeaderboardPeriod.WEEKLY, 10);
+
+        // Assert
+        assertEquals(List.of(new LeaderboardEntryDTO(1, "customer2", 20L)), responseWeekly);
+    }
+
+    @Test
+    void testGetRank_NoPointsThisWeek_RankNull() {
+
+        // Arrange
+        this.stubCustomers(new int[] { 5 });
+        leaderboardService.rebuild();
+
+        // Act
+        LeaderboardEntryDTO responseEntry = leaderboardService.getRank("customer1", LeaderboardPeriod.WEEKLY);
+
+        // Assert
+        assertNull(responseEntry.getRank());
+    }
+
+    @Test
+    void testGetRank_UnknownCustomer_ThrowNotExistException() {
+
+        // Arrange
+        when(customerRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(NotExistException.class, () -> leaderboardService.getRank("ghost", LeaderboardPeriod.ALL_TIME));
+    }
+
+    private void stubCustomers(int[] points) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < points.length; i++) {
+            Customer customer = new Customer();
+            customer.setId(i + 1);
+            customer.setUsername("customer" + (i + 1));
+            customer.setGreenPoints(points[i]);
+            customers.put(customer.getId(), customer);
+            rows.add(new Object[] { customer.getId(), customer.getGreenPoints() });
+        }
+        when(customerRepository.findAllGreenPoints()).thenReturn(rows);
+    }
+}
@@ -0,0 +1,282 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import me.plantngo.backend.models.MailStatus;
+import me.plantngo.backend.models.QueuedMail;
+import me.plantngo.backend.repositories.QueuedMailRepository;
+
+@ExtendWith(MockitoExtension.class)
+class MailDispatcherTest {
+
+    @Mock
+    private QueuedMailRepository queuedMailRepository;
+
+    @Mock
+    private JavaMailSender javaMailSender;
+
+    private MailDispatcher mailDispatcher;
+
+    private QueuedMail first;
+
+    private QueuedMail second;
+
+    @BeforeEach
+    void setUp() {
+        mailDispatcher = this.dispatcher(javaMailSender);
+        first = mail(1L, "daniel@yahoo.com.sg", 0);
+        second = mail(2L, "ryan@yahoo.com.sg", 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailDispatcher.shutdown();
+    }
+
+    @Test
+    void testDispatch_DueMail_SentInOneCallAndMarkedSent() {
+
+        // Arrange
+        this.queue(first, second);
+
+        // Act
+        int responseSent = mailDispatcher.dispatch();
+
+        // Assert
+        assertEquals(2, responseSent);
+        assertEquals(MailStatus.SENT, first.getStatus());
+        assertEquals(MailStatus.SENT, second.getStatus());
+        verify(javaMailSender, times(1)).send((SimpleMailMessage[]) any());
+        verify(queuedMailRepository, times(1)).save(first);
+        verify(queuedMailRepository, times(1)).save(second);
+    }
+
+    @Test
+    void testDispatch_ClaimedByAnotherInstance_NotSent() {
+
+        // Arrange
+        when(queuedMailRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(eq(MailStatus.PENDING),
+                any(), any())).thenReturn(List.of(first));
+        when(queuedMailRepository.claim(eq(1L), any(), any())).thenReturn(0);
+
+        // Act
+        int responseSent = mailDispatcher.dispatch();
+
+        // Assert
+        assertEquals(0, responseSent);
+        verify(javaMailSender, never()).send((SimpleMailMessage[]) any());
+    }
+
+    @Test
+    void testDispatch_OneRecipientRejected_OnlyThatMailRetriedWithBackoff() {
+
+        // Arrange
+        this.queue(first, second);
+        doThrow(new MailSendException(Map.of(this.messageTo("ryan@yahoo.com.sg"),
+                new IllegalStateException("550 mailbox unavailable"))))
+            .when(javaMailSender).send((SimpleMailMessage[]) any());
+        LocalDateTime before = LocalDateTime.now();
+
+        // Act
+        int responseSent = mailDispatcher.dispatch();
+
+        // Assert
+        assertEquals(1, responseSent);
+        assertEquals(MailStatus.SENT, first.getStatus());
+        assertEquals(MailStatus.PENDING, second.getStatus());
+        assertEquals(1, second.getAttempts());
+        assertEquals("550 mailbox unavailable", second.getLastError());
+        // first retry waits backoff-millis
+        assertTrue(!second.getNextAttemptAt().isBefore(before.plusSeconds(30)));
+    }
+
+    @Test
+    void testDispatch_ServerDown_BackoffDoublesPerAttempt() {
+
+        // Arrange
+        QueuedMail retried = mail(1L, "daniel@yahoo.com.sg", 2);
+        this.queue(retried);
+        doThrow(new MailAuthenticationException("535 authentication failed"))
+            .when(javaMailSender).send((SimpleMailMessage[]) any());
+        LocalDateTime before = LocalDateTime.now();
+
+        // Act
+        int responseSent = mailDispatcher.dispatch();
+
+        // Assert
+        assertEquals(0, responseSent);
+        assertEquals(MailStatus.PENDING, retried.getStatus());
+        assertEquals(3, retried.getAttempts());
+        // third failure waits 4 x 30s
+        assertTrue(!retried.getNextAttemptAt().isBefore(before.plusSeconds(120)));
+        assertTrue(retried.getNextAttemptAt().isBefore(before.plusSeconds(121)));
+    }
+
+    @Test
+    void testDispatch_LastAttemptFails_DeadLettered() {
+
+        // Arrange
+        QueuedMail retried = mail(1L, "daniel@yahoo.com.sg", 5);
+        this.queue(retried);
+        doThrow(new MailAuthenticationException("535 authentication failed"))
+            .when(javaMailSender).send((SimpleMailMessage[]) any());
+
+        // Act
+        mailDispatcher.dispatch();
+
+        // Assert
+        assertEquals(MailStatus.DEAD, retried.getStatus());
+        assertEquals(6, retried.getAttempts());
+        verify(queuedMailRepository, times(1)).save(retried);
+    }
+
+    @Test
+    void testDispatch_LocalSmtpServer_BatchSentOverOneConnection() throws Exception {
+
+        // Arrange
+        try (SmtpStub smtp = new SmtpStub()) {
+            JavaMailSenderImpl sender = new JavaMailSenderImpl();
+            sender.setHost("localhost");
+            sender.setPort(smtp.getPort());
+            MailDispatcher dispatcher = this.dispatcher(sender);
+            QueuedMail third = mail(3L, "sarah@yahoo.com.sg", 0);
+            this.queue(first, second, third);
+
+            // Act
+            int responseSent = dispatcher.dispatch();
+            dispatcher.shutdown();
+
+            // Assert
+            assertEquals(3, responseSent);
+            assertEquals(1, smtp.connections.get());
+            assertEquals(3, smtp.messages.size());
+            assertTrue(smtp.messages.get(0).contains("Subject: Hello 1"));
+        }
+    }
+
+    private MailDispatcher dispatcher(JavaMailSender sender) {
+        // one sender thread, 30s backoff doubling up to an hour, 6 attempts
+        return new MailDispatcher(queuedMailRepository, sender, 1, 50, 6, 30000, 3600000, 300000, 7);
+    }
+
+    private void queue(QueuedMail... mails) {
+        when(queuedMailRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(eq(MailStatus.PENDING),
+                any(), any())).thenReturn(List.of(mails));
+        when(queuedMailRepository.claim(anyLong(), any(), any())).thenReturn(1);
+    }
+
+    private SimpleMailMessage messageTo(String recipient) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("project.plantngo@outlook.com");
+        message.setTo(recipient);
+        message.setSubject("Hello 2");
+        message.setText("Hi");
+        return message;
+    }
+
+    private static QueuedMail mail(Long id, String recipient, int attempts) {
+        LocalDateTime now = LocalDateTime.now();
+        return new QueuedMail(id, recipient, "Hello " + id, "Hi", MailStatus.PENDING, attempts, now, null, now, null);
+    }
+
+    /*
+     * Accepts SMTP sessions on a free local port and keeps the messages it receives
+     */
+    private static class SmtpStub implements AutoCloseable {
+
+        private final ServerSocket serverSocket;
+
+        private final AtomicInteger connections = new AtomicInteger();
+
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+
+        SmtpStub() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread acceptor = new Thread(() -> {
+                while (!serverSocket.isClosed()) {
+                    try (Socket socket = serverSocket.accept()) {
+                        connections.incrementAndGet();
+                        this.converse(socket);
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void converse(Socket socket) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+            this.reply(out, "220 localhost stub");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("DATA")) {
+                    this.reply(out, "354 end with .");
+                    StringBuilder data = new StringBuilder();
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        data.append(line).append('\n');
+                    }
+                    messages.add(data.toString());
+                    this.reply(out, "250 queued");
+                } else if (command.startsWith("QUIT")) {
+                    this.reply(out, "221 bye");
+                    return;
+                } else {
+                    this.reply(out, "250 ok");
+                }
+            }
+        }
+
+        private void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
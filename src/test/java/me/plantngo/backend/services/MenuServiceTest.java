@@ -0,0 +1,169 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import me.plantngo.backend.DTO.MenuImportSummaryDTO;
+import me.plantngo.backend.exceptions.MenuImportException;
+import me.plantngo.backend.models.Category;
+import me.plantngo.backend.models.Ingredient;
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.MenuFormat;
+import me.plantngo.backend.models.Product;
+import me.plantngo.backend.models.ProductsRecomputedEvent;
+import me.plantngo.backend.repositories.CategoryRepository;
+import me.plantngo.backend.repositories.IngredientRepository;
+import me.plantngo.backend.repositories.ProductIngredientRepository;
+import me.plantngo.backend.repositories.ProductRepository;
+
+@ExtendWith(MockitoExtension.class)
+class MenuServiceTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductIngredientRepository productIngredientRepository;
+
+    @Mock
+    private IngredientRepository ingredientRepository;
+
+    @Mock
+    private MerchantService merchantService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MenuService menuService;
+
+    private Merchant merchant;
+
+    @BeforeEach
+    void setUp() {
+        // two products to a batch
+        menuService = new MenuService(categoryRepository, productRepository, productIngredientRepository,
+                ingredientRepository, merchantService, entityManager, eventPublisher, new ObjectMapper(),
+                transactionManager, 2, 50);
+        merchant = new Merchant();
+        merchant.setUsername("danieldeli");
+        when(merchantService.getMerchantByUsername("danieldeli")).thenReturn(merchant);
+    }
+
+    @Test
+    void testImportMenu_ThreeProducts_SavedInBatchesWithSummedEmissions() {
+
+        // Arrange
+        String menu = "category,product,price,description,flavourType,ingredient,servingQty\n"
+                + "Bowls,Tofu Bowl,8.5,Tofu,Savoury,Tofu,200\n"
+                + "Bowls,Tofu Bowl,8.5,Tofu,Savoury,Rice,250\n"
+                + "Bowls,Rice Bowl,6,Rice,Savoury,Rice,300\n"
+                + "Drinks,Lemonade,3,\"Lemons, sugar\",Sweet,,\n";
+        when(ingredientRepository.findByName("Tofu")).thenReturn(Optional.of(this.ingredient(1, "Tofu")));
+        when(ingredientRepository.findByName("Rice")).thenReturn(Optional.of(this.ingredient(2, "Rice")));
+        when(categoryRepository.findByNameAndMerchant(any(), any())).thenReturn(Optional.empty());
+        when(categoryRepository.save(any(Category.class))).thenAnswer(invocation -> {
+            Category category = invocation.getArgument(0);
+            category.setId(10 + category.getName().length());
+            return category;
+        });
+        when(categoryRepository.getReferenceById(any())).thenAnswer(invocation -> {
+            Category category = new Category();
+            category.setId(invocation.getArgument(0));
+            return category;
+        });
+        List<Product> saved = new ArrayList<>();
+        when(productRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<Product> products = invocation.getArgument(0);
+            products.forEach(product -> {
+                product.setId(100 + saved.size());
+                saved.add(product);
+            });
+            return products;
+        });
+        when(productIngredientRepository.insertAll(anyList()))
+            .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        // Act
+        MenuImportSummaryDTO responseSummary = menuService.importMenu("danieldeli",
+                new ByteArrayInputStream(menu.getBytes(StandardCharsets.UTF_8)), MenuFormat.CSV);
+
+        // Assert
+        assertEquals(new MenuImportSummaryDTO(2, 3, 3), responseSummary);
+        verify(productRepository, times(2)).saveAllAndFlush(anyList());
+        // 450g and 300g at 0.003 per gram, saved with the product
+        assertEquals(1.35, saved.get(0).getCarbonEmission(), 1e-9);
+        assertEquals(0.9, saved.get(1).getCarbonEmission(), 1e-9);
+        assertEquals(0.0, saved.get(2).getCarbonEmission(), 1e-9);
+        verify(categoryRepository, times(2)).save(any(Category.class));
+        // nothing from the first batch is held while the second is read
+        verify(entityManager, times(2)).clear();
+        ArgumentCaptor<ProductsRecomputedEvent> event = ArgumentCaptor.forClass(ProductsRecomputedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(Set.of(100, 101, 102), event.getValue().getProductIds());
+    }
+
+    @Test
+    void testImportMenu_InvalidRows_ThrowMenuImportExceptionListingEveryRow() {
+
+        // Arrange
+        String menu = "[{\"category\": \"Bowls\", \"name\": \"Tofu Bowl\", \"price\": -1, \"description\": \"Tofu\"},"
+                + " {\"category\": \"Bowls\", \"name\": \"Mystery Bowl\", \"price\": 9, \"description\": \"?\","
+                + " \"ingredients\": [{\"name\": \"Unobtainium\", \"servingQty\": 10}]}]";
+        when(ingredientRepository.findByName("Unobtainium")).thenReturn(Optional.empty());
+        when(categoryRepository.findByNameAndMerchant("Bowls", merchant)).thenReturn(Optional.empty());
+
+        // Act
+        MenuImportException exception = assertThrows(MenuImportException.class,
+                () -> menuService.importMenu("danieldeli",
+                        new ByteArrayInputStream(menu.getBytes(StandardCharsets.UTF_8)), MenuFormat.JSON));
+
+        // Assert
+        assertEquals(List.of("item 1: price must be zero or more", "item 2: ingredient Unobtainium does not exist"),
+                exception.getErrors());
+        verify(productRepository, never()).saveAllAndFlush(anyList());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    private Ingredient ingredient(Integer id, String name) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setId(id);
+        ingredient.setName(name);
+        ingredient.setEmissionPerGram(0.003);
+        return ingredient;
+    }
+}
@@ -35,6 +35,9 @@ class MerchantServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private CatalogueSearchService catalogueSearchService;
+
     @InjectMocks
     private MerchantService merchantService;
 
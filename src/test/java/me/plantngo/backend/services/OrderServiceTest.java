@@ -1,7 +1,10 @@
 package me.plantngo.backend.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -10,6 +13,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -19,17 +23,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import me.plantngo.backend.DTO.OrderDTO;
 import me.plantngo.backend.DTO.OrderItemDTO;
 import me.plantngo.backend.DTO.UpdateOrderDTO;
 import me.plantngo.backend.DTO.UpdateOrderItemDTO;
+import me.plantngo.backend.exceptions.InvalidOrderTransitionException;
 import me.plantngo.backend.exceptions.NotExistException;
 import me.plantngo.backend.models.Customer;
 import me.plantngo.backend.models.Merchant;
 import me.plantngo.backend.models.Order;
 import me.plantngo.backend.models.OrderItem;
 import me.plantngo.backend.models.OrderStatus;
+import me.plantngo.backend.models.OutboxEventType;
 import me.plantngo.backend.models.Product;
 import me.plantngo.backend.repositories.OrderRepository;
 import me.plantngo.backend.repositories.ProductRepository;
@@ -49,6 +57,12 @@ class OrderServiceTest {
     @Mock
     private MerchantService merchantService;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private OutboxService outboxService;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -337,6 +351,7 @@ class OrderServiceTest {
         verify(merchantService, times(1)).getMerchantByUsername(merchantName);
         verify(productRepository, times(1)).findById(orderItemDTO.getProductId());
         verify(orderRepository, times(1)).save(order);
+        verify(outboxService, times(1)).publish(eq(OutboxEventType.ORDER_PLACED), any(), any(), any());
     }
 
     @Test
@@ -388,7 +403,6 @@ class OrderServiceTest {
         Set<OrderItem> updatedOrderItems = new HashSet<>();
         updatedOrderItems.add(updatedOrderItem);
         expectedOrder.setIsDineIn(true);
-        expectedOrder.setOrderStatus(OrderStatus.CANCELLED);
         expectedOrder.setTotalPrice(69.0);
         expectedOrder.setOrderItems(updatedOrderItems);
 
@@ -404,6 +418,8 @@ class OrderServiceTest {
 
         // Assert
         assertEquals(expectedOrder, responseOrder);
+        assertEquals(OrderStatus.CANCELLED, responseOrder.getOrderStatus());
+        verify(outboxService, times(1)).publish(OutboxEventType.ORDER_CANCELLED, orderId, null, Map.of());
         verify(orderRepository, times(1)).findById(orderId);
         verify(productRepository, times(1)).findById(updateOrderItemDTO.getProductId());
         verify(orderRepository, times(1)).save(order);
@@ -427,7 +443,6 @@ class OrderServiceTest {
         Set<OrderItem> updatedOrderItems = new HashSet<>();
         updatedOrderItems.add(updatedOrderItem);
         expectedOrder.setIsDineIn(true);
-        expectedOrder.setOrderStatus(OrderStatus.CANCELLED);
         expectedOrder.setTotalPrice(69.0);
         expectedOrder.setOrderItems(updatedOrderItems);
 
@@ -449,6 +464,178 @@ class OrderServiceTest {
         verify(productRepository, times(1)).findById(updateOrderItemDTO.getProductId());
     }
 
+    @Test
+    void testUpdateOrder_FulfilledOrderBackToPending_ThrowInvalidOrderTransitionException() {
+
+        // Arrange
+        String exceptionMsg = "";
+        Order fulfilledOrder = orders.get(0);
+        UpdateOrderDTO updateOrderDTO = new UpdateOrderDTO(null, OrderStatus.PENDING, null, null);
+
+        when(orderRepository.findById(any(Integer.class)))
+            .thenReturn(Optional.of(fulfilledOrder));
+
+        // Act
+        try {
+            orderService.updateOrder(updateOrderDTO, fulfilledOrder.getId());
+        } catch (InvalidOrderTransitionException e) {
+            exceptionMsg = e.getMessage();
+        }
+
+        // Assert
+        assertEquals("Cannot change a FULFILLED order to PENDING!", exceptionMsg);
+        assertEquals(OrderStatus.FULFILLED, fulfilledOrder.getOrderStatus());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void testUpdateOrder_AlreadyFulfilled_PointsNotAwardedAgain() {
+
+        // Arrange
+        Order fulfilledOrder = orders.get(0);
+        fulfilledOrder.setOrderItems(new HashSet<>(Set.of(orderItem)));
+        UpdateOrderDTO updateOrderDTO = new UpdateOrderDTO(null, OrderStatus.FULFILLED, null, null);
+
+        when(orderRepository.findById(any(Integer.class)))
+            .thenReturn(Optional.of(fulfilledOrder));
+
+        // Act
+        orderService.updateOrder(updateOrderDTO, fulfilledOrder.getId());
+
+        // Assert
+        verify(outboxService, never()).publish(any(), any(), any(), any());
+    }
+
+    @Test
+    void testUpdateOrder_ConcurrentFulfilment_RetriedWithoutPublishingTwice() {
+
+        // Arrange
+        product.setCarbonEmission(1000.0);
+        Order stale = order;
+        Order fresh = new Order();
+        fresh.setId(stale.getId());
+        fresh.setOrderStatus(OrderStatus.FULFILLED);
+        fresh.setCustomer(customer);
+        fresh.setOrderItems(new HashSet<>(Set.of(orderItem)));
+        UpdateOrderDTO updateOrderDTO = new UpdateOrderDTO(null, OrderStatus.FULFILLED, null, null);
+
+        when(orderRepository.findById(any(Integer.class)))
+            .thenReturn(Optional.of(stale))
+            .thenReturn(Optional.of(fresh));
+        when(orderRepository.save(stale))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Order.class, stale.getId()));
+
+        // Act
+        Order responseOrder = orderService.updateOrder(updateOrderDTO, stale.getId());
+
+        // Assert
+        assertEquals(fresh, responseOrder);
+        verify(orderRepository, times(2)).findById(stale.getId());
+        // published by the attempt that was rolled back only
+        verify(outboxService, times(1)).publish(OutboxEventType.ORDER_FULFILLED, stale.getId(), customer.getId(),
+            Map.of("points", 60, "emissionSaved", 6000.0, "itemEmissionSaved", Map.of(1, 6000.0)));
+    }
+
+    @Test
+    void testUpdateOrder_FractionalEmission_EmissionSavedNotTruncated() {
+
+        // Arrange
+        product.setCarbonEmission(1000.75);
+        order.setOrderItems(new HashSet<>(Set.of(orderItem)));
+        UpdateOrderDTO updateOrderDTO = new UpdateOrderDTO(null, OrderStatus.FULFILLED, null, null);
+
+        when(orderRepository.findById(any(Integer.class)))
+            .thenReturn(Optional.of(order));
+
+        // Act
+        orderService.updateOrder(updateOrderDTO, order.getId());
+
+        // Assert
+        verify(outboxService, times(1)).publish(OutboxEventType.ORDER_FULFILLED, order.getId(), customer.getId(),
+            Map.of("points", 60, "emissionSaved", 5998.5, "itemEmissionSaved", Map.of(1, 5998.5)));
+    }
+
+    @Test
+    void testUpdateOrder_ItemsChangedWhileFulfilling_PointsFromUpdatedItems() {
+
+        // Arrange
+        product.setCarbonEmission(1000.0);
+        order.setOrderItems(new HashSet<>(Set.of(orderItem)));
+        UpdateOrderDTO updateOrderDTO = new UpdateOrderDTO(null, OrderStatus.FULFILLED,
+            new HashSet<>(Set.of(new UpdateOrderItemDTO(1, 5))), null);
+
+        when(orderRepository.findById(any(Integer.class)))
+            .thenReturn(Optional.of(order));
+        when(productRepository.findById(any(Integer.class)))
+            .thenReturn(Optional.of(product));
+
+        // Act
+        orderService.updateOrder(updateOrderDTO, order.getId());
+
+        // Assert
+        verify(outboxService, times(1)).publish(OutboxEventType.ORDER_FULFILLED, order.getId(), customer.getId(),
+            Map.of("points", 150, "emissionSaved", 15000.0, "itemEmissionSaved", Map.of(1, 15000.0)));
+        verify(orderRepository, times(1)).save(order);
+    }
+
+    @Test
+    void testUpdateOrder_AllItemsRemovedWhileFulfilling_OrderDeletedAndNothingPublished() {
+
+        // Arrange
+        order.setOrderItems(new HashSet<>(Set.of(orderItem)));
+        UpdateOrderDTO updateOrderDTO = new UpdateOrderDTO(null, OrderStatus.FULFILLED,
+            new HashSet<>(Set.of(new UpdateOrderItemDTO(1, 0))), null);
+
+        when(orderRepository.findById(any(Integer.class)))
+            .thenReturn(Optional.of(order));
+        when(productRepository.findById(any(Integer.class)))
+            .thenReturn(Optional.of(product));
+
+        // Act
+        orderService.updateOrder(updateOrderDTO, order.getId());
+
+        // Assert
+        verify(orderRepository, times(1)).delete(order);
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(outboxService, never()).publish(any(), any(), any(), any());
+    }
+
+    @Test
+    void testAddOrderItem_KeepsLosingToConcurrentUpdates_ThrowAfterMaxAttempts() {
+
+        // Arrange
+        OrderItemDTO orderItemDTO = new OrderItemDTO(1, 1);
+
+        when(orderRepository.findById(any(Integer.class)))
+            .thenReturn(Optional.of(order));
+        when(productRepository.findById(any(Integer.class)))
+            .thenReturn(Optional.of(product));
+        when(orderRepository.save(any(Order.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Order.class, order.getId()));
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+            () -> orderService.addOrderItem("Daniel", order.getId(), orderItemDTO));
+        verify(orderRepository, times(3)).save(order);
+    }
+
+    @Test
+    void testDeleteOrderItem_CancelledOrder_ThrowInvalidOrderTransitionException() {
+
+        // Arrange
+        Order cancelledOrder = orders.get(1);
+
+        when(orderRepository.existsById(any(Integer.class)))
+            .thenReturn(true);
+        when(orderRepository.findById(any(Integer.class)))
+            .thenReturn(Optional.of(cancelledOrder));
+
+        // Act & Assert
+        assertThrows(InvalidOrderTransitionException.class,
+            () -> orderService.deleteOrderItem(cancelledOrder.getId(), product.getId()));
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
     @Test
     void testDeleteOrder_OrderExists_ReturnSuccess() {
 
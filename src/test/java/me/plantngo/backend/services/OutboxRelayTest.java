@@ -0,0 +1,189 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import me.plantngo.backend.models.OutboxEvent;
+import me.plantngo.backend.models.OutboxEventType;
+import me.plantngo.backend.models.OutboxOffset;
+import me.plantngo.backend.repositories.OutboxEventRepository;
+import me.plantngo.backend.repositories.OutboxOffsetRepository;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxOffsetRepository outboxOffsetRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private OutboxConsumer consumer;
+
+    private OutboxRelay outboxRelay;
+
+    private OutboxOffset offset;
+
+    private OutboxEvent first;
+
+    private OutboxEvent second;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxEventRepository, outboxOffsetRepository, List.of(consumer),
+                transactionManager, 100, 0, 2, 300000, 7);
+
+        offset = new OutboxOffset("quest-engine", 0L);
+        first = event(1L);
+        second = event(2L);
+
+        when(consumer.getName()).thenReturn("quest-engine");
+        when(outboxOffsetRepository.findById("quest-engine")).thenAnswer(invocation -> Optional.of(offset));
+        when(outboxOffsetRepository.lockByConsumer("quest-engine")).thenReturn(offset);
+    }
+
+    @Test
+    void testRelay_NewEvents_HandledInOrderAndOffsetMoved() {
+
+        // Arrange
+        when(outboxEventRepository.findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(anyLong(), any(), any()))
+            .thenReturn(List.of(first, second));
+
+        // Act
+        int responseDelivered = outboxRelay.relay();
+
+        // Assert
+        assertEquals(2, responseDelivered);
+        assertEquals(2L, offset.getLastEventId());
+        InOrder inOrder = inOrder(consumer);
+        inOrder.verify(consumer).handle(first);
+        inOrder.verify(consumer).handle(second);
+        verify(outboxOffsetRepository, times(1)).createIfAbsent("quest-engine");
+    }
+
+    @Test
+    void testRelay_ConsumerFails_StopsAtFailedEventUntilNextPoll() {
+
+        // Arrange
+        when(outboxEventRepository.findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(anyLong(), any(), any()))
+            .thenReturn(List.of(first, second));
+        doThrow(new IllegalStateException("Mail server down")).when(consumer).handle(first);
+
+        // Act
+        int responseDelivered = outboxRelay.relay();
+
+        // Assert
+        assertEquals(0, responseDelivered);
+        assertEquals(0L, offset.getLastEventId());
+        verify(consumer, never()).handle(second);
+    }
+
+    @Test
+    void testRelay_ConsumerKeepsFailing_EventSkippedAfterMaxAttempts() {
+
+        // Arrange
+        when(outboxEventRepository.findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(anyLong(), any(), any()))
+            .thenReturn(List.of(first, second));
+        doThrow(new IllegalStateException("Bad event")).when(consumer).handle(first);
+
+        // Act
+        outboxRelay.relay();
+        int responseDelivered = outboxRelay.relay();
+
+        // Assert
+        assertEquals(1, responseDelivered);
+        assertEquals(2L, offset.getLastEventId());
+        verify(consumer, times(2)).handle(first);
+        verify(consumer, times(1)).handle(second);
+    }
+
+    @Test
+    void testRelay_EarlierIdCommitsAfterLaterId_DeliveredAsGapOnNextPoll() {
+
+        // Arrange
+        OutboxEvent third = event(3L);
+        // event 1 is still uncommitted when events 2 and 3 are relayed
+        when(outboxEventRepository.findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(anyLong(), any(), any()))
+            .thenReturn(List.of(second, third))
+            .thenReturn(List.of());
+        when(outboxEventRepository.findGapEvents(eq("quest-engine"), any(), anyInt()))
+            .thenReturn(List.of())
+            .thenReturn(List.of(first));
+        when(outboxOffsetRepository.deleteGap("quest-engine", 1L)).thenReturn(1);
+
+        // Act
+        int responseFirstPoll = outboxRelay.relay();
+        int responseSecondPoll = outboxRelay.relay();
+
+        // Assert
+        assertEquals(2, responseFirstPoll);
+        assertEquals(1, responseSecondPoll);
+        assertEquals(3L, offset.getLastEventId());
+        verify(outboxOffsetRepository, times(1)).recordGaps(eq("quest-engine"), eq(List.of(1L)), any());
+        InOrder inOrder = inOrder(consumer);
+        inOrder.verify(consumer).handle(second);
+        inOrder.verify(consumer).handle(third);
+        inOrder.verify(consumer).handle(first);
+    }
+
+    @Test
+    void testRelay_GapDeliveredByAnotherInstance_NotHandledAgain() {
+
+        // Arrange
+        when(outboxEventRepository.findGapEvents(eq("quest-engine"), any(), anyInt())).thenReturn(List.of(first));
+        when(outboxOffsetRepository.deleteGap("quest-engine", 1L)).thenReturn(0);
+
+        // Act
+        int responseDelivered = outboxRelay.relay();
+
+        // Assert
+        assertEquals(0, responseDelivered);
+        verify(consumer, never()).handle(any());
+    }
+
+    @Test
+    void testRelay_AnotherInstanceHandledEvent_NotHandledAgain() {
+
+        // Arrange
+        when(outboxEventRepository.findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(anyLong(), any(), any()))
+            .thenReturn(List.of(first));
+        // the other instance moved the offset between this instance's read and its lock
+        when(outboxOffsetRepository.lockByConsumer("quest-engine")).thenReturn(new OutboxOffset("quest-engine", 1L));
+
+        // Act
+        int responseDelivered = outboxRelay.relay();
+
+        // Assert
+        assertEquals(0, responseDelivered);
+        verify(consumer, never()).handle(any());
+    }
+
+    private static OutboxEvent event(Long id) {
+        return new OutboxEvent(id, OutboxEventType.ORDER_FULFILLED, 1, 1, "{\"points\":60}", LocalDateTime.now());
+    }
+}
@@ -18,6 +18,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import me.plantngo.backend.DTO.ProductIngredientDTO;
 import me.plantngo.backend.exceptions.AlreadyExistsException;
@@ -43,6 +44,9 @@ class ProductServiceTest {
     @Mock
     private IngredientRepository ingredientRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductService productService;
 
@@ -309,6 +313,52 @@ class ProductServiceTest {
         verify(productIngredientRepository, times(1)).save(expectedProductIngredient);
     }
 
+    @Test
+    void testAddProductIngredient_ValidIngredient_AddIngredientEmissionsToProduct() {
+
+        // Arrange
+        String merchantName = "Daniel";
+        String productName = "Steak";
+        Ingredient coffee = new Ingredient(null, null, "Coffee", null, 20.0, null);
+        ProductIngredientDTO productIngredientDTO = new ProductIngredientDTO("Coffee", 2.0);
+
+        when(productRepository.findByName(any(String.class)))
+            .thenReturn(Optional.of(product));
+        when(ingredientRepository.findByName(any(String.class)))
+            .thenReturn(Optional.of(coffee));
+        when(productIngredientRepository.existsByIngredientAndProductAndProductCategoryMerchantUsername
+            (any(Ingredient.class), any(Product.class), any(String.class)))
+            .thenReturn(false);
+
+        // Act
+        productService.addProductIngredient(merchantName, productName, productIngredientDTO);
+
+        // Assert
+        assertEquals(50.0, product.getCarbonEmission());
+    }
+
+    @Test
+    void testUpdateProductIngredient_ValidProductIngredientDTO_ApplyServingQtyDeltaToProduct() {
+
+        // Arrange
+        String productName = "Steak";
+        String merchantName = "Daniel";
+        ProductIngredientDTO productIngredientDTO = new ProductIngredientDTO("Beef", 3.0);
+
+        when(productRepository.findByName(any(String.class)))
+            .thenReturn(Optional.of(product));
+        when(ingredientRepository.findByName(any(String.class)))
+            .thenReturn(Optional.of(ingredient));
+        when(productIngredientRepository.findByIngredientAndProductAndProductCategoryMerchantUsername(any(Ingredient.class), any(Product.class), any(String.class)))
+            .thenReturn(Optional.of(productIngredient));
+
+        // Act
+        productService.updateProductIngredient(merchantName, productName, productIngredientDTO);
+
+        // Assert
+        assertEquals(30.0, product.getCarbonEmission());
+    }
+
     @Test
     void testAddProductIngredient_ProductIngredientAlreadyExists_ThrowAlreadyExistsException() {
 
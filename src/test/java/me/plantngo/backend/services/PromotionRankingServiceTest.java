@@ -0,0 +1,174 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.Promotion;
+import me.plantngo.backend.models.PromotionOrder;
+import me.plantngo.backend.repositories.PromotionRepository;
+
+@ExtendWith(MockitoExtension.class)
+class PromotionRankingServiceTest {
+
+    @Mock
+    private PromotionRepository promotionRepository;
+
+    private PromotionRankingService promotionRankingService;
+
+    @BeforeEach
+    void setUp() {
+        promotionRankingService = new PromotionRankingService(promotionRepository, 24);
+    }
+
+    @Test
+    void testGetPage_ByClicks_PagedMostClickedFirst() {
+
+        // Arrange
+        when(promotionRepository.findAll()).thenReturn(List.of(
+                promotion(1, 5, null, null),
+                promotion(2, 50, null, null),
+                promotion(3, 20, null, null)));
+        promotionRankingService.rebuild();
+
+        // Act
+        List<Integer> responseFirstPage = promotionRankingService.getPage(PromotionOrder.CLICKS, false, 0, 2);
+        List<Integer> responseSecondPage = promotionRankingService.getPage(PromotionOrder.CLICKS, false, 1, 2);
+
+        // Assert
+        assertEquals(List.of(2, 3), responseFirstPage);
+        assertEquals(List.of(1), responseSecondPage);
+    }
+
+    @Test
+    void testClicksAdded_FewerRecentClicks_OutrankOldClicksWhenTrending() {
+
+        // Arrange
+        LocalDate today = LocalDate.now();
+        when(promotionRepository.findAll()).thenReturn(List.of(
+                // 100 clicks counted on a start date ten days (ten half-lives) ago
+                promotion(1, 100, today.minusDays(10), null),
+                promotion(2, 0, today, null)));
+        promotionRankingService.rebuild();
+
+        // Act
+        promotionRankingService.clicksAdded(Map.of(2, 5L));
+
+        // Assert
+        assertEquals(List.of(1, 2), promotionRankingService.getPage(PromotionOrder.CLICKS, false, 0, 10));
+        assertEquals(List.of(2, 1), promotionRankingService.getPage(PromotionOrder.TRENDING, false, 0, 10));
+    }
+
+    @Test
+    void testGetPage_ActiveOnly_EndedAndUpcomingPromotionsExcluded() {
+
+        // Arrange
+        LocalDate today = LocalDate.now();
+        when(promotionRepository.findAll()).thenReturn(List.of(
+                promotion(1, 30, today.minusDays(5), today.minusDays(1)),
+                promotion(2, 20, today.minusDays(1), today.plusDays(1)),
+                promotion(3, 10, today.plusDays(1), today.plusDays(5))));
+        promotionRankingService.rebuild();
+
+        // Act
+        List<Integer> responseIds = promotionRankingService.getPage(PromotionOrder.CLICKS, true, 0, 10);
+
+        // Assert
+        assertEquals(List.of(2), responseIds);
+    }
+
+    @Test
+    void testPromotionSaved_DatesChanged_MovedIntoActiveOrder() {
+
+        // Arrange
+        LocalDate today = LocalDate.now();
+        Promotion upcoming = promotion(1, 10, today.plusDays(3), null);
+        when(promotionRepository.findAll()).thenReturn(List.of(upcoming));
+        promotionRankingService.rebuild();
+
+        // Act
+        upcoming.setStartDate(today);
+        promotionRankingService.promotionSaved(upcoming);
+
+        // Assert
+        assertEquals(List.of(1), promotionRankingService.getPage(PromotionOrder.CLICKS, true, 0, 10));
+    }
+
+    @Test
+    void testGetActiveIds_MerchantWithPromotions_OnlyTheirRunningPromotions() {
+
+        // Arrange
+        LocalDate today = LocalDate.now();
+        Merchant merchant = new Merchant();
+        merchant.setId(7);
+        Merchant otherMerchant = new Merchant();
+        otherMerchant.setId(8);
+        Promotion running = promotion(1, 5, today, today);
+        running.setMerchant(merchant);
+        Promotion popular = promotion(2, 50, today.minusDays(1), today.plusDays(1));
+        popular.setMerchant(merchant);
+        Promotion ended = promotion(3, 10, today.minusDays(3), today.minusDays(1));
+        ended.setMerchant(merchant);
+        Promotion otherRunning = promotion(4, 10, today, today);
+        otherRunning.setMerchant(otherMerchant);
+        when(promotionRepository.findAll()).thenReturn(List.of(running, popular, ended, otherRunning));
+        promotionRankingService.rebuild();
+
+        // Act
+        List<Integer> responseIds = promotionRankingService.getActiveIds(7);
+
+        // Assert
+        assertEquals(List.of(2, 1), responseIds);
+    }
+
+    @Test
+    void testRefreshActive_OnlyBoundaryDaysPassed_PromotionsStayPut() {
+
+        // Arrange
+        LocalDate today = LocalDate.now();
+        when(promotionRepository.findAll()).thenReturn(List.of(
+                promotion(1, 1, today.minusDays(1), today.plusDays(1)),
+                promotion(2, 2, today.plusDays(2), today.plusDays(4))));
+        promotionRankingService.rebuild();
+
+        // Act
+        promotionRankingService.refreshActive();
+
+        // Assert
+        assertEquals(List.of(1), promotionRankingService.getPage(PromotionOrder.TRENDING, true, 0, 10));
+    }
+
+    @Test
+    void testPromotionRemoved_RankedPromotion_NoLongerListed() {
+
+        // Arrange
+        when(promotionRepository.findAll()).thenReturn(List.of(promotion(1, 1, null, null), promotion(2, 2, null, null)));
+        promotionRankingService.rebuild();
+
+        // Act
+        promotionRankingService.promotionRemoved(2);
+
+        // Assert
+        assertEquals(List.of(1), promotionRankingService.getPage(PromotionOrder.TRENDING, false, 0, 10));
+    }
+
+    private static Promotion promotion(Integer id, Integer clicks, LocalDate startDate, LocalDate endDate) {
+        Promotion promotion = new Promotion();
+        promotion.setId(id);
+        promotion.setDescription("It's a promotion");
+        promotion.setClicks(clicks);
+        promotion.setStartDate(startDate);
+        promotion.setEndDate(endDate);
+        return promotion;
+    }
+}
@@ -1,17 +1,23 @@
 package me.plantngo.backend.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -27,6 +33,7 @@ import me.plantngo.backend.exceptions.NotExistException;
 import me.plantngo.backend.exceptions.PromotionNotFoundException;
 import me.plantngo.backend.models.Merchant;
 import me.plantngo.backend.models.Promotion;
+import me.plantngo.backend.models.PromotionOrder;
 import me.plantngo.backend.repositories.PromotionRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,6 +48,9 @@ class PromotionServiceTest {
     @Mock
     private MinioService minioService;
 
+    @Mock
+    private PromotionRankingService promotionRankingService;
+
     @InjectMocks
     private PromotionService promotionService;
 
@@ -173,15 +183,36 @@ class PromotionServiceTest {
         expectedPromotions.add(promotion3);
         expectedPromotions.add(promotion4);
 
-        when(promotionRepository.findAll())
-            .thenReturn(expectedPromotions);
+        when(promotionRankingService.getPage(PromotionOrder.CLICKS, false, 0, PromotionService.DEFAULT_PAGE_SIZE))
+            .thenReturn(List.of(1, 2, 3, 4));
+        // the repository returns rows in its own order, the ranking decides the output order
+        when(promotionRepository.findAllById(List.of(1, 2, 3, 4)))
+            .thenReturn(List.of(promotion4, promotion2, promotion, promotion3));
 
         // Act
-        List<Promotion> responsePromotions = promotionService.getAllPromotionsSorted();
+        List<Promotion> responsePromotions = promotionService.getAllPromotionsSorted(PromotionOrder.CLICKS, false, 0, null);
 
         // Assert
         assertEquals(expectedPromotions, responsePromotions);
-        verify(promotionRepository, times(1)).findAll();
+        verify(promotionRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetAllPromotionsSorted_NoOrOversizedPageSize_PageSizeBounded() {
+
+        // Arrange
+        when(promotionRankingService.getPage(any(), any(Boolean.class), any(Integer.class), any(Integer.class)))
+            .thenReturn(List.of());
+
+        // Act
+        promotionService.getAllPromotionsSorted(PromotionOrder.TRENDING, true, 0, null);
+        promotionService.getAllPromotionsSorted(PromotionOrder.TRENDING, true, 1, 10_000);
+
+        // Assert
+        verify(promotionRankingService, times(1)).getPage(PromotionOrder.TRENDING, true, 0,
+                PromotionService.DEFAULT_PAGE_SIZE);
+        verify(promotionRankingService, times(1)).getPage(PromotionOrder.TRENDING, true, 1,
+                PromotionService.MAX_PAGE_SIZE);
     }
 
     @Test
@@ -269,6 +300,41 @@ class PromotionServiceTest {
         verify(promotionRepository, times(1)).save(responsePromotion);
     }
 
+    @Test
+    void testAddPromotion_EndDateBeforeStartDate_ThrowIllegalArgumentException() {
+
+        // Arrange
+        PromotionDTO promotionDTO = new PromotionDTO("It's a promotion!", null, LocalDate.of(2022, 12, 20),
+                LocalDate.of(2022, 11, 6));
+        Merchant merchant = new Merchant();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> promotionService.addPromotion(promotionDTO, merchant));
+        verify(promotionRepository, never()).save(any(Promotion.class));
+    }
+
+    @Test
+    void testGetActivePromotionsByMerchant_RunningPromotions_ReturnInRankedOrder() {
+
+        // Arrange
+        Merchant merchant = new Merchant();
+        merchant.setId(7);
+        Promotion promotion2 = new Promotion();
+        promotion2.setId(2);
+        promotion2.setClicks(40);
+        promotion.setClicks(10);
+
+        when(promotionRankingService.getActiveIds(7)).thenReturn(List.of(2, 1));
+        when(promotionRepository.findAllById(List.of(2, 1))).thenReturn(List.of(promotion, promotion2));
+
+        // Act
+        List<Promotion> responsePromotions = promotionService.getActivePromotionsByMerchant(merchant);
+
+        // Assert
+        assertEquals(List.of(promotion2, promotion), responsePromotions);
+        verify(promotionRepository, never()).findByMerchant(any(Merchant.class));
+    }
+
     @Test
     void testUpdatePromotionWithImage_ValidPromotionDTO_ReturnPromotion() throws Exception {
 
@@ -345,31 +411,67 @@ class PromotionServiceTest {
     }
 
     @Test
-    void testAddClicksToPromotion_PromotionExists_ReturnSuccess() {
+    void testAddClicksToPromotion_PromotionExists_CountedInMemory() {
 
         // Arrange
         Integer promotionId = 1;
-        promotion.setClicks(0);
-        Promotion expectedPromotion = new Promotion();
-        expectedPromotion.setId(1);
-        expectedPromotion.setDescription("It's a promotion");
-        expectedPromotion.setClicks(1);
+        promotion.setClicks(5);
 
         when(promotionRepository.existsById(any(Integer.class)))
             .thenReturn(true);
         when(promotionRepository.findById(any(Integer.class)))
             .thenReturn(Optional.of(promotion));
-        when(promotionRepository.saveAndFlush(any(Promotion.class)))
-            .thenReturn(expectedPromotion);
-        
+
         // Act
         promotionService.addClicksToPromotion(promotionId);
+        promotionService.addClicksToPromotion(promotionId);
+        Integer responseClicks = promotionService.getLiveClicks(promotionId);
 
         // Assert
-        assertEquals(1, promotion.getClicks());
+        assertEquals(7, responseClicks);
         verify(promotionRepository, times(1)).existsById(promotionId);
-        verify(promotionRepository, times(1)).findById(promotionId);
-        verify(promotionRepository, times(1)).saveAndFlush(expectedPromotion);
+        verify(promotionRepository, never()).saveAndFlush(any(Promotion.class));
+    }
+
+    @Test
+    void testFlushClicks_CountedClicks_AddedInOneBatch() {
+
+        // Arrange
+        when(promotionRepository.existsById(any(Integer.class)))
+            .thenReturn(true);
+        when(promotionRepository.addClicks(anyMap()))
+            .thenReturn(new HashSet<>());
+        promotionService.addClicksToPromotion(1);
+        promotionService.addClicksToPromotion(1);
+        promotionService.addClicksToPromotion(2);
+
+        // Act
+        promotionService.flushClicks();
+        promotionService.flushClicks();
+
+        // Assert
+        verify(promotionRepository, times(1)).addClicks(Map.of(1, 2L, 2, 1L));
+        verify(promotionRankingService, times(1)).clicksAdded(Map.of(1, 2L, 2, 1L));
+    }
+
+    @Test
+    void testFlushClicks_FlushFailed_ClicksRetried() {
+
+        // Arrange
+        when(promotionRepository.existsById(any(Integer.class)))
+            .thenReturn(true);
+        when(promotionRepository.addClicks(anyMap()))
+            .thenThrow(new RuntimeException("database down"))
+            .thenReturn(new HashSet<>());
+        promotionService.addClicksToPromotion(1);
+
+        // Act
+        promotionService.flushClicks();
+        promotionService.addClicksToPromotion(1);
+        promotionService.flushClicks();
+
+        // Assert
+        verify(promotionRepository, times(1)).addClicks(Map.of(1, 2L));
     }
 
     @Test
@@ -0,0 +1,145 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import me.plantngo.backend.DTO.QuestEvaluationDTO;
+import me.plantngo.backend.exceptions.NotExistException;
+import me.plantngo.backend.models.Quest;
+import me.plantngo.backend.models.QuestEvaluationStatus;
+import me.plantngo.backend.repositories.QuestRepository;
+
+@ExtendWith(MockitoExtension.class)
+class QuestEvaluationServiceTest {
+
+    @Mock
+    private QuestRepository questRepository;
+
+    @Mock
+    private GreenPointsService greenPointsService;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private QuestEvaluationService questEvaluationService;
+
+    private Quest quest;
+
+    @BeforeEach
+    void setUp() {
+        // two usernames to a chunk
+        questEvaluationService = new QuestEvaluationService(questRepository, greenPointsService, leaderboardService,
+                transactionManager, 2, 10);
+        LocalDateTime now = LocalDateTime.now();
+        quest = new Quest(1, now.minusDays(1), "order", 3, 50, now.plusDays(1), null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        questEvaluationService.shutdown();
+    }
+
+    @Test
+    void testStartEvaluation_ThreeChunks_EachChunkAwardedFromWhereTheLastStopped() throws InterruptedException {
+
+        // Arrange
+        when(questRepository.findById(1)).thenReturn(Optional.of(quest));
+        // a username that is no longer a customer, and a customer who already completed the quest
+        when(questRepository.findCompletingCustomers(quest, "", 2)).thenReturn(List.of(
+                new Object[] { "alice", 10, false }, new Object[] { "bob", null, false }));
+        when(questRepository.findCompletingCustomers(quest, "bob", 2)).thenReturn(List.of(
+                new Object[] { "carol", 12, true }, new Object[] { "dave", 13, false }));
+        when(questRepository.findCompletingCustomers(quest, "dave", 2)).thenReturn(List.<Object[]>of(
+                new Object[] { "erin", 14, false }));
+        when(questRepository.insertCompletions(eq(1), any())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(greenPointsService.addPointsToAll(anyMap(), eq(50), eq("quest")))
+            .thenAnswer(invocation -> List.copyOf(invocation.<Map<Integer, String>>getArgument(0).keySet()));
+
+        // Act
+        QuestEvaluationDTO responseStarted = questEvaluationService.startEvaluation(List.of(1));
+        QuestEvaluationDTO responseFinished = this.awaitEvaluation(responseStarted.getId());
+
+        // Assert
+        assertEquals(QuestEvaluationStatus.COMPLETED, responseFinished.getStatus());
+        assertEquals(1, responseFinished.getQuestsEvaluated());
+        assertEquals(4L, responseFinished.getCustomersCompleted());
+        assertEquals(3L, responseFinished.getCustomersAwarded());
+        assertEquals(150L, responseFinished.getPointsAwarded());
+        verify(questRepository).insertCompletions(1, List.of(10));
+        verify(questRepository).insertCompletions(1, List.of(13));
+        verify(greenPointsService).addPointsToAll(Map.of(14, "quest:1:customer:14"), 50, "quest");
+        verify(leaderboardService, times(1)).rebuild();
+    }
+
+    @Test
+    void testStartEvaluation_ChunkFails_FailedWithChunksBeforeKept() throws InterruptedException {
+
+        // Arrange
+        when(questRepository.findById(1)).thenReturn(Optional.of(quest));
+        when(questRepository.findCompletingCustomers(quest, "", 2)).thenReturn(List.of(
+                new Object[] { "alice", 10, false }, new Object[] { "bob", 11, false }));
+        when(questRepository.findCompletingCustomers(quest, "bob", 2))
+            .thenThrow(new IllegalStateException("connection lost"));
+        when(questRepository.insertCompletions(eq(1), any())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(greenPointsService.addPointsToAll(anyMap(), eq(50), eq("quest"))).thenReturn(List.of(10, 11));
+
+        // Act
+        QuestEvaluationDTO responseFinished = this.awaitEvaluation(
+                questEvaluationService.startEvaluation(List.of(1)).getId());
+
+        // Assert
+        assertEquals(QuestEvaluationStatus.FAILED, responseFinished.getStatus());
+        assertEquals("connection lost", responseFinished.getError());
+        assertEquals(2L, responseFinished.getCustomersAwarded());
+        verify(leaderboardService, times(1)).rebuild();
+    }
+
+    @Test
+    void testStartEvaluation_QuestDoesNotExist_ThrowNotExistExceptionAndNothingStarted() {
+
+        // Arrange
+        when(questRepository.findById(2)).thenReturn(Optional.empty());
+
+        // Act
+        NotExistException exception = assertThrows(NotExistException.class,
+                () -> questEvaluationService.startEvaluation(List.of(2)));
+
+        // Assert
+        assertEquals("Quest doesn't exist!", exception.getMessage());
+        verify(questRepository, never()).findCompletingCustomers(any(), any(), any(Integer.class));
+    }
+
+    private QuestEvaluationDTO awaitEvaluation(String id) throws InterruptedException {
+        for (int attempt = 0; attempt < 200; attempt++) {
+            QuestEvaluationDTO evaluation = questEvaluationService.getEvaluation(id);
+            if (evaluation.getFinishedDateTime() != null) {
+                return evaluation;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("evaluation " + id + " did not finish");
+    }
+}
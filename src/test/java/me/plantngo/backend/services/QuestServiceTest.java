@@ -17,9 +17,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -38,6 +41,12 @@ class QuestServiceTest {
         @Mock
         private CustomerRepository customerRepository;
 
+        @Mock
+        private GreenPointsService greenPointsService;
+
+        @Mock
+        private PlatformTransactionManager transactionManager;
+
         @InjectMocks
         private QuestService questService;
 
@@ -109,6 +118,22 @@ class QuestServiceTest {
                 verify(questRepository).save(any(Quest.class));
         }
 
+        @Test
+        void testAddQuests_QuestSet_AllSavedWithTheSameDates() {
+                // arrange
+                List<QuestDTO> questDTOs = List.of(new QuestDTO("login", 3, 200, 7), new QuestDTO("order", 5, 100, 7));
+                when(questRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                // act
+                List<Quest> quests = questService.addQuests(questDTOs);
+
+                // assert
+                assertEquals(2, quests.size());
+                assertEquals("order", quests.get(1).getType());
+                assertEquals(quests.get(0).getPostedDateTime(), quests.get(1).getPostedDateTime());
+                assertEquals(quests.get(0).getPostedDateTime().plusDays(7), quests.get(1).getEndDateTime());
+        }
+
         @Test
         void testDeleteQuest_ValidQuestId_ReturnSuccess() {
                 // arrange
@@ -181,6 +206,32 @@ class QuestServiceTest {
                 verify(customerRepository).save(customer);
         }
 
+        @Test
+        void testRefreshQuestForCustomer_RewardFails_CompletionRolledBack() {
+                // arrange
+                LocalDateTime now = LocalDateTime.now();
+                Quest quest = new Quest(1, now.minusDays(1), "order", 1, 100, now.plusDays(1), null);
+                Customer customer = new Customer();
+                customer.setId(3);
+                customer.setUsername("john");
+                customer.setCompletedQuests(new HashSet<>());
+
+                when(questRepository.findById(1)).thenReturn(Optional.of(quest));
+                when(logRepository.findAllByUsernameAndTypeAndDateTimeBetween("john", "order", quest.getPostedDateTime(),
+                                quest.getEndDateTime()))
+                                .thenReturn(List.of(new Log(2, now, "john", "order")));
+                when(greenPointsService.addPoints(customer, 100, "quest", "quest:1:customer:3"))
+                                .thenThrow(new IllegalStateException("Ledger unavailable"));
+
+                // act
+                assertThrows(IllegalStateException.class, () -> questService.refreshQuestForCustomer(1, customer));
+
+                // assert
+                verify(customerRepository).save(customer);
+                verify(transactionManager).rollback(any());
+                verify(transactionManager, never()).commit(any());
+        }
+
         @Test
         void testRefreshQuestForCustomer_QuestDoesNotExist_ThrowNotExistException() {
                 // arrange
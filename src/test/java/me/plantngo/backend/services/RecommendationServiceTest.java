@@ -0,0 +1,235 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import me.plantngo.backend.DTO.SwapSuggestionDTO;
+import me.plantngo.backend.exceptions.NotExistException;
+import me.plantngo.backend.models.Category;
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.OrderStatus;
+import me.plantngo.backend.models.Product;
+import me.plantngo.backend.models.ProductsRecomputedEvent;
+import me.plantngo.backend.repositories.OrderRepository;
+import me.plantngo.backend.repositories.ProductRepository;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CustomerService customerService;
+
+    private RecommendationService recommendationService;
+
+    private Category danielsBowls;
+
+    private Category ryansBowls;
+
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        recommendationService = new RecommendationService(productRepository, orderRepository, customerService, 10);
+
+        danielsBowls = this.category("Bowls", "Daniel's Deli");
+        ryansBowls = this.category("bowls ", "Ryan's Rice");
+        products = new ArrayList<>(List.of(
+                this.product(1, "Beef Bowl", 3000.0, "Savoury", danielsBowls),
+                this.product(2, "Chicken Bowl", 2000.0, "Savoury", ryansBowls),
+                this.product(3, "Tofu Bowl", 800.0, "Spicy", danielsBowls),
+                this.product(4, "Tempeh Bowl", 1000.0, "Savoury", ryansBowls),
+                this.product(5, "Lentil Bowl", 500.0, "Savoury", danielsBowls),
+                this.product(6, "Fries", 200.0, "Savoury", this.category("Sides", "Daniel's Deli"))));
+        when(productRepository.findAll()).thenReturn(products);
+    }
+
+    @Test
+    void testSuggestSwaps_NoPurchases_SameCategoryAndFlavourNearestSavingLast() {
+
+        // Arrange
+        when(orderRepository.findCustomerProductsByOrderStatus(OrderStatus.FULFILLED)).thenReturn(List.of());
+        recommendationService.rebuild();
+
+        // Act
+        List<SwapSuggestionDTO> responseSwaps = recommendationService.suggestSwaps(1, Set.of(), 5);
+
+        // Assert
+        // across both merchants, largest saving first; the spicy tofu bowl and the fries are other groups
+        assertEquals(List.of(5, 4, 2), this.ids(responseSwaps));
+        assertEquals(2500.0, responseSwaps.get(0).getEmissionSaved());
+        assertEquals("Ryan's Rice", responseSwaps.get(1).getMerchantName());
+    }
+
+    @Test
+    void testSuggestSwaps_CoPurchased_RankedBeforeLargerSaving() {
+
+        // Arrange
+        // two customers bought the beef bowl with the chicken bowl, one with the tempeh bowl
+        when(orderRepository.findCustomerProductsByOrderStatus(OrderStatus.FULFILLED)).thenReturn(List.of(
+                new Object[] { 10, 1 }, new Object[] { 10, 2 },
+                new Object[] { 11, 1 }, new Object[] { 11, 2 }, new Object[] { 11, 4 }));
+        recommendationService.rebuild();
+
+        // Act
+        List<SwapSuggestionDTO> responseSwaps = recommendationService.suggestSwaps(1, Set.of(), 5);
+
+        // Assert
+        assertEquals(List.of(2, 4, 5), this.ids(responseSwaps));
+        assertEquals(2, responseSwaps.get(0).getCoPurchases());
+    }
+
+    @Test
+    void testSuggestSwaps_FulfilledOrderAndProductChange_IndexUpdatedIncrementally() {
+
+        // Arrange
+        when(orderRepository.findCustomerProductsByOrderStatus(OrderStatus.FULFILLED)).thenReturn(List.of());
+        recommendationService.rebuild();
+        Product cheaperChicken = this.product(2, "Chicken Bowl", 400.0, "Savoury", ryansBowls);
+        Product newBowl = this.product(7, "Mushroom Bowl", 100.0, "savoury", danielsBowls);
+
+        // Act
+        recommendationService.orderFulfilled(10, List.of(1, 4));
+        // the same order handled again counts once
+        recommendationService.orderFulfilled(10, List.of(1, 4));
+        recommendationService.productChanged(cheaperChicken);
+        recommendationService.productChanged(newBowl);
+        recommendationService.productRemoved(products.get(4));
+
+        // Assert
+        List<SwapSuggestionDTO> responseSwaps = recommendationService.suggestSwaps(1, Set.of(), 5);
+        assertEquals(List.of(4, 7, 2), this.ids(responseSwaps));
+        assertEquals(1, responseSwaps.get(0).getCoPurchases());
+        assertEquals(List.of(7, 2), this.ids(recommendationService.suggestSwaps(4, Set.of(), 5)));
+    }
+
+    @Test
+    void testRebuild_QueriedAndChangedWhileLoading_OldIndexServedAndChangeKept() {
+
+        // Arrange
+        when(orderRepository.findCustomerProductsByOrderStatus(OrderStatus.FULFILLED)).thenReturn(List.of());
+        recommendationService.rebuild();
+        List<List<Integer>> servedWhileLoading = new ArrayList<>();
+        Product newBowl = this.product(7, "Mushroom Bowl", 100.0, "Savoury", danielsBowls);
+        when(productRepository.findAll()).thenAnswer(invocation -> {
+            servedWhileLoading.add(this.ids(recommendationService.suggestSwaps(1, Set.of(), 5)));
+            // saved after the rebuild read the table
+            recommendationService.productChanged(newBowl);
+            return products;
+        });
+
+        // Act
+        recommendationService.rebuild();
+
+        // Assert
+        assertEquals(List.of(List.of(5, 4, 2)), servedWhileLoading);
+        assertEquals(List.of(7, 5, 4, 2), this.ids(recommendationService.suggestSwaps(1, Set.of(), 5)));
+    }
+
+    @Test
+    void testOnProductsRecomputed_EmissionLowered_ProductMovesInItsGroup() {
+
+        // Arrange
+        when(orderRepository.findCustomerProductsByOrderStatus(OrderStatus.FULFILLED)).thenReturn(List.of());
+        recommendationService.rebuild();
+        Product chickenBowl = this.product(2, "Chicken Bowl", 400.0, "Savoury", ryansBowls);
+        when(productRepository.findAllById(Set.of(2))).thenReturn(List.of(chickenBowl));
+
+        // Act
+        recommendationService.onProductsRecomputed(new ProductsRecomputedEvent(Set.of(2)));
+
+        // Assert
+        assertEquals(List.of(2, 5, 4), this.ids(recommendationService.suggestSwaps(1, Set.of(), 5)));
+    }
+
+    @Test
+    void testSuggestSwaps_UnknownProduct_ThrowNotExistException() {
+
+        // Arrange
+        when(orderRepository.findCustomerProductsByOrderStatus(OrderStatus.FULFILLED)).thenReturn(List.of());
+        recommendationService.rebuild();
+
+        // Act
+        NotExistException exception = assertThrows(NotExistException.class,
+                () -> recommendationService.suggestSwaps(99, Set.of(), 5));
+
+        // Assert
+        assertEquals("Product doesn't exist!", exception.getMessage());
+    }
+
+    @Test
+    void testSuggestSwaps_LargeIndex_AnsweredUnderAMillisecond() {
+
+        // Arrange
+        // 20 categories of 500 products over 50 merchants, 2000 customers with 5 products each
+        products.clear();
+        List<Object[]> purchases = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            Category category = this.category("Category " + (i % 20), "Merchant " + (i % 50));
+            products.add(this.product(i, "Product " + i, (double) (i * 7919 % 10000), "Savoury", category));
+        }
+        for (int customer = 0; customer < 2000; customer++) {
+            for (int j = 0; j < 5; j++) {
+                purchases.add(new Object[] { customer, (customer * 31 + j * 977) % 10000 });
+            }
+        }
+        when(orderRepository.findCustomerProductsByOrderStatus(OrderStatus.FULFILLED)).thenReturn(purchases);
+        recommendationService.rebuild();
+        Set<String> preferences = Set.of("savoury");
+        for (int i = 0; i < 10000; i++) {
+            recommendationService.suggestSwaps(i, preferences, 5);
+        }
+
+        // Act
+        long start = System.nanoTime();
+        for (int i = 0; i < 10000; i++) {
+            recommendationService.suggestSwaps(i, preferences, 5);
+        }
+        long averageNanos = (System.nanoTime() - start) / 10000;
+
+        // Assert
+        assertTrue(averageNanos < 1_000_000, "average query took " + averageNanos + "ns");
+    }
+
+    private List<Integer> ids(List<SwapSuggestionDTO> swaps) {
+        return swaps.stream().map(SwapSuggestionDTO::getProductId).collect(Collectors.toList());
+    }
+
+    private Category category(String name, String merchantName) {
+        Merchant merchant = new Merchant();
+        merchant.setUsername(merchantName);
+        Category category = new Category();
+        category.setName(name);
+        category.setMerchant(merchant);
+        return category;
+    }
+
+    private Product product(Integer id, String name, Double carbonEmission, String flavourType, Category category) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(8.0);
+        product.setCarbonEmission(carbonEmission);
+        product.setFlavourType(flavourType);
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,204 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import me.plantngo.backend.DTO.SalesBackfillSummaryDTO;
+import me.plantngo.backend.models.Merchant;
+import me.plantngo.backend.models.Order;
+import me.plantngo.backend.models.OrderItem;
+import me.plantngo.backend.models.OrderStatus;
+import me.plantngo.backend.models.Product;
+import me.plantngo.backend.repositories.MerchantDailySalesRepository;
+import me.plantngo.backend.repositories.OrderRepository;
+import me.plantngo.backend.repositories.ProductDailySalesRepository;
+import me.plantngo.backend.repositories.RolledUpOrderRepository;
+
+@ExtendWith(MockitoExtension.class)
+class SalesRollupServiceTest {
+
+    @Mock
+    private MerchantDailySalesRepository merchantDailySalesRepository;
+
+    @Mock
+    private ProductDailySalesRepository productDailySalesRepository;
+
+    @Mock
+    private RolledUpOrderRepository rolledUpOrderRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private MerchantService merchantService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SalesRollupService salesRollupService;
+
+    private Merchant merchant;
+
+    private LocalDate orderDate;
+
+    @BeforeEach
+    void setUp() {
+        salesRollupService = new SalesRollupService(merchantDailySalesRepository, productDailySalesRepository,
+                rolledUpOrderRepository, orderRepository, merchantService, transactionManager, 2);
+
+        merchant = new Merchant();
+        merchant.setId(5);
+        merchant.setUsername("Daniel's Deli");
+        orderDate = LocalDate.of(2022, 10, 1);
+    }
+
+    @Test
+    void testRollUp_NewOrder_AddedWithRecordedEmissionsOnFulfilmentDay() {
+
+        // Arrange
+        Order order = this.order(1);
+        LocalDate fulfilledOn = orderDate.plusDays(2);
+        when(rolledUpOrderRepository.claim(eq(1), any())).thenReturn(1);
+
+        // Act
+        // the products have since been recomputed, the figures from the event are kept
+        boolean responseRolledUp = salesRollupService.rollUp(order, fulfilledOn, Map.of(10, 5000.0, 11, 500.0));
+
+        // Assert
+        assertTrue(responseRolledUp);
+        verify(productDailySalesRepository, times(1)).add(5, 10, fulfilledOn, 1, 2, 16.0, 5000.0);
+        verify(productDailySalesRepository, times(1)).add(5, 11, fulfilledOn, 1, 1, 5.0, 500.0);
+        verify(merchantDailySalesRepository, times(1)).createIfAbsent(5, fulfilledOn);
+        verify(merchantDailySalesRepository, times(1)).add(5, fulfilledOn, 1, 21.0, 5500.0);
+    }
+
+    @Test
+    void testRollUp_NoRecordedEmissions_WorkedOutFromProducts() {
+
+        // Arrange
+        Order order = this.order(1);
+        when(rolledUpOrderRepository.claim(eq(1), any())).thenReturn(1);
+
+        // Act
+        boolean responseRolledUp = salesRollupService.rollUp(order, orderDate, Map.of());
+
+        // Assert
+        assertTrue(responseRolledUp);
+        // (4000 - 1000) * 2 and (4000 - 3000) * 1
+        verify(productDailySalesRepository, times(1)).add(5, 10, orderDate, 1, 2, 16.0, 6000.0);
+        verify(productDailySalesRepository, times(1)).add(5, 11, orderDate, 1, 1, 5.0, 1000.0);
+        verify(merchantDailySalesRepository, times(1)).add(5, orderDate, 1, 21.0, 7000.0);
+    }
+
+    @Test
+    void testRollUp_AlreadyRolledUp_TotalsUnchanged() {
+
+        // Arrange
+        Order order = this.order(1);
+        when(rolledUpOrderRepository.claim(eq(1), any())).thenReturn(0);
+
+        // Act
+        boolean responseRolledUp = salesRollupService.rollUp(order, orderDate, Map.of());
+
+        // Assert
+        assertFalse(responseRolledUp);
+        verify(merchantDailySalesRepository, never()).add(anyInt(), any(), anyInt(), any(), any());
+        verify(productDailySalesRepository, never()).createIfAbsent(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void testBackfill_HistoricalOrders_ProcessedInChunks() {
+
+        // Arrange
+        Order first = this.order(1);
+        Order second = this.order(2);
+        Order third = this.order(3);
+        when(orderRepository.findByOrderStatusAndIdGreaterThanOrderByIdAsc(OrderStatus.FULFILLED, 0,
+                PageRequest.of(0, 2))).thenReturn(List.of(first, second));
+        when(orderRepository.findByOrderStatusAndIdGreaterThanOrderByIdAsc(OrderStatus.FULFILLED, 2,
+                PageRequest.of(0, 2))).thenReturn(List.of(third));
+        when(orderRepository.findByOrderStatusAndIdGreaterThanOrderByIdAsc(OrderStatus.FULFILLED, 3,
+                PageRequest.of(0, 2))).thenReturn(List.of());
+        when(rolledUpOrderRepository.claim(anyInt(), any())).thenReturn(1);
+        // the live consumer already added the second order
+        when(rolledUpOrderRepository.claim(eq(2), any())).thenReturn(0);
+
+        // Act
+        SalesBackfillSummaryDTO responseSummary = salesRollupService.backfill();
+
+        // Assert
+        assertEquals(new SalesBackfillSummaryDTO(3, 2, 1), responseSummary);
+        verify(merchantDailySalesRepository, times(2)).add(5, orderDate, 1, 21.0, 7000.0);
+    }
+
+    @Test
+    void testGetDailySales_NoRange_LastThirtyDays() {
+
+        // Arrange
+        LocalDate today = LocalDate.now();
+        when(merchantService.getMerchantByUsername("Daniel's Deli")).thenReturn(merchant);
+
+        // Act
+        salesRollupService.getDailySales("Daniel's Deli", null, null);
+
+        // Assert
+        verify(merchantDailySalesRepository, times(1))
+            .findByMerchantIdAndSalesDateBetweenOrderBySalesDateAsc(5, today.minusDays(29), today);
+    }
+
+    @Test
+    void testGetProductSales_FromAfterTo_ThrowIllegalArgumentException() {
+
+        // Arrange
+        when(merchantService.getMerchantByUsername("Daniel's Deli")).thenReturn(merchant);
+
+        // Act
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> salesRollupService.getProductSales("Daniel's Deli", orderDate, orderDate.minusDays(1)));
+
+        // Assert
+        assertEquals("from must not be after to", exception.getMessage());
+        verify(productDailySalesRepository, never()).sumByProduct(anyInt(), any(), any());
+    }
+
+    private Order order(Integer id) {
+        Product bowl = new Product();
+        bowl.setId(10);
+        bowl.setCarbonEmission(1000.0);
+        Product salad = new Product();
+        salad.setId(11);
+        salad.setCarbonEmission(3000.0);
+
+        Order order = new Order();
+        order.setId(id);
+        order.setMerchant(merchant);
+        order.setOrderStatus(OrderStatus.FULFILLED);
+        order.setOrderTime(LocalDateTime.of(2022, 10, 1, 12, 30));
+        order.setOrderItems(Set.of(new OrderItem(null, 10, 2, 16.0, order, bowl),
+                new OrderItem(null, 11, 1, 5.0, order, salad)));
+        return order;
+    }
+}
@@ -5,6 +5,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -21,6 +22,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.web.multipart.MultipartFile;
 
 import me.plantngo.backend.DTO.CategoryDTO;
@@ -57,6 +59,12 @@ class ShopServiceTest {
     @Mock
     private VoucherRepository voucherRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private VoucherStockService voucherStockService;
+
     @InjectMocks
     private ShopService shopService;
 
@@ -220,6 +228,49 @@ class ShopServiceTest {
         verify(voucherRepository, times(1)).findByIdAndMerchant(voucherId, merchant);
     }
 
+    @Test
+    void testRestockVoucher_LimitedVoucher_StockAdded() {
+
+        // Arrange
+        Integer voucherId = 1;
+        voucher.setStock(0);
+
+        when(voucherRepository.findByIdAndMerchant(any(Integer.class), any(Merchant.class)))
+            .thenReturn(Optional.of(voucher));
+        when(voucherRepository.addStock(voucherId, 10)).thenReturn(true);
+
+        // Act
+        shopService.restockVoucher(merchant, voucherId, 10);
+
+        // Assert
+        verify(voucherRepository, times(1)).addStock(voucherId, 10);
+        verify(voucherStockService, times(1)).restocked(voucherId, 10);
+    }
+
+    @Test
+    void testRestockVoucher_WithdrawMoreThanInStock_ThrowIllegalArgumentException() {
+
+        // Arrange
+        Integer voucherId = 1;
+        String exceptionMsg = "";
+        voucher.setStock(2);
+
+        when(voucherRepository.findByIdAndMerchant(any(Integer.class), any(Merchant.class)))
+            .thenReturn(Optional.of(voucher));
+        when(voucherRepository.addStock(voucherId, -5)).thenReturn(false);
+
+        // Act
+        try {
+            shopService.restockVoucher(merchant, voucherId, -5);
+        } catch (IllegalArgumentException e) {
+            exceptionMsg = e.getMessage();
+        }
+
+        // Assert
+        assertEquals("Cannot withdraw more units than are in stock.", exceptionMsg);
+        verify(voucherStockService, never()).restocked(any(Integer.class), any(Integer.class));
+    }
+
     @Test
     void testDeleteVoucher_VoucherExists_ReturnSuccess() {
 
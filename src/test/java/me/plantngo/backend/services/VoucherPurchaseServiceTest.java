@@ -1,15 +1,23 @@
 package me.plantngo.backend.services;
 
 import me.plantngo.backend.exceptions.AlreadyExistsException;
+import me.plantngo.backend.exceptions.CartCheckedOutException;
 import me.plantngo.backend.exceptions.InsufficientBalanceException;
 import me.plantngo.backend.exceptions.NotExistException;
+import me.plantngo.backend.exceptions.OutOfStockException;
 import me.plantngo.backend.models.Customer;
+import me.plantngo.backend.models.OutboxEventType;
 import me.plantngo.backend.models.Voucher;
 import me.plantngo.backend.repositories.CustomerRepository;
 import me.plantngo.backend.repositories.VoucherRepository;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -17,11 +25,13 @@ import static org.mockito.Mockito.when;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -35,6 +45,15 @@ class VoucherPurchaseServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private GreenPointsService greenPointsService;
+
+    @Mock
+    private VoucherStockService voucherStockService;
+
+    @Mock
+    private OutboxService outboxService;
+
     @InjectMocks
     private VoucherPurchaseService voucherPurchaseService;
 
@@ -80,6 +99,7 @@ class VoucherPurchaseServiceTest {
 
         // One voucher that both Daniel and Emil owns
         voucher = new Voucher();
+        voucher.setId(2);
         voucher.setCustomersThatOwn(customers);
         singleVoucher = new HashSet<>();
         singleVoucher.add(voucher);
@@ -89,6 +109,7 @@ class VoucherPurchaseServiceTest {
 
         // One voucher that both Daniel and Emil owns
         voucher = new Voucher();
+        voucher.setId(3);
         voucher.setCustomersThatOwn(customers);
         allVouchers.add(voucher);
         
@@ -203,9 +224,9 @@ class VoucherPurchaseServiceTest {
         String exceptionMsg = "";
         Customer customer = customers.get(1);
         Voucher voucher = new Voucher();
-        List<Voucher> expectedVouchers = allVouchers;
+        voucher.setId(99);
 
-        when(voucherRepository.findAll()).thenReturn(expectedVouchers);
+        when(voucherRepository.existsInCatalogue(99)).thenReturn(false);
 
         try {
             voucherPurchaseService.addToCart(customer, voucher);
@@ -213,7 +234,8 @@ class VoucherPurchaseServiceTest {
             exceptionMsg = e.getMessage();
         }
         assertEquals("Voucher doesn't exist!", exceptionMsg);
-        verify(voucherRepository, times(1)).findAll();
+        verify(voucherRepository, times(1)).existsInCatalogue(99);
+        verify(voucherRepository, never()).findAll();
 
     }
 
@@ -226,7 +248,7 @@ class VoucherPurchaseServiceTest {
         // Retrieve voucher that is already in cart
         Voucher voucher = allVouchers.get(0);
         customer.setVouchersCart(Set.of(voucher));
-        when(voucherRepository.findAll()).thenReturn(List.of(voucherInCart));
+        when(voucherRepository.existsInCatalogue(1)).thenReturn(true);
 
         // Act
         try {
@@ -237,7 +259,7 @@ class VoucherPurchaseServiceTest {
 
         // Assert
         assertEquals("Voucher already exists!", exceptionMsg);
-        verify(voucherRepository, times(1)).findAll();
+        verify(voucherRepository, times(1)).existsInCatalogue(1);
 
     }
 
@@ -254,7 +276,7 @@ class VoucherPurchaseServiceTest {
         Set<Voucher> voucherSet = new HashSet<>();
         voucherSet.add(voucher);
 
-        when(voucherRepository.findAll()).thenReturn(allVouchers);
+        when(voucherRepository.existsInCatalogue(1)).thenReturn(true);
 
         // Act
         voucherPurchaseService.addToCart(customer, voucher);
@@ -264,7 +286,7 @@ class VoucherPurchaseServiceTest {
         assertEquals(customer.getVouchersCart().contains(voucher), voucherSet.contains(voucher));
         // assert
         // assertEquals(customer.getVouchersCart(), voucherSet);
-        verify(voucherRepository, times(1)).findAll();
+        verify(voucherRepository, times(1)).existsInCatalogue(1);
 
     }
 
@@ -340,9 +362,9 @@ class VoucherPurchaseServiceTest {
         String exceptionMsg = "";
         Customer customer = customers.get(1);
         Voucher voucher = new Voucher();
-        List<Voucher> expectedVouchers = allVouchers;
+        voucher.setId(99);
 
-        when(voucherRepository.findAll()).thenReturn(expectedVouchers);
+        when(voucherRepository.existsInCatalogue(99)).thenReturn(false);
 
         try {
             voucherPurchaseService.addOwnedVoucher(customer, voucher);
@@ -350,7 +372,8 @@ class VoucherPurchaseServiceTest {
             exceptionMsg = e.getMessage();
         }
         assertEquals("Voucher doesn't exist!", exceptionMsg);
-        verify(voucherRepository, times(1)).findAll();
+        verify(voucherRepository, times(1)).existsInCatalogue(99);
+        verify(voucherRepository, never()).findAll();
 
     }
 
@@ -365,7 +388,7 @@ class VoucherPurchaseServiceTest {
         Set<Voucher> voucherSet = new HashSet<>();
         voucherSet.add(voucher);
         customer.setVouchersCart(voucherSet);
-        when(voucherRepository.findAll()).thenReturn(allVouchers);
+        when(voucherRepository.existsInCatalogue(2)).thenReturn(true);
 
         // Act
         try {
@@ -376,7 +399,7 @@ class VoucherPurchaseServiceTest {
 
         // Assert
         assertEquals("Voucher already exists!", exceptionMsg);
-        verify(voucherRepository, times(1)).findAll();
+        verify(voucherRepository, times(1)).existsInCatalogue(2);
 
     }
 
@@ -385,7 +408,7 @@ class VoucherPurchaseServiceTest {
         // Arrange
         Voucher voucher = voucherInCart;
         Customer customer = customers.get(1);
-        when(voucherRepository.findAll()).thenReturn(allVouchers);
+        when(voucherRepository.existsInCatalogue(1)).thenReturn(true);
         
         // Act
         voucherPurchaseService.addOwnedVoucher(customer, voucher);
@@ -398,6 +421,58 @@ class VoucherPurchaseServiceTest {
         // assertEquals(vouchersOwned, customer.getOwnedVouchers());
     }
 
+    @Test
+    void testAddOwnedVoucher_LimitedVoucherInCart_StockTakenAndHoldConsumed(){
+        // Arrange
+        Voucher voucher = voucherInCart;
+        voucher.setStock(3);
+        Customer customer = customers.get(1);
+        customer.setId(2);
+        when(voucherRepository.existsInCatalogue(1)).thenReturn(true);
+        when(voucherRepository.takeStock(List.of(1))).thenReturn(1);
+
+        // Act
+        voucherPurchaseService.addOwnedVoucher(customer, voucher);
+
+        // Assert
+        assert(voucher.getCustomersThatOwn().contains(customer));
+        verify(voucherStockService, times(1)).claim(2, List.of(1));
+        verify(voucherStockService, times(1)).consumeAfterCommit(2, List.of(1));
+        verify(voucherStockService, never()).release(any(), any());
+    }
+
+    @Test
+    void testAddOwnedVoucher_LimitedVoucherSoldOut_ThrowOutOfStockExceptionAndReleaseHold(){
+        // Arrange
+        Voucher voucher = allVouchers.get(2);
+        voucher.setStock(0);
+        Customer customer = customers.get(0);
+        customer.setId(1);
+        when(voucherRepository.existsInCatalogue(3)).thenReturn(true);
+        when(voucherRepository.takeStock(List.of(3))).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(OutOfStockException.class, () -> voucherPurchaseService.addOwnedVoucher(customer, voucher));
+        verify(voucherStockService, times(1)).release(1, 3);
+        verify(customerRepository, never()).saveAndFlush(any());
+        verify(voucherStockService, never()).consumeAfterCommit(any(), any());
+    }
+
+    @Test
+    void testGetAddToCart_SaveFails_HoldReleased() {
+        // Arrange
+        Customer customer = customers.get(0);
+        customer.setId(1);
+        Voucher voucher = allVouchers.get(0);
+        when(voucherRepository.existsInCatalogue(1)).thenReturn(true);
+        when(voucherRepository.saveAndFlush(voucher)).thenThrow(new IllegalStateException("Connection lost"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> voucherPurchaseService.addToCart(customer, voucher));
+        verify(voucherStockService, times(1)).reserve(1, voucher);
+        verify(voucherStockService, times(1)).release(1, 1);
+    }
+
     // purchaseVouchers
     @Test
     void testPurchaseVouchers_InsufficientBalance_ThrowInsufficientBalanceException() {
@@ -405,8 +480,10 @@ class VoucherPurchaseServiceTest {
         // Retrieve Customer Emil
         String exceptionMsg = "";
         Customer customer = customers.get(1);
-        Voucher voucher = voucherInCart;
-        voucher.setValue(1);
+        customer.setId(2);
+        when(customerRepository.sumCartValue(2)).thenReturn(1L);
+        when(greenPointsService.spendPoints(customer, 1, "voucher-purchase", "voucher-purchase:customer:2:after:0"))
+            .thenThrow(new InsufficientBalanceException());
     
         // Act
         try {
@@ -417,29 +494,107 @@ class VoucherPurchaseServiceTest {
 
         // Assert
         assertEquals("Insufficient Green Points", exceptionMsg);
-
+        verify(customerRepository, never()).copyCartToOwnership(any());
+        verify(customerRepository, never()).clearCart(any());
     }
 
     @Test
     void testPurchaseVouchers(){
         // Arrange
         Customer customer = customers.get(1);
-        customer.setGreenPoints(2);
-        Voucher voucher = voucherInCart;
-        voucher.setValue(1);
+        customer.setId(2);
+        when(greenPointsService.getLastEntryId(customer)).thenReturn(5);
+        when(customerRepository.sumCartValue(2)).thenReturn(1L);
+        when(greenPointsService.spendPoints(customer, 1, "voucher-purchase", "voucher-purchase:customer:2:after:5"))
+            .thenReturn(true);
+        when(customerRepository.clearCart(2)).thenReturn(1);
 
         // Act
         voucherPurchaseService.purchaseVouchers(customer);
 
         // Assert
-        assert(customer.getVouchersCart().isEmpty());
-        assertEquals(1, customer.getGreenPoints());
-        assert(customer.getVouchersCart().isEmpty());
-        vouchersOwned.add(voucher);
-        assertEquals(vouchersOwned, customer.getOwnedVouchers());
-        assert(voucher.getCustomersThatOwn().contains(customer));
+        InOrder inOrder = inOrder(customerRepository, greenPointsService);
+        inOrder.verify(greenPointsService).getLastEntryId(customer);
+        inOrder.verify(customerRepository).sumCartValue(2);
+        inOrder.verify(greenPointsService).spendPoints(customer, 1, "voucher-purchase", "voucher-purchase:customer:2:after:5");
+        inOrder.verify(customerRepository).copyCartToOwnership(2);
+        inOrder.verify(customerRepository).clearCart(2);
+        verify(customerRepository, never()).save(any(Customer.class));
+        verify(outboxService, times(1)).publish(OutboxEventType.VOUCHERS_PURCHASED, null, 2, Map.of("points", 1L));
+    }
+
+    @Test
+    void testPurchaseVouchers_CartBoughtByConcurrentCheckout_ThrowCartCheckedOutException(){
+        // Arrange
+        Customer customer = customers.get(1);
+        customer.setId(2);
+        when(customerRepository.sumCartValue(2)).thenReturn(1L);
+        when(greenPointsService.spendPoints(customer, 1, "voucher-purchase", "voucher-purchase:customer:2:after:0"))
+            .thenReturn(true);
+        when(customerRepository.clearCart(2)).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(CartCheckedOutException.class,
+                () -> voucherPurchaseService.purchaseVouchers(customer));
+        verify(voucherStockService, never()).consumeAfterCommit(any(), any());
+        verify(outboxService, never()).publish(any(), any(), any(), any());
+    }
+
+    @Test
+    void testPurchaseVouchers_EmptyCart_ThrowCartCheckedOutException(){
+        // Arrange
+        Customer customer = customers.get(1);
+        customer.setId(2);
+        when(customerRepository.sumCartValue(2)).thenReturn(0L);
+
+        // Act & Assert
+        assertThrows(CartCheckedOutException.class,
+                () -> voucherPurchaseService.purchaseVouchers(customer));
+        verify(greenPointsService, never()).spendPoints(any(), anyInt(), anyString(), any());
+        verify(customerRepository, never()).copyCartToOwnership(any());
     }
 
+    @Test
+    void testPurchaseVouchers_DebitAlreadyRecordedByParallelCheckout_ThrowCartCheckedOutException(){
+        // Arrange
+        Customer customer = customers.get(1);
+        customer.setId(2);
+        when(customerRepository.sumCartValue(2)).thenReturn(1L);
+        when(greenPointsService.spendPoints(customer, 1, "voucher-purchase", "voucher-purchase:customer:2:after:0"))
+            .thenReturn(false);
+
+        // Act & Assert
+        assertThrows(CartCheckedOutException.class,
+                () -> voucherPurchaseService.purchaseVouchers(customer));
+        verify(customerRepository, never()).copyCartToOwnership(any());
+        verify(outboxService, never()).publish(any(), any(), any(), any());
+    }
+
+
+    @Test
+    void testPurchaseVouchers_LimitedVoucherSoldOut_ThrowOutOfStockException(){
+        // Arrange
+        String exceptionMsg = "";
+        Customer customer = customers.get(1);
+        customer.setId(2);
+        when(customerRepository.sumCartValue(2)).thenReturn(1L);
+        when(voucherRepository.findLimitedVoucherIdsInCart(2)).thenReturn(List.of(3));
+        when(voucherRepository.takeStock(List.of(3))).thenReturn(0);
+
+        // Act
+        try {
+            voucherPurchaseService.purchaseVouchers(customer);
+        } catch (OutOfStockException e) {
+            exceptionMsg = e.getMessage();
+        }
+
+        // Assert
+        assertEquals("Voucher is out of stock", exceptionMsg);
+        verify(voucherStockService, times(1)).claim(2, List.of(3));
+        verify(greenPointsService, never()).spendPoints(any(), anyInt(), anyString(), any());
+        verify(customerRepository, never()).copyCartToOwnership(any());
+        verify(voucherStockService, never()).consumeAfterCommit(any(), any());
+    }
 
     // deleteOwnedVoucher
     @Test
@@ -0,0 +1,172 @@
+package me.plantngo.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import me.plantngo.backend.exceptions.OutOfStockException;
+import me.plantngo.backend.models.Voucher;
+import me.plantngo.backend.repositories.VoucherRepository;
+
+@ExtendWith(MockitoExtension.class)
+class VoucherStockServiceTest {
+
+    @Mock
+    private VoucherRepository voucherRepository;
+
+    private VoucherStockService voucherStockService;
+
+    private Voucher voucher;
+
+    @BeforeEach
+    void setUp() {
+        voucherStockService = new VoucherStockService(voucherRepository, 15);
+
+        voucher = new Voucher();
+        voucher.setId(1);
+        voucher.setStock(2);
+    }
+
+    @Test
+    void testReserve_FlashSale_NeverMoreHoldsThanStock() throws Exception {
+
+        // Arrange
+        voucher.setStock(50);
+        when(voucherRepository.findStockById(1)).thenReturn(50);
+        int customers = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < customers; i++) {
+            int customerId = i;
+            Callable<Boolean> reserve = () -> {
+                start.await();
+                try {
+                    voucherStockService.reserve(customerId, voucher);
+                    return true;
+                } catch (OutOfStockException e) {
+                    return false;
+                }
+            };
+            results.add(executor.submit(reserve));
+        }
+        start.countDown();
+        int held = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                held++;
+            }
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(50, held);
+        verify(voucherRepository, times(1)).findStockById(1);
+    }
+
+    @Test
+    void testReserve_SameCustomerTwice_HoldsOneUnit() {
+
+        // Arrange
+        when(voucherRepository.findStockById(1)).thenReturn(2);
+
+        // Act
+        voucherStockService.reserve(1, voucher);
+        voucherStockService.reserve(1, voucher);
+
+        // Assert
+        assertDoesNotThrow(() -> voucherStockService.reserve(2, voucher));
+        assertThrows(OutOfStockException.class, () -> voucherStockService.reserve(3, voucher));
+    }
+
+    @Test
+    void testRelease_HeldUnit_AvailableToOthers() {
+
+        // Arrange
+        when(voucherRepository.findStockById(1)).thenReturn(1);
+        voucherStockService.reserve(1, voucher);
+
+        // Act
+        voucherStockService.release(1, 1);
+
+        // Assert
+        assertDoesNotThrow(() -> voucherStockService.reserve(2, voucher));
+    }
+
+    @Test
+    void testReleaseExpired_HoldPastTtl_UnitGivenBack() {
+
+        // Arrange
+        voucherStockService = new VoucherStockService(voucherRepository, 0);
+        when(voucherRepository.findStockById(1)).thenReturn(1);
+        voucherStockService.reserve(1, voucher);
+
+        // Act
+        voucherStockService.releaseExpired();
+
+        // Assert
+        assertDoesNotThrow(() -> voucherStockService.reserve(2, voucher));
+    }
+
+    @Test
+    void testConsumeAfterCommit_Sold_UnitNotGivenBack() {
+
+        // Arrange
+        when(voucherRepository.findStockById(1)).thenReturn(1);
+        voucherStockService.reserve(1, voucher);
+
+        // Act
+        voucherStockService.consumeAfterCommit(1, List.of(1));
+        voucherStockService.release(1, 1);
+
+        // Assert
+        assertThrows(OutOfStockException.class, () -> voucherStockService.reserve(2, voucher));
+    }
+
+    @Test
+    void testClaim_HoldExpiredAndSoldOut_ThrowOutOfStockException() {
+
+        // Arrange
+        voucherStockService = new VoucherStockService(voucherRepository, 0);
+        when(voucherRepository.findStockById(1)).thenReturn(1);
+        voucherStockService.reserve(1, voucher);
+        voucherStockService.releaseExpired();
+        voucherStockService.reserve(2, voucher);
+
+        // Act & Assert
+        assertThrows(OutOfStockException.class, () -> voucherStockService.claim(1, List.of(1)));
+    }
+
+    @Test
+    void testReserve_UnlimitedVoucher_NothingHeld() {
+
+        // Arrange
+        voucher.setStock(null);
+
+        // Act
+        voucherStockService.reserve(1, voucher);
+
+        // Assert
+        verify(voucherRepository, never()).findStockById(1);
+    }
+}